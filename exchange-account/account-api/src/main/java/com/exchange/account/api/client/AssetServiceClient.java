@@ -1,7 +1,9 @@
 package com.exchange.account.api.client;
 
 import com.exchange.account.api.dto.AssetDTO;
+import com.exchange.account.api.dto.BatchFreezeReq;
 import com.exchange.account.api.dto.FreezeReq;
+import com.exchange.common.response.ApiResponse;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -39,6 +41,13 @@ public interface AssetServiceClient {
     @PostMapping("/freeze")
     void freezeAsset(@RequestBody FreezeReq req);
 
+    /**
+     * 批量冻结（单用户多委托，原子：任一子项余额不足整批拒绝）。
+     * 业务失败以 HTTP 200 + 错误码返回，调用方须检查 {@link ApiResponse#isSuccess()}。
+     */
+    @PostMapping("/batch-freeze")
+    ApiResponse<Void> batchFreeze(@RequestBody BatchFreezeReq req);
+
     /**
      * 解冻资产（撤单释放）
      */
@@ -10,7 +10,13 @@ import lombok.Data;
 
 import java.time.LocalDateTime;
 
-/** 资金流水查询请求（分页） */
+/**
+ * 资金流水查询请求（分页）。
+ *
+ * <p>翻页用游标（keyset）：首页不传游标，下一页把上一页最后一条的 {@code createTime / flowId}
+ * 作为 {@code cursorCreateTime / cursorFlowId} 传回，两者必须同时传入或同时不传。传了游标时忽略 {@code page}。
+ * {@code page} 仅为兼容保留（OFFSET，深翻页退化，不建议使用）。
+ */
 @Data
 @Schema(description = "资金流水查询请求")
 public class FundFlowQueryReq {
@@ -34,8 +40,14 @@ public class FundFlowQueryReq {
     @Schema(description = "查询结束时间")
     private LocalDateTime endTime;
 
+    @Schema(description = "游标：上一页最后一条的 createTime（与 cursorFlowId 成对传入）")
+    private LocalDateTime cursorCreateTime;
+
+    @Schema(description = "游标：上一页最后一条的 flowId（与 cursorCreateTime 成对传入）")
+    private Long cursorFlowId;
+
     @Min(1)
-    @Schema(description = "页码", defaultValue = "1")
+    @Schema(description = "页码（兼容 OFFSET 翻页；传游标时忽略）", defaultValue = "1")
     private int page = 1;
 
     @Min(1)
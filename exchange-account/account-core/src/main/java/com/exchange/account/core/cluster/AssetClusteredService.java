@@ -6,7 +6,13 @@ import com.exchange.account.api.enums.FundFlowType;
 import com.exchange.account.core.cluster.event.AssetEventPublisher;
 import com.exchange.account.core.cluster.ledger.Balance;
 import com.exchange.account.core.cluster.ledger.BalanceLedger;
+import com.exchange.account.core.cluster.ledger.LedgerSnapshot;
+import com.exchange.account.core.cluster.protocol.AssetCodec;
 import com.exchange.account.core.cluster.protocol.AssetMsgType;
+import com.exchange.account.core.cluster.protocol.BalanceOpCodec;
+import com.exchange.account.core.cluster.protocol.BatchFreezeCodec;
+import com.exchange.account.core.cluster.protocol.BatchSettleCodec;
+import com.exchange.account.core.cluster.protocol.TransferCodec;
 import com.exchange.account.core.cluster.ledger.BalanceLedger.FreezeItem;
 import com.exchange.common.event.CoreSystemEvent;
 import com.exchange.common.event.SystemEventReporter;
@@ -23,9 +29,12 @@ import io.aeron.cluster.codecs.CloseReason;
 import io.aeron.cluster.service.ClientSession;
 import io.aeron.cluster.service.Cluster;
 import io.aeron.cluster.service.ClusteredService;
+import io.aeron.logbuffer.BufferClaim;
 import io.aeron.logbuffer.Header;
 import lombok.extern.slf4j.Slf4j;
 import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 
 import java.io.IOException;
@@ -59,7 +68,9 @@ import java.util.Map;
  *
  * <h3>消息格式（Ingress）</h3>
  * <pre>
- *   [1 byte msgType][JSON body]
+ *   [1 byte msgType][二进制 body]   FREEZE / UNFREEZE / BATCH_FREEZE / BATCH_SETTLE(_AND_RELEASE)
+ *                                   / CREDIT / DEBIT / INTERNAL_TRANSFER（见 {@link AssetCodec}）
+ *   [1 byte msgType][JSON body]     查询类消息；以及 Raft 日志中的旧格式条目（重放兼容）
  *   JSON 中必须包含 "correlationId" 和 "accountType" 字段。
  * </pre>
  *
@@ -94,11 +105,21 @@ public class AssetClusteredService implements ClusteredService {
     /** 运行时状态快照（Service Thread 单写，HTTP 线程读）。可为 null（测试）。 */
     private final ClusterRuntimeStatus runtimeStatus;
 
+    /** 本地余额读通道（不经 Raft 日志）。可为 null（测试 / 未启用）。 */
+    private final LocalBalanceReader localReader;
+
     private Cluster cluster;
     private long    evictTimerCorrelationId = -1L;
 
     private final UnsafeBuffer egressBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(65536));
 
+    // ── 二进制解码 flyweight（Service Thread 单线程复用）────────────────
+    private final BalanceOpCodec   balanceOpDecoder   = new BalanceOpCodec();
+    private final TransferCodec    transferDecoder    = new TransferCodec();
+    private final BatchFreezeCodec batchFreezeDecoder = new BatchFreezeCodec();
+    private final BatchSettleCodec batchSettleDecoder = new BatchSettleCodec();
+    private final AssetCodec.AssetCodeInterner assetInterner = new AssetCodec.AssetCodeInterner();
+
     /** 便捷/测试构造:统一 scale=8(覆盖 BTC/USDT 等主流精度)。生产请用显式 registry 构造。 */
     public AssetClusteredService(BalanceLedger ledger, AssetEventPublisher eventPublisher) {
         this(ledger, eventPublisher, SystemEventReporter.noop(), null, AssetScaleRegistry.uniform(8));
@@ -119,6 +140,15 @@ public class AssetClusteredService implements ClusteredService {
                                  SystemEventReporter eventReporter,
                                  ClusterRuntimeStatus runtimeStatus,
                                  AssetScaleRegistry scaleRegistry) {
+        this(ledger, eventPublisher, eventReporter, runtimeStatus, scaleRegistry, null);
+    }
+
+    public AssetClusteredService(BalanceLedger ledger, AssetEventPublisher eventPublisher,
+                                 SystemEventReporter eventReporter,
+                                 ClusterRuntimeStatus runtimeStatus,
+                                 AssetScaleRegistry scaleRegistry,
+                                 LocalBalanceReader localReader) {
+        this.localReader    = localReader;
         this.ledger         = ledger;
         this.eventPublisher = eventPublisher;
         this.eventReporter  = eventReporter != null ? eventReporter : SystemEventReporter.noop();
@@ -151,6 +181,15 @@ public class AssetClusteredService implements ClusteredService {
         }
         evictTimerCorrelationId = cluster.time();
         cluster.scheduleTimer(evictTimerCorrelationId, cluster.time() + EVICT_INTERVAL_MS);
+        if (localReader != null) localReader.attach();
+    }
+
+    /**
+     * 两条日志之间处理本地余额读（{@link LocalBalanceReader}），读请求不进 Raft 日志。
+     */
+    @Override
+    public int doBackgroundWork(long nowNs) {
+        return localReader != null ? localReader.drain(ledger) : 0;
     }
 
     @Override
@@ -173,19 +212,21 @@ public class AssetClusteredService implements ClusteredService {
                                  Header header) {
         if (length < 1) return;
         final byte msgType = buffer.getByte(offset);
-        final int  jsonLen = length - 1;
+        final int  bodyLen = length - 1;
         try {
             switch (msgType) {
-                case AssetMsgType.FREEZE               -> handleFreeze(session, timestamp, buffer, offset + 1, jsonLen);
-                case AssetMsgType.UNFREEZE             -> handleUnfreeze(session, timestamp, buffer, offset + 1, jsonLen);
-                case AssetMsgType.SETTLE_TRADE         -> handleSettle(session, timestamp, buffer, offset + 1, jsonLen);
-                case AssetMsgType.BALANCE_QUERY        -> handleBalanceQuery(session, buffer, offset + 1, jsonLen);
-                case AssetMsgType.BATCH_FREEZE         -> handleBatchFreeze(session, timestamp, buffer, offset + 1, jsonLen);
-                case AssetMsgType.BATCH_SETTLE         -> handleBatchSettle(session, timestamp, buffer, offset + 1, jsonLen);
-                case AssetMsgType.MATCH_POSITION_QUERY -> handleMatchPositionQuery(session, buffer, offset + 1, jsonLen);
-                case AssetMsgType.CREDIT               -> handleCredit(session, timestamp, buffer, offset + 1, jsonLen);
-                case AssetMsgType.DEBIT                -> handleDebit(session, timestamp, buffer, offset + 1, jsonLen);
-                case AssetMsgType.INTERNAL_TRANSFER    -> handleInternalTransfer(session, timestamp, buffer, offset + 1, jsonLen);
+                case AssetMsgType.FREEZE               -> handleFreeze(session, timestamp, buffer, offset + 1, bodyLen);
+                case AssetMsgType.UNFREEZE             -> handleUnfreeze(session, timestamp, buffer, offset + 1, bodyLen);
+                case AssetMsgType.SETTLE_TRADE         -> handleSettle(session, timestamp, buffer, offset + 1, bodyLen);
+                case AssetMsgType.BALANCE_QUERY        -> handleBalanceQuery(session, buffer, offset + 1, bodyLen);
+                case AssetMsgType.BATCH_FREEZE         -> handleBatchFreeze(session, timestamp, buffer, offset + 1, bodyLen);
+                case AssetMsgType.FREEZE_COALESCED     -> handleFreezeCoalesced(session, timestamp, buffer, offset + 1, bodyLen);
+                case AssetMsgType.BATCH_SETTLE         -> handleBatchSettle(session, timestamp, buffer, offset + 1, bodyLen);
+                case AssetMsgType.BATCH_SETTLE_AND_RELEASE -> handleBatchSettle(session, timestamp, buffer, offset + 1, bodyLen);
+                case AssetMsgType.MATCH_POSITION_QUERY -> handleMatchPositionQuery(session, buffer, offset + 1, bodyLen);
+                case AssetMsgType.CREDIT               -> handleCredit(session, timestamp, buffer, offset + 1, bodyLen);
+                case AssetMsgType.DEBIT                -> handleDebit(session, timestamp, buffer, offset + 1, bodyLen);
+                case AssetMsgType.INTERNAL_TRANSFER    -> handleInternalTransfer(session, timestamp, buffer, offset + 1, bodyLen);
                 default -> log.warn("[AssetCluster] Unknown msgType=0x{}", Integer.toHexString(msgType & 0xFF));
             }
         } catch (IllegalStateException e) {
@@ -250,49 +291,37 @@ public class AssetClusteredService implements ClusteredService {
 
     private void handleFreeze(ClientSession session, long timestamp,
                               DirectBuffer buffer, int offset, int length) throws IOException {
-        JsonNode    req           = parseJson(buffer, offset, length);
-        String      correlationId = req.path("correlationId").asText("");
-        Long        userId        = req.get("userId").asLong();
-        AccountType accountType   = parseAccountType(req, AccountType.SPOT);
-        String      asset         = req.get("asset").asText();
-        BigDecimal  amt           = new BigDecimal(req.get("amount").asText());
-        long        amtRaw        = toRaw(amt, asset);
-        String      orderId       = req.get("orderId").asText();
+        BalanceOpReq op            = parseBalanceOp(buffer, offset, length, "FREEZE", false, "orderId", null);
+        String       correlationId = op.correlationId();
+        Long         userId        = op.userId();
+        AccountType  accountType   = op.accountType();
+        String       asset         = op.asset();
+        long         amtRaw        = op.amount();
+        String       orderId       = op.bizNo();
 
         checkBizNoExpiry(orderId, timestamp, "FREEZE");
         long seqBefore = ledger.currentSeq();
         ledger.freeze(userId, accountType, asset, amtRaw, orderId, timestamp);
 
         if (ledger.currentSeq() > seqBefore) {   // 实际执行(非幂等跳过)才发事件,保证 seq 无洞
-            Balance snap = ledger.getBalance(userId, accountType, asset);
-            publishIfLeader(AssetStateChangeEvent.builder()
-                    .eventId("FREEZE:" + orderId + ":" + userId + ":" + accountType + ":" + asset)
-                    .eventType("FREEZE")
-                    .userId(userId).accountType(accountType).asset(asset)
-                    .available(toBd(snap.getAvailable(), asset)).frozen(toBd(snap.getFrozen(), asset))
-                    .amount(toBd(Math.negateExact(amtRaw), asset))
-                    .flowType(FundFlowType.FREEZE)
-                    .bizNo(orderId).remark("freeze for order")
-                    .seq(ledger.currentSeq())
-                    .clusterTimestamp(timestamp).build());
+            publishFreezeEvent(userId, accountType, asset, amtRaw, orderId, timestamp);
         }
 
         sendEgress(session, AssetMsgType.FREEZE_OK,
                 "{\"correlationId\":\"" + correlationId + "\",\"orderId\":\"" + orderId + "\",\"status\":\"OK\"}");
-        log.debug("[AssetCluster] FREEZE OK userId={} accountType={} asset={} amount={}",
-                userId, accountType, asset, amt);
+        log.debug("[AssetCluster] FREEZE OK userId={} accountType={} asset={} amountRaw={}",
+                userId, accountType, asset, amtRaw);
     }
 
     private void handleUnfreeze(ClientSession session, long timestamp,
                                 DirectBuffer buffer, int offset, int length) throws IOException {
-        JsonNode    req           = parseJson(buffer, offset, length);
-        String      correlationId = req.path("correlationId").asText("");
-        Long        userId        = req.get("userId").asLong();
-        AccountType accountType   = parseAccountType(req, AccountType.SPOT);
-        String      asset         = req.get("asset").asText();
-        BigDecimal  amt           = new BigDecimal(req.get("amount").asText());
-        long        amtRaw        = toRaw(amt, asset);
-        String      orderId       = req.get("orderId").asText();
+        BalanceOpReq op            = parseBalanceOp(buffer, offset, length, "UNFREEZE", false, "orderId", null);
+        String       correlationId = op.correlationId();
+        Long         userId        = op.userId();
+        AccountType  accountType   = op.accountType();
+        String       asset         = op.asset();
+        long         amtRaw        = op.amount();
+        String       orderId       = op.bizNo();
 
         // 撤单解冻不做超时校验：orderId 可能是老单，时间超 30min 也需解冻
         long seqBefore = ledger.currentSeq();
@@ -314,8 +343,8 @@ public class AssetClusteredService implements ClusteredService {
 
         sendEgress(session, AssetMsgType.UNFREEZE_OK,
                 "{\"correlationId\":\"" + correlationId + "\",\"orderId\":\"" + orderId + "\",\"status\":\"OK\"}");
-        log.debug("[AssetCluster] UNFREEZE OK userId={} accountType={} asset={} amount={}",
-                userId, accountType, asset, amt);
+        log.debug("[AssetCluster] UNFREEZE OK userId={} accountType={} asset={} amountRaw={}",
+                userId, accountType, asset, amtRaw);
     }
 
     private void handleSettle(ClientSession session, long timestamp,
@@ -387,25 +416,84 @@ public class AssetClusteredService implements ClusteredService {
     // 批量 Handlers
     // =========================================================================
 
+    /**
+     * FREEZE_COALESCED：Gateway 合并的多笔单用户冻结，逐项按单笔 FREEZE 语义独立执行。
+     *
+     * <p>与 BATCH_FREEZE 的区别：不是整体原子，某项余额不足 / 过期只失败该项，
+     * 其余照常冻结；执行顺序即子项顺序，结果按同一顺序返回，各调用方各取其一。
+     * 每项的错误处理与单笔 FREEZE 一致：业务错误回该项的消息，其它异常回 internal error；
+     * 冻结已入账而事件发布失败时该项仍为成功（与账本一致），只记错误日志。
+     */
+    private void handleFreezeCoalesced(ClientSession session, long timestamp,
+                                       DirectBuffer buffer, int offset, int length) {
+        BatchFreezeCodec req = batchFreezeDecoder.wrap(buffer, offset);
+        String correlationId = AssetCodec.correlationIdText(req.correlationId());
+        Long   userId        = req.userId();
+        List<FreezeItem> items = new ArrayList<>();
+        req.decodeItems(assetInterner, items);
+
+        StringBuilder errors = new StringBuilder("[");
+        int failed = 0;
+        for (int i = 0; i < items.size(); i++) {
+            FreezeItem item = items.get(i);
+            if (i > 0) errors.append(',');
+            long seqBefore = ledger.currentSeq();
+            try {
+                checkBizNoExpiry(item.orderId(), timestamp, "FREEZE");
+                ledger.freeze(userId, item.accountType(), item.asset(), item.amount(), item.orderId(), timestamp);
+            } catch (IllegalStateException e) {
+                failed++;
+                log.warn("[AssetCluster] FREEZE_COALESCED item failed orderId={}: {}", item.orderId(), e.getMessage());
+                errors.append('"').append(jsonText(e.getMessage())).append('"');
+                continue;
+            } catch (Exception e) {
+                failed++;
+                log.error("[AssetCluster] FREEZE_COALESCED item error orderId={}", item.orderId(), e);
+                errors.append("\"internal error\"");
+                continue;
+            }
+            if (ledger.currentSeq() > seqBefore) {   // 实际执行(非幂等跳过)才发事件,保证 seq 无洞
+                try {
+                    publishFreezeEvent(userId, item.accountType(), item.asset(), item.amount(), item.orderId(), timestamp);
+                } catch (Exception e) {
+                    log.error("[AssetCluster] FREEZE_COALESCED event publish failed orderId={}", item.orderId(), e);
+                }
+            }
+            errors.append("null");
+        }
+        errors.append(']');
+
+        sendEgress(session, AssetMsgType.FREEZE_COALESCED_RESP,
+                "{\"correlationId\":\"" + correlationId + "\",\"status\":\"OK\",\"errors\":" + errors + "}");
+        log.debug("[AssetCluster] FREEZE_COALESCED userId={} items={} failed={}", userId, items.size(), failed);
+    }
+
     private void handleBatchFreeze(ClientSession session, long timestamp,
                                    DirectBuffer buffer, int offset, int length) throws IOException {
-        JsonNode    req           = parseJson(buffer, offset, length);
-        String      correlationId = req.path("correlationId").asText("");
-        Long        userId        = req.get("userId").asLong();
-        AccountType batchType     = parseAccountType(req, AccountType.SPOT);
-
-        JsonNode itemsNode = req.get("items");
+        final String correlationId;
+        final Long   userId;
         List<FreezeItem> items = new ArrayList<>();
-        for (JsonNode n : itemsNode) {
-            // 子项可单独指定 accountType，缺省继承批次级别
-            AccountType itemType = n.has("accountType")
-                    ? AccountType.valueOf(n.get("accountType").asText()) : batchType;
-            String itemAsset = n.get("asset").asText();
-            items.add(new FreezeItem(
-                    n.get("orderId").asText(),
-                    itemType,
-                    itemAsset,
-                    toRaw(new BigDecimal(n.get("amount").asText()), itemAsset)));
+        if (AssetCodec.isBinary(buffer, offset, length)) {
+            BatchFreezeCodec req = batchFreezeDecoder.wrap(buffer, offset);
+            correlationId = AssetCodec.correlationIdText(req.correlationId());
+            userId        = req.userId();
+            req.decodeItems(assetInterner, items);
+        } else {
+            JsonNode    req       = parseJson(buffer, offset, length);
+            AccountType batchType = parseAccountType(req, AccountType.SPOT);
+            correlationId = req.path("correlationId").asText("");
+            userId        = req.get("userId").asLong();
+            for (JsonNode n : req.get("items")) {
+                // 子项可单独指定 accountType，缺省继承批次级别
+                AccountType itemType = n.has("accountType")
+                        ? AccountType.valueOf(n.get("accountType").asText()) : batchType;
+                String itemAsset = n.get("asset").asText();
+                items.add(new FreezeItem(
+                        n.get("orderId").asText(),
+                        itemType,
+                        itemAsset,
+                        toRaw(new BigDecimal(n.get("amount").asText()), itemAsset)));
+            }
         }
 
         if (!items.isEmpty()) {
@@ -434,80 +522,114 @@ public class AssetClusteredService implements ClusteredService {
 
         sendEgress(session, AssetMsgType.BATCH_FREEZE_RESP,
                 "{\"correlationId\":\"" + correlationId + "\",\"status\":\"OK\",\"count\":" + processed.size() + "}");
-        log.debug("[AssetCluster] BATCH_FREEZE OK userId={} accountType={} processed={} total={}",
-                userId, batchType, processed.size(), items.size());
+        log.debug("[AssetCluster] BATCH_FREEZE OK userId={} processed={} total={}",
+                userId, processed.size(), items.size());
     }
 
+    /**
+     * BATCH_SETTLE / BATCH_SETTLE_AND_RELEASE：成交与撤单释放在一条日志内整体原子执行，
+     * 位点随之一次更新（见 {@link BalanceLedger#applySettlementBatch}）。
+     *
+     * <p>两种消息格式相同，BATCH_SETTLE 只是不带 {@code releases}。
+     */
     private void handleBatchSettle(ClientSession session, long timestamp,
                                    DirectBuffer buffer, int offset, int length) throws IOException {
-        JsonNode req            = parseJson(buffer, offset, length);
-        String   correlationId  = req.path("correlationId").asText("");
-        long     archivePosition = req.path("archivePosition").asLong(-1L);
-        // 顶层 accountType 作为批次默认值；各 trade 子项可覆盖
-        AccountType batchType = parseAccountType(req, AccountType.SPOT);
+        final String correlationId;
+        final long   archivePosition;
+        final long   prevPosition;
+        final JsonNode req;
+        final BatchSettleCodec binary;
+        if (AssetCodec.isBinary(buffer, offset, length)) {
+            binary          = batchSettleDecoder.wrap(buffer, offset, length);
+            req             = null;
+            correlationId   = AssetCodec.correlationIdText(binary.correlationId());
+            archivePosition = binary.archivePosition();
+            prevPosition    = binary.prevArchivePosition();
+        } else {
+            binary          = null;
+            req             = parseJson(buffer, offset, length);
+            correlationId   = req.path("correlationId").asText("");
+            archivePosition = req.path("archivePosition").asLong(-1L);
+            prevPosition    = req.path("prevArchivePosition").asLong(-1L);
+        }
 
-        JsonNode tradesNode = req.get("trades");
-        List<Map<String, Object>> trades = new ArrayList<>();
-        for (JsonNode n : tradesNode) {
-            Map<String, Object> t = new HashMap<>();
-            t.put("tradeId",     n.get("tradeId").asText());
-            t.put("buyerId",     n.get("buyerId").asLong());
-            t.put("sellerId",    n.get("sellerId").asLong());
-            t.put("baseAsset",   n.get("baseAsset").asText());
-            t.put("quoteAsset",  n.get("quoteAsset").asText());
-            t.put("qty",         n.get("qty").asText());
-            t.put("quoteAmt",    n.get("quoteAmt").asText());
-            t.put("buyFee",      n.path("buyFee").asText("0"));
-            t.put("sellFee",     n.path("sellFee").asText("0"));
-            String at = n.has("accountType") ? n.get("accountType").asText() : batchType.name();
-            t.put("accountType", at);
-            trades.add(t);
+        // 流水线位点衔接校验：转发端同时有多批在途，前一批失败时其后的批次必须整批拒绝，
+        // 否则后批推进位点会越过失败批次，重启后从新位点续读 → 失败批次的成交永久漏结算。
+        // 拒绝时账本不变，转发端按 Cluster 位点回退重放（幂等保护重复部分）。
+        if (prevPosition >= 0 && prevPosition != ledger.getMatchArchivePosition()) {
+            sendEgress(session, AssetMsgType.BATCH_SETTLE_RESP,
+                    "{\"correlationId\":\"" + correlationId + "\",\"error\":\"archive position gap: expected="
+                            + prevPosition + " actual=" + ledger.getMatchArchivePosition() + "\"}");
+            log.warn("[AssetCluster] BATCH_SETTLE rejected, prevArchivePosition={} matchArchivePosition={}",
+                    prevPosition, ledger.getMatchArchivePosition());
+            return;
         }
 
-        // 逐笔结算并发布:每笔捕获自己的 seqBase(结算产出 4 条流水),保证事件 seq 无洞。
-        // 等价于原 ledger.batchSettle(内部即逐笔 settleTrade),只是内联以获取每笔 seq。
+        List<BalanceLedger.SettleItem>  settles  = new ArrayList<>();
+        List<BalanceLedger.SettleLeg>   legs     = new ArrayList<>();
+        List<BalanceLedger.ReleaseItem> releases = new ArrayList<>();
+        if (binary != null) {
+            binary.decodeItems(assetInterner, settles, legs, releases);
+        } else {
+            parseJsonSettlementBatch(req, settles, releases);
+        }
+
+        // 执行阶段逐项回调：此时账本已反映该项变更，事件快照与 seq 与逐笔执行一致
         boolean leader = (cluster.role() == Cluster.Role.LEADER && eventPublisher != null);
-        for (Map<String, Object> t : trades) {
-            String      tradeId     = (String) t.get("tradeId");
-            Long        buyerId     = ((Number) t.get("buyerId")).longValue();
-            Long        sellerId    = ((Number) t.get("sellerId")).longValue();
-            AccountType accountType = AccountType.valueOf((String) t.get("accountType"));
-            String      baseAsset   = (String) t.get("baseAsset");
-            String      quoteAsset  = (String) t.get("quoteAsset");
-            long        qtyRaw      = toRaw(new BigDecimal((String) t.get("qty")),                    baseAsset);
-            long        quoteAmtRaw = toRaw(new BigDecimal((String) t.get("quoteAmt")),               quoteAsset);
-            long        buyFeeRaw   = toRaw(new BigDecimal((String) t.getOrDefault("buyFee",  "0")),  quoteAsset);
-            long        sellFeeRaw  = toRaw(new BigDecimal((String) t.getOrDefault("sellFee", "0")),  quoteAsset);
+        int applied = ledger.applySettlementBatch(settles, legs, releases, archivePosition, timestamp,
+                !leader ? null : new BalanceLedger.SettlementBatchListener() {
+                    @Override
+                    public void onSettled(BalanceLedger.SettleItem t, long seqBase) {
+                        publishSettleEvents(t.buyerId(), t.sellerId(), t.accountType(),
+                                t.baseAsset(), t.quoteAsset(), t.qty(), t.quoteAmt(),
+                                t.buyFee(), t.sellFee(), t.tradeId(), timestamp, seqBase);
+                    }
 
-            long seqBefore = ledger.currentSeq();
-            ledger.settleTrade(buyerId, sellerId, accountType, baseAsset, quoteAsset,
-                    qtyRaw, quoteAmtRaw, buyFeeRaw, sellFeeRaw, tradeId, timestamp);
-            if (ledger.currentSeq() > seqBefore && leader) {
-                publishSettleEvents(buyerId, sellerId, accountType, baseAsset, quoteAsset,
-                        qtyRaw, quoteAmtRaw, buyFeeRaw, sellFeeRaw, tradeId, timestamp, seqBefore);
-            }
-        }
+                    @Override
+                    public void onLegSettled(BalanceLedger.SettleLeg l, long seqBase) {
+                        if (l.side() == BalanceLedger.LegSide.BUY) {
+                            publishBuyerLegEvents(l.userId(), l.accountType(), l.baseAsset(), l.quoteAsset(),
+                                    l.qty(), l.quoteAmt(), l.fee(), l.tradeId(), timestamp, seqBase);
+                        } else {
+                            publishSellerLegEvents(l.userId(), l.accountType(), l.baseAsset(), l.quoteAsset(),
+                                    l.qty(), l.quoteAmt(), l.fee(), l.tradeId(), timestamp, seqBase);
+                        }
+                    }
 
-        if (archivePosition >= 0) {
-            ledger.updateMatchArchivePosition(archivePosition);
-        }
+                    @Override
+                    public void onReleased(BalanceLedger.ReleaseItem r, long seq) {
+                        Balance snap = ledger.getBalance(r.userId(), r.accountType(), r.asset());
+                        eventPublisher.publish(AssetStateChangeEvent.builder()
+                                .eventId("UNFREEZE:" + r.orderId() + ":" + r.userId() + ":" + r.accountType() + ":" + r.asset())
+                                .eventType("UNFREEZE")
+                                .userId(r.userId()).accountType(r.accountType()).asset(r.asset())
+                                .available(toBd(snap.getAvailable(), r.asset())).frozen(toBd(snap.getFrozen(), r.asset()))
+                                .amount(toBd(r.amount(), r.asset()))
+                                .flowType(FundFlowType.UNFREEZE)
+                                .bizNo(r.orderId()).remark("unfreeze for order")
+                                .seq(seq)
+                                .clusterTimestamp(timestamp).build());
+                    }
+                });
 
         sendEgress(session, AssetMsgType.BATCH_SETTLE_RESP,
-                "{\"correlationId\":\"" + correlationId + "\",\"status\":\"OK\",\"count\":" + trades.size() + "}");
-        log.debug("[AssetCluster] BATCH_SETTLE OK count={}", trades.size());
+                "{\"correlationId\":\"" + correlationId + "\",\"status\":\"OK\",\"count\":" + settles.size()
+                        + ",\"legs\":" + legs.size()
+                        + ",\"releases\":" + releases.size() + ",\"applied\":" + applied + "}");
+        log.debug("[AssetCluster] BATCH_SETTLE OK trades={} legs={} releases={} applied={}",
+                settles.size(), legs.size(), releases.size(), applied);
     }
 
     private void handleCredit(ClientSession session, long timestamp,
                               DirectBuffer buffer, int offset, int length) throws IOException {
-        JsonNode    req           = parseJson(buffer, offset, length);
-        String      correlationId = req.path("correlationId").asText("");
-        Long        userId        = req.get("userId").asLong();
-        AccountType accountType   = requireAccountType(req, "accountType", "CREDIT");
-        String      asset         = req.get("asset").asText();
-        BigDecimal  amount        = new BigDecimal(req.get("amount").asText());
-        long        amountRaw     = toRaw(amount, asset);
-        String      bizNo         = req.get("bizNo").asText();
-        String      remark        = req.path("remark").asText("credit");
+        BalanceOpReq op            = parseBalanceOp(buffer, offset, length, "CREDIT", true, "bizNo", "credit");
+        String       correlationId = op.correlationId();
+        Long         userId        = op.userId();
+        AccountType  accountType   = op.accountType();
+        String       asset         = op.asset();
+        long         amountRaw     = op.amount();
+        String       bizNo         = op.bizNo();
+        String       remark        = op.remark();
 
         long seqBefore = ledger.currentSeq();
         ledger.credit(userId, accountType, asset, amountRaw, bizNo, timestamp);
@@ -528,21 +650,20 @@ public class AssetClusteredService implements ClusteredService {
 
         sendEgress(session, AssetMsgType.CREDIT_OK,
                 "{\"correlationId\":\"" + correlationId + "\",\"bizNo\":\"" + bizNo + "\",\"status\":\"OK\"}");
-        log.debug("[AssetCluster] CREDIT OK userId={} accountType={} asset={} amount={} bizNo={}",
-                userId, accountType, asset, amount, bizNo);
+        log.debug("[AssetCluster] CREDIT OK userId={} accountType={} asset={} amountRaw={} bizNo={}",
+                userId, accountType, asset, amountRaw, bizNo);
     }
 
     private void handleDebit(ClientSession session, long timestamp,
                              DirectBuffer buffer, int offset, int length) throws IOException {
-        JsonNode    req           = parseJson(buffer, offset, length);
-        String      correlationId = req.path("correlationId").asText("");
-        Long        userId        = req.get("userId").asLong();
-        AccountType accountType   = requireAccountType(req, "accountType", "DEBIT");
-        String      asset         = req.get("asset").asText();
-        BigDecimal  amount        = new BigDecimal(req.get("amount").asText());
-        long        amountRaw     = toRaw(amount, asset);
-        String      bizNo         = req.get("bizNo").asText();
-        String      remark        = req.path("remark").asText("debit");
+        BalanceOpReq op            = parseBalanceOp(buffer, offset, length, "DEBIT", true, "bizNo", "debit");
+        String       correlationId = op.correlationId();
+        Long         userId        = op.userId();
+        AccountType  accountType   = op.accountType();
+        String       asset         = op.asset();
+        long         amountRaw     = op.amount();
+        String       bizNo         = op.bizNo();
+        String       remark        = op.remark();
 
         long seqBefore = ledger.currentSeq();
         ledger.debit(userId, accountType, asset, amountRaw, bizNo, timestamp);
@@ -563,22 +684,41 @@ public class AssetClusteredService implements ClusteredService {
 
         sendEgress(session, AssetMsgType.DEBIT_OK,
                 "{\"correlationId\":\"" + correlationId + "\",\"bizNo\":\"" + bizNo + "\",\"status\":\"OK\"}");
-        log.debug("[AssetCluster] DEBIT OK userId={} accountType={} asset={} amount={} bizNo={}",
-                userId, accountType, asset, amount, bizNo);
+        log.debug("[AssetCluster] DEBIT OK userId={} accountType={} asset={} amountRaw={} bizNo={}",
+                userId, accountType, asset, amountRaw, bizNo);
     }
 
     private void handleInternalTransfer(ClientSession session, long timestamp,
                                         DirectBuffer buffer, int offset, int length) throws IOException {
-        JsonNode    req           = parseJson(buffer, offset, length);
-        String      correlationId = req.path("correlationId").asText("");
-        Long        userId        = req.get("userId").asLong();
-        AccountType fromType      = requireAccountType(req, "fromAccountType", "INTERNAL_TRANSFER");
-        AccountType toType        = requireAccountType(req, "toAccountType", "INTERNAL_TRANSFER");
-        String      asset         = req.get("asset").asText();
-        BigDecimal  amount        = new BigDecimal(req.get("amount").asText());
-        long        amountRaw     = toRaw(amount, asset);
-        String      bizNo         = req.get("bizNo").asText();
-        String      remark        = req.path("remark").asText("internal transfer");
+        final String      correlationId;
+        final Long        userId;
+        final AccountType fromType;
+        final AccountType toType;
+        final String      asset;
+        final long        amountRaw;
+        final String      bizNo;
+        final String      remark;
+        if (AssetCodec.isBinary(buffer, offset, length)) {
+            TransferCodec req = transferDecoder.wrap(buffer, offset);
+            correlationId = AssetCodec.correlationIdText(req.correlationId());
+            userId        = req.userId();
+            fromType      = req.fromAccountType();
+            toType        = req.toAccountType();
+            asset         = assetInterner.intern(req.assetCode());
+            amountRaw     = req.amount();
+            bizNo         = req.bizNo();
+            remark        = req.remark() != null ? req.remark() : "internal transfer";
+        } else {
+            JsonNode req  = parseJson(buffer, offset, length);
+            correlationId = req.path("correlationId").asText("");
+            userId        = req.get("userId").asLong();
+            fromType      = requireAccountType(req, "fromAccountType", "INTERNAL_TRANSFER");
+            toType        = requireAccountType(req, "toAccountType", "INTERNAL_TRANSFER");
+            asset         = req.get("asset").asText();
+            amountRaw     = toRaw(new BigDecimal(req.get("amount").asText()), asset);
+            bizNo         = req.get("bizNo").asText();
+            remark        = req.path("remark").asText("internal transfer");
+        }
 
         checkBizNoExpiry(bizNo, timestamp, "INTERNAL_TRANSFER");
         long seqBefore = ledger.currentSeq();
@@ -614,8 +754,8 @@ public class AssetClusteredService implements ClusteredService {
 
         sendEgress(session, AssetMsgType.TRANSFER_OK,
                 "{\"correlationId\":\"" + correlationId + "\",\"bizNo\":\"" + bizNo + "\",\"status\":\"OK\"}");
-        log.debug("[AssetCluster] TRANSFER OK userId={} from={} to={} asset={} amount={} bizNo={}",
-                userId, fromType, toType, asset, amount, bizNo);
+        log.debug("[AssetCluster] TRANSFER OK userId={} from={} to={} asset={} amountRaw={} bizNo={}",
+                userId, fromType, toType, asset, amountRaw, bizNo);
     }
 
     private void handleMatchPositionQuery(ClientSession session,
@@ -632,93 +772,132 @@ public class AssetClusteredService implements ClusteredService {
     // Snapshot
     // =========================================================================
 
-    /** 每个用户分块消息最多包含的用户数（控制单条消息大小，避免超过 Aeron maxMessageLength）。 */
-    private static final int SNAPSHOT_USERS_PER_CHUNK = 200;
-    /** Snapshot offer 最大重试次数（有界，避免永久自旋阻塞 Service Thread）。 */
+    /** Snapshot claim / offer 最大重试次数（有界，避免永久自旋阻塞 Service Thread）。 */
     private static final int SNAPSHOT_OFFER_MAX_RETRIES = 500_000;
 
     /**
-     * 分块写快照。
+     * 写二进制快照（{@link LedgerSnapshot}）。
      *
-     * <h3>为什么分块</h3>
-     * <p>旧实现把整个账本序列化成一条消息 offer：账本超过 Aeron maxMessageLength
-     * （约 term buffer 的 1/8）后 offer 永久失败 → 无限自旋 → 状态机停摆。
-     * 分块后每条消息大小可控，规模不再受限。
+     * <h3>为什么不再用 JSON 分块</h3>
+     * <p>旧实现先 {@code exportLedger()} 把整个账本复制成嵌套 Map，再按 200 用户一块经 Jackson 序列化：
+     * 千万级用户时快照耗时数分钟、堆占用短时翻倍。现在余额与幂等表直接从底层存储按定长记录
+     * 写入 publication（{@code tryClaim} 零拷贝），不复制账本。
      *
      * <h3>格式</h3>
      * <pre>
-     *   N 条:  {"type":"users","data":{userId:{accountType:{asset:Balance}}}}
-     *   1 条:  {"type":"end","userChunks":N,"bizNos":{...},"permanentBizNos":[...],"matchArchivePosition":P}
+     *   HEADER → 名称字典 → BALANCES… → TTL_IDS… → PERMANENT_IDS… → 非数字单号 → END（记录总数）
      * </pre>
+     * <p>每条消息不超过 publication 的 maxPayloadLength；seq / matchArchivePosition 在 HEADER 中。
      */
     @Override
     public void onTakeSnapshot(ExclusivePublication snapshotPublication) {
-        log.info("[AssetCluster] Taking snapshot (chunked)...");
+        log.info("[AssetCluster] Taking snapshot (binary)...");
+        SnapshotPublicationSink sink = new SnapshotPublicationSink(snapshotPublication);
         try {
-            Map<Long, Map<String, Map<String, Balance>>> full = ledger.exportLedger();
-
-            int chunks = 0;
-            Map<Long, Map<String, Map<String, Balance>>> batch = new HashMap<>();
-            for (Map.Entry<Long, Map<String, Map<String, Balance>>> e : full.entrySet()) {
-                batch.put(e.getKey(), e.getValue());
-                if (batch.size() >= SNAPSHOT_USERS_PER_CHUNK) {
-                    offerSnapshotMessage(snapshotPublication,
-                            Map.of("type", "users", "data", batch));
-                    chunks++;
-                    batch = new HashMap<>();
-                }
-            }
-            if (!batch.isEmpty()) {
-                offerSnapshotMessage(snapshotPublication, Map.of("type", "users", "data", batch));
-                chunks++;
-            }
+            long records = LedgerSnapshot.write(ledger, sink);
 
-            // 结束标记：携带幂等表 + 位点 + seq + 分块数（加载端校验完整性）
-            offerSnapshotMessage(snapshotPublication, Map.of(
-                    "type",                 "end",
-                    "userChunks",           chunks,
-                    "bizNos",               ledger.exportProcessedBizNos(),
-                    "permanentBizNos",      ledger.exportPermanentBizNos(),
-                    "matchArchivePosition", ledger.getMatchArchivePosition(),
-                    "seq",                  ledger.currentSeq()));
-
-            final int  chunkCount = chunks;
-            final int  userCount  = full.size();
+            final long recordCount = records;
+            final long entries     = ledger.ledgerEntryCount();
+            final int  userCount   = ledger.userCount();
             eventReporter.record(CoreSystemEvent.SNAPSHOT_TAKEN, cluster.time(),
-                    () -> "chunks=" + chunkCount + " users=" + userCount);
-            log.info("[AssetCluster] Snapshot written — {} user chunks, {} users", chunks, full.size());
+                    () -> "records=" + recordCount + " entries=" + entries + " users=" + userCount);
+            log.info("[AssetCluster] Snapshot written — {} records, {} balances, {} users",
+                    records, entries, userCount);
         } catch (Exception e) {
+            sink.abort();
             eventReporter.record(CoreSystemEvent.SNAPSHOT_FAILED, cluster.time(),
                     () -> "cause=" + e.getClass().getSimpleName() + ": " + e.getMessage());
             throw new RuntimeException("Asset snapshot failed", e);
         }
     }
 
-    /** 有界重试 offer 一条快照消息；终态错误或超限直接抛异常（快照失败必须显式暴露）。 */
-    private void offerSnapshotMessage(ExclusivePublication pub, Map<String, Object> msg) throws IOException {
-        byte[] bytes = objectMapper.writeValueAsBytes(msg);
-        UnsafeBuffer buf = new UnsafeBuffer(bytes);
-        long result;
-        int  retries = 0;
-        while ((result = pub.offer(buf, 0, bytes.length)) < 0) {
-            if (result == io.aeron.Publication.CLOSED
-                    || result == io.aeron.Publication.NOT_CONNECTED
-                    || result == io.aeron.Publication.MAX_POSITION_EXCEEDED) {
-                throw new IllegalStateException("Snapshot publication unavailable, result=" + result);
+    /**
+     * 快照 publication 写出端：不超过 maxPayloadLength 的消息经 {@code tryClaim} 直接写入 term buffer；
+     * 更长的消息（只可能是超长的非数字单号）暂存后 {@code offer}，由 Aeron 分片。
+     */
+    private static final class SnapshotPublicationSink implements LedgerSnapshot.Sink {
+
+        private final ExclusivePublication pub;
+        private final BufferClaim          bufferClaim = new BufferClaim();
+        private ExpandableArrayBuffer      staging;
+        private int     stagedLength = -1;
+        private boolean claimed;
+
+        SnapshotPublicationSink(ExclusivePublication pub) {
+            this.pub = pub;
+        }
+
+        @Override
+        public int maxPayloadLength() {
+            return pub.maxPayloadLength();
+        }
+
+        @Override
+        public MutableDirectBuffer claim(int length) {
+            if (length > pub.maxPayloadLength()) {
+                if (staging == null) staging = new ExpandableArrayBuffer(length);
+                staging.checkLimit(length);
+                stagedLength = length;
+                return staging;
             }
-            if (++retries > SNAPSHOT_OFFER_MAX_RETRIES) {
-                throw new IllegalStateException("Snapshot offer timed out after " + retries + " retries");
+            stagedLength = -1;
+            long result;
+            int  retries = 0;
+            while ((result = pub.tryClaim(length, bufferClaim)) < 0) {
+                awaitSnapshotPublication(result, ++retries);
+            }
+            claimed = true;
+            return bufferClaim.buffer();
+        }
+
+        @Override
+        public int claimOffset() {
+            return stagedLength >= 0 ? 0 : bufferClaim.offset();
+        }
+
+        @Override
+        public void commit() {
+            if (stagedLength >= 0) {
+                long result;
+                int  retries = 0;
+                while ((result = pub.offer(staging, 0, stagedLength)) < 0) {
+                    awaitSnapshotPublication(result, ++retries);
+                }
+                stagedLength = -1;
+                return;
+            }
+            claimed = false;
+            bufferClaim.commit();
+        }
+
+        /** 写出中途失败时放弃未提交的 claim（否则占住的 term 空间会阻塞 publication）。 */
+        void abort() {
+            if (claimed) {
+                claimed = false;
+                bufferClaim.abort();
             }
-            Thread.yield();
         }
     }
 
+    /** 背压时让出并计数；终态错误或超限直接抛异常（快照失败必须显式暴露）。 */
+    private static void awaitSnapshotPublication(long result, int retries) {
+        if (result == io.aeron.Publication.CLOSED
+                || result == io.aeron.Publication.NOT_CONNECTED
+                || result == io.aeron.Publication.MAX_POSITION_EXCEEDED) {
+            throw new IllegalStateException("Snapshot publication unavailable, result=" + result);
+        }
+        if (retries > SNAPSHOT_OFFER_MAX_RETRIES) {
+            throw new IllegalStateException("Snapshot offer timed out after " + retries + " retries");
+        }
+        Thread.yield();
+    }
+
     /**
-     * 分块读快照。
+     * 读快照。
      *
-     * <p>使用 {@link io.aeron.ImageFragmentAssembler} 重组跨 MTU 分片的消息
-     * （旧实现用裸 handler,单条消息超过 MTU 时各分片互相覆盖,快照恢复必然损坏）。
-     * 兼容旧格式：消息含 {@code ledger} 字段则按单消息格式解析。
+     * <p>使用 {@link io.aeron.ImageFragmentAssembler} 重组跨 MTU 分片的消息。按首条消息的首字节区分格式：
+     * {@link LedgerSnapshot#MAGIC} 为二进制快照，直接装载进账本底层存储；
+     * 否则按旧 JSON 格式解析（分块 {@code users}/{@code end}，或含 {@code ledger} 字段的单消息格式）。
      */
     @SuppressWarnings("unchecked")
     private void loadSnapshot(Image snapshotImage) {
@@ -727,9 +906,20 @@ public class AssetClusteredService implements ClusteredService {
         final int[]      chunks   = {0};
         final boolean[]  legacy   = {false};
         final Map<Long, Map<String, Map<String, Balance>>>[] legacyData = new Map[]{null};
+        final LedgerSnapshot.Loader binary = LedgerSnapshot.loader(ledger);
+        final boolean[]  binaryFormat = {false};
+        final boolean[]  first        = {true};
 
         io.aeron.ImageFragmentAssembler assembler = new io.aeron.ImageFragmentAssembler(
                 (buf, off, len, hdr) -> {
+                    if (first[0]) {
+                        first[0]        = false;
+                        binaryFormat[0] = LedgerSnapshot.isBinary(buf, off, len);
+                    }
+                    if (binaryFormat[0]) {
+                        binary.onMessage(buf, off, len);
+                        return;
+                    }
                     try {
                         byte[] bytes = new byte[len];
                         buf.getBytes(off, bytes);
@@ -756,6 +946,18 @@ public class AssetClusteredService implements ClusteredService {
             if (fragments <= 0) Thread.yield();
         }
 
+        if (binaryFormat[0]) {
+            long records = binary.finish();
+            eventReporter.record(CoreSystemEvent.SNAPSHOT_RESTORED, cluster.time(),
+                    () -> "binary messages=" + binary.messages() + " records=" + records
+                            + " matchArchivePosition=" + binary.matchArchivePosition()
+                            + " seq=" + binary.seq()
+                            + " bizNos=" + ledger.processedBizNosSize());
+            log.info("[AssetCluster] Snapshot restored — binary, messages={}, records={}, matchArchivePosition={}, bizNos={}",
+                    binary.messages(), records, binary.matchArchivePosition(), ledger.processedBizNosSize());
+            return;
+        }
+
         if (endNode[0] == null) {
             if (chunks[0] == 0 && !legacy[0]) return;   // 空快照
             throw new IllegalStateException("Snapshot incomplete: end marker missing");
@@ -822,12 +1024,83 @@ public class AssetClusteredService implements ClusteredService {
     @Override
     public void onTerminate(Cluster cluster) {
         log.info("[AssetCluster] Terminating");
+        if (localReader != null) localReader.detach();
     }
 
     // =========================================================================
-    // Private helpers
+    // Ingress 解析（二进制 flyweight 优先，JSON 兼容 Raft 日志中的旧条目）
     // =========================================================================
 
+    /** FREEZE / UNFREEZE / CREDIT / DEBIT 的公共请求字段，amount 已是 raw。 */
+    private record BalanceOpReq(String correlationId, Long userId, AccountType accountType,
+                                String asset, long amount, String bizNo, String remark) {}
+
+    /**
+     * 解析单资产余额操作。
+     *
+     * @param strictType    true 时 JSON 的 accountType 必填（资金写操作），false 时缺省 SPOT
+     * @param bizNoField    JSON 中业务号字段名（冻结类为 orderId，出入金为 bizNo）
+     * @param defaultRemark 未携带备注时的默认值
+     */
+    private BalanceOpReq parseBalanceOp(DirectBuffer buffer, int offset, int length, String opName,
+                                        boolean strictType, String bizNoField, String defaultRemark) throws IOException {
+        if (AssetCodec.isBinary(buffer, offset, length)) {
+            BalanceOpCodec req = balanceOpDecoder.wrap(buffer, offset);
+            String remark = req.remark();
+            return new BalanceOpReq(
+                    AssetCodec.correlationIdText(req.correlationId()),
+                    req.userId(),
+                    req.accountType(),
+                    assetInterner.intern(req.assetCode()),
+                    req.amount(),
+                    req.bizNo(),
+                    remark != null ? remark : defaultRemark);
+        }
+        JsonNode req   = parseJson(buffer, offset, length);
+        String   asset = req.get("asset").asText();
+        return new BalanceOpReq(
+                req.path("correlationId").asText(""),
+                req.get("userId").asLong(),
+                strictType ? requireAccountType(req, "accountType", opName)
+                           : parseAccountType(req, AccountType.SPOT),
+                asset,
+                toRaw(new BigDecimal(req.get("amount").asText()), asset),
+                req.get(bizNoField).asText(),
+                req.path("remark").asText(defaultRemark));
+    }
+
+    /** 旧 JSON 格式的 BATCH_SETTLE(_AND_RELEASE)：顶层 accountType 作为批次默认值，子项可覆盖。 */
+    private void parseJsonSettlementBatch(JsonNode req, List<BalanceLedger.SettleItem> settles,
+                                          List<BalanceLedger.ReleaseItem> releases) {
+        AccountType batchType = parseAccountType(req, AccountType.SPOT);
+        for (JsonNode n : req.path("trades")) {
+
+            String baseAsset  = n.get("baseAsset").asText();
+            String quoteAsset = n.get("quoteAsset").asText();
+            settles.add(new BalanceLedger.SettleItem(
+                    n.get("tradeId").asText(),
+                    n.get("buyerId").asLong(),
+                    n.get("sellerId").asLong(),
+                    parseAccountType(n, batchType),
+                    baseAsset, quoteAsset,
+                    toRaw(new BigDecimal(n.get("qty").asText()),             baseAsset),
+                    toRaw(new BigDecimal(n.get("quoteAmt").asText()),        quoteAsset),
+                    toRaw(new BigDecimal(n.path("buyFee").asText("0")),  quoteAsset),
+                    toRaw(new BigDecimal(n.path("sellFee").asText("0")), quoteAsset)));
+        }
+        // 撤单/下架释放：不做超时校验（orderId 可能是老单，超 30min 也需解冻）
+        for (JsonNode n : req.path("releases")) {
+            String asset = n.get("asset").asText();
+            releases.add(new BalanceLedger.ReleaseItem(
+                    n.get("orderId").asText(),
+                    n.get("userId").asLong(),
+                    parseAccountType(n, batchType),
+                    asset,
+                    toRaw(new BigDecimal(n.get("amount").asText()), asset)));
+        }
+
+    }
+
     /**
      * 从 JSON 节点解析 accountType，字段不存在或不合法时返回 defaultType。
      *
@@ -865,6 +1138,10 @@ public class AssetClusteredService implements ClusteredService {
         }
     }
 
+    // =========================================================================
+    // Private helpers
+    // =========================================================================
+
     /**
      * 上报参数非法事件。
      *
@@ -876,6 +1153,27 @@ public class AssetClusteredService implements ClusteredService {
                 () -> "op=" + opName + " field=" + field + " value=" + value);
     }
 
+    /** 单笔 FREEZE 流水事件（seq 取账本当前值，须在 {@code ledger.freeze} 实际执行后立即调用）。 */
+    private void publishFreezeEvent(Long userId, AccountType accountType, String asset,
+                                    long amtRaw, String orderId, long timestamp) {
+        Balance snap = ledger.getBalance(userId, accountType, asset);
+        publishIfLeader(AssetStateChangeEvent.builder()
+                .eventId("FREEZE:" + orderId + ":" + userId + ":" + accountType + ":" + asset)
+                .eventType("FREEZE")
+                .userId(userId).accountType(accountType).asset(asset)
+                .available(toBd(snap.getAvailable(), asset)).frozen(toBd(snap.getFrozen(), asset))
+                .amount(toBd(Math.negateExact(amtRaw), asset))
+                .flowType(FundFlowType.FREEZE)
+                .bizNo(orderId).remark("freeze for order")
+                .seq(ledger.currentSeq())
+                .clusterTimestamp(timestamp).build());
+    }
+
+    /** 把错误消息放进 JSON 字符串字面量（转义引号与反斜杠）。 */
+    private static String jsonText(String text) {
+        return text == null ? "" : text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
     private void checkBizNoExpiry(String bizNoId, long nowMs, String opName) {
         if (SnowflakeId.isExpired(bizNoId, BalanceLedger.BIZNO_TTL_MS, nowMs)) {
             // 确定性：错误消息也使用 cluster timestamp 作为参考
@@ -940,14 +1238,22 @@ public class AssetClusteredService implements ClusteredService {
                                      long buyFeeRaw, long sellFeeRaw,
                                      String tradeId, long timestamp, long seqBase) {
         // 4 条流水的 seq 依次为 seqBase+1..seqBase+4(与账本 advanceSeq(4) 的顺序一致)
-        // qty 走 baseAsset scale;quoteAmt/fee 走 quoteAsset scale
-        Balance bq = ledger.getBalance(buyerId,  accountType, quoteAsset);
-        Balance bb = ledger.getBalance(buyerId,  accountType, baseAsset);
-        Balance sb = ledger.getBalance(sellerId, accountType, baseAsset);
-        Balance sq = ledger.getBalance(sellerId, accountType, quoteAsset);
+        // 余额快照在整笔成交执行后读取（买卖同一用户时两腿看到的是同一最终余额）
+        publishBuyerLegEvents(buyerId, accountType, baseAsset, quoteAsset,
+                qtyRaw, quoteAmtRaw, buyFeeRaw, tradeId, timestamp, seqBase);
+        publishSellerLegEvents(sellerId, accountType, baseAsset, quoteAsset,
+                qtyRaw, quoteAmtRaw, sellFeeRaw, tradeId, timestamp, seqBase + 2);
+    }
 
-        long buyerDeductRaw  = Math.addExact(quoteAmtRaw, buyFeeRaw);   // quote
-        long sellerCreditRaw = Math.subtractExact(quoteAmtRaw, sellFeeRaw); // quote
+    /** 买方腿 2 条流水：扣冻结 quote（seqBase+1）、入账 base（seqBase+2）。eventId 与整笔成交一致。 */
+    private void publishBuyerLegEvents(Long buyerId, AccountType accountType,
+                                       String baseAsset, String quoteAsset,
+                                       long qtyRaw, long quoteAmtRaw, long buyFeeRaw,
+                                       String tradeId, long timestamp, long seqBase) {
+        // qty 走 baseAsset scale;quoteAmt/fee 走 quoteAsset scale
+        Balance bq = ledger.getBalance(buyerId, accountType, quoteAsset);
+        Balance bb = ledger.getBalance(buyerId, accountType, baseAsset);
+        long buyerDeductRaw = Math.addExact(quoteAmtRaw, buyFeeRaw);   // quote
 
         eventPublisher.publish(AssetStateChangeEvent.builder()
                 .eventId("SETTLE_BUY_DEDUCT:" + tradeId + ":" + buyerId + ":" + accountType + ":" + quoteAsset)
@@ -962,20 +1268,30 @@ public class AssetClusteredService implements ClusteredService {
                 .available(toBd(bb.getAvailable(), baseAsset)).frozen(toBd(bb.getFrozen(), baseAsset))
                 .amount(toBd(qtyRaw, baseAsset)).flowType(FundFlowType.TRADE_CREDIT)
                 .bizNo(tradeId).remark("settle buy credit").seq(seqBase + 2).clusterTimestamp(timestamp).build());
+    }
+
+    /** 卖方腿 2 条流水：扣冻结 base（seqBase+1）、入账 quote（seqBase+2）。eventId 与整笔成交一致。 */
+    private void publishSellerLegEvents(Long sellerId, AccountType accountType,
+                                        String baseAsset, String quoteAsset,
+                                        long qtyRaw, long quoteAmtRaw, long sellFeeRaw,
+                                        String tradeId, long timestamp, long seqBase) {
+        Balance sb = ledger.getBalance(sellerId, accountType, baseAsset);
+        Balance sq = ledger.getBalance(sellerId, accountType, quoteAsset);
+        long sellerCreditRaw = Math.subtractExact(quoteAmtRaw, sellFeeRaw); // quote
 
         eventPublisher.publish(AssetStateChangeEvent.builder()
                 .eventId("SETTLE_SELL_DEDUCT:" + tradeId + ":" + sellerId + ":" + accountType + ":" + baseAsset)
                 .eventType("SETTLE_SELLER_DEDUCT").userId(sellerId).accountType(accountType).asset(baseAsset)
                 .available(toBd(sb.getAvailable(), baseAsset)).frozen(toBd(sb.getFrozen(), baseAsset))
                 .amount(toBd(Math.negateExact(qtyRaw), baseAsset)).flowType(FundFlowType.TRADE_DEDUCT)
-                .bizNo(tradeId).remark("settle sell deduct").seq(seqBase + 3).clusterTimestamp(timestamp).build());
+                .bizNo(tradeId).remark("settle sell deduct").seq(seqBase + 1).clusterTimestamp(timestamp).build());
 
         eventPublisher.publish(AssetStateChangeEvent.builder()
                 .eventId("SETTLE_SELL_CREDIT:" + tradeId + ":" + sellerId + ":" + accountType + ":" + quoteAsset)
                 .eventType("SETTLE_SELLER_CREDIT").userId(sellerId).accountType(accountType).asset(quoteAsset)
                 .available(toBd(sq.getAvailable(), quoteAsset)).frozen(toBd(sq.getFrozen(), quoteAsset))
                 .amount(toBd(sellerCreditRaw, quoteAsset)).flowType(FundFlowType.TRADE_CREDIT)
-                .bizNo(tradeId).remark("settle sell credit").seq(seqBase + 4).clusterTimestamp(timestamp).build());
+                .bizNo(tradeId).remark("settle sell credit").seq(seqBase + 2).clusterTimestamp(timestamp).build());
     }
 
     private JsonNode parseJson(DirectBuffer buffer, int offset, int length) throws IOException {
@@ -1034,7 +1350,9 @@ public class AssetClusteredService implements ClusteredService {
             case AssetMsgType.FREEZE               -> AssetMsgType.FREEZE_FAIL;
             case AssetMsgType.SETTLE_TRADE         -> AssetMsgType.SETTLE_FAIL;
             case AssetMsgType.BATCH_FREEZE         -> AssetMsgType.BATCH_FREEZE_RESP;
+            case AssetMsgType.FREEZE_COALESCED     -> AssetMsgType.FREEZE_COALESCED_RESP;
             case AssetMsgType.BATCH_SETTLE         -> AssetMsgType.BATCH_SETTLE_RESP;
+            case AssetMsgType.BATCH_SETTLE_AND_RELEASE -> AssetMsgType.BATCH_SETTLE_RESP;
             case AssetMsgType.MATCH_POSITION_QUERY -> AssetMsgType.MATCH_POSITION_RESP;
             case AssetMsgType.CREDIT               -> AssetMsgType.CREDIT_FAIL;
             case AssetMsgType.DEBIT                -> AssetMsgType.DEBIT_FAIL;
@@ -0,0 +1,168 @@
+package com.exchange.account.core.cluster;
+
+import com.exchange.account.api.enums.AccountType;
+import com.exchange.account.core.cluster.ledger.Balance;
+import com.exchange.account.core.cluster.ledger.BalanceLedger;
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.concurrent.ManyToOneConcurrentArrayQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 余额本地读通道：HTTP 线程 → 本进程 Cluster Service Thread，不经 Raft 日志。
+ *
+ * <h3>为什么</h3>
+ * <p>BALANCE_QUERY 走 Ingress 时每次读都成为一条 Raft 日志：复制到全部成员、在每个副本的
+ * Service Thread 上重放，与结算抢同一条日志带宽和同一个线程。读不改变状态，不需要进日志。
+ *
+ * <h3>机制</h3>
+ * <pre>
+ *   HTTP 线程   ── tryRead() ──▶  ManyToOneConcurrentArrayQueue（有界、无锁）
+ *   Service Thread  doBackgroundWork() 在两条日志之间取出请求，直接读 BalanceLedger，
+ *                   以不可变 {@link BalanceRow} 列表完成 future（raw 值，换算在调用线程）
+ * </pre>
+ * <p>账本只在 Service Thread 上被访问，无需为读加锁或复制账本。每个工作周期最多处理
+ * {@link #DRAIN_LIMIT} 个读，结算消息不会被读流量饿死。
+ *
+ * <h3>一致性</h3>
+ * <p>读到的是本节点<b>已应用的已提交状态</b>（顺序一致，不保证线性一致）：
+ * <ul>
+ *   <li>Leader：直接服务（已提交条目在 Leader 上最先应用）。</li>
+ *   <li>Follower：最近一次应用日志的 cluster time 距今不超过 {@code maxStalenessMs} 才服务，
+ *       否则返回 null，由调用方回退到 Ingress 查询。</li>
+ *   <li>未启动 / 已终止 / 队列满：同样返回 null 回退。</li>
+ * </ul>
+ *
+ * <h3>不是状态机状态</h3>
+ * <p>读请求不进日志、不入快照、不改变账本，各副本各自服务本地读，不影响确定性。
+ */
+@Slf4j
+@Component
+public class LocalBalanceReader {
+
+    /** 每个 Service Thread 工作周期最多处理的读请求数。 */
+    static final int DRAIN_LIMIT = 256;
+
+    private static final int QUEUE_CAPACITY = 8192;
+
+    private final ManyToOneConcurrentArrayQueue<Read> queue = new ManyToOneConcurrentArrayQueue<>(QUEUE_CAPACITY);
+
+    private final ClusterRuntimeStatus runtimeStatus;
+    /** 本节点所属分片（与 {@code ShardRouter} 的分片编号一致）。 */
+    private final int  shardId;
+    private final long maxStalenessMs;
+
+    private volatile boolean attached = false;
+
+    /**
+     * 单条余额（raw，按 asset scale 换算由调用方完成）。
+     */
+    public record BalanceRow(AccountType accountType, String asset, long available, long frozen) {}
+
+    /** 一次本地读请求：accountType / asset 为 null 表示不限定。 */
+    private record Read(long userId, AccountType accountType, String asset,
+                        CompletableFuture<List<BalanceRow>> future) {}
+
+    @Autowired
+    public LocalBalanceReader(ClusterRuntimeStatus runtimeStatus,
+                              @Value("${asset.cluster.shard-id:0}") int shardId,
+                              @Value("${asset.query.local-read.max-staleness-ms:1000}") long maxStalenessMs) {
+        this.runtimeStatus  = runtimeStatus;
+        this.shardId        = shardId;
+        this.maxStalenessMs = maxStalenessMs;
+    }
+
+    public int shardId() {
+        return shardId;
+    }
+
+    // =========================================================================
+    // HTTP 线程
+    // =========================================================================
+
+    /**
+     * 提交一次本地读。
+     *
+     * <p>单资产查询（accountType 与 asset 均非 null）恒返回一行，余额不存在时为 0。
+     *
+     * @return 结果 future；本节点当前不宜服务本地读时返回 null（调用方回退 Ingress）
+     */
+    public CompletableFuture<List<BalanceRow>> tryRead(long userId, AccountType accountType, String asset) {
+        if (!attached || !fresh()) return null;
+        CompletableFuture<List<BalanceRow>> future = new CompletableFuture<>();
+        if (!queue.offer(new Read(userId, accountType, asset, future))) {
+            log.debug("[LocalRead] queue full, fallback to ingress userId={}", userId);
+            return null;
+        }
+        if (!attached) {
+            // 与 detach 竞争：Service Thread 已停止排空。队列只允许 Service Thread 消费，
+            // 这里只失败自己的 future，残留条目在下次 attach 后被空跑（complete 对已完成的 future 无效）
+            future.completeExceptionally(new IllegalStateException("[LocalRead] service terminated"));
+        }
+        return future;
+    }
+
+    private boolean fresh() {
+        if ("LEADER".equals(runtimeStatus.getRole())) return true;
+        return System.currentTimeMillis() - runtimeStatus.getLastHotUpdateClusterTime() <= maxStalenessMs;
+    }
+
+    // =========================================================================
+    // Cluster Service Thread
+    // =========================================================================
+
+    void attach() {
+        attached = true;
+    }
+
+    /** 停止服务本地读并失败所有排队请求（onTerminate）。 */
+    void detach() {
+        attached = false;
+        failPending("service terminated");
+    }
+
+    /**
+     * 在 Service Thread 上处理排队的读请求（{@code doBackgroundWork} 调用）。
+     *
+     * @return 处理的请求数
+     */
+    int drain(BalanceLedger ledger) {
+        if (queue.isEmpty()) return 0;
+        return queue.drain(read -> serve(ledger, read), DRAIN_LIMIT);
+    }
+
+    private static void serve(BalanceLedger ledger, Read read) {
+        try {
+            List<BalanceRow> rows = new ArrayList<>();
+            if (read.accountType() != null && read.asset() != null) {
+                Balance bal = ledger.getBalance(read.userId(), read.accountType(), read.asset());
+                rows.add(new BalanceRow(read.accountType(), read.asset(), bal.getAvailable(), bal.getFrozen()));
+            } else if (read.accountType() != null) {
+                addRows(rows, read.accountType(), ledger.getAllBalances(read.userId(), read.accountType()));
+            } else {
+                ledger.getAllBalancesByType(read.userId()).forEach((type, byAsset) -> addRows(rows, type, byAsset));
+            }
+            read.future().complete(List.copyOf(rows));
+        } catch (RuntimeException e) {
+            read.future().completeExceptionally(e);
+        }
+    }
+
+    private static void addRows(List<BalanceRow> rows, AccountType type, Map<String, Balance> byAsset) {
+        byAsset.forEach((asset, bal) -> rows.add(new BalanceRow(type, asset, bal.getAvailable(), bal.getFrozen())));
+    }
+
+    /** 只在 Service Thread 上调用（队列为单消费者）。 */
+    private void failPending(String reason) {
+        Read read;
+        while ((read = queue.poll()) != null) {
+            read.future().completeExceptionally(new IllegalStateException("[LocalRead] " + reason));
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.exchange.account.core.cluster.client;
 
+import com.exchange.account.api.enums.AccountType;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.LegSide;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.ReleaseItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.SettleItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.SettleLeg;
 import com.exchange.account.core.gateway.AssetGatewayService;
+import com.exchange.account.core.gateway.ShardRouter;
 import com.exchange.match.constant.MatchSettlementStream;
 import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.MatchResponseCodec;
 import com.exchange.match.model.Trade;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -23,10 +30,11 @@ import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.springframework.context.annotation.DependsOn;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -42,7 +50,7 @@ import java.util.concurrent.TimeoutException;
  *   MatchEngine
  *     → AeronMatchResultPublisher(MDC) ─── Match Archive(port 8010) 持久化
  *     → [TradeSettlementForwarder] ← Archive replay(port 40300)
- *           └→ BATCH_SETTLE → Asset Cluster Ingress(port 20140)
+ *           └→ BATCH_SETTLE_AND_RELEASE → Asset Cluster Ingress(port 20140)
  * </pre>
  *
  * <h3>持久化保证 / 位点一致性</h3>
@@ -54,9 +62,29 @@ import java.util.concurrent.TimeoutException;
  * <h3>幂等保证</h3>
  * <p>BalanceLedger 内部 {@code processedBizNos} 检测重复 tradeId，重放时安全跳过。
  *
+ * <h3>流水线 / 窗口</h3>
+ * <p>多个 fragment 的成交与撤单/下架释放聚合为一条 BATCH_SETTLE_AND_RELEASE
+ * （携带其中最高的 Archive position，Cluster 内整体原子执行），
+ * 最多 {@code windowSize} 批同时在途，按发送顺序确认（in-order ack）。每批携带上一批的位点
+ * {@code prevArchivePosition}，Cluster 位点不衔接时整批拒绝——前一批失败后，其后在途的批次
+ * 不会越过它推进位点。
+ *
+ * <h3>多分片结算协议</h3>
+ * <p>用户按 {@link ShardRouter} 分片，每个分片是独立的 Asset Cluster，各自持有本分片用户的余额、
+ * 幂等记录与 Match Archive 位点。每个分片一条独立流水线（聚合 / 窗口 / 位点衔接互不影响）：
+ * <ul>
+ *   <li>买卖双方同分片的成交：完整 {@link SettleItem} 发往该分片（单分片部署即全部走此路径，行为不变）。</li>
+ *   <li>跨分片成交：拆为买方腿 / 卖方腿（{@link SettleLeg}）分别发往双方所在分片。每条腿只动本方
+ *       下单时已冻结的资金，两腿无需跨分片原子，各自幂等、各自随本分片位点提交。</li>
+ *   <li>撤单/下架释放：发往订单用户所在分片。</li>
+ * </ul>
+ * <p>启动时查询各分片位点，从其中最小者重放；fragment 位点不超过某分片已提交位点时，
+ * 该 fragment 中属于该分片的子项跳过（已在该分片生效）。长时间没有子项的分片在落后
+ * {@code positionSyncBytes} 后发一条只推进位点的空批次，避免拖住下次重放的起点。
+ *
  * <h3>失败语义</h3>
- * <p>fragment 处理失败时抛出异常，poll 循环退出，外层 retry 等待 5s 后重连续读。
- * 位点未更新，重启后会重试当前事件（BalanceLedger 幂等保护）。
+ * <p>任一批次失败（ERROR / 超时）时抛出异常，poll 循环退出，外层 retry 等待 5s 后重连，
+ * 以各分片已提交位点（即各自最后一个按序确认的批次）为起点重放（BalanceLedger 幂等保护）。
  */
 @Slf4j
 @Component
@@ -74,6 +102,21 @@ public class TradeSettlementForwarder {
     /** 回放使用独立 stream（与录制 stream 不同，避免冲突）*/
     private static final int REPLAY_STREAM = 2001;
 
+    /** 单次 poll 的 fragment 上限。 */
+    private static final int FRAGMENT_LIMIT = 256;
+
+    /** 每个分片同时在途的 BATCH_SETTLE 批次数上限（K）。 */
+    @Value("${asset.settlement.window-size:8}")
+    private int windowSize;
+
+    /** 单批子项数上限（成交 + 成交腿 + 解冻，控制 Ingress 消息大小；单个 fragment 超限时独占一批）。 */
+    @Value("${asset.settlement.max-batch-items:200}")
+    private int maxBatchItems;
+
+    /** 分片无子项时，位点落后超过该字节数即发送只推进位点的空批次。 */
+    @Value("${asset.settlement.position-sync-bytes:1048576}")
+    private long positionSyncBytes;
+
     // ── 依赖注入 ──────────────────────────────────────────────────────
     /**
      * 通过 AssetGatewayService 发送 BATCH_SETTLE 并等待 Egress 确认，
@@ -86,15 +129,21 @@ public class TradeSettlementForwarder {
     @Autowired
     private AssetGatewayService assetGatewayService;
 
+    @Autowired
+    private ShardRouter shardRouter;
+
     // ── 内部状态 ─────────────────────────────────────────────────────
     private final ObjectMapper   objectMapper;
 
-    /** Archive 消费位点（从 Cluster Snapshot 中读取，随 BATCH_SETTLE 原子更新）。 */
-    private volatile long startPosition = 0L;
-
     private Thread           subscribeThread;
     private volatile boolean running = true;
 
+    // ── 流水线状态（仅 subscribe 线程访问，每次会话重置）───────────────
+    /** 每个分片一条流水线，下标即 shardId */
+    private ShardPipeline[] pipelines = new ShardPipeline[0];
+    /** 已读取的最高 fragment 位点（下一批携带的 archivePosition） */
+    private long readPosition;
+
     public TradeSettlementForwarder() {
         this.objectMapper = new ObjectMapper()
                 .registerModule(new JavaTimeModule())
@@ -140,10 +189,19 @@ public class TradeSettlementForwarder {
     }
 
     private void subscribeOnce() throws Exception {
-        // 每次会话开始前从 Cluster 取权威位点（fail-fast：查询失败直接抛出，
-        // 由外层 retry 循环 5s 后重试，绝不 fallback 到 0 从头重放）
-        startPosition = assetGatewayService.queryMatchArchivePosition(0L);
-        log.info("[TradeSettlementForwarder] Cluster matchArchivePosition={}", startPosition);
+        // 每次会话开始前从各分片取权威位点（fail-fast：查询失败直接抛出，
+        // 由外层 retry 循环 5s 后重试，绝不 fallback 到 0 从头重放）。
+        // 回退：丢弃上一会话未确认的批次，从各分片已提交位点重新聚合
+        int shards = shardRouter.getTotalShards();
+        pipelines = new ShardPipeline[shards];
+        long startPosition = Long.MAX_VALUE;
+        for (int s = 0; s < shards; s++) {
+            long committed = assetGatewayService.queryShardMatchArchivePosition(s);
+            pipelines[s] = new ShardPipeline(s, committed);
+            startPosition = Math.min(startPosition, committed);
+            log.info("[TradeSettlementForwarder] Cluster shard={} matchArchivePosition={}", s, committed);
+        }
+        readPosition = startPosition;
 
         MediaDriver driver = MediaDriver.launchEmbedded();
         try (Aeron aeron = Aeron.connect(new Aeron.Context().aeronDirectoryName(driver.aeronDirectoryName()));
@@ -174,8 +232,15 @@ public class TradeSettlementForwarder {
 
                 log.info("[TradeSettlementForwarder] Replay image connected, consuming...");
                 while (running && !image.isClosed()) {
-                    sub.poll(assembler, 10);
-                    Thread.yield();
+                    int fragments = sub.poll(assembler, FRAGMENT_LIMIT);
+                    // 追平（本轮未读满）即发出聚合批次，避免低流量时成交滞留
+                    if (fragments < FRAGMENT_LIMIT) {
+                        flushAll();
+                    }
+                    drainAcknowledged();
+                    if (fragments == 0) {
+                        Thread.yield();
+                    }
                 }
                 log.warn("[TradeSettlementForwarder] Replay image closed, reconnecting...");
             } finally {
@@ -193,24 +258,53 @@ public class TradeSettlementForwarder {
     private void onFragment(DirectBuffer buffer, int offset, int length,
                             io.aeron.logbuffer.Header header, long recordingId) {
         try {
-            byte[] bytes = new byte[length];
-            buffer.getBytes(offset, bytes);
-            MatchResponse response = objectMapper.readValue(bytes, MatchResponse.class);
+            MatchResponse response = MatchResponseCodec.read(buffer, offset, length, objectMapper);
 
             List<Trade> trades = response.getTrades();
-            if (trades != null && !trades.isEmpty()) {
-                // 将当前 fragment 的 Archive position 随 BATCH_SETTLE 一同发送到 Cluster，
-                // Cluster 原子写入 Raft 日志 → Snapshot，保证位点与结算的一致性
-                forwardBatchSettlement(trades, header.position());
-            }
-            // 撤单/下架的资金解冻(撮合驱动):逐条转 UNFREEZE 到资产 Cluster(orderId 幂等)。
-            // 失败抛异常 → subscribeOnce 退出 → 重试,位点不推进,解冻不漏。
+            // 撤单/下架的资金解冻(撮合驱动):与成交同批,由资产 Cluster 按 orderId 幂等
             List<com.exchange.match.model.MatchResponse.CancelRelease> releases = response.getReleases();
-            if (releases != null && !releases.isEmpty()) {
-                forwardReleases(releases);
+            long position = header.position();
+
+            // 第一遍：统计本 fragment 落到各分片的子项数（跳过分片已提交位点之前的部分），
+            // 聚合中的批次放不下时先发出，保证单个 fragment 在每个分片上不被拆到两批
+            int[] incoming = new int[pipelines.length];
+            if (trades != null) {
+                for (Trade trade : trades) {
+                    int buyShard  = shardRouter.getShardId(trade.getBuyUserId());
+                    int sellShard = shardRouter.getShardId(trade.getSellUserId());
+                    if (position > pipelines[buyShard].committedPosition) incoming[buyShard]++;
+                    if (sellShard != buyShard && position > pipelines[sellShard].committedPosition) incoming[sellShard]++;
+                }
             }
-            // 无论是否有 trades/releases，推进本地位点（下次重启从此处续读）
-            startPosition = header.position();
+            if (releases != null) {
+                for (com.exchange.match.model.MatchResponse.CancelRelease rel : releases) {
+                    if (rel == null || rel.getAmount() == null || rel.getUserId() == null) continue;
+                    int shard = shardRouter.getShardId(rel.getUserId());
+                    if (position > pipelines[shard].committedPosition) incoming[shard]++;
+                }
+            }
+            for (ShardPipeline p : pipelines) {
+                int pending = p.pendingCount();
+                if (incoming[p.shardId] > 0 && pending > 0 && pending + incoming[p.shardId] > maxBatchItems) {
+                    flush(p);
+                }
+            }
+
+            // 第二遍：换算并分派到各分片
+            if (trades != null) {
+                for (Trade trade : trades) {
+                    routeTrade(toTradeItem(trade), position);
+                }
+            }
+            if (releases != null) {
+                for (com.exchange.match.model.MatchResponse.CancelRelease rel : releases) {
+                    if (rel == null || rel.getAmount() == null || rel.getUserId() == null) continue;
+                    ShardPipeline p = pipelines[shardRouter.getShardId(rel.getUserId())];
+                    if (position > p.committedPosition) p.releases.add(toReleaseItem(rel));
+                }
+            }
+            // 无论是否有 trades/releases，推进读取位点；随下一批 BATCH_SETTLE_AND_RELEASE 原子提交到 Cluster
+            readPosition = header.position();
 
         } catch (RuntimeException e) {
             throw e;
@@ -224,89 +318,152 @@ public class TradeSettlementForwarder {
     // =========================================================================
 
     /**
-     * 将 N 笔成交打包为一条 BATCH_SETTLE 消息发送到 Asset Cluster，并等待 Egress 确认。
-     *
-     * <h3>与旧实现的差异</h3>
-     * <p>旧实现直接 {@code assetClusterClient.offer()} 后立即返回（fire-and-forget）：
-     * Cluster 内部处理失败时调用方无感知，位点仍被推进，该批成交永久跳过不结算。
-     *
-     * <p>新实现委托给 {@link AssetGatewayService#batchSettle(Long, List, long)}：
-     * 内部通过 correlationId + CompletableFuture 等待 Egress 响应（超时 5s）。
-     * Cluster 返回 ERROR 或超时时抛出异常，poll 循环退出，5s 后重试，
-     * 位点不推进，成交不会漏结算。
-     *
-     * @param trades          本次批量成交列表
-     * @param archivePosition 当前 fragment 在 Match Archive 中的 byte position，
-     *                        随 BATCH_SETTLE 写入同一 Raft 日志条目，与结算原子提交
+     * 成交分派：买卖双方同分片时整笔发往该分片；否则拆为买方腿 / 卖方腿分别发往各自分片。
+     * 已在目标分片提交过的位点上的子项跳过。
      */
+    private void routeTrade(SettleItem t, long position) {
+        ShardPipeline buy  = pipelines[shardRouter.getShardId(t.buyerId())];
+        ShardPipeline sell = pipelines[shardRouter.getShardId(t.sellerId())];
+        if (buy == sell) {
+            if (position > buy.committedPosition) buy.trades.add(t);
+            return;
+        }
+        if (position > buy.committedPosition) {
+            buy.legs.add(new SettleLeg(t.tradeId(), t.buyerId(), LegSide.BUY, t.accountType(),
+                    t.baseAsset(), t.quoteAsset(), t.qty(), t.quoteAmt(), t.buyFee()));
+        }
+        if (position > sell.committedPosition) {
+            sell.legs.add(new SettleLeg(t.tradeId(), t.sellerId(), LegSide.SELL, t.accountType(),
+                    t.baseAsset(), t.quoteAsset(), t.qty(), t.quoteAmt(), t.sellFee()));
+        }
+    }
+
+    /**
+     * 追平时发出各分片聚合中的批次；长时间无子项、位点落后超过 {@code positionSyncBytes} 的分片
+     * 发一条空批次，只推进其位点。
+     */
+    private void flushAll() {
+        for (ShardPipeline p : pipelines) {
+            if (p.pendingCount() > 0 || readPosition - p.sentPosition >= positionSyncBytes) {
+                flush(p);
+            }
+        }
+    }
+
     /**
-     * 将撤单/下架产生的解冻指令逐条转成 UNFREEZE 发送到资产 Cluster。
+     * 将分片聚合中的子项打包为一条 BATCH_SETTLE_AND_RELEASE 异步发出，位点取已读取的最高 fragment 位点。
      *
-     * <p>复用 {@link AssetGatewayService#unfreeze}(同步等待 UNFREEZE_OK);
-     * 资产侧以 orderId 幂等(重放/重试不重复解冻)。任一条失败即抛异常,
-     * 由 subscribeOnce 退出重试,位点不推进 → 解冻绝不漏。
+     * <p>窗口已满时先按序等待该分片最早的批次确认。{@code archivePosition} 随批次写入同一 Raft 日志条目，
+     * 与结算/解冻原子提交；{@code prevArchivePosition} 供该分片校验位点衔接
+     * （见 {@link AssetGatewayService#settlementBatchAsync}）。
      */
-    private void forwardReleases(List<com.exchange.match.model.MatchResponse.CancelRelease> releases) {
-        for (com.exchange.match.model.MatchResponse.CancelRelease rel : releases) {
-            if (rel == null || rel.getAmount() == null || rel.getUserId() == null) continue;
-            try {
-                com.exchange.account.api.dto.FreezeReq req = new com.exchange.account.api.dto.FreezeReq();
-                req.setUserId(rel.getUserId());
-                req.setAccountType(com.exchange.account.api.enums.AccountType.valueOf(
-                        rel.getAccountType() != null ? rel.getAccountType() : "SPOT"));
-                req.setAsset(rel.getAsset());
-                req.setAmount(rel.getAmount());
-                // 幂等键:用订单号,与下单冻结的 "FREEZE:{orderId}" 区分("UNFREEZE:{orderId}")
-                req.setOrderId(rel.getOrderId());
-                assetGatewayService.unfreeze(req);
-                log.debug("[TradeSettlementForwarder] UNFREEZE confirmed userId={} asset={} amount={} orderId={}",
-                        rel.getUserId(), rel.getAsset(), rel.getAmount(), rel.getOrderId());
-            } catch (Exception e) {
-                throw new RuntimeException("[TradeSettlementForwarder] UNFREEZE failed for orderId="
-                        + rel.getOrderId(), e);
+    private void flush(ShardPipeline p) {
+        while (p.inFlight.size() >= windowSize) {
+            awaitHead(p);
+        }
+        List<SettleItem>  trades   = new ArrayList<>(p.trades);
+        List<SettleLeg>   legs     = new ArrayList<>(p.legs);
+        List<ReleaseItem> releases = new ArrayList<>(p.releases);
+        p.trades.clear();
+        p.legs.clear();
+        p.releases.clear();
+
+        CompletableFuture<Void> future = assetGatewayService.settlementBatchAsync(
+                p.shardId, trades, legs, releases, readPosition, p.sentPosition);
+        p.inFlight.addLast(new InFlightBatch(readPosition, trades.size(), legs.size(), releases.size(), future));
+        p.sentPosition = readPosition;
+    }
+
+    /** 非阻塞地按序确认各分片已完成的批次；最早的批次失败即抛出（触发回退重放）。 */
+    private void drainAcknowledged() {
+        for (ShardPipeline p : pipelines) {
+            while (!p.inFlight.isEmpty() && p.inFlight.peekFirst().future().isDone()) {
+                awaitHead(p);
             }
         }
     }
 
-    private void forwardBatchSettlement(List<Trade> trades, long archivePosition) {
+    /** 阻塞等待分片最早的在途批次；成功则推进已确认位点，失败抛异常。 */
+    private void awaitHead(ShardPipeline p) {
+        InFlightBatch head = p.inFlight.peekFirst();
         try {
-            List<Map<String, Object>> tradeItems = new ArrayList<>(trades.size());
-            Long routingUserId = null;
-
-            for (Trade trade : trades) {
-                String[] parts    = trade.getSymbol().split("_", 2);
-                String baseAsset  = parts.length > 0 ? parts[0] : "UNKNOWN";
-                String quoteAsset = parts.length > 1 ? parts[1] : "USDT";
-
-                Map<String, Object> t = new HashMap<>();
-                t.put("tradeId",    trade.getTradeId());
-                t.put("buyerId",    trade.getBuyUserId());
-                t.put("sellerId",   trade.getSellUserId());
-                t.put("baseAsset",  baseAsset);
-                t.put("quoteAsset", quoteAsset);
-                t.put("qty",        trade.getQuantity().toPlainString());
-                t.put("quoteAmt",   trade.getAmount().toPlainString());
-                t.put("buyFee",     trade.getBuyFee()  != null ? trade.getBuyFee().toPlainString()  : "0");
-                t.put("sellFee",    trade.getSellFee() != null ? trade.getSellFee().toPlainString() : "0");
-                tradeItems.add(t);
-
-                // 取第一笔成交的 buyerId 作为分片路由键（单节点时任意值均路由到 shard 0）
-                if (routingUserId == null) {
-                    routingUserId = trade.getBuyUserId();
-                }
-            }
+            head.future().join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("[TradeSettlementForwarder] batchSettle failed, shard=" + p.shardId
+                    + " trades=" + head.tradeCount() + " legs=" + head.legCount()
+                    + " releases=" + head.releaseCount() + " archivePosition=" + head.archivePosition(), e.getCause());
+        }
+        p.inFlight.pollFirst();
+        p.committedPosition = head.archivePosition();
+        log.debug("[TradeSettlementForwarder] BATCH_SETTLE_AND_RELEASE confirmed, shard={} trades={} legs={} releases={} archivePosition={}",
+                p.shardId, head.tradeCount(), head.legCount(), head.releaseCount(), head.archivePosition());
+    }
 
-            if (routingUserId == null) routingUserId = 0L;
+    /** 金额按资产 scale 换算为 raw（精度超限即抛出，订阅循环退出后重试，绝不截断）。 */
+    private SettleItem toTradeItem(Trade trade) {
+        String[] parts    = trade.getSymbol().split("_", 2);
+        String baseAsset  = parts.length > 0 ? parts[0] : "UNKNOWN";
+        String quoteAsset = parts.length > 1 ? parts[1] : "USDT";
+
+        return new SettleItem(
+                trade.getTradeId(),
+                trade.getBuyUserId(),
+                trade.getSellUserId(),
+                AccountType.SPOT,
+                baseAsset,
+                quoteAsset,
+                assetGatewayService.toRaw(trade.getQuantity(), baseAsset),
+                assetGatewayService.toRaw(trade.getAmount(), quoteAsset),
+                trade.getBuyFee()  != null ? assetGatewayService.toRaw(trade.getBuyFee(),  quoteAsset) : 0L,
+                trade.getSellFee() != null ? assetGatewayService.toRaw(trade.getSellFee(), quoteAsset) : 0L);
+    }
 
-            // 同步调用：等待 Egress 返回 OK；失败时抛异常 → subscribeOnce 退出 → retry
-            assetGatewayService.batchSettle(routingUserId, tradeItems, archivePosition);
-            log.debug("[TradeSettlementForwarder] BATCH_SETTLE confirmed, trades={}", trades.size());
+    /** 幂等键:用订单号,与下单冻结的 "FREEZE:{orderId}" 区分(资产侧 "UNFREEZE:{orderId}")。 */
+    private ReleaseItem toReleaseItem(com.exchange.match.model.MatchResponse.CancelRelease rel) {
+        return new ReleaseItem(
+                rel.getOrderId(),
+                rel.getUserId(),
+                rel.getAccountType() != null ? AccountType.valueOf(rel.getAccountType()) : AccountType.SPOT,
+                rel.getAsset(),
+                assetGatewayService.toRaw(rel.getAmount(), rel.getAsset()));
+    }
 
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException(
-                    "[TradeSettlementForwarder] batchSettle failed, trades=" + trades.size(), e);
+    /**
+     * 在途批次。
+     *
+     * @param archivePosition 批次携带的位点（确认后即该分片已提交位点）
+     * @param tradeCount      成交笔数
+     * @param legCount        成交腿数
+     * @param releaseCount    解冻笔数
+     * @param future          Egress 确认
+     */
+    private record InFlightBatch(long archivePosition, int tradeCount, int legCount, int releaseCount,
+                                 CompletableFuture<Void> future) {}
+
+    /** 单个分片的流水线状态（仅 subscribe 线程访问）。 */
+    private static final class ShardPipeline {
+        final int shardId;
+        /** 聚合中、尚未发送的整笔成交（买卖双方均在本分片） */
+        final List<SettleItem>  trades   = new ArrayList<>();
+        /** 聚合中、尚未发送的跨分片成交腿 */
+        final List<SettleLeg>   legs     = new ArrayList<>();
+        /** 聚合中、尚未发送的撤单/下架释放 */
+        final List<ReleaseItem> releases = new ArrayList<>();
+        /** 已发送、等待按序确认的批次 */
+        final ArrayDeque<InFlightBatch> inFlight = new ArrayDeque<>();
+        /** 分片已提交位点（会话开始时查询，之后为最后一个按序确认批次的位点） */
+        long committedPosition;
+        /** 最后一个已发送批次的位点（下一批的 prevArchivePosition） */
+        long sentPosition;
+
+        ShardPipeline(int shardId, long committedPosition) {
+            this.shardId           = shardId;
+            this.committedPosition = committedPosition;
+            this.sentPosition      = committedPosition;
+        }
+
+        int pendingCount() {
+            return trades.size() + legs.size() + releases.size();
         }
     }
 
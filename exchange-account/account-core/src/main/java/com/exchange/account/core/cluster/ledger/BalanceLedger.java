@@ -5,6 +5,7 @@ import com.exchange.common.event.CoreSystemEvent;
 import com.exchange.common.event.SystemEventReporter;
 import com.exchange.common.id.SnowflakeId;
 import lombok.extern.slf4j.Slf4j;
+import org.agrona.collections.Long2LongHashMap;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -17,9 +18,10 @@ import java.util.Map;
  *
  * <h3>账本结构</h3>
  * <pre>
- *   userId → accountType → asset → Balance
+ *   (userId, accountType, asset) → Balance
  * </pre>
- * <p>每个用户下按 {@link AccountType} 完全隔离：
+ * <p>物理存储为扁平的 {@link BalanceTable}（开放寻址 + 并行 long[]），对外查询与快照仍按
+ * userId → accountType → asset 的嵌套视图导出。每个用户下按 {@link AccountType} 完全隔离：
  * 同一用户的 SPOT-USDT 与 FUTURES-USDT 是独立余额，
  * 互不影响，跨账户转账需通过专用 Transfer 操作完成。
  *
@@ -31,11 +33,11 @@ import java.util.Map;
  * 已处理过的 bizNo 存于 {@code processedBizNos}，防止重复结算。
  *
  * <h3>processedBizNos 有界增长（TTL 淘汰）</h3>
- * <p>{@code Map<String, Long>}，value = 该条目的过期时间（epoch ms）。
+ * <p>按前缀分区、以 bizNo 的 long 值为键的 {@link ProcessedBizNoWindow}，value = 过期时间（epoch ms）。
  * 过期时间由 bizNo 的 Snowflake 时间戳 + {@link #BIZNO_TTL_MS} 推导；
  * 非 Snowflake 格式则 fallback 到 clusterTimestamp。
  * {@link com.exchange.account.core.cluster.AssetClusteredService} 每分钟通过
- * {@link #evictExpiredBizNos(long)} 驱逐过期条目。
+ * {@link #evictExpiredBizNos(long)} 按分钟桶整桶驱逐，不扫全表。
  */
 @Slf4j
 public class BalanceLedger {
@@ -61,16 +63,16 @@ public class BalanceLedger {
     }
 
     /**
-     * 主账本：userId → accountType → asset → Balance。
-     * 普通 HashMap（在 Cluster Service Thread 上单线程访问）。
+     * 主账本：(userId, accountType, asset) → slot → available / frozen。
+     * 在 Cluster Service Thread 上单线程访问。
      */
-    private final Map<Long, Map<AccountType, Map<String, Balance>>> ledger = new HashMap<>();
+    private final BalanceTable balances = new BalanceTable();
 
     /**
-     * 幂等记录：bizNo key → 过期时间（epoch ms）。
-     * key 格式："{PREFIX}:{orderId|tradeId}"。
+     * 幂等记录：(前缀, orderId|tradeId) → 过期时间（epoch ms）。
+     * 快照中仍以 "{PREFIX}:{orderId|tradeId}" 字符串键导出。
      */
-    private final Map<String, Long> processedBizNos = new HashMap<>();
+    private final ProcessedBizNoWindow processedBizNos = new ProcessedBizNoWindow();
 
     /**
      * 永久幂等记录（不参与 TTL 驱逐）：CREDIT / DEBIT 专用。
@@ -80,10 +82,10 @@ public class BalanceLedger {
      * 重发会导致<b>重复加钱/扣钱</b>。因此这类操作的幂等键永不驱逐，
      * 随 Snapshot 持久化，跨重启有效。
      *
-     * <p>容量：充提频次远低于交易，长期增长可接受；
+     * <p>容量：有序 long[] + bloom，每条约 9 字节，长期增长可接受；
      * 后续可按业务归档策略（如已终态 N 年以上）离线清理。
      */
-    private final java.util.Set<String> permanentBizNos = new java.util.HashSet<>();
+    private final PermanentBizNoSet permanentBizNos = new PermanentBizNoSet();
 
     /**
      * Match Archive 已消费位点（byte position）。
@@ -125,6 +127,77 @@ public class BalanceLedger {
      */
     public record FreezeItem(String orderId, AccountType accountType, String asset, long amount) {}
 
+    /**
+     * 批量结算的单笔成交（金额均为对应资产 scale 下的定点 raw）。
+     *
+     * @param tradeId     成交 ID（幂等键）
+     * @param buyerId     买方用户 ID
+     * @param sellerId    卖方用户 ID
+     * @param accountType 账户类型
+     * @param baseAsset   基础资产
+     * @param quoteAsset  计价资产
+     * @param qty         成交数量（base scale）
+     * @param quoteAmt    成交金额（quote scale）
+     * @param buyFee      买方手续费（quote scale）
+     * @param sellFee     卖方手续费（quote scale）
+     */
+    public record SettleItem(String tradeId, Long buyerId, Long sellerId, AccountType accountType,
+                             String baseAsset, String quoteAsset,
+                             long qty, long quoteAmt, long buyFee, long sellFee) {}
+
+    /** 成交腿的方向。 */
+    public enum LegSide { BUY, SELL }
+
+    /**
+     * 成交的单边腿（买卖双方分属不同分片时，各分片只结算本分片用户的一边）。
+     *
+     * <ul>
+     *   <li>BUY：扣买方冻结的 quote（{@code quoteAmt + fee}），入账 base {@code qty}。</li>
+     *   <li>SELL：扣卖方冻结的 base {@code qty}，入账 quote（{@code quoteAmt - fee}）。</li>
+     * </ul>
+     * <p>每条腿只动本用户在本分片、下单时已冻结的资金，不依赖对手方所在分片，
+     * 因此两条腿无需跨分片原子：各自幂等（{@code SETTLE_BUY / SETTLE_SELL:{tradeId}}）、
+     * 各自随本分片的 Archive 位点提交即可。
+     *
+     * @param tradeId     成交 ID（幂等键）
+     * @param userId      本腿用户（买方或卖方）
+     * @param side        方向
+     * @param accountType 账户类型
+     * @param baseAsset   基础资产
+     * @param quoteAsset  计价资产
+     * @param qty         成交数量（base scale）
+     * @param quoteAmt    成交金额（quote scale）
+     * @param fee         本方手续费（quote scale）
+     */
+    public record SettleLeg(String tradeId, Long userId, LegSide side, AccountType accountType,
+                            String baseAsset, String quoteAsset, long qty, long quoteAmt, long fee) {}
+
+    /**
+     * 批量解冻的单个子项（撤单 / 下架释放剩余冻结）。
+     *
+     * @param orderId     关联订单 ID（幂等键，与单笔 UNFREEZE 共用）
+     * @param userId      用户 ID
+     * @param accountType 账户类型
+     * @param asset       资产代码
+     * @param amount      解冻金额（该资产 scale 下的定点 raw）
+     */
+    public record ReleaseItem(String orderId, Long userId, AccountType accountType, String asset, long amount) {}
+
+    /**
+     * 批量结算+解冻的逐项回调（执行阶段按顺序调用，此时账本已反映该项变更）。
+     */
+    public interface SettlementBatchListener {
+
+        /** 一笔成交已结算；其 4 条流水的 seq 为 {@code seqBase+1..seqBase+4}。 */
+        void onSettled(SettleItem item, long seqBase);
+
+        /** 一条成交腿已结算；其 2 条流水（扣减 / 入账）的 seq 为 {@code seqBase+1..seqBase+2}。 */
+        void onLegSettled(SettleLeg leg, long seqBase);
+
+        /** 一笔解冻已执行；其流水 seq 为 {@code seq}。 */
+        void onReleased(ReleaseItem item, long seq);
+    }
+
     // =========================================================================
     // 查询
     // =========================================================================
@@ -133,24 +206,20 @@ public class BalanceLedger {
      * 获取用户某账户类型下某资产余额，不存在时返回全零余额（不自动创建）。
      */
     public Balance getBalance(Long userId, AccountType accountType, String asset) {
-        Map<AccountType, Map<String, Balance>> byType = ledger.get(userId);
-        if (byType == null) return new Balance();
-        Map<String, Balance> byAsset = byType.get(accountType);
-        if (byAsset == null) return new Balance();
-        Balance b = byAsset.get(asset);
-        return b != null ? b.copy() : new Balance();
+        int slot = balances.find(userId, accountType, asset);
+        return slot != BalanceTable.NONE ? balances.toBalance(slot) : new Balance();
     }
 
     /**
      * 获取用户某账户类型下所有资产余额的快照副本（只读）。
      */
     public Map<String, Balance> getAllBalances(Long userId, AccountType accountType) {
-        Map<AccountType, Map<String, Balance>> byType = ledger.get(userId);
-        if (byType == null) return Collections.emptyMap();
-        Map<String, Balance> byAsset = byType.get(accountType);
-        if (byAsset == null) return Collections.emptyMap();
         Map<String, Balance> copy = new HashMap<>();
-        byAsset.forEach((asset, bal) -> copy.put(asset, bal.copy()));
+        for (int s = balances.firstOfUser(userId); s != BalanceTable.NONE; s = balances.nextOfUser(s)) {
+            if (balances.accountType(s) == accountType) {
+                copy.put(balances.asset(s), balances.toBalance(s));
+            }
+        }
         return copy;
     }
 
@@ -159,14 +228,11 @@ public class BalanceLedger {
      * key: accountType → (asset → Balance)
      */
     public Map<AccountType, Map<String, Balance>> getAllBalancesByType(Long userId) {
-        Map<AccountType, Map<String, Balance>> byType = ledger.get(userId);
-        if (byType == null) return Collections.emptyMap();
         Map<AccountType, Map<String, Balance>> copy = new HashMap<>();
-        byType.forEach((type, assets) -> {
-            Map<String, Balance> assetCopy = new HashMap<>();
-            assets.forEach((asset, bal) -> assetCopy.put(asset, bal.copy()));
-            copy.put(type, assetCopy);
-        });
+        for (int s = balances.firstOfUser(userId); s != BalanceTable.NONE; s = balances.nextOfUser(s)) {
+            copy.computeIfAbsent(balances.accountType(s), k -> new HashMap<>())
+                    .put(balances.asset(s), balances.toBalance(s));
+        }
         return copy;
     }
 
@@ -187,15 +253,13 @@ public class BalanceLedger {
      */
     public void freeze(Long userId, AccountType accountType, String asset,
                        long amount, String orderId, long clusterTimestamp) {
-        String key = "FREEZE:" + orderId;
-        if (isProcessed(key)) {
+        if (processedBizNos.contains(BizNoType.FREEZE, orderId)) {
             reportIdempotentHit("FREEZE", orderId, clusterTimestamp);
             log.debug("[BalanceLedger] Duplicate FREEZE ignored — orderId={}", orderId);
             return;
         }
-        Balance balance = getOrCreate(userId, accountType, asset);
-        balance.freeze(amount);
-        markProcessed(key, orderId, clusterTimestamp);
+        balances.freeze(balances.getOrCreate(userId, accountType, asset), amount);
+        markProcessed(BizNoType.FREEZE, orderId, clusterTimestamp);
         advanceSeq(1);   // 1 条 FREEZE 流水
         log.debug("[BalanceLedger] FREEZE userId={} accountType={} asset={} amount={} orderId={}",
                 userId, accountType, asset, amount, orderId);
@@ -206,15 +270,13 @@ public class BalanceLedger {
      */
     public void unfreeze(Long userId, AccountType accountType, String asset,
                          long amount, String orderId, long clusterTimestamp) {
-        String key = "UNFREEZE:" + orderId;
-        if (isProcessed(key)) {
+        if (processedBizNos.contains(BizNoType.UNFREEZE, orderId)) {
             reportIdempotentHit("UNFREEZE", orderId, clusterTimestamp);
             log.debug("[BalanceLedger] Duplicate UNFREEZE ignored — orderId={}", orderId);
             return;
         }
-        Balance balance = getOrCreate(userId, accountType, asset);
-        balance.unfreeze(amount);
-        markProcessed(key, orderId, clusterTimestamp);
+        balances.unfreeze(balances.getOrCreate(userId, accountType, asset), amount);
+        markProcessed(BizNoType.UNFREEZE, orderId, clusterTimestamp);
         advanceSeq(1);   // 1 条 UNFREEZE 流水
         log.debug("[BalanceLedger] UNFREEZE userId={} accountType={} asset={} amount={} orderId={}",
                 userId, accountType, asset, amount, orderId);
@@ -241,38 +303,37 @@ public class BalanceLedger {
                             long qty, long quoteAmt,
                             long buyFee, long sellFee,
                             String tradeId, long clusterTimestamp) {
-        String key = "SETTLE:" + tradeId;
-        if (isProcessed(key)) {
+        if (processedBizNos.contains(BizNoType.SETTLE, tradeId)) {
             reportIdempotentHit("SETTLE", tradeId, clusterTimestamp);
             log.debug("[BalanceLedger] Duplicate SETTLE ignored — tradeId={}", tradeId);
             return;
         }
 
         // Phase 1: 整体预校验（qty/quoteAmt 同 base/quote 资产 scale，raw 直接比较）
-        long buyerCost    = Math.addExact(quoteAmt, buyFee);
-        Balance buyerQuote = getOrCreate(buyerId,  accountType, quoteAsset);
-        Balance sellerBase = getOrCreate(sellerId, accountType, baseAsset);
+        long buyerCost  = Math.addExact(quoteAmt, buyFee);
+        int  buyerQuote = balances.getOrCreate(buyerId,  accountType, quoteAsset);
+        int  sellerBase = balances.getOrCreate(sellerId, accountType, baseAsset);
 
-        if (buyerQuote.getFrozen() < buyerCost) {
+        if (balances.frozen(buyerQuote) < buyerCost) {
             throw new IllegalStateException(String.format(
                     "[SETTLE] Buyer insufficient frozen quoteAsset: userId=%d accountType=%s asset=%s " +
                     "frozen=%d required=%d tradeId=%s",
-                    buyerId, accountType, quoteAsset, buyerQuote.getFrozen(), buyerCost, tradeId));
+                    buyerId, accountType, quoteAsset, balances.frozen(buyerQuote), buyerCost, tradeId));
         }
-        if (sellerBase.getFrozen() < qty) {
+        if (balances.frozen(sellerBase) < qty) {
             throw new IllegalStateException(String.format(
                     "[SETTLE] Seller insufficient frozen baseAsset: userId=%d accountType=%s asset=%s " +
                     "frozen=%d required=%d tradeId=%s",
-                    sellerId, accountType, baseAsset, sellerBase.getFrozen(), qty, tradeId));
+                    sellerId, accountType, baseAsset, balances.frozen(sellerBase), qty, tradeId));
         }
 
-        // Phase 2: 原子执行
-        buyerQuote.deductFrozen(buyerCost);
-        getOrCreate(buyerId,  accountType, baseAsset).credit(qty);
-        sellerBase.deductFrozen(qty);
-        getOrCreate(sellerId, accountType, quoteAsset).credit(Math.subtractExact(quoteAmt, sellFee));
+        // Phase 2: 原子执行（slot 不随扩容移动，先取得的 slot 继续有效）
+        balances.deductFrozen(buyerQuote, buyerCost);
+        balances.credit(balances.getOrCreate(buyerId, accountType, baseAsset), qty);
+        balances.deductFrozen(sellerBase, qty);
+        balances.credit(balances.getOrCreate(sellerId, accountType, quoteAsset), Math.subtractExact(quoteAmt, sellFee));
 
-        markProcessed(key, tradeId, clusterTimestamp);
+        markProcessed(BizNoType.SETTLE, tradeId, clusterTimestamp);
         advanceSeq(4);   // 4 条流水：买扣/买入/卖扣/卖入
         log.debug("[BalanceLedger] SETTLE tradeId={} accountType={} buyer={} seller={} qty={} quoteAmt={}",
                 tradeId, accountType, buyerId, sellerId, qty, quoteAmt);
@@ -301,13 +362,12 @@ public class BalanceLedger {
             throw new IllegalStateException("[CREDIT] amount must be positive: " + amount);
         }
         // 永久幂等（不走 TTL 表）：外部单号重发无时间窗口限制
-        String key = "CREDIT:" + bizNo;
-        if (!permanentBizNos.add(key)) {
+        if (!permanentBizNos.add(BizNoType.CREDIT, bizNo)) {
             reportIdempotentHit("CREDIT", bizNo, clusterTimestamp);
             log.debug("[BalanceLedger] Duplicate CREDIT ignored — bizNo={}", bizNo);
             return;
         }
-        getOrCreate(userId, accountType, asset).credit(amount);
+        balances.credit(balances.getOrCreate(userId, accountType, asset), amount);
         advanceSeq(1);   // 1 条 CREDIT 流水
         log.debug("[BalanceLedger] CREDIT userId={} accountType={} asset={} amount={} bizNo={}",
                 userId, accountType, asset, amount, bizNo);
@@ -327,21 +387,20 @@ public class BalanceLedger {
             throw new IllegalStateException("[DEBIT] amount must be positive: " + amount);
         }
         // 永久幂等（不走 TTL 表）：外部单号重发无时间窗口限制
-        String key = "DEBIT:" + bizNo;
-        if (permanentBizNos.contains(key)) {
+        if (permanentBizNos.contains(BizNoType.DEBIT, bizNo)) {
             reportIdempotentHit("DEBIT", bizNo, clusterTimestamp);
             log.debug("[BalanceLedger] Duplicate DEBIT ignored — bizNo={}", bizNo);
             return;
         }
-        Balance balance = getOrCreate(userId, accountType, asset);
-        if (balance.getAvailable() < amount) {
+        int slot = balances.getOrCreate(userId, accountType, asset);
+        if (balances.available(slot) < amount) {
             throw new IllegalStateException(String.format(
                     "[DEBIT] Insufficient available: userId=%d accountType=%s asset=%s available=%d required=%d bizNo=%s",
-                    userId, accountType, asset, balance.getAvailable(), amount, bizNo));
+                    userId, accountType, asset, balances.available(slot), amount, bizNo));
         }
-        balance.debit(amount);
+        balances.debit(slot, amount);
         // 执行成功后才记录（余额不足抛出时不占用幂等键，允许补足后重试同一单号）
-        permanentBizNos.add(key);
+        permanentBizNos.add(BizNoType.DEBIT, bizNo);
         advanceSeq(1);   // 1 条 DEBIT 流水
         log.debug("[BalanceLedger] DEBIT userId={} accountType={} asset={} amount={} bizNo={}",
                 userId, accountType, asset, amount, bizNo);
@@ -370,22 +429,21 @@ public class BalanceLedger {
         if (amount <= 0) {
             throw new IllegalStateException("[TRANSFER] amount must be positive: " + amount);
         }
-        String key = "TRANSFER:" + bizNo;
-        if (isProcessed(key)) {
+        if (processedBizNos.contains(BizNoType.TRANSFER, bizNo)) {
             reportIdempotentHit("TRANSFER", bizNo, clusterTimestamp);
             log.debug("[BalanceLedger] Duplicate TRANSFER ignored — bizNo={}", bizNo);
             return;
         }
-        Balance from = getOrCreate(userId, fromType, asset);
-        if (from.getAvailable() < amount) {
+        int from = balances.getOrCreate(userId, fromType, asset);
+        if (balances.available(from) < amount) {
             throw new IllegalStateException(String.format(
                     "[TRANSFER] Insufficient available: userId=%d from=%s asset=%s available=%d required=%d bizNo=%s",
-                    userId, fromType, asset, from.getAvailable(), amount, bizNo));
+                    userId, fromType, asset, balances.available(from), amount, bizNo));
         }
         // 原子执行：先扣出账，再增入账
-        from.debit(amount);
-        getOrCreate(userId, toType, asset).credit(amount);
-        markProcessed(key, bizNo, clusterTimestamp);
+        balances.debit(from, amount);
+        balances.credit(balances.getOrCreate(userId, toType, asset), amount);
+        markProcessed(BizNoType.TRANSFER, bizNo, clusterTimestamp);
         advanceSeq(2);   // 2 条流水：TRANSFER_OUT + TRANSFER_IN
         log.debug("[BalanceLedger] TRANSFER userId={} from={} to={} asset={} amount={} bizNo={}",
                 userId, fromType, toType, asset, amount, bizNo);
@@ -405,20 +463,19 @@ public class BalanceLedger {
      */
     public List<FreezeItem> batchFreeze(Long userId, List<FreezeItem> items,
                                         long clusterTimestamp) {
-        // Phase 1: 过滤幂等 + 按 (accountType, asset) 汇总所需金额
-        Map<String, Long> requiredPerKey = new HashMap<>(); // "TYPE:asset" → total(raw)
+        // Phase 1: 过滤幂等 + 按余额 slot 汇总所需金额
+        Long2LongHashMap requiredBySlot = new Long2LongHashMap(Long.MIN_VALUE); // slot → total(raw)
         List<FreezeItem> toProcess = new ArrayList<>();
 
         for (FreezeItem item : items) {
-            String key = "FREEZE:" + item.orderId();
-            if (isProcessed(key)) {
+            if (processedBizNos.contains(BizNoType.FREEZE, item.orderId())) {
                 reportIdempotentHit("BATCH_FREEZE", item.orderId(), clusterTimestamp);
                 log.debug("[BalanceLedger] BATCH_FREEZE item skipped (dup) — orderId={}", item.orderId());
                 continue;
             }
             toProcess.add(item);
-            String mapKey = item.accountType().name() + ":" + item.asset();
-            requiredPerKey.merge(mapKey, item.amount(), Math::addExact);
+            requiredBySlot.merge(balances.getOrCreate(userId, item.accountType(), item.asset()),
+                    item.amount(), Math::addExact);
         }
 
         if (toProcess.isEmpty()) {
@@ -427,33 +484,158 @@ public class BalanceLedger {
         }
 
         // Phase 2: 整体预校验
-        for (Map.Entry<String, Long> entry : requiredPerKey.entrySet()) {
-            String[] parts   = entry.getKey().split(":", 2);
-            AccountType type = AccountType.valueOf(parts[0]);
-            String asset     = parts[1];
-            long required    = entry.getValue();
-            Balance balance  = getOrCreate(userId, type, asset);
-
-            if (balance.getAvailable() < required) {
+        Long2LongHashMap.KeyIterator slots = requiredBySlot.keySet().iterator();
+        while (slots.hasNext()) {
+            int  slot     = (int) slots.nextValue();
+            long required = requiredBySlot.get(slot);
+            if (balances.available(slot) < required) {
                 throw new IllegalStateException(String.format(
                         "[BATCH_FREEZE] Insufficient available %s/%s: userId=%d available=%d required=%d",
-                        type, asset, userId, balance.getAvailable(), required));
+                        balances.accountType(slot), balances.asset(slot), userId, balances.available(slot), required));
             }
         }
 
         // Phase 3: 原子执行
         for (FreezeItem item : toProcess) {
-            Balance balance = getOrCreate(userId, item.accountType(), item.asset());
-            balance.freeze(item.amount());
-            markProcessed("FREEZE:" + item.orderId(), item.orderId(), clusterTimestamp);
+            balances.freeze(balances.getOrCreate(userId, item.accountType(), item.asset()), item.amount());
+            markProcessed(BizNoType.FREEZE, item.orderId(), clusterTimestamp);
         }
         advanceSeq(toProcess.size());   // 每个实际执行的 item 产出 1 条 FREEZE 流水
         log.debug("[BalanceLedger] BATCH_FREEZE OK userId={} items={}", userId, toProcess.size());
         return toProcess;
     }
 
-    // 注:批量结算的逐笔循环已内联到 AssetClusteredService.handleBatchSettle
-    // （为按笔捕获 seqBase 派发事件）,此处不再提供 batchSettle 方法。
+    /**
+     * 批量结算+解冻（整体原子，一次位点更新）。
+     *
+     * <h3>原子性</h3>
+     * <p>"汇总预校验 → 批量执行"两阶段：成交与解冻只从 frozen 扣减、只向 available 入账，
+     * 因此按 (userId, accountType, asset) 汇总全部 frozen 扣减额后一次校验，即可保证执行阶段
+     * 每一步都不会失败；任一资产不足则整批抛异常，不修改任何状态（含位点）。
+     *
+     * <h3>幂等</h3>
+     * <p>成交键 {@code SETTLE:{tradeId}}、解冻键 {@code UNFREEZE:{orderId}} 与单笔接口共用，
+     * 成交腿键 {@code SETTLE_BUY / SETTLE_SELL:{tradeId}}；已处理或批内重复的子项跳过，不消耗 seq。
+     *
+     * <p>执行顺序：先全部成交，再全部成交腿，最后全部解冻；每项执行后回调 {@code listener}（可为 null）。
+     *
+     * @param legs            跨分片成交中属于本分片用户的单边腿
+     * @param archivePosition Match Archive 位点，随本批一同更新；-1 表示不更新
+     * @return 实际执行的子项数（成交 + 成交腿 + 解冻）
+     * @throws IllegalStateException 任一资产冻结余额不足
+     */
+    public int applySettlementBatch(List<SettleItem> settles, List<SettleLeg> legs, List<ReleaseItem> releases,
+                                    long archivePosition, long clusterTimestamp,
+                                    SettlementBatchListener listener) {
+        // Phase 1: 过滤幂等（含批内重复）+ 按余额键汇总 frozen 扣减额
+        java.util.Set<String> batchTradeIds = new java.util.HashSet<>();
+        java.util.Set<String> batchOrderIds = new java.util.HashSet<>();
+        java.util.Set<String> batchBuyLegs  = new java.util.HashSet<>();
+        java.util.Set<String> batchSellLegs = new java.util.HashSet<>();
+        Long2LongHashMap requiredFrozen = new Long2LongHashMap(Long.MIN_VALUE); // slot → total(raw)
+        List<SettleItem> settleToApply = new ArrayList<>();
+        List<SettleLeg> legToApply = new ArrayList<>();
+        List<ReleaseItem> releaseToApply = new ArrayList<>();
+
+        for (SettleItem t : settles) {
+            if (processedBizNos.contains(BizNoType.SETTLE, t.tradeId()) || !batchTradeIds.add(t.tradeId())) {
+                reportIdempotentHit("SETTLE", t.tradeId(), clusterTimestamp);
+                continue;
+            }
+            settleToApply.add(t);
+            requireFrozen(requiredFrozen, t.buyerId(), t.accountType(), t.quoteAsset(),
+                    Math.addExact(t.quoteAmt(), t.buyFee()));
+            requireFrozen(requiredFrozen, t.sellerId(), t.accountType(), t.baseAsset(), t.qty());
+        }
+        for (SettleLeg l : legs) {
+            boolean buy = l.side() == LegSide.BUY;
+            if (processedBizNos.contains(buy ? BizNoType.SETTLE_BUY : BizNoType.SETTLE_SELL, l.tradeId())
+                    || !(buy ? batchBuyLegs : batchSellLegs).add(l.tradeId())) {
+                reportIdempotentHit(buy ? "SETTLE_BUY" : "SETTLE_SELL", l.tradeId(), clusterTimestamp);
+                continue;
+            }
+            legToApply.add(l);
+            if (buy) {
+                requireFrozen(requiredFrozen, l.userId(), l.accountType(), l.quoteAsset(),
+                        Math.addExact(l.quoteAmt(), l.fee()));
+            } else {
+                requireFrozen(requiredFrozen, l.userId(), l.accountType(), l.baseAsset(), l.qty());
+            }
+        }
+        for (ReleaseItem r : releases) {
+            if (processedBizNos.contains(BizNoType.UNFREEZE, r.orderId()) || !batchOrderIds.add(r.orderId())) {
+                reportIdempotentHit("UNFREEZE", r.orderId(), clusterTimestamp);
+                continue;
+            }
+            releaseToApply.add(r);
+            requireFrozen(requiredFrozen, r.userId(), r.accountType(), r.asset(), r.amount());
+        }
+
+        // Phase 2: 整体预校验
+        Long2LongHashMap.KeyIterator slots = requiredFrozen.keySet().iterator();
+        while (slots.hasNext()) {
+            int  slot     = (int) slots.nextValue();
+            long required = requiredFrozen.get(slot);
+            if (balances.frozen(slot) < required) {
+                throw new IllegalStateException(String.format(
+                        "[BATCH_SETTLE] Insufficient frozen %s/%s: userId=%d frozen=%d required=%d",
+                        balances.accountType(slot), balances.asset(slot), balances.userId(slot),
+                        balances.frozen(slot), required));
+            }
+        }
+
+        // Phase 3: 原子执行（校验已覆盖全部扣减，此阶段不会失败）
+        for (SettleItem t : settleToApply) {
+            long seqBase = seq;
+            balances.deductFrozen(balances.getOrCreate(t.buyerId(), t.accountType(), t.quoteAsset()),
+                    Math.addExact(t.quoteAmt(), t.buyFee()));
+            balances.credit(balances.getOrCreate(t.buyerId(), t.accountType(), t.baseAsset()), t.qty());
+            balances.deductFrozen(balances.getOrCreate(t.sellerId(), t.accountType(), t.baseAsset()), t.qty());
+            balances.credit(balances.getOrCreate(t.sellerId(), t.accountType(), t.quoteAsset()),
+                    Math.subtractExact(t.quoteAmt(), t.sellFee()));
+            markProcessed(BizNoType.SETTLE, t.tradeId(), clusterTimestamp);
+            advanceSeq(4);   // 4 条流水：买扣/买入/卖扣/卖入
+            if (listener != null) listener.onSettled(t, seqBase);
+        }
+        for (SettleLeg l : legToApply) {
+            long seqBase = seq;
+            if (l.side() == LegSide.BUY) {
+                balances.deductFrozen(balances.getOrCreate(l.userId(), l.accountType(), l.quoteAsset()),
+                        Math.addExact(l.quoteAmt(), l.fee()));
+                balances.credit(balances.getOrCreate(l.userId(), l.accountType(), l.baseAsset()), l.qty());
+                markProcessed(BizNoType.SETTLE_BUY, l.tradeId(), clusterTimestamp);
+            } else {
+                balances.deductFrozen(balances.getOrCreate(l.userId(), l.accountType(), l.baseAsset()), l.qty());
+                balances.credit(balances.getOrCreate(l.userId(), l.accountType(), l.quoteAsset()),
+                        Math.subtractExact(l.quoteAmt(), l.fee()));
+                markProcessed(BizNoType.SETTLE_SELL, l.tradeId(), clusterTimestamp);
+            }
+            advanceSeq(2);   // 2 条流水：扣减/入账
+            if (listener != null) listener.onLegSettled(l, seqBase);
+        }
+        for (ReleaseItem r : releaseToApply) {
+            balances.unfreeze(balances.getOrCreate(r.userId(), r.accountType(), r.asset()), r.amount());
+            markProcessed(BizNoType.UNFREEZE, r.orderId(), clusterTimestamp);
+            advanceSeq(1);   // 1 条 UNFREEZE 流水
+            if (listener != null) listener.onReleased(r, seq);
+        }
+
+        if (archivePosition >= 0) {
+            matchArchivePosition = archivePosition;
+        }
+        int applied = settleToApply.size() + legToApply.size() + releaseToApply.size();
+        log.debug("[BalanceLedger] BATCH_SETTLE OK settled={} legs={} released={} skipped={}",
+                settleToApply.size(), legToApply.size(), releaseToApply.size(),
+                settles.size() + legs.size() + releases.size() - applied);
+        return applied;
+    }
+
+    /** 无成交腿的批量结算+解冻（单分片 / 旧格式）。 */
+    public int applySettlementBatch(List<SettleItem> settles, List<ReleaseItem> releases,
+                                    long archivePosition, long clusterTimestamp,
+                                    SettlementBatchListener listener) {
+        return applySettlementBatch(settles, List.of(), releases, archivePosition, clusterTimestamp, listener);
+    }
 
     // =========================================================================
     // Match Archive 位点管理
@@ -496,9 +678,7 @@ public class BalanceLedger {
      * @return 本次驱逐的条目数
      */
     public int evictExpiredBizNos(long currentClusterTimestampMs) {
-        int before = processedBizNos.size();
-        processedBizNos.entrySet().removeIf(e -> currentClusterTimestampMs > e.getValue());
-        int evicted = before - processedBizNos.size();
+        int evicted = processedBizNos.evictExpired(currentClusterTimestampMs);
         if (evicted > 0) {
             log.debug("[BalanceLedger] Evicted {} expired bizNos, remaining={}",
                     evicted, processedBizNos.size());
@@ -512,7 +692,7 @@ public class BalanceLedger {
 
     /** 用户数，O(1)。 */
     public int userCount() {
-        return ledger.size();
+        return balances.userCount();
     }
 
     /** 永久幂等表大小，O(1)。 */
@@ -520,18 +700,9 @@ public class BalanceLedger {
         return permanentBizNos.size();
     }
 
-    /**
-     * 账本条目总数 (userId×accountType×asset)，O(n)。
-     * 仅供低频的状态冷更新调用，不要放在热路径。
-     */
+    /** 账本条目总数 (userId×accountType×asset)，O(1)。 */
     public long ledgerEntryCount() {
-        long n = 0;
-        for (Map<AccountType, Map<String, Balance>> byType : ledger.values()) {
-            for (Map<String, Balance> byAsset : byType.values()) {
-                n += byAsset.size();
-            }
-        }
-        return n;
+        return balances.size();
     }
 
     // =========================================================================
@@ -539,33 +710,31 @@ public class BalanceLedger {
     // =========================================================================
 
     /**
-     * 导出完整账本（用于 Cluster Snapshot）。
+     * 导出完整账本（嵌套 Map 副本，对账 / 测试用）。
+     *
+     * <p>Cluster Snapshot 已改由 {@link LedgerSnapshot} 直接从底层存储流式写出，不再经过这里。
      *
      * <p>AccountType 枚举 key 转为 String，便于 JSON 序列化/反序列化。
      * 结构：userId → accountType(String) → asset → Balance
      */
     public Map<Long, Map<String, Map<String, Balance>>> exportLedger() {
         Map<Long, Map<String, Map<String, Balance>>> copy = new HashMap<>();
-        ledger.forEach((uid, byType) -> {
-            Map<String, Map<String, Balance>> typeCopy = new HashMap<>();
-            byType.forEach((type, assets) -> {
-                Map<String, Balance> assetsCopy = new HashMap<>();
-                assets.forEach((asset, bal) -> assetsCopy.put(asset, bal.copy()));
-                typeCopy.put(type.name(), assetsCopy);
-            });
-            copy.put(uid, typeCopy);
-        });
+        for (int s = 0, n = balances.size(); s < n; s++) {
+            copy.computeIfAbsent(balances.userId(s), k -> new HashMap<>())
+                    .computeIfAbsent(balances.accountType(s).name(), k -> new HashMap<>())
+                    .put(balances.asset(s), balances.toBalance(s));
+        }
         return copy;
     }
 
     /** 导出幂等记录（用于 Cluster Snapshot） */
     public Map<String, Long> exportProcessedBizNos() {
-        return new HashMap<>(processedBizNos);
+        return processedBizNos.export();
     }
 
     /** 导出永久幂等记录（CREDIT/DEBIT，用于 Cluster Snapshot） */
     public java.util.Set<String> exportPermanentBizNos() {
-        return new java.util.HashSet<>(permanentBizNos);
+        return permanentBizNos.export();
     }
 
     /**
@@ -582,46 +751,75 @@ public class BalanceLedger {
                         java.util.Collection<String> permanentData,
                         long archivedPosition,
                         long restoredSeq) {
-        ledger.clear();
+        clearForRestore();
+
+        if (ledgerData != null) {
+            ledgerData.forEach((uid, byType) -> byType.forEach((typeName, assets) -> {
+                AccountType type;
+                try {
+                    type = AccountType.valueOf(typeName);
+                } catch (IllegalArgumentException e) {
+                    log.warn("[BalanceLedger] Unknown accountType in snapshot: {}, skipping", typeName);
+                    return;
+                }
+                assets.forEach((asset, bal) -> balances.set(
+                        balances.getOrCreate(uid, type, asset), bal.getAvailable(), bal.getFrozen()));
+            }));
+        }
+        if (bizNosData != null) bizNosData.forEach(processedBizNos::restore);
+        if (permanentData != null) permanentData.forEach(permanentBizNos::restore);
+        completeRestore(archivedPosition, restoredSeq);
+    }
+
+    // ---- 二进制快照（LedgerSnapshot 直接读写底层存储，不经嵌套 Map）----
+
+    BalanceTable balanceTable() {
+        return balances;
+    }
+
+    ProcessedBizNoWindow processedBizNoWindow() {
+        return processedBizNos;
+    }
+
+    PermanentBizNoSet permanentBizNoSet() {
+        return permanentBizNos;
+    }
+
+    void clearForRestore() {
+        balances.clear();
         processedBizNos.clear();
         permanentBizNos.clear();
+    }
 
-        if (ledgerData != null) {
-            ledgerData.forEach((uid, byType) -> {
-                Map<AccountType, Map<String, Balance>> typeMap = new HashMap<>();
-                byType.forEach((typeName, assets) -> {
-                    try {
-                        AccountType type = AccountType.valueOf(typeName);
-                        typeMap.put(type, new HashMap<>(assets));
-                    } catch (IllegalArgumentException e) {
-                        log.warn("[BalanceLedger] Unknown accountType in snapshot: {}, skipping", typeName);
-                    }
-                });
-                ledger.put(uid, typeMap);
-            });
-        }
-        if (bizNosData != null) processedBizNos.putAll(bizNosData);
-        if (permanentData != null) permanentBizNos.addAll(permanentData);
+    void completeRestore(long archivedPosition, long restoredSeq) {
         this.matchArchivePosition = archivedPosition;
         this.seq = restoredSeq;
 
         log.info("[BalanceLedger] Restored — {} users, {} processed bizNos, {} permanent bizNos, matchArchivePosition={}, seq={}",
-                ledger.size(), processedBizNos.size(), permanentBizNos.size(), archivedPosition, restoredSeq);
+                balances.userCount(), processedBizNos.size(), permanentBizNos.size(), archivedPosition, restoredSeq);
     }
 
     // =========================================================================
     // Private helpers
     // =========================================================================
 
-    private Balance getOrCreate(Long userId, AccountType accountType, String asset) {
-        return ledger
-                .computeIfAbsent(userId,      k -> new HashMap<>())
-                .computeIfAbsent(accountType, k -> new HashMap<>())
-                .computeIfAbsent(asset,       k -> new Balance());
-    }
-
-    private boolean isProcessed(String key) {
-        return processedBizNos.containsKey(key);
+    /**
+     * 累加某余额的 frozen 扣减需求（预校验用，不自动创建余额）。
+     *
+     * @throws IllegalStateException 余额不存在而需求 &gt; 0（冻结余额视为 0）
+     */
+    private void requireFrozen(Long2LongHashMap requiredBySlot, Long userId, AccountType accountType,
+                               String asset, long amount) {
+        int slot = balances.find(userId, accountType, asset);
+        if (slot == BalanceTable.NONE) {
+            if (amount > 0) {
+                throw new IllegalStateException(String.format(
+                        "[BATCH_SETTLE] Insufficient frozen %s/%s: userId=%d frozen=0 required=%d",
+                        accountType, asset, userId, amount));
+            }
+            return;
+        }
+        requiredBySlot.merge(slot, amount, Math::addExact);
     }
 
     /**
@@ -635,11 +833,11 @@ public class BalanceLedger {
                 () -> "op=" + op + " bizNo=" + bizNoId);
     }
 
-    private void markProcessed(String key, String bizNoId, long clusterTimestamp) {
+    private void markProcessed(BizNoType type, String bizNoId, long clusterTimestamp) {
         // 确定性：以 clusterTimestamp 作为合理性校验参考时间（不读 wall-clock），
         // 保证 Raft 日志重放时 TTL 计算与原始执行完全一致
         long snowflakeTs = SnowflakeId.tryExtractTimestampMs(bizNoId, clusterTimestamp);
         long refTime     = snowflakeTs > 0 ? snowflakeTs : clusterTimestamp;
-        processedBizNos.put(key, refTime + BIZNO_TTL_MS);
+        processedBizNos.put(type, bizNoId, refTime + BIZNO_TTL_MS);
     }
 }
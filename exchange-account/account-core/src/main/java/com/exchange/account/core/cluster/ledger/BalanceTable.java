@@ -0,0 +1,334 @@
+package com.exchange.account.core.cluster.ledger;
+
+import com.exchange.account.api.enums.AccountType;
+import org.agrona.collections.Hashing;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.Object2IntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * 扁平化余额存储：(userId, accountType, asset) → slot，余额按 slot 存于并行 {@code long[]}。
+ *
+ * <h3>布局</h3>
+ * <pre>
+ *   index[]      开放寻址（线性探测）哈希桶 → slot，{@link #NONE} 为空桶
+ *   userIds[]    slot → userId
+ *   typeAssets[] slot → (accountType.ordinal &lt;&lt; 24) | assetId
+ *   available[]  slot → 可用余额 raw
+ *   frozen[]     slot → 冻结余额 raw
+ *   nextOfUser[] slot → 同一用户的上一个 slot（链表，头指针存于 userHeads）
+ * </pre>
+ *
+ * <p>相对 {@code HashMap<Long, Map<AccountType, Map<String, Balance>>>}：一次探测代替三层查找，
+ * 没有 Long 装箱、Entry / Balance 对象头和 per-user 子 Map；asset 驻留为 int id，
+ * 热路径只做一次 String→id 查找（{@code Object2IntHashMap}，asset 实例一般已驻留、hash 已缓存）。
+ *
+ * <h3>约束</h3>
+ * <ul>
+ *   <li>条目只增不删（余额归零仍保留，与原嵌套 Map 行为一致），slot 一经分配永不移动——
+ *       同一操作内先取得的 slot 在后续 {@link #getOrCreate} 扩容后依然有效。</li>
+ *   <li>assetId 只在本节点内部使用：二进制快照随记录写出 asset 名字典，还原端重新分配，
+ *       各副本分配顺序不同也无影响。</li>
+ *   <li>单线程（Cluster Service Thread）访问，无同步。</li>
+ * </ul>
+ *
+ * <p>余额变更方法与 {@link Balance} 语义、异常信息保持一致（溢出 fail-closed）。
+ */
+final class BalanceTable {
+
+    /** 空桶 / 不存在的 slot。 */
+    static final int NONE = -1;
+
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int ASSET_BITS    = 24;
+    private static final int ASSET_MASK    = (1 << ASSET_BITS) - 1;
+
+    private static final AccountType[] TYPES = AccountType.values();
+
+    private int[] index;
+    private int   mask;
+    private int   resizeThreshold;
+
+    private long[] userIds;
+    private int[]  typeAssets;
+    private long[] available;
+    private long[] frozen;
+    private int[]  nextOfUser;
+    private int    size;
+
+    /** userId → 该用户最近创建的 slot。 */
+    private Long2LongHashMap userHeads = new Long2LongHashMap(NONE);
+
+    private final Object2IntHashMap<String> assetIds = new Object2IntHashMap<>(NONE);
+    private String[] assetNames = new String[64];
+
+    BalanceTable() {
+        clear();
+    }
+
+    void clear() {
+        index = new int[INITIAL_SLOTS * 2];
+        Arrays.fill(index, NONE);
+        mask            = index.length - 1;
+        resizeThreshold = index.length / 2;
+
+        userIds    = new long[INITIAL_SLOTS];
+        typeAssets = new int[INITIAL_SLOTS];
+        available  = new long[INITIAL_SLOTS];
+        frozen     = new long[INITIAL_SLOTS];
+        nextOfUser = new int[INITIAL_SLOTS];
+        size       = 0;
+        userHeads.clear();
+    }
+
+    /**
+     * 预分配容量（快照批量还原用）：slot 数组、哈希桶与 userHeads 一次到位，
+     * 还原过程中不再扩容 / rehash。只能在空表上调用。
+     */
+    void presize(int entries, int users) {
+        if (size != 0) {
+            throw new IllegalStateException("[LEDGER] presize on non-empty table: size=" + size);
+        }
+        int slots = Math.max(INITIAL_SLOTS, entries);
+        int buckets = Integer.highestOneBit(Math.max(INITIAL_SLOTS * 2, slots) - 1) << 2;
+        index = new int[buckets];
+        Arrays.fill(index, NONE);
+        mask            = buckets - 1;
+        resizeThreshold = buckets / 2;
+
+        userIds    = new long[slots];
+        typeAssets = new int[slots];
+        available  = new long[slots];
+        frozen     = new long[slots];
+        nextOfUser = new int[slots];
+        userHeads  = new Long2LongHashMap(Math.max(8, users), Hashing.DEFAULT_LOAD_FACTOR, NONE);
+    }
+
+    // =========================================================================
+    // 定位
+    // =========================================================================
+
+    /** @return slot；不存在时返回 {@link #NONE}（不创建） */
+    int find(long userId, AccountType accountType, String asset) {
+        int assetId = assetIds.getValue(asset);
+        if (assetId == NONE) return NONE;
+        int typeAsset = typeAsset(accountType, assetId);
+        for (int b = bucket(userId, typeAsset); ; b = (b + 1) & mask) {
+            int slot = index[b];
+            if (slot == NONE) return NONE;
+            if (userIds[slot] == userId && typeAssets[slot] == typeAsset) return slot;
+        }
+    }
+
+    /** @return slot；不存在时创建全零余额 */
+    int getOrCreate(long userId, AccountType accountType, String asset) {
+        return getOrCreate(userId, typeAsset(accountType, assetId(asset)));
+    }
+
+    /**
+     * 按 accountType 序号 + 本表 assetId 定位 / 创建（快照还原用，每条记录免一次 String 查找）。
+     *
+     * @param assetId {@link #assetId(String)} 分配的 id
+     */
+    int getOrCreate(long userId, int accountTypeOrdinal, int assetId) {
+        return getOrCreate(userId, (accountTypeOrdinal << ASSET_BITS) | assetId);
+    }
+
+    private int getOrCreate(long userId, int typeAsset) {
+        int b = bucket(userId, typeAsset);
+        for (; ; b = (b + 1) & mask) {
+            int slot = index[b];
+            if (slot == NONE) break;
+            if (userIds[slot] == userId && typeAssets[slot] == typeAsset) return slot;
+        }
+
+        int slot = size;
+        if (slot == userIds.length) {
+            growSlots();
+        }
+        userIds[slot]    = userId;
+        typeAssets[slot] = typeAsset;
+        available[slot]  = 0L;
+        frozen[slot]     = 0L;
+        nextOfUser[slot] = (int) userHeads.get(userId);
+        userHeads.put(userId, slot);
+        index[b] = slot;
+        size++;
+
+        if (size > resizeThreshold) {
+            rehash(index.length << 1);
+        }
+        return slot;
+    }
+
+    // =========================================================================
+    // 读取
+    // =========================================================================
+
+    long available(int slot) {
+        return available[slot];
+    }
+
+    long frozen(int slot) {
+        return frozen[slot];
+    }
+
+    long userId(int slot) {
+        return userIds[slot];
+    }
+
+    AccountType accountType(int slot) {
+        return TYPES[typeAssets[slot] >>> ASSET_BITS];
+    }
+
+    String asset(int slot) {
+        return assetNames[typeAssets[slot] & ASSET_MASK];
+    }
+
+    int accountTypeOrdinal(int slot) {
+        return typeAssets[slot] >>> ASSET_BITS;
+    }
+
+    /** 本表内部 assetId（取值范围 {@code [0, assetCount)}，名称见 {@link #assetName}）。 */
+    int assetIdOf(int slot) {
+        return typeAssets[slot] & ASSET_MASK;
+    }
+
+    int assetCount() {
+        return assetIds.size();
+    }
+
+    String assetName(int assetId) {
+        return assetNames[assetId];
+    }
+
+    /** 余额值对象副本（查询 / 快照导出用）。 */
+    Balance toBalance(int slot) {
+        return new Balance(available[slot], frozen[slot]);
+    }
+
+    /** 该用户的第一个 slot（无则 {@link #NONE}），配合 {@link #nextOfUser} 遍历。 */
+    int firstOfUser(long userId) {
+        return (int) userHeads.get(userId);
+    }
+
+    int nextOfUser(int slot) {
+        return nextOfUser[slot];
+    }
+
+    /** 条目数（userId × accountType × asset），slot 取值范围 {@code [0, size)}。 */
+    int size() {
+        return size;
+    }
+
+    int userCount() {
+        return userHeads.size();
+    }
+
+    // =========================================================================
+    // 变更（语义同 Balance）
+    // =========================================================================
+
+    /** available → frozen */
+    void freeze(int slot, long amount) {
+        if (available[slot] < amount) {
+            throw new IllegalStateException(
+                    "Insufficient available balance: available=" + available[slot] + ", requested=" + amount);
+        }
+        available[slot] = Math.subtractExact(available[slot], amount);
+        frozen[slot]    = Math.addExact(frozen[slot], amount);
+    }
+
+    /** frozen → available */
+    void unfreeze(int slot, long amount) {
+        if (frozen[slot] < amount) {
+            throw new IllegalStateException(
+                    "Insufficient frozen balance: frozen=" + frozen[slot] + ", requested=" + amount);
+        }
+        frozen[slot]    = Math.subtractExact(frozen[slot], amount);
+        available[slot] = Math.addExact(available[slot], amount);
+    }
+
+    void deductFrozen(int slot, long amount) {
+        if (frozen[slot] < amount) {
+            throw new IllegalStateException(
+                    "Insufficient frozen balance for deduct: frozen=" + frozen[slot] + ", deduct=" + amount);
+        }
+        frozen[slot] = Math.subtractExact(frozen[slot], amount);
+    }
+
+    void credit(int slot, long amount) {
+        available[slot] = Math.addExact(available[slot], amount);
+    }
+
+    void debit(int slot, long amount) {
+        if (available[slot] < amount) {
+            throw new IllegalStateException(
+                    "Insufficient available balance for debit: available=" + available[slot] + ", debit=" + amount);
+        }
+        available[slot] = Math.subtractExact(available[slot], amount);
+    }
+
+    /** 快照还原时直接写入。 */
+    void set(int slot, long availableRaw, long frozenRaw) {
+        available[slot] = availableRaw;
+        frozen[slot]    = frozenRaw;
+    }
+
+    // =========================================================================
+    // 内部
+    // =========================================================================
+
+    /** asset → 本表内部 id（不存在时分配）。 */
+    int assetId(String asset) {
+        int id = assetIds.getValue(asset);
+        if (id == NONE) {
+            id = assetIds.size();
+            if (id > ASSET_MASK) {
+                throw new IllegalStateException("[LEDGER] too many distinct assets: " + id);
+            }
+            if (id == assetNames.length) {
+                assetNames = Arrays.copyOf(assetNames, id << 1);
+            }
+            assetNames[id] = asset;
+            assetIds.put(asset, id);
+        }
+        return id;
+    }
+
+    private static int typeAsset(AccountType accountType, int assetId) {
+        return (accountType.ordinal() << ASSET_BITS) | assetId;
+    }
+
+    private int bucket(long userId, int typeAsset) {
+        long h = userId * 0x9E3779B97F4A7C15L + typeAsset;
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        return (int) h & mask;
+    }
+
+    private void growSlots() {
+        int capacity = userIds.length << 1;
+        userIds    = Arrays.copyOf(userIds, capacity);
+        typeAssets = Arrays.copyOf(typeAssets, capacity);
+        available  = Arrays.copyOf(available, capacity);
+        frozen     = Arrays.copyOf(frozen, capacity);
+        nextOfUser = Arrays.copyOf(nextOfUser, capacity);
+    }
+
+    private void rehash(int newLength) {
+        index = new int[newLength];
+        Arrays.fill(index, NONE);
+        mask            = newLength - 1;
+        resizeThreshold = newLength / 2;
+        for (int slot = 0; slot < size; slot++) {
+            int b = bucket(userIds[slot], typeAssets[slot]);
+            while (index[b] != NONE) {
+                b = (b + 1) & mask;
+            }
+            index[b] = slot;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.exchange.account.core.cluster.ledger;
+
+/**
+ * 幂等键前缀（业务类型）。
+ *
+ * <p>幂等表按前缀分区、以 bizNo 的 long 值为键（Snowflake / 十进制数字单号），
+ * 不再为每条记录拼接 {@code "PREFIX:id"} 字符串；仅快照导出 / 非数字单号使用字符串形式。
+ *
+ * <p>序号写入二进制快照（{@link LedgerSnapshot}），只能在末尾追加，不可重排 / 删除。
+ */
+enum BizNoType {
+
+    FREEZE,
+    UNFREEZE,
+    SETTLE,
+    TRANSFER,
+    /** 永久幂等 */
+    CREDIT,
+    /** 永久幂等 */
+    DEBIT,
+    /** 跨分片成交的买方腿（买卖双方不在同一分片时按腿结算） */
+    SETTLE_BUY,
+    /** 跨分片成交的卖方腿 */
+    SETTLE_SELL;
+
+    private static final BizNoType[] VALUES = values();
+
+    /** 不是规范十进制 long 的 bizNo。 */
+    static final long NOT_NUMERIC = -1L;
+
+    /** 字符串形式的幂等键（快照 / 非数字单号）：{@code "PREFIX:bizNo"}。 */
+    String key(String bizNo) {
+        return name() + ":" + bizNo;
+    }
+
+    /** 字符串形式的幂等键（long 单号）。 */
+    String key(long id) {
+        return name() + ":" + id;
+    }
+
+    /** @return 前缀对应的类型，未知前缀返回 null */
+    static BizNoType ofKey(String key, int colon) {
+        String prefix = key.substring(0, colon);
+        for (BizNoType t : VALUES) {
+            if (t.name().equals(prefix)) return t;
+        }
+        return null;
+    }
+
+    /**
+     * 解析规范十进制非负 long（无符号、无前导 0、不溢出）。
+     *
+     * <p>必须是规范形式——"007" 与 "7" 作为字符串是两个不同的单号，不能折叠到同一个 long 键上。
+     *
+     * @return 数值，非规范形式返回 {@link #NOT_NUMERIC}
+     */
+    static long parseId(String s, int from) {
+        int len = s.length() - from;
+        if (len <= 0 || len > 19) return NOT_NUMERIC;
+        if (len > 1 && s.charAt(from) == '0') return NOT_NUMERIC;
+        long v = 0L;
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return NOT_NUMERIC;
+            v = v * 10 + (c - '0');
+            if (v < 0) return NOT_NUMERIC;   // 19 位溢出
+        }
+        return v;
+    }
+}
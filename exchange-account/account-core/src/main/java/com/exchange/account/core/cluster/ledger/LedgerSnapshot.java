@@ -0,0 +1,563 @@
+package com.exchange.account.core.cluster.ledger;
+
+import com.exchange.account.api.enums.AccountType;
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 账本二进制快照：直接从 {@link BalanceTable} / 幂等表流式写出，还原时预分配后批量装载。
+ *
+ * <p>取代「exportLedger 重建嵌套 Map → Jackson 分块 → convertLedgerNode」：写出不复制账本，
+ * 定长记录经 {@link Sink#claim} 直接写进 publication 的 term buffer；还原按快照头里的条目数
+ * 一次分配好各表容量，过程中不扩容、不 rehash，永久幂等表整批排序后一次建 bloom。
+ *
+ * <h3>消息格式（小端）</h3>
+ * <pre>
+ *   消息头:  0 u8 MAGIC  1 u8 VERSION  2 u8 recordType  3 u8 保留  4 i32 count（本消息记录数）
+ *
+ *   HEADER          seq i64, matchArchivePosition i64, balances i32, users i32, assets i32,
+ *                   bizNoTypes u8, ttlIds i32×T, permanentIds i32×T, ttlKeys i32, permanentKeys i32
+ *   ACCOUNT_TYPES   [u16 len][UTF-8 名称] × count           下标即 BALANCES 中的 accountType
+ *   ASSETS          [u16 len][UTF-8 名称] × count           下标（跨消息连续编号）即 BALANCES 中的 asset
+ *   BALANCES        userId i64, accountType u8, asset i32, available i64, frozen i64   （29 字节）
+ *   TTL_IDS         bizNoType u8, id i64, expiry i64                                  （17 字节）
+ *   PERMANENT_IDS   bizNoType u8, id i64                                              （9 字节）
+ *   TTL_KEYS        expiry i64, [u16 len][UTF-8 "PREFIX:bizNo"]   非数字单号
+ *   PERMANENT_KEYS  [u16 len][UTF-8 "PREFIX:bizNo"]               非数字单号
+ *   END             records i64（数据记录总数，加载端校验完整性）
+ * </pre>
+ * <p>accountType / asset 以名称字典写出，与枚举顺序、各节点内部 assetId 解耦；
+ * bizNoType 为 {@link BizNoType} 序号（只追加）。首字节 {@link #MAGIC} 与 JSON 快照的 {@code '{'}
+ * 区分，旧 JSON 快照仍可加载。
+ *
+ * <p>单线程（Cluster Service Thread）访问。
+ */
+@Slf4j
+public final class LedgerSnapshot {
+
+    /** 快照消息首字节（JSON 快照首字节恒为 '{'）。 */
+    public static final byte MAGIC   = (byte) 0xB5;
+    public static final byte VERSION = 1;
+
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int MESSAGE_HEADER_LENGTH = 8;
+    private static final int H_VERSION = 1;
+    private static final int H_TYPE    = 2;
+    private static final int H_COUNT   = 4;
+
+    private static final byte HEADER         = 1;
+    private static final byte ACCOUNT_TYPES  = 2;
+    private static final byte ASSETS         = 3;
+    private static final byte BALANCES       = 4;
+    private static final byte TTL_IDS        = 5;
+    private static final byte PERMANENT_IDS  = 6;
+    private static final byte TTL_KEYS       = 7;
+    private static final byte PERMANENT_KEYS = 8;
+    private static final byte END            = 9;
+
+    private static final int BALANCE_LENGTH      = 29;
+    private static final int TTL_ID_LENGTH       = 17;
+    private static final int PERMANENT_ID_LENGTH = 9;
+
+    private static final BizNoType[]   BIZNO_TYPES   = BizNoType.values();
+    private static final AccountType[] ACCOUNT_TYPE_VALUES = AccountType.values();
+
+    private LedgerSnapshot() {}
+
+    /**
+     * 快照写出端（由 Cluster 的 snapshot publication 实现）。
+     *
+     * <p>每条消息：{@link #claim} 申请精确长度 → 在 {@code [claimOffset, claimOffset + length)} 写入 →
+     * {@link #commit}。长度不超过 {@link #maxPayloadLength} 时实现方应使用 {@code tryClaim} 零拷贝写入。
+     */
+    public interface Sink {
+
+        int maxPayloadLength();
+
+        MutableDirectBuffer claim(int length);
+
+        int claimOffset();
+
+        void commit();
+    }
+
+    /** 消息是否为二进制快照格式。 */
+    public static boolean isBinary(DirectBuffer buffer, int offset, int length) {
+        return length >= MESSAGE_HEADER_LENGTH && buffer.getByte(offset) == MAGIC;
+    }
+
+    /**
+     * 把账本完整写出到 {@code sink}。
+     *
+     * @return 写出的数据记录数（余额 + 幂等记录）
+     */
+    public static long write(BalanceLedger ledger, Sink sink) {
+        return new Writer(ledger, sink).write();
+    }
+
+    /** 创建还原器：逐条喂入快照消息，{@link Loader#finish} 前账本处于还原中状态。 */
+    public static Loader loader(BalanceLedger ledger) {
+        return new Loader(ledger);
+    }
+
+    // =========================================================================
+    // 写出
+    // =========================================================================
+
+    private static final class Writer {
+
+        private final BalanceLedger        ledger;
+        private final BalanceTable         balances;
+        private final ProcessedBizNoWindow ttl;
+        private final PermanentBizNoSet    permanent;
+        private final Sink                 sink;
+
+        /** 当前定长记录段 */
+        private byte recordType;
+        private int  recordLength;
+        private int  perMessage;
+        private int  sectionLeft;
+        private int  messageLeft;
+        private boolean open;
+        private MutableDirectBuffer buffer;
+        private int  position;
+
+        private long records;
+
+        Writer(BalanceLedger ledger, Sink sink) {
+            this.ledger    = ledger;
+            this.balances  = ledger.balanceTable();
+            this.ttl       = ledger.processedBizNoWindow();
+            this.permanent = ledger.permanentBizNoSet();
+            this.sink      = sink;
+        }
+
+        long write() {
+            writeHeader();
+
+            List<String> typeNames = new ArrayList<>(ACCOUNT_TYPE_VALUES.length);
+            for (AccountType type : ACCOUNT_TYPE_VALUES) {
+                typeNames.add(type.name());
+            }
+            writeStrings(ACCOUNT_TYPES, typeNames, null);
+
+            List<String> assetNames = new ArrayList<>(balances.assetCount());
+            for (int id = 0, n = balances.assetCount(); id < n; id++) {
+                assetNames.add(balances.assetName(id));
+            }
+            writeStrings(ASSETS, assetNames, null);
+
+            begin(BALANCES, BALANCE_LENGTH, balances.size());
+            for (int slot = 0, n = balances.size(); slot < n; slot++) {
+                int p = next();
+                buffer.putLong(p, balances.userId(slot), ORDER);
+                buffer.putByte(p + 8, (byte) balances.accountTypeOrdinal(slot));
+                buffer.putInt(p + 9, balances.assetIdOf(slot), ORDER);
+                buffer.putLong(p + 13, balances.available(slot), ORDER);
+                buffer.putLong(p + 21, balances.frozen(slot), ORDER);
+            }
+            end();
+
+            for (BizNoType type : BIZNO_TYPES) {
+                byte code = (byte) type.ordinal();
+                begin(TTL_IDS, TTL_ID_LENGTH, ttl.idCount(type));
+                ttl.forEachId(type, (id, expiry) -> {
+                    int p = next();
+                    buffer.putByte(p, code);
+                    buffer.putLong(p + 1, id, ORDER);
+                    buffer.putLong(p + 9, expiry, ORDER);
+                });
+                end();
+            }
+            for (BizNoType type : BIZNO_TYPES) {
+                byte code = (byte) type.ordinal();
+                begin(PERMANENT_IDS, PERMANENT_ID_LENGTH, permanent.idCount(type));
+                permanent.forEachId(type, id -> {
+                    int p = next();
+                    buffer.putByte(p, code);
+                    buffer.putLong(p + 1, id, ORDER);
+                });
+                end();
+            }
+
+            Map<String, Long> ttlKeys = ttl.nonNumericKeys();
+            List<String> keys    = new ArrayList<>(ttlKeys.size());
+            long[]       expiries = new long[ttlKeys.size()];
+            for (Map.Entry<String, Long> e : ttlKeys.entrySet()) {
+                expiries[keys.size()] = e.getValue();
+                keys.add(e.getKey());
+            }
+            writeStrings(TTL_KEYS, keys, expiries);
+            records += keys.size();
+
+            List<String> permanentKeys = new ArrayList<>(permanent.nonNumericKeys());
+            writeStrings(PERMANENT_KEYS, permanentKeys, null);
+            records += permanentKeys.size();
+
+            MutableDirectBuffer b = claim(END, 1, 8);
+            b.putLong(sink.claimOffset() + MESSAGE_HEADER_LENGTH, records, ORDER);
+            sink.commit();
+            return records;
+        }
+
+        private void writeHeader() {
+            int types = BIZNO_TYPES.length;
+            MutableDirectBuffer b = claim(HEADER, 1, 37 + 8 * types);
+            int p = sink.claimOffset() + MESSAGE_HEADER_LENGTH;
+            b.putLong(p, ledger.currentSeq(), ORDER);
+            b.putLong(p + 8, ledger.getMatchArchivePosition(), ORDER);
+            b.putInt(p + 16, balances.size(), ORDER);
+            b.putInt(p + 20, balances.userCount(), ORDER);
+            b.putInt(p + 24, balances.assetCount(), ORDER);
+            b.putByte(p + 28, (byte) types);
+            p += 29;
+            for (BizNoType type : BIZNO_TYPES) {
+                b.putInt(p, ttl.idCount(type), ORDER);
+                b.putInt(p + 4 * types, permanent.idCount(type), ORDER);
+                p += 4;
+            }
+            p += 4 * types;
+            b.putInt(p, ttl.nonNumericKeys().size(), ORDER);
+            b.putInt(p + 4, permanent.nonNumericKeys().size(), ORDER);
+            sink.commit();
+        }
+
+        /** 开始一段定长记录：按 maxPayloadLength 切成若干消息，每条消息的记录数在 claim 时确定。 */
+        private void begin(byte type, int length, int total) {
+            recordType   = type;
+            recordLength = length;
+            perMessage   = Math.max(1, (sink.maxPayloadLength() - MESSAGE_HEADER_LENGTH) / length);
+            sectionLeft  = total;
+            messageLeft  = 0;
+        }
+
+        /** @return 下一条记录在 {@link #buffer} 中的写入位置 */
+        private int next() {
+            if (messageLeft == 0) {
+                if (open) {
+                    sink.commit();
+                    open = false;
+                }
+                if (sectionLeft == 0) {
+                    throw new IllegalStateException("[SNAPSHOT] record count changed while writing, type=" + recordType);
+                }
+                int n = Math.min(sectionLeft, perMessage);
+                buffer      = claim(recordType, n, n * recordLength);
+                position    = sink.claimOffset() + MESSAGE_HEADER_LENGTH;
+                open        = true;
+                messageLeft = n;
+                sectionLeft -= n;
+            }
+            int p = position;
+            position += recordLength;
+            messageLeft--;
+            records++;
+            return p;
+        }
+
+        private void end() {
+            if (open) {
+                sink.commit();
+                open = false;
+            }
+            if (messageLeft != 0 || sectionLeft != 0) {
+                throw new IllegalStateException("[SNAPSHOT] record count changed while writing, type=" + recordType);
+            }
+        }
+
+        /** 变长字符串记录（名称字典 / 非数字单号，量小）：贪心装满一条消息再提交。 */
+        private void writeStrings(byte type, List<String> values, long[] prefixes) {
+            int prefix = prefixes != null ? 8 : 0;
+            int max    = sink.maxPayloadLength() - MESSAGE_HEADER_LENGTH;
+            byte[][] encoded = new byte[values.size()][];
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = values.get(i).getBytes(StandardCharsets.UTF_8);
+                if (encoded[i].length > 0xFFFF) {
+                    throw new IllegalStateException("[SNAPSHOT] string too long: " + encoded[i].length);
+                }
+            }
+            int from = 0;
+            while (from < encoded.length) {
+                int to = from, bytes = 0;
+                do {
+                    bytes += prefix + 2 + encoded[to++].length;
+                } while (to < encoded.length && bytes + prefix + 2 + encoded[to].length <= max);
+
+                MutableDirectBuffer b = claim(type, to - from, bytes);
+                int p = sink.claimOffset() + MESSAGE_HEADER_LENGTH;
+                for (int i = from; i < to; i++) {
+                    if (prefixes != null) {
+                        b.putLong(p, prefixes[i], ORDER);
+                        p += 8;
+                    }
+                    b.putShort(p, (short) encoded[i].length, ORDER);
+                    b.putBytes(p + 2, encoded[i]);
+                    p += 2 + encoded[i].length;
+                }
+                sink.commit();
+                from = to;
+            }
+        }
+
+        private MutableDirectBuffer claim(byte type, int count, int bodyLength) {
+            MutableDirectBuffer b = sink.claim(MESSAGE_HEADER_LENGTH + bodyLength);
+            int o = sink.claimOffset();
+            b.putByte(o, MAGIC);
+            b.putByte(o + H_VERSION, VERSION);
+            b.putByte(o + H_TYPE, type);
+            b.putByte(o + 3, (byte) 0);
+            b.putInt(o + H_COUNT, count, ORDER);
+            return b;
+        }
+    }
+
+    // =========================================================================
+    // 还原
+    // =========================================================================
+
+    /**
+     * 二进制快照还原器。收到 HEADER 时清空账本并按条目数预分配，之后各记录直接写入底层表；
+     * END 校验记录总数、整批装载永久幂等表并恢复 seq / 位点。
+     */
+    public static final class Loader {
+
+        private final BalanceLedger        ledger;
+        private final BalanceTable         balances;
+        private final ProcessedBizNoWindow ttl;
+        private final PermanentBizNoSet    permanent;
+
+        private boolean started;
+        private boolean ended;
+
+        /** 快照内 accountType 下标 → 本节点枚举序号（未知类型为 -1） */
+        private int[] accountTypes = new int[0];
+        /** 快照内 asset 下标 → 本表 assetId */
+        private int[] assetIds = new int[0];
+        private int   assetCount;
+
+        private long[][] permanentIds;
+        private int[]    permanentCounts;
+
+        private long seq;
+        private long matchArchivePosition;
+        private long records;
+        private long skippedBalances;
+        private int  messages;
+
+        private Loader(BalanceLedger ledger) {
+            this.ledger    = ledger;
+            this.balances  = ledger.balanceTable();
+            this.ttl       = ledger.processedBizNoWindow();
+            this.permanent = ledger.permanentBizNoSet();
+        }
+
+        public void onMessage(DirectBuffer buffer, int offset, int length) {
+            if (!isBinary(buffer, offset, length)) {
+                throw new IllegalStateException("Snapshot message is not a binary ledger record");
+            }
+            byte version = buffer.getByte(offset + H_VERSION);
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported snapshot version: " + version);
+            }
+            byte type  = buffer.getByte(offset + H_TYPE);
+            int  count = buffer.getInt(offset + H_COUNT, ORDER);
+            int  p     = offset + MESSAGE_HEADER_LENGTH;
+            if (ended) {
+                throw new IllegalStateException("Snapshot record after end marker, type=" + type);
+            }
+            if (!started && type != HEADER) {
+                throw new IllegalStateException("Snapshot header missing, first type=" + type);
+            }
+            messages++;
+
+            switch (type) {
+                case HEADER         -> onHeader(buffer, p);
+                case ACCOUNT_TYPES  -> onAccountTypes(buffer, p, count);
+                case ASSETS         -> onAssets(buffer, p, count);
+                case BALANCES       -> onBalances(buffer, p, count);
+                case TTL_IDS        -> onTtlIds(buffer, p, count);
+                case PERMANENT_IDS  -> onPermanentIds(buffer, p, count);
+                case TTL_KEYS       -> onTtlKeys(buffer, p, count);
+                case PERMANENT_KEYS -> onPermanentKeys(buffer, p, count);
+                case END            -> onEnd(buffer, p);
+                default -> throw new IllegalStateException("Unknown snapshot record type: " + type);
+            }
+        }
+
+        /**
+         * 结束还原。
+         *
+         * @return 还原的数据记录数
+         * @throws IllegalStateException 未收到结束标记（快照不完整）
+         */
+        public long finish() {
+            if (!ended) {
+                throw new IllegalStateException("Snapshot incomplete: end marker missing");
+            }
+            return records;
+        }
+
+        public int messages() {
+            return messages;
+        }
+
+        public long seq() {
+            return seq;
+        }
+
+        public long matchArchivePosition() {
+            return matchArchivePosition;
+        }
+
+        private void onHeader(DirectBuffer b, int p) {
+            if (started) {
+                throw new IllegalStateException("Duplicate snapshot header");
+            }
+            started = true;
+            seq                  = b.getLong(p, ORDER);
+            matchArchivePosition = b.getLong(p + 8, ORDER);
+            int balanceCount = b.getInt(p + 16, ORDER);
+            int userCount    = b.getInt(p + 20, ORDER);
+            int assets       = b.getInt(p + 24, ORDER);
+            int types        = b.getByte(p + 28) & 0xFF;
+            if (types > BIZNO_TYPES.length) {
+                throw new IllegalStateException("Snapshot has unknown bizNo types: " + types);
+            }
+            int[] ttlCounts = new int[types];
+            permanentIds    = new long[BIZNO_TYPES.length][];
+            permanentCounts = new int[BIZNO_TYPES.length];
+            for (int t = 0; t < types; t++) {
+                ttlCounts[t]    = b.getInt(p + 29 + 4 * t, ORDER);
+                permanentIds[t] = new long[b.getInt(p + 29 + 4 * (types + t), ORDER)];
+            }
+            for (int t = types; t < BIZNO_TYPES.length; t++) {
+                permanentIds[t] = new long[0];
+            }
+
+            ledger.clearForRestore();
+            balances.presize(balanceCount, userCount);
+            ttl.presize(ttlCounts);
+            assetIds = new int[assets];
+        }
+
+        private void onAccountTypes(DirectBuffer b, int p, int count) {
+            int[] mapped = Arrays.copyOf(accountTypes, accountTypes.length + count);
+            for (int i = 0; i < count; i++) {
+                int len = b.getShort(p, ORDER) & 0xFFFF;
+                String name = b.getStringWithoutLengthUtf8(p + 2, len);
+                p += 2 + len;
+                int ordinal = -1;
+                try {
+                    ordinal = AccountType.valueOf(name).ordinal();
+                } catch (IllegalArgumentException e) {
+                    log.warn("[LedgerSnapshot] Unknown accountType in snapshot: {}, skipping", name);
+                }
+                mapped[accountTypes.length + i] = ordinal;
+            }
+            accountTypes = mapped;
+        }
+
+        private void onAssets(DirectBuffer b, int p, int count) {
+            if (assetCount + count > assetIds.length) {
+                assetIds = Arrays.copyOf(assetIds, assetCount + count);
+            }
+            for (int i = 0; i < count; i++) {
+                int len = b.getShort(p, ORDER) & 0xFFFF;
+                assetIds[assetCount++] = balances.assetId(b.getStringWithoutLengthUtf8(p + 2, len));
+                p += 2 + len;
+            }
+        }
+
+        private void onBalances(DirectBuffer b, int p, int count) {
+            for (int i = 0; i < count; i++, p += BALANCE_LENGTH) {
+                records++;
+                int typeIndex  = b.getByte(p + 8) & 0xFF;
+                int assetIndex = b.getInt(p + 9, ORDER);
+                if (assetIndex < 0 || assetIndex >= assetCount) {
+                    throw new IllegalStateException("Snapshot balance refers to unknown asset index " + assetIndex);
+                }
+                int ordinal = typeIndex < accountTypes.length ? accountTypes[typeIndex] : -1;
+                if (ordinal < 0) {
+                    skippedBalances++;
+                    continue;
+                }
+                int slot = balances.getOrCreate(b.getLong(p, ORDER), ordinal, assetIds[assetIndex]);
+                balances.set(slot, b.getLong(p + 13, ORDER), b.getLong(p + 21, ORDER));
+            }
+        }
+
+        private void onTtlIds(DirectBuffer b, int p, int count) {
+            for (int i = 0; i < count; i++, p += TTL_ID_LENGTH) {
+                records++;
+                ttl.restoreId(bizNoType(b.getByte(p)), b.getLong(p + 1, ORDER), b.getLong(p + 9, ORDER));
+            }
+        }
+
+        private void onPermanentIds(DirectBuffer b, int p, int count) {
+            for (int i = 0; i < count; i++, p += PERMANENT_ID_LENGTH) {
+                records++;
+                int t = bizNoType(b.getByte(p)).ordinal();
+                if (permanentCounts[t] == permanentIds[t].length) {
+                    permanentIds[t] = Arrays.copyOf(permanentIds[t], Math.max(16, permanentCounts[t] << 1));
+                }
+                permanentIds[t][permanentCounts[t]++] = b.getLong(p + 1, ORDER);
+            }
+        }
+
+        private void onTtlKeys(DirectBuffer b, int p, int count) {
+            for (int i = 0; i < count; i++) {
+                records++;
+                long expiry = b.getLong(p, ORDER);
+                int  len    = b.getShort(p + 8, ORDER) & 0xFFFF;
+                ttl.restore(b.getStringWithoutLengthUtf8(p + 10, len), expiry);
+                p += 10 + len;
+            }
+        }
+
+        private void onPermanentKeys(DirectBuffer b, int p, int count) {
+            for (int i = 0; i < count; i++) {
+                records++;
+                int len = b.getShort(p, ORDER) & 0xFFFF;
+                permanent.restore(b.getStringWithoutLengthUtf8(p + 2, len));
+                p += 2 + len;
+            }
+        }
+
+        private void onEnd(DirectBuffer b, int p) {
+            long expected = b.getLong(p, ORDER);
+            if (expected != records) {
+                throw new IllegalStateException(String.format(
+                        "Snapshot incomplete: expected %d records, got %d", expected, records));
+            }
+            for (BizNoType type : BIZNO_TYPES) {
+                int t = type.ordinal();
+                if (permanentCounts[t] > 0) {
+                    permanent.bulkLoad(type, permanentIds[t], permanentCounts[t]);
+                }
+                permanentIds[t] = null;
+            }
+            if (skippedBalances > 0) {
+                log.warn("[LedgerSnapshot] Skipped {} balances with unknown accountType", skippedBalances);
+            }
+            ledger.completeRestore(matchArchivePosition, seq);
+            ended = true;
+        }
+
+        private static BizNoType bizNoType(byte code) {
+            int t = code & 0xFF;
+            if (t >= BIZNO_TYPES.length) {
+                throw new IllegalStateException("Unknown bizNo type in snapshot: " + t);
+            }
+            return BIZNO_TYPES[t];
+        }
+    }
+}
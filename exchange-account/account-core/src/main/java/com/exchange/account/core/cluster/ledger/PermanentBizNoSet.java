@@ -0,0 +1,270 @@
+package com.exchange.account.core.cluster.ledger;
+
+import org.agrona.collections.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * 永久幂等集合（CREDIT / DEBIT），只增不删。
+ *
+ * <h3>结构（每个前缀一份）</h3>
+ * <pre>
+ *   runs      分层有序 long[] 段，逐段二分；前置 bloom 过滤器（新单号绝大多数直接判否，免二分）
+ *   recent    LongHashSet，新写入先落这里，攒满 4096 条落成新段，bit 增量写入 bloom
+ * </pre>
+ * <p>每条记录 8 字节 + bloom 约 10~20 bit，取代原 {@code HashSet<String>} 中每条约百字节的
+ * String + Entry 对象。新段只与规模相近（不足 4 倍）的相邻段归并，段数 O(log n)，
+ * 单次落段不再整体重写全部记录；bloom 仅在容量翻倍时重建。
+ * 非数字单号落在字符串兜底集合。
+ *
+ * <p>单线程（Cluster Service Thread）访问。
+ */
+final class PermanentBizNoSet {
+
+    private static final int TYPES = BizNoType.values().length;
+
+    private final SortedIds[]  byType     = new SortedIds[TYPES];
+    private final Set<String>  nonNumeric = new HashSet<>();
+
+    PermanentBizNoSet() {
+        for (int i = 0; i < TYPES; i++) {
+            byType[i] = new SortedIds();
+        }
+    }
+
+    boolean contains(BizNoType type, String bizNo) {
+        long id = BizNoType.parseId(bizNo, 0);
+        return id != BizNoType.NOT_NUMERIC
+                ? byType[type.ordinal()].contains(id)
+                : nonNumeric.contains(type.key(bizNo));
+    }
+
+    /** @return true = 新加入；false = 已存在 */
+    boolean add(BizNoType type, String bizNo) {
+        long id = BizNoType.parseId(bizNo, 0);
+        return id != BizNoType.NOT_NUMERIC
+                ? byType[type.ordinal()].add(id)
+                : nonNumeric.add(type.key(bizNo));
+    }
+
+    int size() {
+        int n = nonNumeric.size();
+        for (SortedIds ids : byType) {
+            n += ids.size();
+        }
+        return n;
+    }
+
+    void clear() {
+        for (int i = 0; i < TYPES; i++) {
+            byType[i] = new SortedIds();
+        }
+        nonNumeric.clear();
+    }
+
+    /** 导出为 {@code "PREFIX:bizNo"} 集合（快照格式）。 */
+    Set<String> export() {
+        Set<String> out = new HashSet<>(size() * 2);
+        for (BizNoType type : BizNoType.values()) {
+            byType[type.ordinal()].forEach(id -> out.add(type.key(id)));
+        }
+        out.addAll(nonNumeric);
+        return out;
+    }
+
+    // =========================================================================
+    // 二进制快照（LedgerSnapshot）：按类型流式导出 / 整批装载
+    // =========================================================================
+
+    int idCount(BizNoType type) {
+        return byType[type.ordinal()].size();
+    }
+
+    /** 先各有序段（段内升序）、后写入缓冲（无序）；不保证全局有序。 */
+    void forEachId(BizNoType type, LongConsumer consumer) {
+        byType[type.ordinal()].forEach(consumer);
+    }
+
+    /** 非数字单号的 {@code "PREFIX:bizNo"} 键，只读。 */
+    Set<String> nonNumericKeys() {
+        return Collections.unmodifiableSet(nonNumeric);
+    }
+
+    /**
+     * 整批装载某类型的单号：一次排序去重成单段 + 一次建 bloom，代替逐条 {@link #add}。
+     * 覆盖该类型现有内容，只在还原时调用；{@code ids} 被就地排序并可能被持有。
+     */
+    void bulkLoad(BizNoType type, long[] ids, int count) {
+        byType[type.ordinal()] = SortedIds.of(ids, count);
+    }
+
+    /** 按快照格式的键还原一条记录。 */
+    void restore(String key) {
+        int colon = key.indexOf(':');
+        BizNoType type = colon > 0 ? BizNoType.ofKey(key, colon) : null;
+        long id = type != null ? BizNoType.parseId(key, colon + 1) : BizNoType.NOT_NUMERIC;
+        if (id != BizNoType.NOT_NUMERIC) {
+            byType[type.ordinal()].add(id);
+        } else {
+            nonNumeric.add(key);
+        }
+    }
+
+    // =========================================================================
+    // 分层有序段 + bloom + 写入缓冲
+    // =========================================================================
+
+    private static final class SortedIds {
+
+        private static final int  FLUSH_THRESHOLD   = 4096;
+        /** 相邻两段长度比不足该倍数时合并，段数保持 O(log n) */
+        private static final int  TIER_FANOUT       = 4;
+        private static final long BLOOM_BITS_PER_ID = 10;
+        private static final long MIN_BLOOM_BITS    = 64;
+        /** 2^34 bit = 2 GiB 封顶；超出后误判率上升但结果仍正确（二分兜底） */
+        private static final long MAX_BLOOM_BITS    = 1L << 34;
+
+        /** 由大到小（由旧到新）排列，每段升序 */
+        private final ArrayList<long[]> runs = new ArrayList<>();
+        private int    runIds;              // 各段总条数
+        private long[] bloom = new long[1];
+        private long   bloomMask = 63;      // bit 数 - 1（2 的幂）
+        private long   bloomCapacity;       // 当前 bloom 按每条 10 bit 可容纳的条数
+        private final LongHashSet recent = new LongHashSet();
+
+        boolean contains(long id) {
+            if (recent.contains(id)) return true;
+            if (runIds == 0 || !mightContain(id)) return false;
+            for (int r = runs.size() - 1; r >= 0; r--) {
+                if (Arrays.binarySearch(runs.get(r), id) >= 0) return true;
+            }
+            return false;
+        }
+
+        boolean add(long id) {
+            if (contains(id)) return false;
+            recent.add(id);
+            if (recent.size() >= FLUSH_THRESHOLD) {
+                flush();
+            }
+            return true;
+        }
+
+        int size() {
+            return runIds + recent.size();
+        }
+
+        static SortedIds of(long[] ids, int count) {
+            Arrays.sort(ids, 0, count);
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (n == 0 || ids[i] != ids[n - 1]) ids[n++] = ids[i];
+            }
+            SortedIds s = new SortedIds();
+            if (n > 0) {
+                long[] run = n == ids.length ? ids : Arrays.copyOf(ids, n);
+                s.runs.add(run);
+                s.runIds = n;
+                s.resizeBloom(n);
+            }
+            return s;
+        }
+
+        /** 逐段（段内升序）、后写入缓冲（无序）；段间不保证全局有序。 */
+        void forEach(LongConsumer consumer) {
+            for (long[] run : runs) {
+                for (long id : run) {
+                    consumer.accept(id);
+                }
+            }
+            recent.forEachLong(consumer);
+        }
+
+        /**
+         * 写入缓冲落成新段：新段 bit 增量写入 bloom（容量不足时才按新规模重建），
+         * 再与相邻规模相近的段归并。每条记录只在规模逐级放大时被归并 O(log n) 次，
+         * 不再每次落段都整体重写全部有序数组。
+         */
+        private void flush() {
+            long[] fresh = new long[recent.size()];
+            int i = 0;
+            LongHashSet.LongIterator it = recent.iterator();
+            while (it.hasNext()) {
+                fresh[i++] = it.nextValue();
+            }
+            Arrays.sort(fresh);
+            recent.clear();
+
+            runs.add(fresh);
+            runIds += fresh.length;
+            if (runIds > bloomCapacity) {
+                resizeBloom(runIds);
+            } else {
+                for (long id : fresh) {
+                    setBloom(id);
+                }
+            }
+
+            int n = runs.size();
+            while (n > 1 && runs.get(n - 2).length < (long) runs.get(n - 1).length * TIER_FANOUT) {
+                long[] merged = merge(runs.get(n - 2), runs.remove(n - 1));
+                runs.set(n - 2, merged);
+                n--;
+            }
+        }
+
+        private static long[] merge(long[] older, long[] newer) {
+            long[] merged = new long[older.length + newer.length];
+            int a = 0, b = 0, m = 0;
+            while (a < older.length && b < newer.length) {
+                merged[m++] = older[a] <= newer[b] ? older[a++] : newer[b++];
+            }
+            while (a < older.length) merged[m++] = older[a++];
+            while (b < newer.length) merged[m++] = newer[b++];
+            return merged;
+        }
+
+        /** 按 {@code 2 × expected} 条预留容量重建，扩容按倍数发生，摊还 O(1)。 */
+        private void resizeBloom(long expected) {
+            long want = Math.max(MIN_BLOOM_BITS, expected * 2 * BLOOM_BITS_PER_ID);
+            long bits = Math.min(MAX_BLOOM_BITS, Long.highestOneBit(want - 1) << 1);
+            bloom         = new long[(int) (bits >>> 6)];
+            bloomMask     = bits - 1;
+            bloomCapacity = bits < MAX_BLOOM_BITS ? bits / BLOOM_BITS_PER_ID : Long.MAX_VALUE;
+            for (long[] run : runs) {
+                for (long id : run) {
+                    setBloom(id);
+                }
+            }
+        }
+
+        private void setBloom(long id) {
+            long h = mix(id);
+            for (int k = 0; k < 3; k++) {
+                long bit = Long.rotateRight(h, k * 21) & bloomMask;
+                bloom[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        private boolean mightContain(long id) {
+            long h = mix(id);
+            for (int k = 0; k < 3; k++) {
+                long bit = Long.rotateRight(h, k * 21) & bloomMask;
+                if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+
+        private static long mix(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+            h *= 0xBF58476D1CE4E5B9L;
+            return h ^ (h >>> 29);
+        }
+    }
+}
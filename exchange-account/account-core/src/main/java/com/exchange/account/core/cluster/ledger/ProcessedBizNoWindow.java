@@ -0,0 +1,206 @@
+package com.exchange.account.core.cluster.ledger;
+
+import org.agrona.collections.Hashing;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.LongArrayList;
+import org.agrona.collections.LongLongConsumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * TTL 幂等表（FREEZE / UNFREEZE / SETTLE / TRANSFER），按过期时间分桶淘汰。
+ *
+ * <h3>结构</h3>
+ * <pre>
+ *   expiryById[type]  Long2LongHashMap   bizNo(long) → 过期时间        查询 O(1)，无 String / 装箱
+ *   nonNumeric        HashMap            "PREFIX:bizNo" → 过期时间    非数字单号兜底
+ *   buckets           TreeMap            过期分钟 → 该分钟到期的键列表  淘汰索引
+ * </pre>
+ *
+ * <h3>淘汰</h3>
+ * <p>{@link #evictExpired} 只弹出<b>整桶已过期</b>的分钟桶，逐个删除其中的键——
+ * 工作量与本次过期条数成正比，不再每分钟全表扫描。条目实际在其过期时间后至多
+ * {@link #BUCKET_MS} 内被淘汰；淘汰只以 cluster timestamp 推进，各副本确定性一致。
+ *
+ * <p>单线程（Cluster Service Thread）访问。
+ */
+final class ProcessedBizNoWindow {
+
+    /** 淘汰桶粒度：1 分钟（与淘汰定时器周期一致）。 */
+    static final long BUCKET_MS = 60_000L;
+
+    private static final int TYPES = BizNoType.values().length;
+
+    private final Long2LongHashMap[] expiryById = new Long2LongHashMap[TYPES];
+    private final Map<String, Long>  nonNumeric = new HashMap<>();
+    private final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+
+    ProcessedBizNoWindow() {
+        for (int i = 0; i < TYPES; i++) {
+            expiryById[i] = new Long2LongHashMap(Long.MIN_VALUE);
+        }
+    }
+
+    boolean contains(BizNoType type, String bizNo) {
+        long id = BizNoType.parseId(bizNo, 0);
+        return id != BizNoType.NOT_NUMERIC
+                ? expiryById[type.ordinal()].containsKey(id)
+                : nonNumeric.containsKey(type.key(bizNo));
+    }
+
+    void put(BizNoType type, String bizNo, long expiryMs) {
+        long id = BizNoType.parseId(bizNo, 0);
+        if (id != BizNoType.NOT_NUMERIC) {
+            putId(type, id, expiryMs);
+        } else {
+            putKey(type.key(bizNo), expiryMs);
+        }
+    }
+
+    /**
+     * 淘汰 {@code nowMs} 时已整桶过期的条目。
+     *
+     * @return 淘汰条数
+     */
+    int evictExpired(long nowMs) {
+        int evicted = 0;
+        Map.Entry<Long, Bucket> head;
+        // 桶 b 覆盖过期时间 [b*BUCKET_MS, (b+1)*BUCKET_MS)；now 超过桶尾即整桶过期
+        while ((head = buckets.firstEntry()) != null && nowMs > (head.getKey() + 1) * BUCKET_MS - 1) {
+            buckets.pollFirstEntry();
+            long  bucketNo = head.getKey();
+            Bucket bucket  = head.getValue();
+            for (int t = 0; t < TYPES; t++) {
+                LongArrayList ids = bucket.ids[t];
+                if (ids == null) continue;
+                Long2LongHashMap map = expiryById[t];
+                for (int i = 0, n = ids.size(); i < n; i++) {
+                    long id     = ids.getLong(i);
+                    long expiry = map.get(id);
+                    if (expiry != Long.MIN_VALUE && Math.floorDiv(expiry, BUCKET_MS) == bucketNo) {
+                        map.remove(id);
+                        evicted++;
+                    }
+                }
+            }
+            if (bucket.keys != null) {
+                for (String key : bucket.keys) {
+                    Long expiry = nonNumeric.get(key);
+                    if (expiry != null && Math.floorDiv(expiry, BUCKET_MS) == bucketNo) {
+                        nonNumeric.remove(key);
+                        evicted++;
+                    }
+                }
+            }
+        }
+        return evicted;
+    }
+
+    int size() {
+        int n = nonNumeric.size();
+        for (Long2LongHashMap map : expiryById) {
+            n += map.size();
+        }
+        return n;
+    }
+
+    void clear() {
+        for (Long2LongHashMap map : expiryById) {
+            map.clear();
+        }
+        nonNumeric.clear();
+        buckets.clear();
+    }
+
+    /** 导出为 {@code "PREFIX:bizNo" → 过期时间}（快照格式）。 */
+    Map<String, Long> export() {
+        Map<String, Long> out = new HashMap<>(size() * 2);
+        for (BizNoType type : BizNoType.values()) {
+            expiryById[type.ordinal()].forEachLong((id, expiry) -> out.put(type.key(id), expiry));
+        }
+        out.putAll(nonNumeric);
+        return out;
+    }
+
+    // =========================================================================
+    // 二进制快照（LedgerSnapshot）：按类型流式导出 / 预分配后批量还原
+    // =========================================================================
+
+    int idCount(BizNoType type) {
+        return expiryById[type.ordinal()].size();
+    }
+
+    void forEachId(BizNoType type, LongLongConsumer consumer) {
+        expiryById[type.ordinal()].forEachLong(consumer);
+    }
+
+    /** 非数字单号（{@code "PREFIX:bizNo"} → 过期时间），只读。 */
+    Map<String, Long> nonNumericKeys() {
+        return Collections.unmodifiableMap(nonNumeric);
+    }
+
+    /** 按各类型条目数预分配（只能在 {@link #clear} 之后、还原之前调用）。 */
+    void presize(int[] idCounts) {
+        for (int t = 0; t < TYPES && t < idCounts.length; t++) {
+            expiryById[t] = new Long2LongHashMap(
+                    Math.max(8, idCounts[t]), Hashing.DEFAULT_LOAD_FACTOR, Long.MIN_VALUE);
+        }
+    }
+
+    void restoreId(BizNoType type, long id, long expiryMs) {
+        putId(type, id, expiryMs);
+    }
+
+    /** 按快照格式的键还原一条记录。 */
+    void restore(String key, long expiryMs) {
+        int colon = key.indexOf(':');
+        BizNoType type = colon > 0 ? BizNoType.ofKey(key, colon) : null;
+        long id = type != null ? BizNoType.parseId(key, colon + 1) : BizNoType.NOT_NUMERIC;
+        if (id != BizNoType.NOT_NUMERIC) {
+            putId(type, id, expiryMs);
+        } else {
+            putKey(key, expiryMs);
+        }
+    }
+
+    private void putId(BizNoType type, long id, long expiryMs) {
+        expiryById[type.ordinal()].put(id, expiryMs);
+        bucket(expiryMs).add(type.ordinal(), id);
+    }
+
+    private void putKey(String key, long expiryMs) {
+        nonNumeric.put(key, expiryMs);
+        bucket(expiryMs).add(key);
+    }
+
+    private Bucket bucket(long expiryMs) {
+        return buckets.computeIfAbsent(Math.floorDiv(expiryMs, BUCKET_MS), k -> new Bucket());
+    }
+
+    /** 同一过期分钟内的键（按类型分列，惰性分配）。 */
+    private static final class Bucket {
+
+        final LongArrayList[] ids = new LongArrayList[TYPES];
+        List<String> keys;
+
+        void add(int type, long id) {
+            LongArrayList list = ids[type];
+            if (list == null) {
+                list = ids[type] = new LongArrayList();
+            }
+            list.addLong(id);
+        }
+
+        void add(String key) {
+            if (keys == null) {
+                keys = new ArrayList<>();
+            }
+            keys.add(key);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.exchange.account.core.cluster.protocol;
+
+import com.exchange.account.api.enums.AccountType;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Asset Cluster 二进制协议公共定义（各命令 flyweight 共用）。
+ *
+ * <h3>消息格式</h3>
+ * <pre>
+ *   [1 byte msgType][1 byte MAGIC][1 byte VERSION][命令定长块][变长字段...]
+ * </pre>
+ * <p>JSON body 以 {@code '{'} 开头，二进制 body 以 {@link #MAGIC} 开头，
+ * Cluster 据此区分两种格式——Raft 日志里的旧 JSON 条目重放时仍按 JSON 解析。
+ *
+ * <h3>字段约定</h3>
+ * <ul>
+ *   <li>整数一律小端（{@link #ORDER}），与平台无关，各副本解码结果一致。</li>
+ *   <li>金额为该资产 scale 下的定点 raw long（换算在网关侧完成）。</li>
+ *   <li>资产代码打包为一个 long（≤ 8 个 ASCII 字符），解码端经 {@link AssetCodeInterner}
+ *       还原为驻留的 String，同一资产始终是同一实例，不需要两端共享 id 表。
+ *       批量命令中放不进 long 的资产（超长或非 ASCII）该槽写 {@link #LONG_ASSET}，
+ *       资产名以 {@code [u16 len][UTF-8]} 追加在该子项末尾（见 {@link #putLongAsset}）。</li>
+ *   <li>accountType 为 1 字节线上编码（{@link #accountTypeCode}），与枚举顺序解耦。</li>
+ *   <li>bizNo / orderId / tradeId 为 {@code [u8 len][ASCII]}；备注为 {@code [u16 len][UTF-8]}。</li>
+ *   <li>correlationId 为 long，Egress 回包中以 16 进制字符串回传（与 JSON 请求一致）。</li>
+ * </ul>
+ */
+public final class AssetCodec {
+
+    private AssetCodec() {}
+
+    /** 二进制 body 首字节（JSON body 首字节恒为 '{'）。 */
+    public static final byte MAGIC   = (byte) 0xB1;
+    public static final byte VERSION = 1;
+
+    /** MAGIC + VERSION */
+    public static final int HEADER_LENGTH = 2;
+
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** 资产代码最大长度（打包进一个 long）。 */
+    public static final int MAX_ASSET_LENGTH = 8;
+
+    /**
+     * 资产槽的长资产标记：资产名不在槽内，而在子项末尾以 {@code [u16 len][UTF-8]} 给出。
+     * 合法打包代码至少 1 个非 0 字节，恒不为 0，旧日志条目不会出现该值。
+     */
+    public static final long LONG_ASSET = 0L;
+
+    /** body 是否为二进制格式。 */
+    public static boolean isBinary(DirectBuffer buffer, int offset, int length) {
+        return length >= HEADER_LENGTH && buffer.getByte(offset) == MAGIC;
+    }
+
+    /** 写入 MAGIC + VERSION，返回写入字节数。 */
+    static int putHeader(MutableDirectBuffer buffer, int offset) {
+        buffer.putByte(offset, MAGIC);
+        buffer.putByte(offset + 1, VERSION);
+        return HEADER_LENGTH;
+    }
+
+    /** 校验版本（不支持的版本 fail-closed，绝不按错误布局解码）。 */
+    static void checkHeader(DirectBuffer buffer, int offset) {
+        byte version = buffer.getByte(offset + 1);
+        if (version != VERSION) {
+            throw new IllegalStateException("[CODEC] unsupported binary version: " + version);
+        }
+    }
+
+    // =========================================================================
+    // accountType
+    // =========================================================================
+
+    public static byte accountTypeCode(AccountType type) {
+        return switch (type) {
+            case SPOT    -> 1;
+            case FUTURES -> 2;
+            case FUNDING -> 3;
+            case WEALTH  -> 4;
+            case OPTIONS -> 5;
+        };
+    }
+
+    /** @throws IllegalStateException 未知编码（资金写操作绝不 fallback 到默认账户） */
+    public static AccountType accountType(byte code) {
+        return switch (code) {
+            case 1 -> AccountType.SPOT;
+            case 2 -> AccountType.FUTURES;
+            case 3 -> AccountType.FUNDING;
+            case 4 -> AccountType.WEALTH;
+            case 5 -> AccountType.OPTIONS;
+            default -> throw new IllegalStateException("[CODEC] invalid accountType code: " + code);
+        };
+    }
+
+    // =========================================================================
+    // asset 代码打包
+    // =========================================================================
+
+    /**
+     * 资产代码 → long（ASCII 按字节从低位到高位打包，不足 8 字节高位补 0）。
+     *
+     * @throws IllegalArgumentException 空、超过 8 字符或含非 ASCII 字符
+     */
+    public static long packAsset(String asset) {
+        int len = asset != null ? asset.length() : 0;
+        if (len == 0 || len > MAX_ASSET_LENGTH) {
+            throw new IllegalArgumentException("[CODEC] asset code must be 1.." + MAX_ASSET_LENGTH + " chars: " + asset);
+        }
+        long code = 0L;
+        for (int i = 0; i < len; i++) {
+            char c = asset.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                throw new IllegalArgumentException("[CODEC] asset code must be ASCII: " + asset);
+            }
+            code |= ((long) c) << (i * 8);
+        }
+        return code;
+    }
+
+    /** 能否打包进一个 long（1..8 个非 0 ASCII 字符）。 */
+    public static boolean isPackable(String asset) {
+        int len = asset != null ? asset.length() : 0;
+        if (len == 0 || len > MAX_ASSET_LENGTH) return false;
+        for (int i = 0; i < len; i++) {
+            char c = asset.charAt(i);
+            if (c == 0 || c > 0x7F) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 批量命令的资产槽取值：可打包时为打包代码，否则为 {@link #LONG_ASSET}
+     * （资产名随后由 {@link #putLongAsset} 写在子项末尾）。
+     *
+     * @throws IllegalArgumentException 资产代码为空
+     */
+    static long assetSlot(String asset) {
+        if (asset == null || asset.isEmpty()) {
+            throw new IllegalArgumentException("[CODEC] asset code must not be empty");
+        }
+        return isPackable(asset) ? packAsset(asset) : LONG_ASSET;
+    }
+
+    /** 槽为 {@link #LONG_ASSET} 时在 {@code offset} 写 {@code [u16 len][UTF-8]} 资产名，返回写入字节数（否则 0）。 */
+    static int putLongAsset(MutableDirectBuffer buffer, int offset, long slot, String asset) {
+        return slot == LONG_ASSET ? putUtf8_16(buffer, offset, asset) : 0;
+    }
+
+    /** 槽为 {@link #LONG_ASSET} 时 {@code offset} 处长资产名占用的字节数（否则 0）。 */
+    static int longAssetLength(DirectBuffer buffer, int offset, long slot) {
+        return slot == LONG_ASSET ? 2 + (buffer.getShort(offset, ORDER) & 0xFFFF) : 0;
+    }
+
+    static String unpackAsset(long code) {
+        char[] chars = new char[MAX_ASSET_LENGTH];
+        int len = 0;
+        while (len < MAX_ASSET_LENGTH) {
+            char c = (char) ((code >>> (len * 8)) & 0xFF);
+            if (c == 0) break;
+            chars[len++] = c;
+        }
+        if (len == 0) {
+            throw new IllegalStateException("[CODEC] empty asset code");
+        }
+        return new String(chars, 0, len);
+    }
+
+    /**
+     * 资产代码驻留表（解码端，单线程使用）：同一 code 始终返回同一 String 实例，
+     * 账本按 asset 查 HashMap 时 hash 已缓存，且热路径不再为资产名分配对象。
+     */
+    public static final class AssetCodeInterner {
+
+        private final Long2ObjectHashMap<String> codes     = new Long2ObjectHashMap<>();
+        /** 放不进 long 的资产名（少见，按名驻留） */
+        private final Map<String, String>        longNames = new HashMap<>();
+
+        public String intern(long code) {
+            String asset = codes.get(code);
+            if (asset == null) {
+                asset = unpackAsset(code);
+                codes.put(code, asset);
+            }
+            return asset;
+        }
+
+        /**
+         * 解码批量命令的资产槽：打包代码按 {@link #intern(long)}；
+         * {@link #LONG_ASSET} 时读 {@code tailOffset} 处的 {@code [u16 len][UTF-8]} 资产名。
+         */
+        public String intern(long slot, DirectBuffer buffer, int tailOffset) {
+            if (slot != LONG_ASSET) {
+                return intern(slot);
+            }
+            String name = getUtf8_16(buffer, tailOffset);
+            if (name == null) {
+                throw new IllegalStateException("[CODEC] empty long asset code");
+            }
+            return longNames.computeIfAbsent(name, n -> n);
+        }
+    }
+
+    // =========================================================================
+    // 变长字段
+    // =========================================================================
+
+    /** 写 {@code [u8 len][ASCII]}，返回写入字节数。 */
+    static int putAscii8(MutableDirectBuffer buffer, int offset, String value) {
+        int len = value.length();
+        if (len > 0xFF) {
+            throw new IllegalArgumentException("[CODEC] id too long (max 255): " + len);
+        }
+        buffer.putByte(offset, (byte) len);
+        buffer.putStringWithoutLengthAscii(offset + 1, value);
+        return 1 + len;
+    }
+
+    static int ascii8Length(DirectBuffer buffer, int offset) {
+        return 1 + (buffer.getByte(offset) & 0xFF);
+    }
+
+    static String getAscii8(DirectBuffer buffer, int offset) {
+        return buffer.getStringWithoutLengthAscii(offset + 1, buffer.getByte(offset) & 0xFF);
+    }
+
+    /** 写 {@code [u16 len][UTF-8]}（null 写作长度 0），返回写入字节数。 */
+    static int putUtf8_16(MutableDirectBuffer buffer, int offset, String value) {
+        if (value == null || value.isEmpty()) {
+            buffer.putShort(offset, (short) 0, ORDER);
+            return 2;
+        }
+        int len = buffer.putStringWithoutLengthUtf8(offset + 2, value);
+        if (len > 0xFFFF) {
+            throw new IllegalArgumentException("[CODEC] text too long (max 65535 bytes): " + len);
+        }
+        buffer.putShort(offset, (short) len, ORDER);
+        return 2 + len;
+    }
+
+    /** @return 内容，长度 0 时返回 null */
+    static String getUtf8_16(DirectBuffer buffer, int offset) {
+        int len = buffer.getShort(offset, ORDER) & 0xFFFF;
+        return len == 0 ? null : buffer.getStringWithoutLengthUtf8(offset + 2, len);
+    }
+
+    /** correlationId 的回包形式（16 进制，与网关 pending 表的 key 一致）。 */
+    public static String correlationIdText(long correlationId) {
+        return Long.toHexString(correlationId);
+    }
+}
@@ -17,6 +17,8 @@ package com.exchange.account.core.cluster.protocol;
  *   0x08  CREDIT                — 加钱（充值入账/奖励/补偿，直接增加 available）
  *   0x09  DEBIT                 — 减钱（提现扣款/风控扣罚，直接减少 available）
  *   0x0A  INTERNAL_TRANSFER     — 同用户跨账户类型划转（如 SPOT→FUTURES）
+ *   0x0B  BATCH_SETTLE_AND_RELEASE — 批量结算+解冻（整体原子，一次位点更新）
+ *   0x0C  FREEZE_COALESCED      — 合并冻结（单用户，多 orderId，逐项独立成败）
  * </pre>
  *
  * <h3>Egress（Asset Cluster → 调用方）</h3>
@@ -28,7 +30,7 @@ package com.exchange.account.core.cluster.protocol;
  *   0x14  SETTLE_FAIL         — 结算失败（余额不足）
  *   0x15  BALANCE_RESP        — 余额查询结果
  *   0x18  BATCH_FREEZE_RESP        — 批量冻结响应（OK 或 FAIL + error）
- *   0x19  BATCH_SETTLE_RESP        — 批量结算响应（逐笔状态列表）
+ *   0x19  BATCH_SETTLE_RESP        — 批量结算响应（BATCH_SETTLE / BATCH_SETTLE_AND_RELEASE）
  *   0x1A  MATCH_POSITION_RESP      — Match Archive 位点查询响应
  *   0x1B  CREDIT_OK                — 加钱成功
  *   0x1C  CREDIT_FAIL              — 加钱失败
@@ -37,6 +39,7 @@ package com.exchange.account.core.cluster.protocol;
  *   0x1F  ERROR                    — 通用错误
  *   0x20  TRANSFER_OK              — 内部划转成功
  *   0x21  TRANSFER_FAIL            — 内部划转失败（余额不足）
+ *   0x22  FREEZE_COALESCED_RESP    — 合并冻结响应（逐项结果）
  * </pre>
  */
 public final class AssetMsgType {
@@ -60,6 +63,17 @@ public final class AssetMsgType {
     public static final byte DEBIT                = 0x09;
     /** 同用户跨账户类型划转（如 SPOT→FUTURES），原子操作。bizNo = transferId。 */
     public static final byte INTERNAL_TRANSFER    = 0x0A;
+    /**
+     * 批量结算+解冻：多笔成交 + 多笔撤单/下架释放，整体原子，随 archivePosition 一次更新位点。
+     * 响应复用 {@link #BATCH_SETTLE_RESP}。
+     */
+    public static final byte BATCH_SETTLE_AND_RELEASE = 0x0B;
+    /**
+     * 合并冻结：Gateway 把同一用户短时间窗口内的多笔 FREEZE 合为一条日志。
+     * 格式同 BATCH_FREEZE，但逐项独立执行（不足 / 过期只失败该项），
+     * 响应 {@link #FREEZE_COALESCED_RESP} 按子项顺序给出结果。
+     */
+    public static final byte FREEZE_COALESCED         = 0x0C;
 
     // ── Egress ───────────────────────────────────────────────────────────────
     public static final byte FREEZE_OK          = 0x10;
@@ -79,4 +93,6 @@ public final class AssetMsgType {
     public static final byte ERROR                  = 0x1F;
     public static final byte TRANSFER_OK            = 0x20;
     public static final byte TRANSFER_FAIL          = 0x21;
+    /** 合并冻结响应：{@code {"correlationId":"...","status":"OK","errors":[null,"...",...]}}，null 表示该项成功。 */
+    public static final byte FREEZE_COALESCED_RESP  = 0x22;
 }
@@ -0,0 +1,91 @@
+package com.exchange.account.core.cluster.protocol;
+
+import com.exchange.account.api.enums.AccountType;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import static com.exchange.account.core.cluster.protocol.AssetCodec.ORDER;
+
+/**
+ * 单资产余额操作 flyweight：FREEZE / UNFREEZE / CREDIT / DEBIT。
+ *
+ * <pre>
+ *   0   u8    MAGIC
+ *   1   u8    VERSION
+ *   2   i64   correlationId
+ *   10  i64   userId
+ *   18  u8    accountType
+ *   19  i64   asset（打包代码）
+ *   27  i64   amount（asset scale 下 raw）
+ *   35  str8  bizNo（FREEZE/UNFREEZE 为 orderId）
+ *   ..  str16 remark（可空）
+ * </pre>
+ *
+ * <p>编码为静态方法（调用线程无状态）；解码为可复用 flyweight，{@link #wrap} 后按偏移直接读 buffer。
+ */
+public final class BalanceOpCodec {
+
+    private static final int CORRELATION_ID = 2;
+    private static final int USER_ID        = 10;
+    private static final int ACCOUNT_TYPE   = 18;
+    private static final int ASSET          = 19;
+    private static final int AMOUNT         = 27;
+    private static final int BIZ_NO         = 35;
+
+    private DirectBuffer buffer;
+    private int          offset;
+
+    /**
+     * 编码一条余额操作，返回写入字节数。
+     */
+    public static int encode(MutableDirectBuffer buffer, int offset,
+                             long correlationId, long userId, AccountType accountType,
+                             long assetCode, long amount, String bizNo, String remark) {
+        AssetCodec.putHeader(buffer, offset);
+        buffer.putLong(offset + CORRELATION_ID, correlationId, ORDER);
+        buffer.putLong(offset + USER_ID, userId, ORDER);
+        buffer.putByte(offset + ACCOUNT_TYPE, AssetCodec.accountTypeCode(accountType));
+        buffer.putLong(offset + ASSET, assetCode, ORDER);
+        buffer.putLong(offset + AMOUNT, amount, ORDER);
+        int pos = offset + BIZ_NO;
+        pos += AssetCodec.putAscii8(buffer, pos, bizNo);
+        pos += AssetCodec.putUtf8_16(buffer, pos, remark);
+        return pos - offset;
+    }
+
+    public BalanceOpCodec wrap(DirectBuffer buffer, int offset) {
+        AssetCodec.checkHeader(buffer, offset);
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public long correlationId() {
+        return buffer.getLong(offset + CORRELATION_ID, ORDER);
+    }
+
+    public long userId() {
+        return buffer.getLong(offset + USER_ID, ORDER);
+    }
+
+    public AccountType accountType() {
+        return AssetCodec.accountType(buffer.getByte(offset + ACCOUNT_TYPE));
+    }
+
+    public long assetCode() {
+        return buffer.getLong(offset + ASSET, ORDER);
+    }
+
+    public long amount() {
+        return buffer.getLong(offset + AMOUNT, ORDER);
+    }
+
+    public String bizNo() {
+        return AssetCodec.getAscii8(buffer, offset + BIZ_NO);
+    }
+
+    /** @return 备注，未携带时为 null */
+    public String remark() {
+        return AssetCodec.getUtf8_16(buffer, offset + BIZ_NO + AssetCodec.ascii8Length(buffer, offset + BIZ_NO));
+    }
+}
@@ -0,0 +1,95 @@
+package com.exchange.account.core.cluster.protocol;
+
+import com.exchange.account.core.cluster.ledger.BalanceLedger.FreezeItem;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.util.List;
+
+import static com.exchange.account.core.cluster.protocol.AssetCodec.ORDER;
+
+/**
+ * BATCH_FREEZE flyweight（单用户，多订单）。
+ *
+ * <pre>
+ *   0   u8    MAGIC
+ *   1   u8    VERSION
+ *   2   i64   correlationId
+ *   10  i64   userId
+ *   18  i32   itemCount
+ *   22  item × itemCount:
+ *         +0  u8   accountType
+ *         +1  i64  asset（打包代码）
+ *         +9  i64  amount（asset scale 下 raw）
+ *         +17 str8 orderId
+ *         [str16 asset，仅当 asset 槽为 {@link AssetCodec#LONG_ASSET}]
+ * </pre>
+ */
+public final class BatchFreezeCodec {
+
+    private static final int CORRELATION_ID = 2;
+    private static final int USER_ID        = 10;
+    private static final int ITEM_COUNT     = 18;
+    private static final int ITEMS          = 22;
+
+    private static final int ITEM_ACCOUNT_TYPE = 0;
+    private static final int ITEM_ASSET        = 1;
+    private static final int ITEM_AMOUNT       = 9;
+    private static final int ITEM_ORDER_ID     = 17;
+
+    private DirectBuffer buffer;
+    private int          offset;
+
+    public static int encode(MutableDirectBuffer buffer, int offset,
+                             long correlationId, long userId, List<FreezeItem> items) {
+        AssetCodec.putHeader(buffer, offset);
+        buffer.putLong(offset + CORRELATION_ID, correlationId, ORDER);
+        buffer.putLong(offset + USER_ID, userId, ORDER);
+        buffer.putInt(offset + ITEM_COUNT, items.size(), ORDER);
+        int pos = offset + ITEMS;
+        for (FreezeItem item : items) {
+            buffer.putByte(pos + ITEM_ACCOUNT_TYPE, AssetCodec.accountTypeCode(item.accountType()));
+            long asset = AssetCodec.assetSlot(item.asset());
+            buffer.putLong(pos + ITEM_ASSET, asset, ORDER);
+            buffer.putLong(pos + ITEM_AMOUNT, item.amount(), ORDER);
+            pos += ITEM_ORDER_ID + AssetCodec.putAscii8(buffer, pos + ITEM_ORDER_ID, item.orderId());
+            pos += AssetCodec.putLongAsset(buffer, pos, asset, item.asset());
+        }
+        return pos - offset;
+    }
+
+    public BatchFreezeCodec wrap(DirectBuffer buffer, int offset) {
+        AssetCodec.checkHeader(buffer, offset);
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public long correlationId() {
+        return buffer.getLong(offset + CORRELATION_ID, ORDER);
+    }
+
+    public long userId() {
+        return buffer.getLong(offset + USER_ID, ORDER);
+    }
+
+    public int itemCount() {
+        return buffer.getInt(offset + ITEM_COUNT, ORDER);
+    }
+
+    /** 按顺序解码全部子项追加到 {@code out}，资产代码经 {@code interner} 驻留。 */
+    public void decodeItems(AssetCodec.AssetCodeInterner interner, List<FreezeItem> out) {
+        int count = itemCount();
+        int pos = offset + ITEMS;
+        for (int i = 0; i < count; i++) {
+            long asset = buffer.getLong(pos + ITEM_ASSET, ORDER);
+            int  tail  = pos + ITEM_ORDER_ID + AssetCodec.ascii8Length(buffer, pos + ITEM_ORDER_ID);
+            out.add(new FreezeItem(
+                    AssetCodec.getAscii8(buffer, pos + ITEM_ORDER_ID),
+                    AssetCodec.accountType(buffer.getByte(pos + ITEM_ACCOUNT_TYPE)),
+                    interner.intern(asset, buffer, tail),
+                    buffer.getLong(pos + ITEM_AMOUNT, ORDER)));
+            pos = tail + AssetCodec.longAssetLength(buffer, tail, asset);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.exchange.account.core.cluster.protocol;
+
+import com.exchange.account.core.cluster.ledger.BalanceLedger.LegSide;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.ReleaseItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.SettleItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.SettleLeg;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.util.List;
+
+import static com.exchange.account.core.cluster.protocol.AssetCodec.ORDER;
+
+/**
+ * BATCH_SETTLE / BATCH_SETTLE_AND_RELEASE flyweight（多笔成交 + 多笔撤单释放）。
+ *
+ * <pre>
+ *   0   u8    MAGIC
+ *   1   u8    VERSION
+ *   2   i64   correlationId
+ *   10  i64   archivePosition（-1 不更新）
+ *   18  i64   prevArchivePosition（-1 不校验）
+ *   26  i32   tradeCount
+ *   30  i32   releaseCount
+ *   34  trade × tradeCount:
+ *         +0  i64  buyerId
+ *         +8  i64  sellerId
+ *         +16 u8   accountType
+ *         +17 i64  baseAsset（打包代码）
+ *         +25 i64  quoteAsset（打包代码）
+ *         +33 i64  qty（base scale raw）
+ *         +41 i64  quoteAmt（quote scale raw）
+ *         +49 i64  buyFee（quote scale raw）
+ *         +57 i64  sellFee（quote scale raw）
+ *         +65 str8 tradeId
+ *         [str16 baseAsset][str16 quoteAsset]（各自仅当对应槽为 LONG_ASSET）
+ *       release × releaseCount:
+ *         +0  i64  userId
+ *         +8  u8   accountType
+ *         +9  i64  asset（打包代码）
+ *         +17 i64  amount（asset scale raw）
+ *         +25 str8 orderId
+ *         [str16 asset]（仅当槽为 LONG_ASSET）
+ *       [可选尾段，仅在 release 之后仍有剩余字节时存在]
+ *       i32   legCount
+ *       leg × legCount:
+ *         +0  i64  userId
+ *         +8  u8   side（0=BUY 1=SELL）
+ *         +9  u8   accountType
+ *         +10 i64  baseAsset（打包代码）
+ *         +18 i64  quoteAsset（打包代码）
+ *         +26 i64  qty（base scale raw）
+ *         +34 i64  quoteAmt（quote scale raw）
+ *         +42 i64  fee（本方手续费，quote scale raw）
+ *         +50 str8 tradeId
+ *         [str16 baseAsset][str16 quoteAsset]（各自仅当对应槽为 LONG_ASSET）
+ * </pre>
+ *
+ * <p>成交腿段是追加的尾段：legs 为空时编码结果与旧格式逐字节相同，旧日志条目照常解码。
+ * 资产槽为 {@link AssetCodec#LONG_ASSET} 时资产名跟在该子项的 str8 之后；资产都可打包时编码与旧格式相同。
+ */
+public final class BatchSettleCodec {
+
+    private static final int CORRELATION_ID        = 2;
+    private static final int ARCHIVE_POSITION      = 10;
+    private static final int PREV_ARCHIVE_POSITION = 18;
+    private static final int TRADE_COUNT           = 26;
+    private static final int RELEASE_COUNT         = 30;
+    private static final int ITEMS                 = 34;
+
+    private static final int T_BUYER_ID     = 0;
+    private static final int T_SELLER_ID    = 8;
+    private static final int T_ACCOUNT_TYPE = 16;
+    private static final int T_BASE_ASSET   = 17;
+    private static final int T_QUOTE_ASSET  = 25;
+    private static final int T_QTY          = 33;
+    private static final int T_QUOTE_AMT    = 41;
+    private static final int T_BUY_FEE      = 49;
+    private static final int T_SELL_FEE     = 57;
+    private static final int T_TRADE_ID     = 65;
+
+    private static final int R_USER_ID      = 0;
+    private static final int R_ACCOUNT_TYPE = 8;
+    private static final int R_ASSET        = 9;
+    private static final int R_AMOUNT       = 17;
+    private static final int R_ORDER_ID     = 25;
+
+    private static final int L_USER_ID      = 0;
+    private static final int L_SIDE         = 8;
+    private static final int L_ACCOUNT_TYPE = 9;
+    private static final int L_BASE_ASSET   = 10;
+    private static final int L_QUOTE_ASSET  = 18;
+    private static final int L_QTY          = 26;
+    private static final int L_QUOTE_AMT    = 34;
+    private static final int L_FEE          = 42;
+    private static final int L_TRADE_ID     = 50;
+
+    private DirectBuffer buffer;
+    private int          offset;
+    private int          length;
+
+    public static int encode(MutableDirectBuffer buffer, int offset, long correlationId,
+                             long archivePosition, long prevArchivePosition,
+                             List<SettleItem> trades, List<ReleaseItem> releases) {
+        return encode(buffer, offset, correlationId, archivePosition, prevArchivePosition,
+                trades, List.of(), releases);
+    }
+
+    public static int encode(MutableDirectBuffer buffer, int offset, long correlationId,
+                             long archivePosition, long prevArchivePosition,
+                             List<SettleItem> trades, List<SettleLeg> legs, List<ReleaseItem> releases) {
+        AssetCodec.putHeader(buffer, offset);
+        buffer.putLong(offset + CORRELATION_ID, correlationId, ORDER);
+        buffer.putLong(offset + ARCHIVE_POSITION, archivePosition, ORDER);
+        buffer.putLong(offset + PREV_ARCHIVE_POSITION, prevArchivePosition, ORDER);
+        buffer.putInt(offset + TRADE_COUNT, trades.size(), ORDER);
+        buffer.putInt(offset + RELEASE_COUNT, releases.size(), ORDER);
+        int pos = offset + ITEMS;
+        for (SettleItem t : trades) {
+            buffer.putLong(pos + T_BUYER_ID, t.buyerId(), ORDER);
+            buffer.putLong(pos + T_SELLER_ID, t.sellerId(), ORDER);
+            buffer.putByte(pos + T_ACCOUNT_TYPE, AssetCodec.accountTypeCode(t.accountType()));
+            long base  = AssetCodec.assetSlot(t.baseAsset());
+            long quote = AssetCodec.assetSlot(t.quoteAsset());
+            buffer.putLong(pos + T_BASE_ASSET, base, ORDER);
+            buffer.putLong(pos + T_QUOTE_ASSET, quote, ORDER);
+            buffer.putLong(pos + T_QTY, t.qty(), ORDER);
+            buffer.putLong(pos + T_QUOTE_AMT, t.quoteAmt(), ORDER);
+            buffer.putLong(pos + T_BUY_FEE, t.buyFee(), ORDER);
+            buffer.putLong(pos + T_SELL_FEE, t.sellFee(), ORDER);
+            pos += T_TRADE_ID + AssetCodec.putAscii8(buffer, pos + T_TRADE_ID, t.tradeId());
+            pos += AssetCodec.putLongAsset(buffer, pos, base, t.baseAsset());
+            pos += AssetCodec.putLongAsset(buffer, pos, quote, t.quoteAsset());
+        }
+        for (ReleaseItem r : releases) {
+            buffer.putLong(pos + R_USER_ID, r.userId(), ORDER);
+            buffer.putByte(pos + R_ACCOUNT_TYPE, AssetCodec.accountTypeCode(r.accountType()));
+            long asset = AssetCodec.assetSlot(r.asset());
+            buffer.putLong(pos + R_ASSET, asset, ORDER);
+            buffer.putLong(pos + R_AMOUNT, r.amount(), ORDER);
+            pos += R_ORDER_ID + AssetCodec.putAscii8(buffer, pos + R_ORDER_ID, r.orderId());
+            pos += AssetCodec.putLongAsset(buffer, pos, asset, r.asset());
+        }
+        if (!legs.isEmpty()) {
+            buffer.putInt(pos, legs.size(), ORDER);
+            pos += Integer.BYTES;
+            for (SettleLeg l : legs) {
+                buffer.putLong(pos + L_USER_ID, l.userId(), ORDER);
+                buffer.putByte(pos + L_SIDE, (byte) l.side().ordinal());
+                buffer.putByte(pos + L_ACCOUNT_TYPE, AssetCodec.accountTypeCode(l.accountType()));
+                long base  = AssetCodec.assetSlot(l.baseAsset());
+                long quote = AssetCodec.assetSlot(l.quoteAsset());
+                buffer.putLong(pos + L_BASE_ASSET, base, ORDER);
+                buffer.putLong(pos + L_QUOTE_ASSET, quote, ORDER);
+                buffer.putLong(pos + L_QTY, l.qty(), ORDER);
+                buffer.putLong(pos + L_QUOTE_AMT, l.quoteAmt(), ORDER);
+                buffer.putLong(pos + L_FEE, l.fee(), ORDER);
+                pos += L_TRADE_ID + AssetCodec.putAscii8(buffer, pos + L_TRADE_ID, l.tradeId());
+                pos += AssetCodec.putLongAsset(buffer, pos, base, l.baseAsset());
+                pos += AssetCodec.putLongAsset(buffer, pos, quote, l.quoteAsset());
+            }
+        }
+        return pos - offset;
+    }
+
+    /**
+     * @param length 消息体长度，用于判断是否带成交腿尾段
+     */
+    public BatchSettleCodec wrap(DirectBuffer buffer, int offset, int length) {
+        AssetCodec.checkHeader(buffer, offset);
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    public long correlationId() {
+        return buffer.getLong(offset + CORRELATION_ID, ORDER);
+    }
+
+    public long archivePosition() {
+        return buffer.getLong(offset + ARCHIVE_POSITION, ORDER);
+    }
+
+    public long prevArchivePosition() {
+        return buffer.getLong(offset + PREV_ARCHIVE_POSITION, ORDER);
+    }
+
+    public int tradeCount() {
+        return buffer.getInt(offset + TRADE_COUNT, ORDER);
+    }
+
+    public int releaseCount() {
+        return buffer.getInt(offset + RELEASE_COUNT, ORDER);
+    }
+
+    /**
+     * 按顺序解码全部成交、释放与成交腿，分别追加到 {@code trades} / {@code releases} / {@code legs}，
+     * 资产代码经 {@code interner} 驻留。
+     */
+    public void decodeItems(AssetCodec.AssetCodeInterner interner, List<SettleItem> trades,
+                            List<SettleLeg> legs, List<ReleaseItem> releases) {
+        int pos = offset + ITEMS;
+        for (int i = 0, n = tradeCount(); i < n; i++) {
+            long baseSlot  = buffer.getLong(pos + T_BASE_ASSET, ORDER);
+            long quoteSlot = buffer.getLong(pos + T_QUOTE_ASSET, ORDER);
+            int  tail      = pos + T_TRADE_ID + AssetCodec.ascii8Length(buffer, pos + T_TRADE_ID);
+            String base    = interner.intern(baseSlot, buffer, tail);
+            tail += AssetCodec.longAssetLength(buffer, tail, baseSlot);
+            String quote   = interner.intern(quoteSlot, buffer, tail);
+            tail += AssetCodec.longAssetLength(buffer, tail, quoteSlot);
+            trades.add(new SettleItem(
+                    AssetCodec.getAscii8(buffer, pos + T_TRADE_ID),
+                    buffer.getLong(pos + T_BUYER_ID, ORDER),
+                    buffer.getLong(pos + T_SELLER_ID, ORDER),
+                    AssetCodec.accountType(buffer.getByte(pos + T_ACCOUNT_TYPE)),
+                    base,
+                    quote,
+                    buffer.getLong(pos + T_QTY, ORDER),
+                    buffer.getLong(pos + T_QUOTE_AMT, ORDER),
+                    buffer.getLong(pos + T_BUY_FEE, ORDER),
+                    buffer.getLong(pos + T_SELL_FEE, ORDER)));
+            pos = tail;
+        }
+        for (int i = 0, n = releaseCount(); i < n; i++) {
+            long assetSlot = buffer.getLong(pos + R_ASSET, ORDER);
+            int  tail      = pos + R_ORDER_ID + AssetCodec.ascii8Length(buffer, pos + R_ORDER_ID);
+            releases.add(new ReleaseItem(
+                    AssetCodec.getAscii8(buffer, pos + R_ORDER_ID),
+                    buffer.getLong(pos + R_USER_ID, ORDER),
+                    AssetCodec.accountType(buffer.getByte(pos + R_ACCOUNT_TYPE)),
+                    interner.intern(assetSlot, buffer, tail),
+                    buffer.getLong(pos + R_AMOUNT, ORDER)));
+            pos = tail + AssetCodec.longAssetLength(buffer, tail, assetSlot);
+        }
+        if (pos - offset >= length) return;
+        int legCount = buffer.getInt(pos, ORDER);
+        pos += Integer.BYTES;
+        for (int i = 0; i < legCount; i++) {
+            long baseSlot  = buffer.getLong(pos + L_BASE_ASSET, ORDER);
+            long quoteSlot = buffer.getLong(pos + L_QUOTE_ASSET, ORDER);
+            int  tail      = pos + L_TRADE_ID + AssetCodec.ascii8Length(buffer, pos + L_TRADE_ID);
+            String base    = interner.intern(baseSlot, buffer, tail);
+            tail += AssetCodec.longAssetLength(buffer, tail, baseSlot);
+            String quote   = interner.intern(quoteSlot, buffer, tail);
+            tail += AssetCodec.longAssetLength(buffer, tail, quoteSlot);
+            legs.add(new SettleLeg(
+                    AssetCodec.getAscii8(buffer, pos + L_TRADE_ID),
+                    buffer.getLong(pos + L_USER_ID, ORDER),
+                    LegSide.values()[buffer.getByte(pos + L_SIDE)],
+                    AssetCodec.accountType(buffer.getByte(pos + L_ACCOUNT_TYPE)),
+                    base,
+                    quote,
+                    buffer.getLong(pos + L_QTY, ORDER),
+                    buffer.getLong(pos + L_QUOTE_AMT, ORDER),
+                    buffer.getLong(pos + L_FEE, ORDER)));
+            pos = tail;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.exchange.account.core.cluster.protocol;
+
+import com.exchange.account.api.enums.AccountType;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import static com.exchange.account.core.cluster.protocol.AssetCodec.ORDER;
+
+/**
+ * INTERNAL_TRANSFER flyweight（同用户跨账户类型划转）。
+ *
+ * <pre>
+ *   0   u8    MAGIC
+ *   1   u8    VERSION
+ *   2   i64   correlationId
+ *   10  i64   userId
+ *   18  u8    fromAccountType
+ *   19  u8    toAccountType
+ *   20  i64   asset（打包代码）
+ *   28  i64   amount（asset scale 下 raw）
+ *   36  str8  bizNo
+ *   ..  str16 remark（可空）
+ * </pre>
+ */
+public final class TransferCodec {
+
+    private static final int CORRELATION_ID = 2;
+    private static final int USER_ID        = 10;
+    private static final int FROM_TYPE      = 18;
+    private static final int TO_TYPE        = 19;
+    private static final int ASSET          = 20;
+    private static final int AMOUNT         = 28;
+    private static final int BIZ_NO         = 36;
+
+    private DirectBuffer buffer;
+    private int          offset;
+
+    public static int encode(MutableDirectBuffer buffer, int offset,
+                             long correlationId, long userId,
+                             AccountType fromType, AccountType toType,
+                             long assetCode, long amount, String bizNo, String remark) {
+        AssetCodec.putHeader(buffer, offset);
+        buffer.putLong(offset + CORRELATION_ID, correlationId, ORDER);
+        buffer.putLong(offset + USER_ID, userId, ORDER);
+        buffer.putByte(offset + FROM_TYPE, AssetCodec.accountTypeCode(fromType));
+        buffer.putByte(offset + TO_TYPE, AssetCodec.accountTypeCode(toType));
+        buffer.putLong(offset + ASSET, assetCode, ORDER);
+        buffer.putLong(offset + AMOUNT, amount, ORDER);
+        int pos = offset + BIZ_NO;
+        pos += AssetCodec.putAscii8(buffer, pos, bizNo);
+        pos += AssetCodec.putUtf8_16(buffer, pos, remark);
+        return pos - offset;
+    }
+
+    public TransferCodec wrap(DirectBuffer buffer, int offset) {
+        AssetCodec.checkHeader(buffer, offset);
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public long correlationId() {
+        return buffer.getLong(offset + CORRELATION_ID, ORDER);
+    }
+
+    public long userId() {
+        return buffer.getLong(offset + USER_ID, ORDER);
+    }
+
+    public AccountType fromAccountType() {
+        return AssetCodec.accountType(buffer.getByte(offset + FROM_TYPE));
+    }
+
+    public AccountType toAccountType() {
+        return AssetCodec.accountType(buffer.getByte(offset + TO_TYPE));
+    }
+
+    public long assetCode() {
+        return buffer.getLong(offset + ASSET, ORDER);
+    }
+
+    public long amount() {
+        return buffer.getLong(offset + AMOUNT, ORDER);
+    }
+
+    public String bizNo() {
+        return AssetCodec.getAscii8(buffer, offset + BIZ_NO);
+    }
+
+    /** @return 备注，未携带时为 null */
+    public String remark() {
+        return AssetCodec.getUtf8_16(buffer, offset + BIZ_NO + AssetCodec.ascii8Length(buffer, offset + BIZ_NO));
+    }
+}
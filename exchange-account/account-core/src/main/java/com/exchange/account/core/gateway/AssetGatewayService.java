@@ -5,11 +5,25 @@ import com.exchange.account.api.dto.CreditDebitReq;
 import com.exchange.account.api.dto.FreezeReq;
 import com.exchange.account.api.dto.InternalTransferReq;
 import com.exchange.account.api.enums.AccountType;
+import com.exchange.account.core.cluster.LocalBalanceReader;
+import com.exchange.account.core.cluster.LocalBalanceReader.BalanceRow;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.FreezeItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.ReleaseItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.SettleItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.SettleLeg;
+import com.exchange.account.core.cluster.protocol.AssetCodec;
 import com.exchange.account.core.cluster.protocol.AssetMsgType;
+import com.exchange.account.core.cluster.protocol.BalanceOpCodec;
+import com.exchange.account.core.cluster.protocol.BatchFreezeCodec;
+import com.exchange.account.core.cluster.protocol.BatchSettleCodec;
+import com.exchange.account.core.cluster.protocol.TransferCodec;
+import com.exchange.common.math.AssetScaleRegistry;
+import com.exchange.common.math.FixedPoint;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.aeron.Aeron;
 import io.aeron.cluster.client.AeronCluster;
 import io.aeron.cluster.client.EgressListener;
 import io.aeron.driver.MediaDriver;
@@ -18,10 +32,23 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.SleepingIdleStrategy;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.YieldingIdleStrategy;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -29,13 +56,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.LinkedHashMap;
-import java.util.UUID;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Asset Cluster 网关服务（同步请求/响应 + 分片路由）。
@@ -45,11 +76,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
  *   HTTP 线程
  *     │ 1. 生成 correlationId
  *     │ 2. 注册 CompletableFuture
- *     │ 3. 将编码消息放入 per-shard OfferQueue
+ *     │ 3. 将消息直接编码写入 per-shard 提交环（ManyToOneRingBuffer）
  *     │ 4. future.get(timeout)
  *     │                      ▼
  *     │             EgressPoller 线程（per shard）
- *     │               │ 1. 从 OfferQueue 取出 → client.offer()
+ *     │               │ 1. 从提交环读出 → client.offer()（直接引用环内内存，不再拷贝）
  *     │               │ 2. client.pollEgress() → EgressListener.onMessage()
  *     │               │ 3. 解析 correlationId → 完成对应 future
  *     │ 5. ← 收到结果
@@ -59,9 +90,36 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * <p>旧实现用一个共享 {@code UnsafeBuffer sendBuffer}，多个 HTTP 线程并发写入导致数据损坏，
  * 且 {@code AeronCluster.offer()} 和 {@code pollEgress()} 同时在不同线程执行违反 Aeron 单线程约定。
  *
- * <p>新实现：HTTP 线程把编码好的 {@code byte[]} 放入
- * {@code BlockingQueue<OfferRequest>}（per shard）；EgressPoller 线程持有私有缓冲区，
- * 统一负责 {@code offer()} 和 {@code pollEgress()}，消除所有并发问题。
+ * <p>新实现：HTTP 线程在线程本地缓冲区编码出 {@code [correlationId][msgType][body]}，写入该 shard 的
+ * 有界多生产者单消费者环（{@code asset.gateway.ring-capacity-bytes}，默认 1 MiB）；EgressPoller 线程是
+ * 环的唯一消费者，统一负责 {@code offer()} 和 {@code pollEgress()}，消除所有并发问题。
+ * 环满时请求立即失败（反压到调用方），不再像无界队列那样无限堆积、每个请求分配一个节点。
+ *
+ * <h3>Aeron 资源</h3>
+ * <p>所有 shard 共用一个 MediaDriver 与一个 Aeron 客户端（各 shard 仅各自一个 AeronCluster 会话）：
+ * 默认进程内嵌一个驱动；配置 {@code asset.gateway.aeron-dir} 时连接该目录的外部驱动，本进程不启动驱动。
+ * poller 空闲时按 {@code asset.gateway.idle-strategy}（backoff / yielding / sleeping / busy-spin，默认 backoff）
+ * 让出 CPU，取代原先的 {@code Thread.yield()} 忙等。
+ *
+ * <h3>编码</h3>
+ * <p>资金写操作（FREEZE / UNFREEZE / BATCH_FREEZE / BATCH_SETTLE_AND_RELEASE / CREDIT / DEBIT /
+ * INTERNAL_TRANSFER）走二进制 flyweight（{@link AssetCodec}）：金额在调用线程按资产 scale 换算为
+ * raw long（精度超限直接拒绝），编码时不再有中间 {@code byte[]} / JSON 树。
+ * 查询类消息仍为 JSON。
+ *
+ * <h3>请求合并</h3>
+ * <ul>
+ *   <li>余额查询（走 Ingress 时）：同一 (userId, accountType, asset) 已有在途查询则共用其结果
+ *       （single-flight），突发轮询不再各占一条 Raft 日志。</li>
+ *   <li>冻结：同一用户在 {@code asset.gateway.freeze-coalesce-window-us}（默认 200µs）内到达的
+ *       多笔 FREEZE 合为一条 FREEZE_COALESCED（最多 {@code freeze-coalesce-max-items} 笔，满即发），
+ *       Cluster 逐项独立执行，各调用方拿到自己那一项的结果。窗口配 0 关闭合并。</li>
+ * </ul>
+ *
+ * <h3>余额查询：本地读优先</h3>
+ * <p>用户属于本进程内嵌 Cluster 节点的分片时，余额查询经 {@link LocalBalanceReader} 由本节点
+ * Service Thread 直接读账本，不写 Raft 日志、不占日志带宽；节点落后 / 非本分片时回退 BALANCE_QUERY。
+ * {@code asset.query.local-read.enabled=false} 可关闭。
  *
  * <h3>分片路由</h3>
  * <p>每个 {@link ShardRouter#getTotalShards()} 分片维护一个独立的 AeronCluster 客户端
@@ -76,29 +134,92 @@ public class AssetGatewayService {
     /** Ingress offer 反压重试上限（超限失败该请求，避免 poller 线程被单个请求占死）。 */
     private static final int OFFER_MAX_RETRIES = 100_000;
 
-    private final ShardRouter  shardRouter;
-    private final ObjectMapper objectMapper;
+    /** 提交环的记录类型（ManyToOneRingBuffer 要求 &gt; 0）。 */
+    private static final int SUBMIT_MSG_TYPE_ID = 1;
+
+    /** poller 每轮最多从提交环读取的请求数（与 pollEgress 交替，避免单方向饿死）。 */
+    private static final int SUBMIT_READ_LIMIT = 64;
+
+    /** 合并冻结的定时封批线程名（只做封批 + 入环，不阻塞）。 */
+    private static final String FREEZE_FLUSHER_NAME = "asset-freeze-coalescer";
+
+    /** 调用线程的编码缓冲区（按需扩容，线程复用）。 */
+    private static final ThreadLocal<ExpandableArrayBuffer> ENCODE_BUFFER =
+            ThreadLocal.withInitial(() -> new ExpandableArrayBuffer(4096));
+
+    private final ShardRouter        shardRouter;
+    private final ObjectMapper       objectMapper;
+    /** 金额 BigDecimal → raw 的资产精度表，须与 Asset Cluster 使用的一致。 */
+    private final AssetScaleRegistry scaleRegistry;
 
     /** shard → AeronCluster client */
     private final List<AeronCluster>               clusterClients = new ArrayList<>();
-    /** shard → MediaDriver（每个 shard 独立驱动） */
-    private final List<MediaDriver>                mediaDrivers   = new ArrayList<>();
+    /** 全部 shard 共用的内嵌驱动（配置外部驱动时为 null） */
+    private MediaDriver                            mediaDriver;
+    /** 全部 shard 共用的 Aeron 客户端 */
+    private Aeron                                  aeron;
     /**
-     * shard → per-shard Offer 队列。
+     * shard → per-shard 提交环。
      *
-     * <p>HTTP 线程将编码后的消息放入队列；EgressPoller 线程（该 shard 的唯一写线程）
-     * 从队列取出后调用 {@code client.offer()}，保证 Aeron 单线程访问约束。
+     * <p>HTTP 线程把编码后的消息写入环；EgressPoller 线程（该 shard 的唯一消费者）
+     * 读出后调用 {@code client.offer()}，保证 Aeron 单线程访问约束。
      */
-    private final List<BlockingQueue<OfferRequest>> offerQueues   = new ArrayList<>();
+    private final List<ManyToOneRingBuffer>        submitRings    = new ArrayList<>();
     /** correlationId → pending future（跨分片共享，correlationId 全局唯一） */
     private final ConcurrentHashMap<String, CompletableFuture<String>> pendingRequests = new ConcurrentHashMap<>();
 
     private final List<Thread>  egressPollers = new ArrayList<>();
     private final AtomicBoolean running       = new AtomicBoolean(false);
 
-    public AssetGatewayService(ShardRouter shardRouter) {
-        this.shardRouter  = shardRouter;
-        this.objectMapper = new ObjectMapper()
+    /** 本进程 Cluster 节点的本地读通道（可选；account-web 内嵌节点时存在）。 */
+    private final LocalBalanceReader localReader;
+    private final boolean            localReadEnabled;
+
+    /** 外部 MediaDriver 目录；为空时进程内嵌一个共享驱动。 */
+    private final String aeronDir;
+    private final int    ringCapacityBytes;
+    private final String idleStrategy;
+
+    /** 合并冻结窗口（微秒，0 关闭）与单批上限。 */
+    private final long freezeCoalesceWindowUs;
+    private final int  freezeCoalesceMaxItems;
+    /** userId → 收集中的冻结批次（封批即移除，之后到达的请求开新批） */
+    private final ConcurrentHashMap<Long, FreezeBatch> openFreezeBatches = new ConcurrentHashMap<>();
+    private ScheduledExecutorService freezeFlusher;
+
+    /** 在途的 Ingress 余额查询（single-flight：同键请求共用一个 future） */
+    private final ConcurrentHashMap<BalanceQueryKey, CompletableFuture<String>> inflightQueries =
+            new ConcurrentHashMap<>();
+
+    /**
+     * 按用户分条的写入纪元：该用户的写请求结束（成功、失败或超时）时递增。查询键带发起时的纪元，
+     * 只与同一纪元内发起的在途查询合并——写入返回之前已发出的查询可能排在写入之前，不能复用，
+     * 保证调用方读到自己已完成的写入。分条碰撞只会少合并，不影响正确性。
+     */
+    private static final int WRITE_EPOCH_STRIPES = 1024;
+    private final AtomicLongArray writeEpochs = new AtomicLongArray(WRITE_EPOCH_STRIPES);
+
+    @Autowired
+    public AssetGatewayService(ShardRouter shardRouter,
+                               @Autowired(required = false) AssetScaleRegistry scaleRegistry,
+                               @Autowired(required = false) LocalBalanceReader localReader,
+                               @Value("${asset.query.local-read.enabled:true}") boolean localReadEnabled,
+                               @Value("${asset.gateway.aeron-dir:}") String aeronDir,
+                               @Value("${asset.gateway.ring-capacity-bytes:1048576}") int ringCapacityBytes,
+                               @Value("${asset.gateway.idle-strategy:backoff}") String idleStrategy,
+                               @Value("${asset.gateway.freeze-coalesce-window-us:200}") long freezeCoalesceWindowUs,
+                               @Value("${asset.gateway.freeze-coalesce-max-items:64}") int freezeCoalesceMaxItems) {
+        this.shardRouter       = shardRouter;
+        this.localReader       = localReader;
+        this.localReadEnabled  = localReadEnabled;
+        this.aeronDir          = aeronDir;
+        this.ringCapacityBytes = ringCapacityBytes;
+        this.idleStrategy      = idleStrategy;
+        this.freezeCoalesceWindowUs = freezeCoalesceWindowUs;
+        this.freezeCoalesceMaxItems = freezeCoalesceMaxItems;
+        // 缺省与 AssetClusteredService 的默认构造一致（统一 scale=8）
+        this.scaleRegistry    = scaleRegistry != null ? scaleRegistry : AssetScaleRegistry.uniform(8);
+        this.objectMapper     = new ObjectMapper()
                 .registerModule(new JavaTimeModule())
                 .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     }
@@ -106,66 +227,65 @@ public class AssetGatewayService {
     @PostConstruct
     public void connect() {
         running.set(true);
+        String dir = aeronDir;
+        if (dir == null || dir.isBlank()) {
+            mediaDriver = MediaDriver.launchEmbedded();
+            dir = mediaDriver.aeronDirectoryName();
+            log.info("[AssetGateway] Embedded MediaDriver started dir={}", dir);
+        } else {
+            log.info("[AssetGateway] Using external MediaDriver dir={}", dir);
+        }
+        aeron = Aeron.connect(new Aeron.Context().aeronDirectoryName(dir));
+        if (freezeCoalesceWindowUs > 0) {
+            freezeFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, FREEZE_FLUSHER_NAME);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
         for (int shard = 0; shard < shardRouter.getTotalShards(); shard++) {
             final int shardId = shard;
             String ingress = shardRouter.getIngress(shard);
             log.info("[AssetGateway] Connecting shard={} ingress={}", shard, ingress);
 
-            MediaDriver driver = MediaDriver.launchEmbedded();
-            mediaDrivers.add(driver);
-
             AeronCluster client = AeronCluster.connect(
                     new AeronCluster.Context()
-                            .aeronDirectoryName(driver.aeronDirectoryName())
+                            .aeron(aeron)
+                            .ownsAeronClient(false)
                             .ingressChannel(ingress)
                             .egressListener(new GatewayEgressListener(shardId)));
             clusterClients.add(client);
 
-            // 每个 shard 独立的 Offer 队列（无界，HTTP 线程不阻塞）
-            BlockingQueue<OfferRequest> queue = new LinkedBlockingQueue<>();
-            offerQueues.add(queue);
+            // 每个 shard 独立的有界提交环（多生产者：HTTP 线程；单消费者：本 shard poller）
+            ManyToOneRingBuffer ring = new ManyToOneRingBuffer(new UnsafeBuffer(
+                    ByteBuffer.allocateDirect(ringCapacityBytes + RingBufferDescriptor.TRAILER_LENGTH)));
+            submitRings.add(ring);
 
             // EgressPoller 线程：唯一负责该 shard 的 offer() + pollEgress()
             Thread poller = new Thread(() -> {
-                // 私有缓冲区（单线程，无需同步）
-                UnsafeBuffer localBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(65536));
+                IdleStrategy idle = newIdleStrategy();
+                MessageHandler submitHandler =
+                        (msgTypeId, buffer, index, length) -> offerIngress(shardId, client, idle, buffer, index, length);
                 while (running.get()) {
-                    // 1. 先排空 offer 队列，把 HTTP 线程的请求发送给 Cluster
-                    OfferRequest req;
-                    while ((req = queue.poll()) != null) {
-                        localBuffer.putBytes(0, req.data(), 0, req.data().length);
-                        long result;
-                        int  retries = 0;
-                        while ((result = client.offer(localBuffer, 0, req.data().length)) < 0) {
-                            if (result == io.aeron.Publication.CLOSED
-                                    || result == io.aeron.Publication.NOT_CONNECTED
-                                    || result == io.aeron.Publication.MAX_POSITION_EXCEEDED) {
-                                // Cluster 连接已关闭，立即失败对应的 future
-                                failPending(req.correlationId(),
-                                        "Asset Cluster not connected, shard=" + shardId);
-                                break;
-                            }
-                            if (++retries > OFFER_MAX_RETRIES) {
-                                // 反压超限：失败该请求，不能永久占住 poller 线程
-                                failPending(req.correlationId(),
-                                        "Asset Cluster ingress back-pressured, shard=" + shardId);
-                                break;
-                            }
-                            // 反压期间必须继续 poll egress：
-                            // 否则已发出请求的响应无人消费，全部 5s 超时
-                            try { client.pollEgress(); } catch (Exception ignored) {}
-                            Thread.yield();
+                    int work = 0;
+                    // 1. 先读提交环，把 HTTP 线程的请求发送给 Cluster
+                    try {
+                        work += ring.read(submitHandler, SUBMIT_READ_LIMIT);
+                    } catch (Exception e) {
+                        if (running.get()) {
+                            log.error("[AssetGateway] Submit ring shard={} error", shardId, e);
                         }
                     }
                     // 2. 再 poll egress，处理来自 Cluster 的响应
                     try {
-                        client.pollEgress();
+                        work += client.pollEgress();
                     } catch (Exception e) {
                         if (running.get()) {
                             log.error("[AssetGateway] EgressPoller shard={} error", shardId, e);
                         }
                     }
-                    Thread.yield();
+                    idle.idle(work);
                 }
             }, "asset-egress-poller-" + shard);
             poller.setDaemon(true);
@@ -179,11 +299,56 @@ public class AssetGatewayService {
     @PreDestroy
     public void disconnect() {
         running.set(false);
+        if (freezeFlusher != null) freezeFlusher.shutdownNow();
         clusterClients.forEach(AeronCluster::close);
-        mediaDrivers.forEach(MediaDriver::close);
+        if (aeron != null) aeron.close();
+        if (mediaDriver != null) mediaDriver.close();
         log.info("[AssetGateway] Disconnected all shards");
     }
 
+    /**
+     * 提交环记录 → Ingress（poller 线程）。记录格式 {@code [u8 len][correlationId ASCII][msgType][body]}，
+     * offer 直接引用环内内存，不再拷贝到私有缓冲区。
+     */
+    private void offerIngress(int shardId, AeronCluster client, IdleStrategy idle,
+                              MutableDirectBuffer buffer, int index, int length) {
+        int corrLength = buffer.getByte(index) & 0xFF;
+        int msgOffset  = index + 1 + corrLength;
+        int msgLength  = length - 1 - corrLength;
+        long result;
+        int  retries = 0;
+        while ((result = client.offer(buffer, msgOffset, msgLength)) < 0) {
+            if (result == io.aeron.Publication.CLOSED
+                    || result == io.aeron.Publication.NOT_CONNECTED
+                    || result == io.aeron.Publication.MAX_POSITION_EXCEEDED) {
+                // Cluster 连接已关闭，立即失败对应的 future
+                failPending(buffer.getStringWithoutLengthAscii(index + 1, corrLength),
+                        "Asset Cluster not connected, shard=" + shardId);
+                break;
+            }
+            if (++retries > OFFER_MAX_RETRIES) {
+                // 反压超限：失败该请求，不能永久占住 poller 线程
+                failPending(buffer.getStringWithoutLengthAscii(index + 1, corrLength),
+                        "Asset Cluster ingress back-pressured, shard=" + shardId);
+                break;
+            }
+            // 反压期间必须继续 poll egress：
+            // 否则已发出请求的响应无人消费，全部 5s 超时
+            try { client.pollEgress(); } catch (Exception ignored) {}
+            idle.idle();
+        }
+        idle.reset();
+    }
+
+    private IdleStrategy newIdleStrategy() {
+        return switch (idleStrategy) {
+            case "busy-spin" -> new BusySpinIdleStrategy();
+            case "yielding"  -> new YieldingIdleStrategy();
+            case "sleeping"  -> new SleepingIdleStrategy(TimeUnit.MICROSECONDS.toNanos(100));
+            default          -> new BackoffIdleStrategy();
+        };
+    }
+
     // =========================================================================
     // Public API（供 Controller 调用）
     // =========================================================================
@@ -192,15 +357,11 @@ public class AssetGatewayService {
      * 查询单资产余额（直接读内存账本，RT &lt; 5 ms）。
      */
     public AssetDTO queryBalance(Long userId, AccountType accountType, String asset) throws Exception {
-        String correlationId = correlationId();
-        Map<String, Object> req = new HashMap<>();
-        req.put("correlationId", correlationId);
-        req.put("userId", userId);
-        req.put("accountType", accountType.name());
-        req.put("asset", asset);
-
-        String respJson = sendAndWait(userId, AssetMsgType.BALANCE_QUERY, req, correlationId);
-        JsonNode resp = objectMapper.readTree(respJson);
+        List<BalanceRow> local = readLocal(userId, accountType, asset);
+        if (local != null) {
+            return toAssetDTO(userId, local.get(0));
+        }
+        JsonNode resp = objectMapper.readTree(queryBalanceShared(userId, accountType, asset));
         return buildAssetDTO(userId, accountType, asset, resp);
     }
 
@@ -208,14 +369,11 @@ public class AssetGatewayService {
      * 查询用户某账户类型下所有资产余额。
      */
     public List<AssetDTO> queryAllBalances(Long userId, AccountType accountType) throws Exception {
-        String correlationId = correlationId();
-        Map<String, Object> req = new HashMap<>();
-        req.put("correlationId", correlationId);
-        req.put("userId", userId);
-        req.put("accountType", accountType.name());
-
-        String respJson = sendAndWait(userId, AssetMsgType.BALANCE_QUERY, req, correlationId);
-        JsonNode resp = objectMapper.readTree(respJson);
+        List<BalanceRow> local = readLocal(userId, accountType, null);
+        if (local != null) {
+            return toAssetDTOs(userId, local);
+        }
+        JsonNode resp = objectMapper.readTree(queryBalanceShared(userId, accountType, null));
         return buildAllBalanceDTOs(userId, accountType, resp);
     }
 
@@ -223,31 +381,44 @@ public class AssetGatewayService {
      * 查询用户所有账户类型下所有资产余额（汇总视图）。
      */
     public List<AssetDTO> queryAllBalancesByType(Long userId) throws Exception {
-        String correlationId = correlationId();
-        Map<String, Object> req = new HashMap<>();
-        req.put("correlationId", correlationId);
-        req.put("userId", userId);
-        // 不传 accountType → Cluster 返回全部账户类型
-
-        String respJson = sendAndWait(userId, AssetMsgType.BALANCE_QUERY, req, correlationId);
-        JsonNode resp = objectMapper.readTree(respJson);
+        List<BalanceRow> local = readLocal(userId, null, null);
+        if (local != null) {
+            return toAssetDTOs(userId, local);
+        }
+        JsonNode resp = objectMapper.readTree(queryBalanceShared(userId, null, null));
         return buildAllBalancesByTypeDTOs(userId, resp);
     }
 
     /**
-     * 冻结资产（同步等待 FREEZE_OK / FREEZE_FAIL）。
+     * 冻结资产（同步等待结果）。
+     *
+     * <p>合并开启时与同一用户窗口内的其他冻结合为一条 FREEZE_COALESCED，本调用只等待自己那一项。
      */
     public void freeze(FreezeReq req) throws Exception {
-        String correlationId = correlationId();
-        Map<String, Object> body = new HashMap<>();
-        body.put("correlationId", correlationId);
-        body.put("userId", req.getUserId());
-        body.put("accountType", req.getAccountType().name());
-        body.put("asset", req.getAsset());
-        body.put("amount", req.getAmount().toPlainString());
-        body.put("orderId", req.getOrderId());
+        long        corrId      = newCorrelationId();
+        long        userId      = req.getUserId();
+        AccountType accountType = req.getAccountType();
+        long        assetCode   = AssetCodec.packAsset(req.getAsset());
+        long        amount      = toRaw(req.getAmount(), req.getAsset());
+        String      orderId     = req.getOrderId();
+
+        if (freezeFlusher != null) {
+            CompletableFuture<Void> result =
+                    coalesceFreeze(userId, new FreezeItem(orderId, accountType, req.getAsset(), amount));
+            try {
+                result.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } finally {
+                bumpWriteEpoch(userId);
+            }
+            return;
+        }
 
-        String resp = sendAndWait(req.getUserId(), AssetMsgType.FREEZE, body, correlationId);
+        String resp = sendAndWait(userId, AssetMsgType.FREEZE,
+                (buf, off) -> BalanceOpCodec.encode(buf, off, corrId, userId, accountType,
+                        assetCode, amount, orderId, null),
+                AssetCodec.correlationIdText(corrId));
         checkStatus(resp, "FREEZE");
     }
 
@@ -255,16 +426,17 @@ public class AssetGatewayService {
      * 解冻资产（同步等待 UNFREEZE_OK）。
      */
     public void unfreeze(FreezeReq req) throws Exception {
-        String correlationId = correlationId();
-        Map<String, Object> body = new HashMap<>();
-        body.put("correlationId", correlationId);
-        body.put("userId", req.getUserId());
-        body.put("accountType", req.getAccountType().name());
-        body.put("asset", req.getAsset());
-        body.put("amount", req.getAmount().toPlainString());
-        body.put("orderId", req.getOrderId());
+        long        corrId      = newCorrelationId();
+        long        userId      = req.getUserId();
+        AccountType accountType = req.getAccountType();
+        long        assetCode   = AssetCodec.packAsset(req.getAsset());
+        long        amount      = toRaw(req.getAmount(), req.getAsset());
+        String      orderId     = req.getOrderId();
 
-        String resp = sendAndWait(req.getUserId(), AssetMsgType.UNFREEZE, body, correlationId);
+        String resp = sendAndWait(userId, AssetMsgType.UNFREEZE,
+                (buf, off) -> BalanceOpCodec.encode(buf, off, corrId, userId, accountType,
+                        assetCode, amount, orderId, null),
+                AssetCodec.correlationIdText(corrId));
         checkStatus(resp, "UNFREEZE");
     }
 
@@ -273,19 +445,26 @@ public class AssetGatewayService {
      *
      * @param userId      用户 ID
      * @param accountType 账户类型（批次默认值，子项可覆盖）
-     * @param items       冻结子项列表，每项包含 orderId / asset / amount
+     * @param items       冻结子项列表，每项包含 orderId / asset / amount（可选 accountType）
      * @throws Exception 余额不足或超时
      */
     public void batchFreeze(Long userId, AccountType accountType,
                             List<Map<String, Object>> items) throws Exception {
-        String correlationId = correlationId();
-        Map<String, Object> body = new HashMap<>();
-        body.put("correlationId", correlationId);
-        body.put("userId", userId);
-        body.put("accountType", accountType.name());
-        body.put("items", items);
+        long corrId = newCorrelationId();
+        List<FreezeItem> freezeItems = new ArrayList<>(items.size());
+        for (Map<String, Object> item : items) {
+            String asset    = String.valueOf(item.get("asset"));
+            Object itemType = item.get("accountType");
+            freezeItems.add(new FreezeItem(
+                    String.valueOf(item.get("orderId")),
+                    itemType != null ? AccountType.valueOf(itemType.toString()) : accountType,
+                    asset,
+                    toRaw(new BigDecimal(item.get("amount").toString()), asset)));
+        }
 
-        String resp = sendAndWait(userId, AssetMsgType.BATCH_FREEZE, body, correlationId);
+        String resp = sendAndWait(userId, AssetMsgType.BATCH_FREEZE,
+                (buf, off) -> BatchFreezeCodec.encode(buf, off, corrId, userId, freezeItems),
+                AssetCodec.correlationIdText(corrId));
         checkStatus(resp, "BATCH_FREEZE");
     }
 
@@ -324,10 +503,51 @@ public class AssetGatewayService {
             body.put("archivePosition", archivePosition);
         }
 
-        String resp = sendAndWait(routingUserId, AssetMsgType.BATCH_SETTLE, body, correlationId);
+        String resp = sendAndWait(routingUserId, AssetMsgType.BATCH_SETTLE, json(body), correlationId);
         checkStatus(resp, "BATCH_SETTLE");
     }
 
+    /**
+     * 异步批量结算+解冻（流水线），供 TradeSettlementForwarder 窗口化发送。
+     *
+     * <p>成交与撤单/下架释放在一条 BATCH_SETTLE_AND_RELEASE 内整体原子执行，位点一次更新。
+     * 立即返回 future，不阻塞调用线程；Egress 返回 OK 时正常完成，ERROR / 超时则异常完成。
+     * {@code prevArchivePosition} 为上一批次的位点：Cluster 当前位点与之不符时整批拒绝、
+     * 不改账本，保证前一批失败后其后在途的批次不会越过它推进位点。
+     *
+     * @param trades              成交（金额为 raw，见 {@link #toRaw}）
+     * @param releases            解冻（金额为 raw）
+     * @param archivePosition     本批次覆盖到的最高 Archive position
+     * @param prevArchivePosition 期望的 Cluster 当前位点；-1 表示不校验
+     */
+    public CompletableFuture<Void> batchSettleAndReleaseAsync(Long routingUserId,
+                                                              List<SettleItem> trades,
+                                                              List<ReleaseItem> releases,
+                                                              long archivePosition, long prevArchivePosition) {
+        return settlementBatchAsync(shardRouter.getShardId(routingUserId), trades, List.of(), releases,
+                archivePosition, prevArchivePosition);
+    }
+
+    /**
+     * 发往指定分片的异步批量结算（多分片结算协议）。
+     *
+     * <p>每个分片只收到本分片用户的子项：买卖双方同分片的成交为完整 {@code trades}，
+     * 跨分片成交拆为各自分片上的 {@code legs}。位点与 {@code prevArchivePosition} 均为该分片自己的位点。
+     *
+     * @see #batchSettleAndReleaseAsync
+     */
+    public CompletableFuture<Void> settlementBatchAsync(int shardId,
+                                                        List<SettleItem> trades,
+                                                        List<SettleLeg> legs,
+                                                        List<ReleaseItem> releases,
+                                                        long archivePosition, long prevArchivePosition) {
+        long corrId = newCorrelationId();
+        return sendAsyncToShard(shardId, AssetMsgType.BATCH_SETTLE_AND_RELEASE,
+                (buf, off) -> BatchSettleCodec.encode(buf, off, corrId,
+                        archivePosition, prevArchivePosition, trades, legs, releases),
+                AssetCodec.correlationIdText(corrId), "BATCH_SETTLE_AND_RELEASE");
+    }
+
     /**
      * 加钱（充值到账 / 奖励发放 / 补偿），直接增加 available。
      *
@@ -336,17 +556,18 @@ public class AssetGatewayService {
      * @throws Exception 超时、Cluster 连接异常
      */
     public void credit(CreditDebitReq req) throws Exception {
-        String correlationId = correlationId();
-        Map<String, Object> body = new HashMap<>();
-        body.put("correlationId", correlationId);
-        body.put("userId", req.getUserId());
-        body.put("accountType", req.getAccountType().name());
-        body.put("asset", req.getAsset());
-        body.put("amount", req.getAmount().toPlainString());
-        body.put("bizNo", req.getBizNo());
-        if (req.getRemark() != null) body.put("remark", req.getRemark());
-
-        String resp = sendAndWait(req.getUserId(), AssetMsgType.CREDIT, body, correlationId);
+        long        corrId      = newCorrelationId();
+        long        userId      = req.getUserId();
+        AccountType accountType = req.getAccountType();
+        long        assetCode   = AssetCodec.packAsset(req.getAsset());
+        long        amount      = toRaw(req.getAmount(), req.getAsset());
+        String      bizNo       = req.getBizNo();
+        String      remark      = req.getRemark();
+
+        String resp = sendAndWait(userId, AssetMsgType.CREDIT,
+                (buf, off) -> BalanceOpCodec.encode(buf, off, corrId, userId, accountType,
+                        assetCode, amount, bizNo, remark),
+                AssetCodec.correlationIdText(corrId));
         checkStatus(resp, "CREDIT");
     }
 
@@ -358,17 +579,18 @@ public class AssetGatewayService {
      * @throws Exception 余额不足、超时或 Cluster 连接异常
      */
     public void debit(CreditDebitReq req) throws Exception {
-        String correlationId = correlationId();
-        Map<String, Object> body = new HashMap<>();
-        body.put("correlationId", correlationId);
-        body.put("userId", req.getUserId());
-        body.put("accountType", req.getAccountType().name());
-        body.put("asset", req.getAsset());
-        body.put("amount", req.getAmount().toPlainString());
-        body.put("bizNo", req.getBizNo());
-        if (req.getRemark() != null) body.put("remark", req.getRemark());
-
-        String resp = sendAndWait(req.getUserId(), AssetMsgType.DEBIT, body, correlationId);
+        long        corrId      = newCorrelationId();
+        long        userId      = req.getUserId();
+        AccountType accountType = req.getAccountType();
+        long        assetCode   = AssetCodec.packAsset(req.getAsset());
+        long        amount      = toRaw(req.getAmount(), req.getAsset());
+        String      bizNo       = req.getBizNo();
+        String      remark      = req.getRemark();
+
+        String resp = sendAndWait(userId, AssetMsgType.DEBIT,
+                (buf, off) -> BalanceOpCodec.encode(buf, off, corrId, userId, accountType,
+                        assetCode, amount, bizNo, remark),
+                AssetCodec.correlationIdText(corrId));
         checkStatus(resp, "DEBIT");
     }
 
@@ -380,18 +602,19 @@ public class AssetGatewayService {
      * @throws Exception 余额不足、fromType == toType、超时或 Cluster 连接异常
      */
     public void internalTransfer(InternalTransferReq req) throws Exception {
-        String correlationId = correlationId();
-        Map<String, Object> body = new HashMap<>();
-        body.put("correlationId", correlationId);
-        body.put("userId", req.getUserId());
-        body.put("fromAccountType", req.getFromAccountType().name());
-        body.put("toAccountType", req.getToAccountType().name());
-        body.put("asset", req.getAsset());
-        body.put("amount", req.getAmount().toPlainString());
-        body.put("bizNo", req.getBizNo());
-        if (req.getRemark() != null) body.put("remark", req.getRemark());
-
-        String resp = sendAndWait(req.getUserId(), AssetMsgType.INTERNAL_TRANSFER, body, correlationId);
+        long        corrId    = newCorrelationId();
+        long        userId    = req.getUserId();
+        AccountType fromType  = req.getFromAccountType();
+        AccountType toType    = req.getToAccountType();
+        long        assetCode = AssetCodec.packAsset(req.getAsset());
+        long        amount    = toRaw(req.getAmount(), req.getAsset());
+        String      bizNo     = req.getBizNo();
+        String      remark    = req.getRemark();
+
+        String resp = sendAndWait(userId, AssetMsgType.INTERNAL_TRANSFER,
+                (buf, off) -> TransferCodec.encode(buf, off, corrId, userId, fromType, toType,
+                        assetCode, amount, bizNo, remark),
+                AssetCodec.correlationIdText(corrId));
         checkStatus(resp, "INTERNAL_TRANSFER");
     }
 
@@ -405,11 +628,18 @@ public class AssetGatewayService {
      * @return Archive byte position（0 表示从头开始）
      */
     public long queryMatchArchivePosition(Long routingUserId) throws Exception {
+        return queryShardMatchArchivePosition(shardRouter.getShardId(routingUserId));
+    }
+
+    /**
+     * 查询指定分片的 Match Archive 消费位点（多分片时各分片位点独立推进）。
+     */
+    public long queryShardMatchArchivePosition(int shardId) throws Exception {
         String correlationId = correlationId();
         Map<String, Object> body = new LinkedHashMap<>();
         body.put("correlationId", correlationId);
 
-        String respJson = sendAndWait(routingUserId, AssetMsgType.MATCH_POSITION_QUERY, body, correlationId);
+        String respJson = sendAndWaitToShard(shardId, AssetMsgType.MATCH_POSITION_QUERY, json(body), correlationId);
         JsonNode resp = objectMapper.readTree(respJson);
         if (resp.has("error")) {
             throw new IllegalStateException("MATCH_POSITION_QUERY error: " + resp.get("error").asText());
@@ -422,36 +652,277 @@ public class AssetGatewayService {
     // =========================================================================
 
     /**
-     * 序列化请求体并将其放入 per-shard Offer 队列，然后等待 EgressPoller 的响应。
+     * 金额 → 该资产 scale 下的 raw（调用线程完成换算，poller 线程只做定长写入）。
+     *
+     * @throws IllegalStateException 精度超过资产 scale——与 Cluster 侧一致，拒绝而非截断
+     */
+    public long toRaw(BigDecimal amount, String asset) {
+        try {
+            return FixedPoint.fromBigDecimal(amount, scaleRegistry.scaleOf(asset), RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new IllegalStateException(
+                    "[SCALE] amount precision exceeds scale of asset=" + asset + ": " + amount.toPlainString());
+        }
+    }
+
+    /**
+     * 本地读：用户属于本进程 Cluster 节点所在分片时，经 {@link LocalBalanceReader} 由本节点
+     * Service Thread 在两条日志之间直接读账本，不产生 Raft 日志。
+     *
+     * @return 余额行；不满足本地读条件（未启用 / 非本分片 / 节点落后 / 队列满 / 失败）时返回 null，调用方回退 Ingress
+     */
+    private List<BalanceRow> readLocal(Long userId, AccountType accountType, String asset)
+            throws InterruptedException {
+        if (localReader == null || !localReadEnabled || shardRouter.getShardId(userId) != localReader.shardId()) {
+            return null;
+        }
+        CompletableFuture<List<BalanceRow>> future = localReader.tryRead(userId, accountType, asset);
+        if (future == null) return null;
+        try {
+            return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("[AssetGateway] Local read failed, fallback to ingress userId={}: {}", userId, e.toString());
+            return null;
+        }
+    }
+
+    private List<AssetDTO> toAssetDTOs(Long userId, List<BalanceRow> rows) {
+        List<AssetDTO> list = new ArrayList<>(rows.size());
+        for (BalanceRow row : rows) {
+            list.add(toAssetDTO(userId, row));
+        }
+        return list;
+    }
+
+    private AssetDTO toAssetDTO(Long userId, BalanceRow row) {
+        int        scale     = scaleRegistry.scaleOf(row.asset());
+        BigDecimal available = FixedPoint.toBigDecimal(row.available(), scale);
+        BigDecimal frozen    = FixedPoint.toBigDecimal(row.frozen(), scale);
+        AssetDTO dto = new AssetDTO();
+        dto.setUserId(userId);
+        dto.setAccountType(row.accountType());
+        dto.setAsset(row.asset());
+        dto.setAvailableBalance(available);
+        dto.setFrozenBalance(frozen);
+        dto.setTotalBalance(available.add(frozen));
+        return dto;
+    }
+
+    /**
+     * Ingress 余额查询（single-flight）：同键已有在途查询时等待并共用其响应，否则由本调用发起。
+     * 键含该用户的写入纪元，本调用之前完成的写入必然反映在共用的响应里。
+     *
+     * @param accountType null 表示全部账户类型
+     * @param asset       null 表示该账户类型下全部资产
+     */
+    private String queryBalanceShared(Long userId, AccountType accountType, String asset) throws Exception {
+        BalanceQueryKey key = new BalanceQueryKey(userId, accountType, asset,
+                writeEpochs.get(writeEpochStripe(userId)));
+        CompletableFuture<String> mine   = new CompletableFuture<>();
+        CompletableFuture<String> leader = inflightQueries.putIfAbsent(key, mine);
+        if (leader != null) {
+            return leader.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        try {
+            String correlationId = correlationId();
+            Map<String, Object> req = new HashMap<>();
+            req.put("correlationId", correlationId);
+            req.put("userId", userId);
+            // 不传 accountType → Cluster 返回全部账户类型；不传 asset → 该类型下全部资产
+            if (accountType != null) req.put("accountType", accountType.name());
+            if (asset != null)       req.put("asset", asset);
+
+            String respJson = sendAndWait(userId, AssetMsgType.BALANCE_QUERY, json(req), correlationId);
+            mine.complete(respJson);
+            return respJson;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflightQueries.remove(key, mine);
+        }
+    }
+
+    /**
+     * 把一笔冻结加入该用户收集中的批次：新开批次时按窗口定时封批，达到上限立即封批发送。
+     *
+     * <p>批次的增删都在 {@code openFreezeBatches.compute / remove(key, batch)} 内完成，
+     * 封批（从表中移除）之后不会再有请求加入，无需额外的锁。
+     */
+    private CompletableFuture<Void> coalesceFreeze(long userId, FreezeItem item) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        FreezeBatch[] opened = new FreezeBatch[1];
+        FreezeBatch[] full   = new FreezeBatch[1];
+        openFreezeBatches.compute(userId, (k, batch) -> {
+            if (batch == null) {
+                batch = new FreezeBatch();
+                opened[0] = batch;
+            }
+            batch.items.add(item);
+            batch.futures.add(future);
+            if (batch.items.size() >= freezeCoalesceMaxItems) {
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (full[0] != null) {
+            sendFreezeBatch(userId, full[0]);
+        } else if (opened[0] != null) {
+            FreezeBatch batch = opened[0];
+            try {
+                freezeFlusher.schedule(() -> {
+                    if (openFreezeBatches.remove(userId, batch)) sendFreezeBatch(userId, batch);
+                }, freezeCoalesceWindowUs, TimeUnit.MICROSECONDS);
+            } catch (RejectedExecutionException e) {
+                // 已关闭：就地发送，不让调用方空等到超时
+                if (openFreezeBatches.remove(userId, batch)) sendFreezeBatch(userId, batch);
+            }
+        }
+        return future;
+    }
+
+    /** 封好的批次作为一条 FREEZE_COALESCED 发出，响应按子项顺序分发给各调用方。 */
+    private void sendFreezeBatch(long userId, FreezeBatch batch) {
+        long corrId = newCorrelationId();
+        List<FreezeItem> items = List.copyOf(batch.items);
+        sendAsyncRaw(shardRouter.getShardId(userId), AssetMsgType.FREEZE_COALESCED,
+                (buf, off) -> BatchFreezeCodec.encode(buf, off, corrId, userId, items),
+                AssetCodec.correlationIdText(corrId))
+                .whenComplete((resp, e) -> completeFreezeBatch(batch, resp, e));
+    }
+
+    private void completeFreezeBatch(FreezeBatch batch, String resp, Throwable failure) {
+        JsonNode errors = null;
+        if (failure == null) {
+            try {
+                JsonNode node = objectMapper.readTree(resp);
+                if (node.has("error")) {
+                    failure = new IllegalStateException("[FREEZE] Asset Cluster error: " + node.get("error").asText());
+                } else {
+                    errors = node.path("errors");
+                }
+            } catch (Exception e) {
+                failure = new IllegalStateException("[FREEZE] Invalid response: " + resp, e);
+            }
+        }
+        for (int i = 0; i < batch.futures.size(); i++) {
+            CompletableFuture<Void> f = batch.futures.get(i);
+            if (failure != null) {
+                f.completeExceptionally(failure);
+            } else if (errors.path(i).isTextual()) {
+                f.completeExceptionally(new IllegalStateException(
+                        "[FREEZE] Asset Cluster error: " + errors.path(i).asText()));
+            } else {
+                f.complete(null);
+            }
+        }
+    }
+
+    /**
+     * 将请求放入 per-shard Offer 队列，然后等待 EgressPoller 的响应。
      *
      * <p>此方法可安全地被多个 HTTP 线程并发调用：
      * <ul>
-     *   <li>每个线程仅使用局部 {@code byte[]}（无共享缓冲区）。</li>
+     *   <li>{@code body} 只捕获调用线程的局部值，由 EgressPoller 写入其私有缓冲区（无共享缓冲区）。</li>
      *   <li>{@code client.offer()} 由 EgressPoller 单线程完成。</li>
      *   <li>{@code CompletableFuture} 写入由 EgressPoller 线程完成。</li>
      * </ul>
      */
     private String sendAndWait(Long userId, byte msgType,
-                               Map<String, Object> body, String correlationId) throws Exception {
-        int shardId = shardRouter.getShardId(userId);
+                               BodyEncoder body, String correlationId) throws Exception {
+        try {
+            return sendAndWaitToShard(shardRouter.getShardId(userId), msgType, body, correlationId);
+        } finally {
+            if (msgType != AssetMsgType.BALANCE_QUERY) bumpWriteEpoch(userId);
+        }
+    }
 
-        // 将消息编码为 [msgType][JSON] 字节数组（线程局部，无共享）
-        byte[] jsonBytes = objectMapper.writeValueAsBytes(body);
-        byte[] data = new byte[1 + jsonBytes.length];
-        data[0] = msgType;
-        System.arraycopy(jsonBytes, 0, data, 1, jsonBytes.length);
+    /** 写请求结束：此后发起的余额查询不再与之前在途的查询合并（见 {@link #writeEpochs}）。 */
+    private void bumpWriteEpoch(long userId) {
+        writeEpochs.incrementAndGet(writeEpochStripe(userId));
+    }
 
+    private static int writeEpochStripe(long userId) {
+        return Long.hashCode(userId) & (WRITE_EPOCH_STRIPES - 1);
+    }
+
+    private String sendAndWaitToShard(int shardId, byte msgType,
+                                      BodyEncoder body, String correlationId) throws Exception {
         CompletableFuture<String> future = new CompletableFuture<>();
         pendingRequests.put(correlationId, future);
         try {
-            // 将请求放入 per-shard 队列，由 EgressPoller 线程完成 offer
-            offerQueues.get(shardId).put(new OfferRequest(data, correlationId));
+            // 在调用线程编码并写入 per-shard 提交环，由 EgressPoller 线程 offer
+            submit(shardId, msgType, body, correlationId);
             return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
         } finally {
             pendingRequests.remove(correlationId);
         }
     }
 
+    /**
+     * {@link #sendAndWaitToShard} 的非阻塞版本：入队后立即返回，超时由 future 自身计时。
+     *
+     * <p>同一 shard 的请求经同一队列、同一 Ingress 会话按入队顺序进入 Raft 日志，
+     * 调用方可据此做流水线（多个请求在途，按序确认）。
+     */
+    private CompletableFuture<Void> sendAsyncToShard(int shardId, byte msgType, BodyEncoder body,
+                                                     String correlationId, String op) {
+        return sendAsyncRaw(shardId, msgType, body, correlationId)
+                .thenAccept(resp -> {
+                    try {
+                        checkStatus(resp, op);
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new IllegalStateException("[" + op + "] Invalid response: " + resp, e);
+                    }
+                });
+    }
+
+    /** 异步发送并返回原始响应 JSON（超时由 future 自身计时）。 */
+    private CompletableFuture<String> sendAsyncRaw(int shardId, byte msgType, BodyEncoder body,
+                                                   String correlationId) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        try {
+            pendingRequests.put(correlationId, future);
+            submit(shardId, msgType, body, correlationId);
+        } catch (Exception e) {
+            pendingRequests.remove(correlationId);
+            future.completeExceptionally(e);
+        }
+        return future
+                .orTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((resp, e) -> pendingRequests.remove(correlationId));
+    }
+
+    /**
+     * 在调用线程把 {@code [u8 len][correlationId][msgType][body]} 编码进线程本地缓冲区并写入提交环。
+     *
+     * @throws IllegalStateException 提交环已满（poller / Cluster 跟不上，反压到调用方）
+     */
+    private void submit(int shardId, byte msgType, BodyEncoder body, String correlationId) {
+        ExpandableArrayBuffer buffer = ENCODE_BUFFER.get();
+        int corrLength = correlationId.length();
+        buffer.putByte(0, (byte) corrLength);
+        buffer.putStringWithoutLengthAscii(1, correlationId);
+        int msgOffset = 1 + corrLength;
+        buffer.putByte(msgOffset, msgType);
+        int length = msgOffset + 1 + body.encode(buffer, msgOffset + 1);
+        if (!submitRings.get(shardId).write(SUBMIT_MSG_TYPE_ID, buffer, 0, length)) {
+            throw new IllegalStateException("Asset gateway submit ring full, shard=" + shardId);
+        }
+    }
+
+    /** JSON body（查询类消息）：调用线程序列化，编码时只做拷贝。 */
+    private BodyEncoder json(Map<String, Object> body) throws Exception {
+        byte[] jsonBytes = objectMapper.writeValueAsBytes(body);
+        return (buf, off) -> {
+            buf.putBytes(off, jsonBytes);
+            return jsonBytes.length;
+        };
+    }
+
     private void checkStatus(String respJson, String op) throws Exception {
         JsonNode resp = objectMapper.readTree(respJson);
         if (resp.has("error")) {
@@ -528,8 +999,13 @@ public class AssetGatewayService {
         return list;
     }
 
+    /** JSON 请求的 correlationId（与二进制请求同一取值空间，便于 pending 表统一）。 */
     private static String correlationId() {
-        return UUID.randomUUID().toString().replace("-", "");
+        return AssetCodec.correlationIdText(newCorrelationId());
+    }
+
+    private static long newCorrelationId() {
+        return ThreadLocalRandom.current().nextLong();
     }
 
     /** 以异常完成 pending future（offer 失败路径）。 */
@@ -544,13 +1020,20 @@ public class AssetGatewayService {
     // 内部类型
     // =========================================================================
 
-    /**
-     * per-shard Offer 请求载体（不可变）。
-     *
-     * @param data          编码后的消息字节：[msgType][JSON body]
-     * @param correlationId 请求标识，用于 offer 失败时完成对应的 future
-     */
-    private record OfferRequest(byte[] data, String correlationId) {}
+    /** 余额查询的 single-flight 键（accountType / asset 为 null 表示不限定；writeEpoch 见 {@link #writeEpochs}）。 */
+    private record BalanceQueryKey(long userId, AccountType accountType, String asset, long writeEpoch) {}
+
+    /** 收集中的合并冻结批次：items 与 futures 一一对应（仅在 compute 内追加）。 */
+    private static final class FreezeBatch {
+        final List<FreezeItem>              items   = new ArrayList<>();
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    }
+
+    /** 把消息 body 写入 {@code buffer[offset..]}，返回写入字节数（在调用线程编码进提交环前调用）。 */
+    @FunctionalInterface
+    private interface BodyEncoder {
+        int encode(MutableDirectBuffer buffer, int offset);
+    }
 
     // =========================================================================
     // EgressListener（每个 shard 一个实例，在 EgressPoller 线程中回调）
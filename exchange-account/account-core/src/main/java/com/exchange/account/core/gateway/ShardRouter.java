@@ -15,9 +15,10 @@ import java.util.List;
  * <h3>扩展为多分片</h3>
  * <ol>
  *   <li>新增环境变量 {@code ASSET_CLUSTER_INGRESS_1}, {@code ASSET_CLUSTER_INGRESS_2}, ...</li>
- *   <li>扩大 {@code totalShards}；{@link #getShardId(Long)} 按 userId hash 取模分片。</li>
+ *   <li>扩大 {@code totalShards}；{@link #getShardId(Long)} 按 userId 取模分片。</li>
  *   <li>{@link AssetGatewayService} 对每个分片维护一个独立的 AeronCluster 客户端。</li>
- *   <li>无需修改 {@link AssetClusteredService} 代码。</li>
+ *   <li>买卖双方分属不同分片的成交由 {@code TradeSettlementForwarder} 拆为买方腿 / 卖方腿
+ *       分别发往各自分片，各分片独立记录 Match Archive 位点。</li>
  * </ol>
  *
  * <h3>一致性哈希（远期）</h3>
@@ -0,0 +1,95 @@
+package com.exchange.account.core.cluster;
+
+import com.exchange.account.api.enums.AccountType;
+import com.exchange.account.core.cluster.event.AssetEventPublisher;
+import com.exchange.account.core.cluster.ledger.BalanceLedger;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.FreezeItem;
+import com.exchange.account.core.cluster.protocol.AssetMsgType;
+import com.exchange.account.core.cluster.protocol.BatchFreezeCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.aeron.cluster.service.ClientSession;
+import io.aeron.cluster.service.Cluster;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 合并冻结逐项成败：业务错误、意外异常都只失败该项，其余照常冻结；
+ * 冻结已入账而事件发布失败时该项仍回成功。
+ */
+public class AssetClusteredServiceFreezeCoalescedTest {
+
+    private static final long TS   = 1_700_000_000_000L;
+    private static final long USER = 1L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void eachItemReportsItsOwnOutcome() throws Exception {
+        BalanceLedger ledger = spy(new BalanceLedger());
+        ledger.credit(USER, AccountType.SPOT, "USDT", 100L, "dep-1", TS);
+        doThrow(new ArithmeticException("overflow")).when(ledger)
+                .freeze(eq(USER), any(), any(), anyLong(), eq("o2"), anyLong());
+        AssetEventPublisher publisher = mock(AssetEventPublisher.class);
+        doThrow(new RuntimeException("kafka down")).when(publisher)
+                .publish(argThat(e -> "o4".equals(e.getBizNo())));
+
+        List<byte[]> egress = new ArrayList<>();
+        AssetClusteredService service = new AssetClusteredService(ledger, publisher);
+        service.onStart(leader(), null);
+
+        ExpandableArrayBuffer buffer = new ExpandableArrayBuffer(128);
+        buffer.putByte(0, AssetMsgType.FREEZE_COALESCED);
+        int length = 1 + BatchFreezeCodec.encode(buffer, 1, 42L, USER, List.of(
+                new FreezeItem("o1", AccountType.SPOT, "USDT", 30L),
+                new FreezeItem("o2", AccountType.SPOT, "USDT", 10L),
+                new FreezeItem("o3", AccountType.SPOT, "USDT", 1_000L),
+                new FreezeItem("o4", AccountType.SPOT, "USDT", 20L)));
+        service.onSessionMessage(session(egress), TS, buffer, 0, length, null);
+
+        assertEquals(1, egress.size());
+        byte[] frame = egress.get(0);
+        assertEquals(AssetMsgType.FREEZE_COALESCED_RESP, frame[0]);
+        JsonNode errors = objectMapper.readTree(frame, 1, frame.length - 1).get("errors");
+        assertEquals(4, errors.size());
+        assertTrue(errors.get(0).isNull());
+        assertEquals("internal error", errors.get(1).asText());
+        assertTrue(errors.get(2).asText().contains("Insufficient available balance"));
+        assertTrue(errors.get(3).isNull(), "冻结已入账,事件发布失败不改变该项结果");
+
+        assertEquals(50L, ledger.getBalance(USER, AccountType.SPOT, "USDT").getAvailable());
+        assertEquals(50L, ledger.getBalance(USER, AccountType.SPOT, "USDT").getFrozen());
+    }
+
+    private static Cluster leader() {
+        Cluster cluster = mock(Cluster.class);
+        when(cluster.role()).thenReturn(Cluster.Role.LEADER);
+        when(cluster.time()).thenReturn(TS);
+        return cluster;
+    }
+
+    /** 收集每帧 Egress：[msgType][JSON] */
+    private static ClientSession session(List<byte[]> egress) {
+        ClientSession session = mock(ClientSession.class);
+        when(session.offer(any(DirectBuffer.class), anyInt(), anyInt())).thenAnswer(inv -> {
+            DirectBuffer buf = inv.getArgument(0);
+            byte[] frame = new byte[(int) inv.getArgument(2)];
+            buf.getBytes(inv.getArgument(1), frame);
+            egress.add(frame);
+            return 1L;
+        });
+        return session;
+    }
+}
@@ -0,0 +1,164 @@
+package com.exchange.account.core.cluster.ledger;
+
+import com.exchange.account.api.enums.AccountType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 扁平余额表测试：线性探测链上的定位与创建不串键，扩容（slot 数组增长 + 哈希桶 rehash）后
+ * 已分配的 slot 与余额不变、按键仍可查到，presize 后批量装载不再 rehash。
+ */
+public class BalanceTableTest {
+
+    private static final AccountType[] TYPES  = {AccountType.SPOT, AccountType.FUTURES};
+    private static final String[]      ASSETS = {"USDT", "BTC"};
+
+    @Test
+    public void probeChains_findAndCreateWalkPastCollisions() {
+        BalanceTable table = new BalanceTable();
+        int users = 250;   // 1000 条，低于首次 rehash 阈值（1024），桶负载接近 1/2
+        int[][][] slots = new int[users][TYPES.length][ASSETS.length];
+        for (int u = 0; u < users; u++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                for (int a = 0; a < ASSETS.length; a++) {
+                    slots[u][t][a] = table.getOrCreate(userId(u), TYPES[t], ASSETS[a]);
+                }
+            }
+        }
+        assertEquals(users * TYPES.length * ASSETS.length, table.size());
+        assertTrue(displacedEntries(table) > 0, "应存在不在初始桶上的条目（探测链被覆盖到）");
+
+        for (int u = 0; u < users; u++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                for (int a = 0; a < ASSETS.length; a++) {
+                    int slot = slots[u][t][a];
+                    assertEquals(slot, table.find(userId(u), TYPES[t], ASSETS[a]));
+                    // 已存在：沿链找到原 slot，不重复创建
+                    assertEquals(slot, table.getOrCreate(userId(u), TYPES[t], ASSETS[a]));
+                    assertEquals(userId(u), table.userId(slot));
+                    assertEquals(TYPES[t], table.accountType(slot));
+                    assertEquals(ASSETS[a], table.asset(slot));
+                }
+            }
+        }
+        assertEquals(users * TYPES.length * ASSETS.length, table.size());
+
+        // 未命中：走到空桶即停
+        assertEquals(BalanceTable.NONE, table.find(userId(users), AccountType.SPOT, "USDT"));
+        assertEquals(BalanceTable.NONE, table.find(userId(0), AccountType.FUNDING, "USDT"));
+        assertEquals(BalanceTable.NONE, table.find(userId(0), AccountType.SPOT, "ETH"));
+    }
+
+    @Test
+    public void growth_rehashKeepsSlotsBalancesAndLookups() {
+        BalanceTable table = new BalanceTable();
+        int first = table.getOrCreate(userId(0), AccountType.SPOT, "USDT");
+        table.credit(first, 7L);
+        int initialBuckets = buckets(table);
+
+        int users = 2_500;   // 1 万条：slot 数组多次翻倍，哈希桶多次 rehash
+        for (int u = 0; u < users; u++) {
+            for (int t = 0; t < TYPES.length; t++) {
+                for (int a = 0; a < ASSETS.length; a++) {
+                    int slot = table.getOrCreate(userId(u), TYPES[t], ASSETS[a]);
+                    if (u > 0 || t > 0 || a > 0) {
+                        table.set(slot, raw(u, t, a), u);
+                    }
+                }
+            }
+        }
+        int entries = users * TYPES.length * ASSETS.length;
+        assertEquals(entries, table.size());
+        assertEquals(users, table.userCount());
+        assertTrue(buckets(table) > initialBuckets, "应已 rehash");
+        assertTrue(buckets(table) >= 2 * entries, "负载不超过 1/2");
+
+        // 扩容前取得的 slot 仍指向同一条目
+        assertEquals(first, table.find(userId(0), AccountType.SPOT, "USDT"));
+        assertEquals(7L, table.available(first));
+
+        for (int u = 0; u < users; u++) {
+            Set<Integer> ofUser = new HashSet<>();
+            for (int t = 0; t < TYPES.length; t++) {
+                for (int a = 0; a < ASSETS.length; a++) {
+                    int slot = table.find(userId(u), TYPES[t], ASSETS[a]);
+                    assertNotEquals(BalanceTable.NONE, slot);
+                    if (u > 0 || t > 0 || a > 0) {
+                        assertEquals(raw(u, t, a), table.available(slot));
+                        assertEquals(u, table.frozen(slot));
+                    }
+                    ofUser.add(slot);
+                }
+            }
+            // 同用户链表覆盖且只覆盖该用户的全部 slot
+            Set<Integer> chained = new HashSet<>();
+            for (int s = table.firstOfUser(userId(u)); s != BalanceTable.NONE; s = table.nextOfUser(s)) {
+                assertTrue(chained.add(s));
+            }
+            assertEquals(ofUser, chained);
+        }
+        assertEquals(BalanceTable.NONE, table.find(userId(users), AccountType.SPOT, "USDT"));
+    }
+
+    @Test
+    public void presize_loadsWithoutRehash_andRejectsNonEmptyTable() {
+        BalanceTable table = new BalanceTable();
+        int users = 1_000;
+        int entries = users * TYPES.length * ASSETS.length;
+        table.presize(entries, users);
+        int presized = buckets(table);
+
+        int usdt = table.assetId("USDT");
+        int btc  = table.assetId("BTC");
+        for (int u = 0; u < users; u++) {
+            for (AccountType type : TYPES) {
+                table.set(table.getOrCreate(userId(u), type.ordinal(), usdt), u, 0L);
+                table.set(table.getOrCreate(userId(u), type.ordinal(), btc), 0L, u);
+            }
+        }
+        assertEquals(presized, buckets(table), "presize 后装载不应 rehash");
+        assertEquals(entries, table.size());
+        for (int u = 0; u < users; u++) {
+            assertEquals(u, table.available(table.find(userId(u), AccountType.FUTURES, "USDT")));
+            assertEquals(u, table.frozen(table.find(userId(u), AccountType.SPOT, "BTC")));
+        }
+
+        assertThrows(IllegalStateException.class, () -> table.presize(1, 1));
+    }
+
+    // =========================================================================
+    // Helpers
+    // =========================================================================
+
+    /** 稀疏且跨度大的 userId，避免与桶序号形成简单规律。 */
+    private static long userId(int u) {
+        return 10_000_000_000L + 7_919L * u;
+    }
+
+    private static long raw(int u, int t, int a) {
+        return 1_000_000L * u + 10L * t + a;
+    }
+
+    private static int buckets(BalanceTable table) {
+        return ((int[]) ReflectionTestUtils.getField(table, "index")).length;
+    }
+
+    /** 落在初始桶之外（经过探测）的条目数。 */
+    private static int displacedEntries(BalanceTable table) {
+        int[] index = (int[]) ReflectionTestUtils.getField(table, "index");
+        int displaced = 0;
+        for (int b = 0; b < index.length; b++) {
+            int slot = index[b];
+            if (slot == BalanceTable.NONE) continue;
+            int typeAsset = (table.accountTypeOrdinal(slot) << 24) | table.assetIdOf(slot);
+            int home = ReflectionTestUtils.invokeMethod(table, "bucket", table.userId(slot), typeAsset);
+            if (home != b) displaced++;
+        }
+        return displaced;
+    }
+}
@@ -0,0 +1,132 @@
+package com.exchange.account.core.cluster.ledger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 幂等表测试：TTL 表按分钟桶整桶淘汰（含重写后过期时间变化的旧桶条目），
+ * 永久表跨归并阈值后查询不丢、不重复，非规范数字单号不折叠。
+ */
+public class BizNoTablesTest {
+
+    private static final long M = ProcessedBizNoWindow.BUCKET_MS;
+
+    @Test
+    public void ttlWindow_evictsOnlyWholeExpiredBuckets() {
+        ProcessedBizNoWindow window = new ProcessedBizNoWindow();
+        window.put(BizNoType.FREEZE, "1", M + 1_000);          // 桶 1：[M, 2M)
+        window.put(BizNoType.FREEZE, "ord-a", M + 5_000);      // 非数字，同桶
+        window.put(BizNoType.SETTLE_BUY, "1", 2 * M + 1_000);  // 同号不同类型，桶 2
+
+        // 桶尾之前不淘汰，即使条目本身已过期
+        assertEquals(0, window.evictExpired(2 * M - 1));
+        assertTrue(window.contains(BizNoType.FREEZE, "1"));
+
+        assertEquals(2, window.evictExpired(2 * M));
+        assertFalse(window.contains(BizNoType.FREEZE, "1"));
+        assertFalse(window.contains(BizNoType.FREEZE, "ord-a"));
+        assertTrue(window.contains(BizNoType.SETTLE_BUY, "1"));
+        assertEquals(1, window.size());
+
+        assertEquals(1, window.evictExpired(3 * M));
+        assertEquals(0, window.size());
+        assertEquals(0, window.evictExpired(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void ttlWindow_rewrittenEntryIsNotEvictedByItsOldBucket() {
+        ProcessedBizNoWindow window = new ProcessedBizNoWindow();
+        window.put(BizNoType.UNFREEZE, "7", M + 1_000);
+        window.put(BizNoType.UNFREEZE, "x-7", M + 1_000);
+        // 重写到更晚的桶：旧桶里的索引项在淘汰时按当前过期时间核对后跳过
+        window.put(BizNoType.UNFREEZE, "7", 5 * M);
+        window.put(BizNoType.UNFREEZE, "x-7", 5 * M);
+
+        assertEquals(0, window.evictExpired(2 * M));
+        assertTrue(window.contains(BizNoType.UNFREEZE, "7"));
+        assertTrue(window.contains(BizNoType.UNFREEZE, "x-7"));
+
+        assertEquals(2, window.evictExpired(6 * M));
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    public void ttlWindow_restoreRoutesKeysByPrefix() {
+        ProcessedBizNoWindow window = new ProcessedBizNoWindow();
+        window.restore("SETTLE_SELL:42", M);
+        window.restore("FREEZE:007", M);     // 非规范数字按字符串保存
+        window.restore("UNKNOWN:1", M);      // 未知前缀原样保留
+
+        assertTrue(window.contains(BizNoType.SETTLE_SELL, "42"));
+        assertEquals(1, window.idCount(BizNoType.SETTLE_SELL));
+        assertTrue(window.contains(BizNoType.FREEZE, "007"));
+        assertFalse(window.contains(BizNoType.FREEZE, "7"));
+        assertTrue(window.nonNumericKeys().containsKey("UNKNOWN:1"));
+        assertEquals(3, window.evictExpired(2 * M));
+    }
+
+    @Test
+    public void permanentSet_keepsAllIdsAcrossMerges() {
+        PermanentBizNoSet set = new PermanentBizNoSet();
+        int n = 10_000;   // 超过归并阈值（4096），触发有序数组归并与 bloom 重建
+        for (int i = 0; i < n; i++) {
+            assertTrue(set.add(BizNoType.CREDIT, String.valueOf(1_000_000L + 3L * i)));
+        }
+        assertEquals(n, set.idCount(BizNoType.CREDIT));
+        for (int i = 0; i < n; i++) {
+            assertTrue(set.contains(BizNoType.CREDIT, String.valueOf(1_000_000L + 3L * i)));
+            assertFalse(set.contains(BizNoType.CREDIT, String.valueOf(1_000_001L + 3L * i)));
+        }
+        assertFalse(set.add(BizNoType.CREDIT, "1000000"));
+        assertFalse(set.contains(BizNoType.DEBIT, "1000000"));
+
+        assertTrue(set.add(BizNoType.DEBIT, "007"));
+        assertFalse(set.contains(BizNoType.DEBIT, "7"));
+        assertFalse(set.add(BizNoType.DEBIT, "007"));
+        assertEquals(n + 1, set.size());
+    }
+
+    @Test
+    public void permanentSet_tieredRunsKeepAllIdsAcrossBloomGrowth() {
+        PermanentBizNoSet set = new PermanentBizNoSet();
+        // 先整批装载一段，再逐条写入跨越多次落段、段间归并与 bloom 扩容
+        long[] loaded = new long[5_000];
+        for (int i = 0; i < loaded.length; i++) {
+            loaded[i] = 2L * i;
+        }
+        set.bulkLoad(BizNoType.DEBIT, loaded, loaded.length);
+        int n = 60_000;
+        for (int i = 0; i < n; i++) {
+            long id = 1_000_000_000_000L - 7L * i;   // 降序写入，新段与旧段交错
+            assertTrue(set.add(BizNoType.DEBIT, String.valueOf(id)));
+        }
+        assertEquals(n + loaded.length, set.idCount(BizNoType.DEBIT));
+        for (int i = 0; i < n; i++) {
+            assertTrue(set.contains(BizNoType.DEBIT, String.valueOf(1_000_000_000_000L - 7L * i)));
+            assertFalse(set.contains(BizNoType.DEBIT, String.valueOf(1_000_000_000_001L - 7L * i)));
+        }
+        for (int i = 0; i < loaded.length; i++) {
+            assertTrue(set.contains(BizNoType.DEBIT, String.valueOf(2L * i)));
+            assertFalse(set.add(BizNoType.DEBIT, String.valueOf(2L * i)));
+        }
+        long[] seen = {0};
+        set.forEachId(BizNoType.DEBIT, id -> seen[0]++);
+        assertEquals(n + loaded.length, seen[0]);
+    }
+
+    @Test
+    public void permanentSet_bulkLoadSortsAndDeduplicates() {
+        PermanentBizNoSet set = new PermanentBizNoSet();
+        long[] ids = {9, 3, 9, 1, 3, 0, 0};
+        set.bulkLoad(BizNoType.DEBIT, ids, 6);   // 末位不计入
+
+        assertEquals(4, set.idCount(BizNoType.DEBIT));
+        for (String id : new String[]{"0", "1", "3", "9"}) {
+            assertTrue(set.contains(BizNoType.DEBIT, id));
+        }
+        assertFalse(set.contains(BizNoType.DEBIT, "2"));
+        assertTrue(set.add(BizNoType.DEBIT, "2"));
+        assertFalse(set.add(BizNoType.DEBIT, "9"));
+    }
+}
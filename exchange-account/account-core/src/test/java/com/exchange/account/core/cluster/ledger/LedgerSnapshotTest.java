@@ -0,0 +1,129 @@
+package com.exchange.account.core.cluster.ledger;
+
+import com.exchange.account.api.enums.AccountType;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二进制账本快照测试：写出 → 还原后余额、seq、Archive 位点、TTL / 永久幂等表（数字与非数字单号、成交腿）一致，
+ * 还原后的幂等表仍能拦截重复请求。
+ */
+public class LedgerSnapshotTest {
+
+    private static final long TS = 1_700_000_000_000L;
+
+    @Test
+    public void writeThenRestore_roundTripsLedgerState() {
+        BalanceLedger ledger = new BalanceLedger();
+        ledger.credit(1L, AccountType.SPOT, "USDT", 1_000_00000000L, "9001", TS);
+        ledger.credit(2L, AccountType.SPOT, "BTC", 5_00000000L, "dep-abc", TS);
+        ledger.credit(2L, AccountType.FUTURES, "USDT", 300_00000000L, "9002", TS);
+        // 数字 / 非数字 TTL 单号
+        ledger.freeze(1L, AccountType.SPOT, "USDT", 200_00000000L, "1001", TS);
+        ledger.freeze(2L, AccountType.SPOT, "BTC", 1_00000000L, "ord-x", TS);
+        // 跨分片成交腿（SETTLE_BUY / SETTLE_SELL 幂等类型）
+        ledger.applySettlementBatch(List.of(),
+                List.of(new BalanceLedger.SettleLeg("5001", 1L, BalanceLedger.LegSide.BUY, AccountType.SPOT,
+                                "BTC", "USDT", 1_00000000L, 100_00000000L, 10000000L),
+                        new BalanceLedger.SettleLeg("5001", 2L, BalanceLedger.LegSide.SELL, AccountType.SPOT,
+                                "BTC", "USDT", 1_00000000L, 100_00000000L, 10000000L)),
+                List.of(), 777L, TS, null);
+        // 足够多的永久单号，使 PERMANENT_IDS 跨多条消息
+        for (int i = 0; i < 50; i++) {
+            ledger.credit(3L, AccountType.FUNDING, "ETH", 1L, String.valueOf(20_000 + i), TS);
+        }
+
+        CollectingSink sink = new CollectingSink(128);
+        long written = LedgerSnapshot.write(ledger, sink);
+        assertTrue(sink.messages.size() > 10, "小 payload 上限应把快照切成多条消息");
+
+        BalanceLedger restored = new BalanceLedger();
+        restored.credit(99L, AccountType.SPOT, "USDT", 1L, "stale", TS);   // 还原前的状态应被清掉
+        LedgerSnapshot.Loader loader = LedgerSnapshot.loader(restored);
+        for (byte[] message : sink.messages) {
+            loader.onMessage(new UnsafeBuffer(message), 0, message.length);
+        }
+        assertEquals(written, loader.finish());
+        assertEquals(sink.messages.size(), loader.messages());
+
+        assertEquals(ledger.currentSeq(), restored.currentSeq());
+        assertEquals(777L, restored.getMatchArchivePosition());
+        assertEquals(ledger.exportLedger(), restored.exportLedger());
+        assertEquals(0L, restored.getBalance(99L, AccountType.SPOT, "USDT").getAvailable());
+        assertFalse(restored.exportPermanentBizNos().contains("CREDIT:stale"));
+        assertEquals(ledger.exportProcessedBizNos(), restored.exportProcessedBizNos());
+        assertEquals(ledger.exportPermanentBizNos(), restored.exportPermanentBizNos());
+        assertTrue(restored.exportProcessedBizNos().containsKey("SETTLE_BUY:5001"));
+        assertTrue(restored.exportProcessedBizNos().containsKey("SETTLE_SELL:5001"));
+        assertTrue(restored.exportProcessedBizNos().containsKey("FREEZE:ord-x"));
+        assertTrue(restored.exportPermanentBizNos().contains("CREDIT:dep-abc"));
+
+        // 还原后的幂等表照常拦截重复
+        long seq = restored.currentSeq();
+        restored.freeze(1L, AccountType.SPOT, "USDT", 1L, "1001", TS);
+        restored.freeze(2L, AccountType.SPOT, "BTC", 1L, "ord-x", TS);
+        restored.credit(2L, AccountType.SPOT, "BTC", 1L, "dep-abc", TS);
+        restored.credit(3L, AccountType.FUNDING, "ETH", 1L, "20049", TS);
+        assertEquals(seq, restored.currentSeq());
+        assertEquals(ledger.exportLedger(), restored.exportLedger());
+    }
+
+    @Test
+    public void missingEndMarker_isRejected() {
+        BalanceLedger ledger = new BalanceLedger();
+        ledger.credit(1L, AccountType.SPOT, "USDT", 1L, "1", TS);
+        CollectingSink sink = new CollectingSink(4096);
+        LedgerSnapshot.write(ledger, sink);
+
+        LedgerSnapshot.Loader loader = LedgerSnapshot.loader(new BalanceLedger());
+        for (byte[] message : sink.messages.subList(0, sink.messages.size() - 1)) {
+            loader.onMessage(new UnsafeBuffer(message), 0, message.length);
+        }
+        assertThrows(IllegalStateException.class, loader::finish);
+    }
+
+    /** 每条消息写进独立缓冲（claimOffset 非 0，校验写出端按偏移写入），提交时截取。 */
+    private static final class CollectingSink implements LedgerSnapshot.Sink {
+
+        private static final int OFFSET = 16;
+
+        private final int maxPayloadLength;
+        private final List<byte[]> messages = new ArrayList<>();
+        private UnsafeBuffer claimed;
+        private int length;
+
+        CollectingSink(int maxPayloadLength) {
+            this.maxPayloadLength = maxPayloadLength;
+        }
+
+        @Override
+        public int maxPayloadLength() {
+            return maxPayloadLength;
+        }
+
+        @Override
+        public MutableDirectBuffer claim(int length) {
+            this.length = length;
+            this.claimed = new UnsafeBuffer(new byte[OFFSET + length]);
+            return claimed;
+        }
+
+        @Override
+        public int claimOffset() {
+            return OFFSET;
+        }
+
+        @Override
+        public void commit() {
+            byte[] message = new byte[length];
+            claimed.getBytes(OFFSET, message);
+            messages.add(message);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.exchange.account.core.cluster.protocol;
+
+import com.exchange.account.api.enums.AccountType;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.FreezeItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.LegSide;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.ReleaseItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.SettleItem;
+import com.exchange.account.core.cluster.ledger.BalanceLedger.SettleLeg;
+import org.agrona.ExpandableArrayBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 资产代码编解码测试：8 字符以内打包进 long，超长 / 非 ASCII 资产走子项末尾的长资产名，
+ * 批量结算（含成交腿尾段）与批量冻结往返一致，资产都可打包时编码与旧格式逐字节相同。
+ */
+public class AssetCodecTest {
+
+    private static final int OFFSET = 7;
+
+    @Test
+    public void packAsset_acceptsUpToEightAscii_andRejectsLongerOrNonAscii() {
+        assertTrue(AssetCodec.isPackable("USDT"));
+        assertTrue(AssetCodec.isPackable("ABCDEFGH"));
+        assertEquals("ABCDEFGH", AssetCodec.unpackAsset(AssetCodec.packAsset("ABCDEFGH")));
+        assertFalse(AssetCodec.isPackable("ABCDEFGHI"));
+        assertFalse(AssetCodec.isPackable("币安币"));
+        assertFalse(AssetCodec.isPackable(""));
+        assertThrows(IllegalArgumentException.class, () -> AssetCodec.packAsset("ABCDEFGHI"));
+        assertThrows(IllegalArgumentException.class, () -> AssetCodec.assetSlot(""));
+        assertEquals(AssetCodec.LONG_ASSET, AssetCodec.assetSlot("ABCDEFGHI"));
+    }
+
+    @Test
+    public void batchSettle_roundTripsLongAssetsInTradesReleasesAndLegs() {
+        List<SettleItem> trades = List.of(
+                new SettleItem("t1", 1L, 2L, AccountType.SPOT, "BTC", "USDT", 3L, 300L, 1L, 2L),
+                new SettleItem("t2", 3L, 4L, AccountType.SPOT, "LONGTOKEN1", "稳定币", 5L, 500L, 0L, 0L));
+        List<ReleaseItem> releases = List.of(
+                new ReleaseItem("o1", 1L, AccountType.SPOT, "ABCDEFGHI", 7L),
+                new ReleaseItem("o2", 2L, AccountType.FUTURES, "ETH", 8L));
+        List<SettleLeg> legs = List.of(
+                new SettleLeg("t3", 5L, LegSide.BUY, AccountType.SPOT, "LONGTOKEN1", "USDT", 1L, 10L, 0L),
+                new SettleLeg("t3", 6L, LegSide.SELL, AccountType.SPOT, "BTC", "稳定币", 1L, 10L, 1L));
+
+        ExpandableArrayBuffer buffer = new ExpandableArrayBuffer(64);
+        int length = BatchSettleCodec.encode(buffer, OFFSET, 42L, 100L, 90L, trades, legs, releases);
+
+        BatchSettleCodec codec = new BatchSettleCodec().wrap(buffer, OFFSET, length);
+        assertEquals(42L, codec.correlationId());
+        assertEquals(100L, codec.archivePosition());
+        assertEquals(90L, codec.prevArchivePosition());
+        List<SettleItem> outTrades = new ArrayList<>();
+        List<SettleLeg> outLegs = new ArrayList<>();
+        List<ReleaseItem> outReleases = new ArrayList<>();
+        AssetCodec.AssetCodeInterner interner = new AssetCodec.AssetCodeInterner();
+        codec.decodeItems(interner, outTrades, outLegs, outReleases);
+        assertEquals(trades, outTrades);
+        assertEquals(releases, outReleases);
+        assertEquals(legs, outLegs);
+        // 长资产名同样驻留：同名同一实例
+        assertSame(outTrades.get(1).baseAsset(), outLegs.get(0).baseAsset());
+        assertSame(outTrades.get(1).quoteAsset(), outLegs.get(1).quoteAsset());
+    }
+
+    @Test
+    public void batchSettle_packableAssetsKeepLegacyLayout_andLegSectionIsOptional() {
+        List<SettleItem> trades = List.of(
+                new SettleItem("t1", 1L, 2L, AccountType.SPOT, "BTC", "USDT", 3L, 300L, 1L, 2L));
+        List<ReleaseItem> releases = List.of(new ReleaseItem("o1", 1L, AccountType.SPOT, "USDT", 7L));
+
+        ExpandableArrayBuffer buffer = new ExpandableArrayBuffer(64);
+        int length = BatchSettleCodec.encode(buffer, OFFSET, 1L, -1L, -1L, trades, releases);
+        // 34 头 + 成交 65 + [u8]t1 + 释放 25 + [u8]o1，无长资产名、无成交腿尾段
+        assertEquals(34 + 65 + 3 + 25 + 3, length);
+
+        List<SettleLeg> outLegs = new ArrayList<>();
+        List<ReleaseItem> outReleases = new ArrayList<>();
+        List<SettleItem> outTrades = new ArrayList<>();
+        new BatchSettleCodec().wrap(buffer, OFFSET, length)
+                .decodeItems(new AssetCodec.AssetCodeInterner(), outTrades, outLegs, outReleases);
+        assertEquals(trades, outTrades);
+        assertEquals(releases, outReleases);
+        assertTrue(outLegs.isEmpty());
+    }
+
+    @Test
+    public void batchFreeze_roundTripsMixedAssets() {
+        List<FreezeItem> items = List.of(
+                new FreezeItem("o1", AccountType.SPOT, "USDT", 100L),
+                new FreezeItem("o2", AccountType.SPOT, "ABCDEFGHI", 200L),
+                new FreezeItem("o3", AccountType.FUNDING, "ABCDEFGH", 300L));
+
+        ExpandableArrayBuffer buffer = new ExpandableArrayBuffer(64);
+        int length = BatchFreezeCodec.encode(buffer, OFFSET, 9L, 5L, items);
+        assertEquals(22 + 3 * (17 + 3) + 2 + "ABCDEFGHI".length(), length);
+
+        BatchFreezeCodec codec = new BatchFreezeCodec().wrap(buffer, OFFSET);
+        assertEquals(9L, codec.correlationId());
+        assertEquals(5L, codec.userId());
+        List<FreezeItem> out = new ArrayList<>();
+        codec.decodeItems(new AssetCodec.AssetCodeInterner(), out);
+        assertEquals(items, out);
+    }
+}
@@ -25,6 +25,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 @SpringBootApplication(scanBasePackages = {
         "com.exchange.account.persist",
         "com.exchange.account.core.service",      // FundFlowServiceImpl, AssetServiceImpl
+        "com.exchange.account.core.cache",        // BalanceCache（提交后写穿）
         "com.exchange.account.core.repository"    // MyBatis-Plus mappers
 })
 @MapperScan({"com.exchange.account.core.repository", "com.exchange.account.persist.repository"})
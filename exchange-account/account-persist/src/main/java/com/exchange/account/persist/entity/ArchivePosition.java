@@ -19,9 +19,15 @@ import lombok.NoArgsConstructor;
  *     recording_id  BIGINT       NOT NULL PRIMARY KEY COMMENT 'Aeron Archive recording ID',
  *     channel       VARCHAR(255) NOT NULL             COMMENT '录制通道',
  *     stream_id     INT          NOT NULL             COMMENT '录制 stream ID',
- *     position      BIGINT       NOT NULL DEFAULT 0   COMMENT '已消费到的字节位置'
+ *     position      BIGINT       NOT NULL DEFAULT 0   COMMENT '已消费到的字节位置',
+ *     last_seq      BIGINT       NOT NULL DEFAULT 0   COMMENT '已提交的最大账本 seq（seq 水位线）'
  * );
  * </pre>
+ *
+ * <h3>seq 水位线</h3>
+ * <p>{@code lastSeq} 与 {@code position} 同一条语句写入：position 之前的事件已全部提交，
+ * 其 seq 均 ≤ lastSeq。账本 seq 无洞单调，重放 / Leader 切换后重复发布的事件只要
+ * seq ≤ lastSeq 即可不查库直接跳过。
  */
 @Data
 @NoArgsConstructor
@@ -34,4 +40,5 @@ public class ArchivePosition {
     private String channel;
     private int    streamId;
     private long   position;
+    private long   lastSeq;
 }
@@ -9,7 +9,7 @@ import org.apache.ibatis.annotations.Update;
 /**
  * Archive 消费位点 Mapper。
  *
- * <p>提供 upsert 语义：首次插入，后续更新 position。
+ * <p>提供 upsert 语义：首次插入，后续更新 position 与 seq 水位线。
  */
 @Mapper
 public interface ArchivePositionMapper extends BaseMapper<ArchivePosition> {
@@ -18,12 +18,13 @@ public interface ArchivePositionMapper extends BaseMapper<ArchivePosition> {
      * 插入或更新位点（MySQL ON DUPLICATE KEY UPDATE）。
      */
     @Update("""
-            INSERT INTO t_archive_position (recording_id, channel, stream_id, position)
-            VALUES (#{recordingId}, #{channel}, #{streamId}, #{position})
-            ON DUPLICATE KEY UPDATE position = #{position}
+            INSERT INTO t_archive_position (recording_id, channel, stream_id, position, last_seq)
+            VALUES (#{recordingId}, #{channel}, #{streamId}, #{position}, #{lastSeq})
+            ON DUPLICATE KEY UPDATE position = #{position}, last_seq = #{lastSeq}
             """)
     void upsertPosition(@Param("recordingId") long   recordingId,
                         @Param("channel")     String channel,
                         @Param("streamId")    int    streamId,
-                        @Param("position")    long   position);
+                        @Param("position")    long   position,
+                        @Param("lastSeq")     long   lastSeq);
 }
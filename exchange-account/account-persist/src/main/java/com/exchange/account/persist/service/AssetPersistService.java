@@ -1,6 +1,8 @@
 package com.exchange.account.persist.service;
 
 import com.exchange.account.api.dto.AssetStateChangeEvent;
+import com.exchange.account.core.cache.BalanceCache;
+import com.exchange.account.core.entity.UserAsset;
 import com.exchange.account.core.service.AssetService;
 import com.exchange.account.core.service.FundFlowService;
 import com.exchange.account.persist.repository.ArchivePositionMapper;
@@ -8,6 +10,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
 
 /**
  * 资产事件持久化服务（单事务原子写入）。
@@ -23,10 +29,20 @@ import org.springframework.transaction.annotation.Transactional;
  * 崩溃后重启从旧位点重放，{@code event_id} 幂等检查保证不重复插入。
  *
  * <h3>幂等</h3>
- * <p>{@link FundFlowService#record} 内部以 {@code eventId} 做去重
- * （select-exists + DB UNIQUE 索引双保险，重复事件安全跳过而非抛异常）。
+ * <p>重放中已提交的事件由订阅者按 seq 水位线（与位点同事务写入的 {@code last_seq}）跳过，
+ * 不到达这里；{@link FundFlowService#record} 直接插入，{@code event_id} UNIQUE 索引兜底
+ * （重复事件安全跳过而非抛异常）。
  * 流水被幂等跳过时余额 UPSERT 仍执行——事件携带的是操作后绝对余额快照，
  * 重复应用是幂等的（同值覆盖），不会造成错账。
+ *
+ * <h3>Group commit</h3>
+ * <p>{@link #persistBatch} 把一批事件放进同一个事务：流水一条多行 INSERT（重复 eventId 由唯一键跳过），
+ * 余额经 {@link BalanceCoalescer} 折叠为批内每键最后值后一条多行 UPSERT，位点只推进一次到批尾。
+ * 事务边界与单条路径相同——批要么整体落库且位点推进到批尾，要么整体回滚从旧位点重放。
+ *
+ * <h3>余额缓存写穿</h3>
+ * <p>事务<b>提交后</b>把本次写入的余额行交给 {@link BalanceCache#writeThrough}（Redis 层 + 各 web 实例的
+ * 本地失效）。回滚的事务不写缓存；写穿失败不影响落库，缓存键 TTL 兜底。
  */
 @Slf4j
 @Service
@@ -36,6 +52,8 @@ public class AssetPersistService {
     private final FundFlowService       fundFlowService;
     private final AssetService          assetService;
     private final ArchivePositionMapper positionMapper;
+    private final BalanceCoalescer      balanceCoalescer;
+    private final BalanceCache          balanceCache;
 
     /**
      * 原子持久化一条资产状态变更事件 + 推进消费位点。
@@ -45,11 +63,12 @@ public class AssetPersistService {
      * @param channel     录制 channel（写入位点表）
      * @param streamId    录制 stream ID（写入位点表）
      * @param position    本事件对应的 Archive byte position
+     * @param lastSeq     提交后的 seq 水位线（与位点同写）
      */
     @Transactional(rollbackFor = Exception.class)
     public void persistEvent(AssetStateChangeEvent event,
-                             long recordingId, String channel, int streamId, long position) {
-        // 1. 写资金流水（eventId 幂等，重复事件返回 false 并跳过）
+                             long recordingId, String channel, int streamId, long position, long lastSeq) {
+        // 1. 写资金流水（直接插入，eventId 唯一键兜底，重复事件返回 false 并跳过）
         boolean inserted = fundFlowService.record(
                 event.getUserId(),
                 event.getAccountType(),
@@ -70,11 +89,77 @@ public class AssetPersistService {
                 event.getFrozen());
 
         // 3. 推进消费位点（与 1、2 同事务提交）
-        positionMapper.upsertPosition(recordingId, channel, streamId, position);
+        positionMapper.upsertPosition(recordingId, channel, streamId, position, lastSeq);
+
+        UserAsset balance = new UserAsset();
+        balance.setUserId(event.getUserId());
+        balance.setAccountType(event.getAccountType());
+        balance.setAsset(event.getAsset());
+        balance.setAvailableBalance(event.getAvailable());
+        balance.setFrozenBalance(event.getFrozen());
+        writeThroughAfterCommit(List.of(balance));
 
         if (!inserted) {
             log.debug("[AssetPersist] eventId={} was duplicate, balance/position still applied",
                     event.getEventId());
         }
     }
+
+    /**
+     * 原子持久化一批资产状态变更事件 + 推进消费位点到批尾（group commit）。
+     *
+     * @param events       按 Archive 顺序排列的事件（可为空：仅推进位点）
+     * @param recordingId  Archive recording ID
+     * @param channel      录制 channel（写入位点表）
+     * @param streamId     录制 stream ID（写入位点表）
+     * @param lastPosition 批内最后一个 fragment 的 Archive byte position
+     * @param lastSeq      提交后的 seq 水位线（与位点同写）
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void persistBatch(List<AssetStateChangeEvent> events,
+                             long recordingId, String channel, int streamId, long lastPosition, long lastSeq) {
+        writeEvents(events);
+
+        // 3. 位点只推进一次（与 1、2 同事务提交）
+        positionMapper.upsertPosition(recordingId, channel, streamId, lastPosition, lastSeq);
+    }
+
+    /**
+     * 原子持久化一批事件，<b>不</b>推进消费位点（分区写入线程用）。
+     *
+     * <p>位点由调用方在所有分区都提交越过某位置后单独推进（水位线），见
+     * {@code PartitionedPersistPipeline}。崩溃后从水位线重放，已提交的事件由 {@code event_id} 唯一键跳过。
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void persistEvents(List<AssetStateChangeEvent> events) {
+        writeEvents(events);
+    }
+
+    private void writeEvents(List<AssetStateChangeEvent> events) {
+        if (events.isEmpty()) return;
+
+        // 1. 多行 INSERT 流水（event_id 唯一键跳过重复）
+        int inserted = fundFlowService.recordEvents(events);
+
+        // 2. 余额按键折叠为批内最后值（事件携带绝对快照，最后值即批尾状态），一条多行 UPSERT
+        List<UserAsset> balances = balanceCoalescer.coalesce(events);
+        assetService.upsertBalances(balances);
+        writeThroughAfterCommit(balances);
+
+        log.debug("[AssetPersist] Batch events={} inserted={} balances={}",
+                events.size(), inserted, balances.size());
+    }
+
+    private void writeThroughAfterCommit(List<UserAsset> balances) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            balanceCache.writeThrough(balances);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                balanceCache.writeThrough(balances);
+            }
+        });
+    }
 }
@@ -26,8 +26,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -48,7 +48,7 @@ import java.util.concurrent.TimeoutException;
  *
  * <h3>幂等保证</h3>
  * <ul>
- *   <li>内存缓存（进程内去重，性能优化）：{@code processedEventIds}</li>
+ *   <li>内存窗口（进程内去重，性能优化）：{@link SeqDedupWindow}，按账本 seq 的滑动位图，O(1) 无断崖</li>
  *   <li>DB 唯一索引（{@code t_fund_flow.event_id} UNIQUE）：跨重启的最终兜底，
  *       重复插入按幂等跳过处理（不抛出，避免毒消息死循环）</li>
  * </ul>
@@ -57,6 +57,17 @@ import java.util.concurrent.TimeoutException;
  * <p>流水 + 余额 UPSERT + 消费位点在 {@link AssetPersistService#persistEvent}
  * 的同一个 DB 事务中提交，崩溃不产生中间状态。
  *
+ * <h3>Group commit</h3>
+ * <p>{@code asset.persist.batch.max-events > 1} 时启用：事件先在本线程内累积，满 N 条或首条累积后
+ * 超过 T 毫秒（{@code asset.persist.batch.max-delay-ms}）时经 {@link AssetPersistService#persistBatch}
+ * 一个事务提交，位点一次推进到批尾。追平后的空闲 poll 也会按 T 刷出残留批次。
+ * 批提交失败时批内 seq 从进程内去重窗口撤销，重连后从 DB 位点重放整批。
+ *
+ * <h3>分区并行写入</h3>
+ * <p>{@code asset.persist.writer-threads > 1} 时本线程只做 poll + 解码 + 去重 + seq 检测，事件按
+ * userId 哈希分发给 N 个 writer 线程（各自 group commit、各自占用一个 DB 连接），消费位点由本线程
+ * 按所有 writer 都已提交越过的水位线推进，见 {@link PartitionedPersistPipeline}。
+ *
  * <h3>错误处理</h3>
  * <p>fragment 处理失败时抛出 {@link RuntimeException}，poll 循环捕获后
  * 退出当前 subscribe() 调用，外层 retry 循环等待 5s 后重新连接 Archive 重试。
@@ -84,26 +95,67 @@ public class AssetArchiveSubscriber implements DisposableBean {
     @Value("${asset.archive.replay-channel:aeron:udp?endpoint=localhost:40201}")
     private String replayChannel;
 
+    /** 每批最多事件数；≤ 1 关闭 group commit，回到逐条事务 */
+    @Value("${asset.persist.batch.max-events:256}")
+    private int batchMaxEvents;
+
+    /** 批内首条事件最多等待的毫秒数 */
+    @Value("${asset.persist.batch.max-delay-ms:5}")
+    private long batchMaxDelayMs;
+
+    /** 分区写入线程数；≤ 1 由本线程直接写（group commit 或逐条） */
+    @Value("${asset.persist.writer-threads:4}")
+    private int writerThreads;
+
+    /** 每个写入线程的待写队列容量（满时本线程阻塞，形成背压） */
+    @Value("${asset.persist.writer-queue-capacity:8192}")
+    private int writerQueueCapacity;
+
+    /** 分区模式下水位线写入 t_archive_position 的最小间隔 */
+    @Value("${asset.persist.position-flush-ms:100}")
+    private long positionFlushMs;
+
     // ── 内部状态 ──────────────────────────────────────────────────
     private final ObjectMapper objectMapper = new ObjectMapper()
             .registerModule(new JavaTimeModule())
             .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
-    /** 进程内幂等缓存上限（超过则整体清空，避免无界增长；DB 唯一索引才是真兜底） */
-    private static final int MAX_CACHED_EVENT_IDS = 100_000;
+    /** 进程内去重窗口覆盖的 seq 个数（固定内存 capacity / 8 字节；窗口外交给 DB 唯一索引） */
+    @Value("${asset.persist.dedup-window-seqs:1048576}")
+    private int dedupWindowSeqs;
 
-    /** 进程内幂等缓存（重启后清空，DB 唯一索引兜底） */
-    private final Set<String> processedEventIds = ConcurrentHashMap.newKeySet();
+    /** 进程内去重窗口（重启后为空，DB 唯一索引兜底；仅 polling 线程访问） */
+    private SeqDedupWindow processedSeqs;
 
     private Thread         pollingThread;
     private volatile boolean running = true;
 
+    // ── group commit 状态（仅 polling 线程访问） ──────────────────────
+    private final List<AssetStateChangeEvent> batch = new ArrayList<>();
+    /** 批内（含被内存去重跳过的）最后一个 fragment 的 position；-1 = 无待推进位点 */
+    private long batchPosition   = -1L;
+    /** 批内（含跳过的）最大 seq */
+    private long batchSeq;
+    private long batchStartNanos;
+
+    /**
+     * seq 水位线：seq ≤ 此值的事件已提交（与位点同写入 {@code t_archive_position.last_seq}），
+     * 重放 / 重复发布时不查库直接跳过。仅 polling 线程访问。
+     */
+    private long committedSeq;
+
+    // ── 分区写入状态（仅 polling 线程访问） ────────────────────────
+    private PartitionedPersistPipeline pipeline;
+    private long writtenPosition;
+    private long lastPositionFlushMs;
+
     // =========================================================================
     // Lifecycle
     // =========================================================================
 
     @PostConstruct
     public void start() {
+        processedSeqs = new SeqDedupWindow(dedupWindowSeqs);
         pollingThread = new Thread(this::run, "asset-archive-subscriber");
         pollingThread.setDaemon(true);
         pollingThread.start();
@@ -140,6 +192,7 @@ public class AssetArchiveSubscriber implements DisposableBean {
      * 任何异常抛出后由外层 retry 循环重新发起。
      */
     private void subscribe() throws Exception {
+        resetBatch();
         MediaDriver driver = MediaDriver.launchEmbedded();
         try (Aeron aeron = Aeron.connect(new Aeron.Context().aeronDirectoryName(driver.aeronDirectoryName()));
              AeronArchive archive = AeronArchive.connect(new AeronArchive.Context()
@@ -161,14 +214,26 @@ public class AssetArchiveSubscriber implements DisposableBean {
             final long rid = recordingId;
             ArchivePosition savedPos = positionMapper.selectById(rid);
             long startPosition = (savedPos != null) ? savedPos.getPosition() : 0L;
+            committedSeq = (savedPos != null) ? savedPos.getLastSeq() : 0L;
 
-            log.info("[AssetArchiveSubscriber] Starting replay — recordingId={} startPosition={}",
-                    rid, startPosition);
+            log.info("[AssetArchiveSubscriber] Starting replay — recordingId={} startPosition={} committedSeq={}",
+                    rid, startPosition, committedSeq);
 
             // 3. 发起回放（Long.MAX_VALUE：追上后继续接收实时新录制）
             long replaySessionId = archive.startReplay(
                     rid, startPosition, Long.MAX_VALUE, replayChannel, REPLAY_STREAM);
 
+            if (writerThreads > 1) {
+                // 上个会话分发但未提交的 seq 可能残留在窗口中，重放前清空（DB 唯一键兜底）
+                processedSeqs.clear();
+                writtenPosition = startPosition;
+                pipeline = new PartitionedPersistPipeline(persistService, writerThreads, writerQueueCapacity,
+                        batchMaxEvents, batchMaxDelayMs,
+                        new PartitionedPersistPipeline.Mark(startPosition, committedSeq));
+                pipeline.start();
+            }
+            boolean clean = false;
+
             try (Subscription sub = aeron.addSubscription(replayChannel, REPLAY_STREAM)) {
                 // 等待 Archive 回放 Image 连接（最多 15s）
                 Image image = awaitImage(sub, (int) replaySessionId, 15_000);
@@ -180,13 +245,33 @@ public class AssetArchiveSubscriber implements DisposableBean {
 
                 while (running && !image.isClosed()) {
                     int fragments = sub.poll(assembler, 10);
+                    if (pipeline != null) {
+                        pipeline.checkFailure();
+                        advanceWatermark(rid, false);
+                    } else if (batchPosition >= 0 && batchDue()) {
+                        flushBatch(rid);
+                    }
                     if (fragments == 0) Thread.yield();
                 }
+                if (batchPosition >= 0) flushBatch(rid);
+                clean = true;
 
                 log.warn("[AssetArchiveSubscriber] Replay image closed, will reconnect");
 
             } finally {
                 try { archive.stopReplay(replaySessionId); } catch (Exception ignored) {}
+                if (pipeline != null) {
+                    // 正常结束：提交完已分发事件后写最终水位线；失败：丢弃未提交事件，从已写水位线重放
+                    try {
+                        pipeline.stop(clean);
+                        if (clean) {
+                            pipeline.checkFailure();
+                            advanceWatermark(rid, true);
+                        }
+                    } finally {
+                        pipeline = null;
+                    }
+                }
             }
         } finally {
             driver.close();
@@ -207,26 +292,50 @@ public class AssetArchiveSubscriber implements DisposableBean {
             //（Leader 提交后、发布前崩溃）,触发告警促发对账。
             checkSeqGap(event);
 
-            // 进程内快速去重（仅性能优化；真正的幂等由 t_fund_flow.event_id 唯一键保证）
-            if (!processedEventIds.add(event.getEventId())) {
-                log.debug("[AssetArchiveSubscriber] Duplicate eventId={} skipped (in-memory)", event.getEventId());
-                updatePosition(recordingId, header.position());
+            // 快速去重（仅性能优化；真正的幂等由 t_fund_flow.event_id 唯一键保证）：
+            //   - seq ≤ 已提交水位线：重放 / 重复发布的已落库事件，不查库直接跳过
+            //   - 进程内窗口：本会话已分发但可能尚未提交的事件
+            long seq = event.getSeq();
+            if (seq > 0 && seq <= committedSeq || !processedSeqs.markSeen(seq)) {
+                log.debug("[AssetArchiveSubscriber] Duplicate eventId={} seq={} skipped (committedSeq={})",
+                        event.getEventId(), seq, committedSeq);
+                if (pipeline != null) {
+                    pipeline.skip(header.position(), seq);
+                } else if (groupCommit()) {
+                    markBatchPosition(header.position(), seq);
+                } else {
+                    updatePosition(recordingId, header.position());
+                }
                 return;
             }
-            // 防止无界增长（重启清空无碍，DB 幂等兜底）
-            if (processedEventIds.size() > MAX_CACHED_EVENT_IDS) {
-                processedEventIds.clear();
-            }
 
             log.debug("[AssetArchiveSubscriber] Processing eventId={} type={} userId={} accountType={} asset={}",
                     event.getEventId(), event.getEventType(), event.getUserId(),
                     event.getAccountType(), event.getAsset());
 
+            if (pipeline != null) {
+                pipeline.dispatch(event, header.position());
+                return;
+            }
+            if (groupCommit()) {
+                batch.add(event);
+                markBatchPosition(header.position(), seq);
+                if (batch.size() >= batchMaxEvents) flushBatch(recordingId);
+                return;
+            }
+
             // 流水 + 余额 + 位点在同一个 DB 事务中原子提交：
             //   - 任意中间点崩溃 → 整体回滚 → 重启后从旧位点重放 → eventId 幂等跳过
             //   - 不再存在"流水已写但位点未推进"或反之的窗口
-            persistService.persistEvent(event, recordingId,
-                    RECORDING_CHANNEL, RECORDING_STREAM, header.position());
+            long seqAfter = Math.max(committedSeq, seq);
+            try {
+                persistService.persistEvent(event, recordingId,
+                        RECORDING_CHANNEL, RECORDING_STREAM, header.position(), seqAfter);
+            } catch (RuntimeException e) {
+                processedSeqs.forget(seq);
+                throw e;
+            }
+            committedSeq = seqAfter;
 
             log.debug("[AssetArchiveSubscriber] Persisted eventId={} position={}",
                     event.getEventId(), header.position());
@@ -234,11 +343,78 @@ public class AssetArchiveSubscriber implements DisposableBean {
         } catch (Exception e) {
             log.error("[AssetArchiveSubscriber] Failed to process fragment at position={}",
                     header.position(), e);
+            discardBatch();
             // 抛出让 poll 循环退出 → 外层 retry 重新连接
             throw new RuntimeException("Asset archive processing failed", e);
         }
     }
 
+    // =========================================================================
+    // Group commit
+    // =========================================================================
+
+    private boolean groupCommit() {
+        return batchMaxEvents > 1;
+    }
+
+    private void markBatchPosition(long position, long seq) {
+        if (batchPosition < 0) batchStartNanos = System.nanoTime();
+        batchPosition = position;
+        batchSeq      = Math.max(batchSeq, seq);
+    }
+
+    private boolean batchDue() {
+        return batch.size() >= batchMaxEvents
+                || System.nanoTime() - batchStartNanos >= batchMaxDelayMs * 1_000_000L;
+    }
+
+    /**
+     * 一个事务提交当前批次并推进位点。失败时批内 seq 从进程内去重窗口撤销
+     * （否则重放时会被误判为已处理而丢失），异常继续抛出由外层重连重放。
+     */
+    private void flushBatch(long recordingId) {
+        long seqAfter = Math.max(committedSeq, batchSeq);
+        try {
+            persistService.persistBatch(batch, recordingId,
+                    RECORDING_CHANNEL, RECORDING_STREAM, batchPosition, seqAfter);
+            log.debug("[AssetArchiveSubscriber] Flushed batch events={} position={}", batch.size(), batchPosition);
+        } catch (RuntimeException e) {
+            discardBatch();
+            throw e;
+        }
+        committedSeq = seqAfter;
+        resetBatch();
+    }
+
+    /** 丢弃未提交批次：seq 从进程内去重窗口撤销，待重连后从 DB 位点重放。 */
+    private void discardBatch() {
+        for (AssetStateChangeEvent event : batch) processedSeqs.forget(event.getSeq());
+        resetBatch();
+    }
+
+    private void resetBatch() {
+        batch.clear();
+        batchPosition = -1L;
+        batchSeq      = 0L;
+    }
+
+    // =========================================================================
+    // 分区写入水位线
+    // =========================================================================
+
+    /** 把所有 writer 都已提交越过的水位线写入位点表（按 positionFlushMs 限频，force 时立即写）。 */
+    private void advanceWatermark(long recordingId, boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastPositionFlushMs < positionFlushMs) return;
+        lastPositionFlushMs = now;
+        PartitionedPersistPipeline.Mark mark = pipeline.watermark();
+        if (mark.position() > writtenPosition) {
+            committedSeq = Math.max(committedSeq, mark.seq());
+            updatePosition(recordingId, mark.position());
+            writtenPosition = mark.position();
+        }
+    }
+
     /** 期望的下一个 seq;-1 = 尚未见过任何带 seq 的事件(重启后首条建立基线,不误报)。 */
     private long expectedNextSeq = -1L;
 
@@ -289,7 +465,7 @@ public class AssetArchiveSubscriber implements DisposableBean {
     }
 
     private void updatePosition(long recordingId, long position) {
-        positionMapper.upsertPosition(recordingId, RECORDING_CHANNEL, RECORDING_STREAM, position);
+        positionMapper.upsertPosition(recordingId, RECORDING_CHANNEL, RECORDING_STREAM, position, committedSeq);
     }
 
     private void sleep(long ms) {
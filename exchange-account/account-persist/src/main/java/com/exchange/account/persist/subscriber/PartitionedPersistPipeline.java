@@ -0,0 +1,205 @@
+package com.exchange.account.persist.subscriber;
+
+import com.exchange.account.api.dto.AssetStateChangeEvent;
+import com.exchange.account.persist.service.AssetPersistService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 按 userId 分区的并行落库管道（一次 Archive 回放会话一个实例）。
+ *
+ * <h3>结构</h3>
+ * <pre>
+ *   reader 线程（poll + JSON 解码 + 去重 + seq 检测）
+ *     ── hash(userId) % N ──▶ 有界队列[i] ──▶ writer[i]（group commit：N 条 / T 毫秒一个事务）
+ *     ◀── 水位线 ──────────────────────────── committed[i] / pending[i]
+ *   reader 线程周期性把水位线写入 t_archive_position
+ * </pre>
+ *
+ * <h3>顺序</h3>
+ * <p>同一 userId 的全部事件落在同一个 writer，按 Archive 顺序入队、按序提交，
+ * 因而每个 {@code (user, asset)} 的余额快照仍按账本顺序覆盖。不同用户之间不保证提交顺序。
+ *
+ * <h3>水位线</h3>
+ * <p>writer 提交一批后先写 {@code committed}（批尾 position 与 seq），再减 {@code pending}。
+ * 有未提交事件的 writer，其未提交事件的 position 必然大于它的 {@code committed.position}；
+ * 因此 {@code min(有 pending 的 writer 的 committed)} 之前的事件全部已提交，
+ * 所有 writer 都空闲时水位线就是 reader 已分发的最后 position。seq 与 position 同序，
+ * 水位线所在事件的 seq 即 seq 水位线。水位线只推进不回退，
+ * 偏保守（可能落后几批），崩溃后多重放的事件由 {@code event_id} 唯一键和绝对快照覆盖保证幂等。
+ *
+ * <h3>失败</h3>
+ * <p>任一 writer 提交失败即记录异常并停止；reader 下一次 {@link #checkFailure()} 抛出，
+ * 由订阅者结束会话、从已写入的水位线重连重放。
+ */
+@Slf4j
+final class PartitionedPersistPipeline {
+
+    private final AssetPersistService persistService;
+    private final Worker[]            workers;
+    private final int                 maxEvents;
+    private final long                maxDelayMs;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean running = true;
+    private volatile boolean draining;
+
+    /** reader 已分发（含去重跳过）的最后一个 fragment；仅 reader 写 */
+    private volatile Mark dispatched;
+
+    /** 水位线：该 position 之前（含）的事件均已提交，其 seq 均 ≤ {@code seq}。 */
+    record Mark(long position, long seq) {}
+
+    PartitionedPersistPipeline(AssetPersistService persistService, int workerCount, int queueCapacity,
+                               int maxEvents, long maxDelayMs, Mark start) {
+        this.persistService     = persistService;
+        this.maxEvents          = Math.max(1, maxEvents);
+        this.maxDelayMs         = maxDelayMs;
+        this.dispatched         = start;
+        this.workers            = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i, queueCapacity, start);
+        }
+    }
+
+    void start() {
+        for (Worker w : workers) w.thread.start();
+        log.info("[PersistPipeline] Started — workers={} maxEvents={} maxDelayMs={}",
+                workers.length, maxEvents, maxDelayMs);
+    }
+
+    /**
+     * 停止所有 writer 并等待退出。{@code drain = true} 时先把已入队事件提交完（正常结束），
+     * 否则只完成手上的批次、丢弃队列中的事件（失败结束，重连后重放）。
+     *
+     * <p>不中断 writer 线程：中断可能打断进行中的 JDBC 调用，writer 靠 poll 超时感知停止。
+     */
+    void stop(boolean drain) {
+        draining = drain;
+        running  = false;
+        for (Worker w : workers) {
+            try {
+                w.thread.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // =========================================================================
+    // reader 线程
+    // =========================================================================
+
+    /** 分发一条事件到其 userId 所属的 writer（队列满时阻塞，形成背压）。 */
+    void dispatch(AssetStateChangeEvent event, long position) throws InterruptedException {
+        Worker w = workers[partition(event.getUserId(), workers.length)];
+        w.pending.incrementAndGet();
+        Item item = new Item(event, position);
+        while (!w.queue.offer(item, maxDelayMs + 1, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+        dispatched = new Mark(position, Math.max(dispatched.seq(), event.getSeq()));
+    }
+
+    /** 不需要落库的 fragment（水位线 / 进程内去重跳过）只推进分发位置。 */
+    void skip(long position, long seq) {
+        dispatched = new Mark(position, Math.max(dispatched.seq(), seq));
+    }
+
+    /** writer 失败时抛出其异常。 */
+    void checkFailure() {
+        Throwable t = failure.get();
+        if (t != null) throw new IllegalStateException("[PersistPipeline] writer failed", t);
+    }
+
+    /** 所有事件已提交到的 Archive position（见类注释）。 */
+    Mark watermark() {
+        Mark mark = dispatched;
+        for (Worker w : workers) {
+            if (w.pending.get() > 0) {
+                Mark c = w.committed;
+                if (c.position() < mark.position()) mark = c;
+            }
+        }
+        return mark;
+    }
+
+    static int partition(Long userId, int partitions) {
+        return userId == null ? 0 : (int) Math.floorMod(Long.hashCode(userId) * 0x9E3779B9L, (long) partitions);
+    }
+
+    // =========================================================================
+    // writer 线程
+    // =========================================================================
+
+    private record Item(AssetStateChangeEvent event, long position) {}
+
+    private final class Worker implements Runnable {
+
+        final BlockingQueue<Item> queue;
+        final AtomicLong          pending = new AtomicLong();
+        final Thread              thread;
+        volatile Mark             committed;
+
+        private final List<Item>                  items  = new ArrayList<>();
+        private final List<AssetStateChangeEvent> events = new ArrayList<>();
+
+        Worker(int index, int queueCapacity, Mark start) {
+            this.queue             = new ArrayBlockingQueue<>(queueCapacity);
+            this.committed         = start;
+            this.thread            = new Thread(this, "asset-persist-writer-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running || (draining && !queue.isEmpty())) {
+                    if (!collect()) continue;
+                    commit();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                log.error("[PersistPipeline] {} failed, batch of {} events not committed",
+                        thread.getName(), items.size(), t);
+                failure.compareAndSet(null, t);
+            }
+        }
+
+        /** 攒一批：首条阻塞等待，之后最多等 maxDelayMs 或攒满 maxEvents。 */
+        private boolean collect() throws InterruptedException {
+            Item first = queue.poll(maxDelayMs + 1, TimeUnit.MILLISECONDS);
+            if (first == null) return false;
+            items.add(first);
+            long deadline = System.nanoTime() + maxDelayMs * 1_000_000L;
+            while (items.size() < maxEvents) {
+                if (queue.drainTo(items, maxEvents - items.size()) > 0) continue;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) break;
+                Item next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) break;
+                items.add(next);
+            }
+            return true;
+        }
+
+        private void commit() {
+            for (Item item : items) events.add(item.event());
+            persistService.persistEvents(events);
+            Item last = items.get(items.size() - 1);
+            committed = new Mark(last.position(), Math.max(committed.seq(), last.event().getSeq()));
+            pending.addAndGet(-items.size());
+            items.clear();
+            events.clear();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.exchange.account.persist.subscriber;
+
+import java.util.Arrays;
+
+/**
+ * 按账本 seq 去重的滑动位图窗口（进程内去重，单线程使用）。
+ *
+ * <h3>为什么是 seq</h3>
+ * <p>账本每产出一条流水消耗一个 seq，事件按 seq 顺序无洞发布（{@code checkSeqGap} 依赖同一性质），
+ * 所以「最近见过的事件」就是「最近的一段连续 seq」。一个 bit 表示一个 seq，窗口随最大 seq 滑动：
+ * <ul>
+ *   <li>判重 / 标记都是 O(1) 的位运算，没有 String key、没有哈希表扩容；</li>
+ *   <li>窗口向前滑时只清掉滑出的 bit，没有整体 {@code clear()} 的断崖；</li>
+ *   <li>内存固定为 {@code capacity / 8} 字节。</li>
+ * </ul>
+ *
+ * <h3>精确，不误判重复</h3>
+ * <p>窗口内的判定是精确的（不是 bloom filter，不会把新事件误判为重复而丢弃）。
+ * 落在窗口之外（比最大 seq 旧超过 capacity）或没有 seq 的事件一律视为「未见过」，
+ * 交给 {@code t_fund_flow.event_id} 唯一键兜底。
+ */
+final class SeqDedupWindow {
+
+    private final long[] words;
+    private final long   capacity;
+    private final int    wordMask;
+
+    /** 已标记的最大 seq；0 = 尚未标记任何 seq */
+    private long highest;
+
+    /**
+     * @param capacity 窗口覆盖的 seq 个数，向上取整为 2 的幂（≥ 64）
+     */
+    SeqDedupWindow(int capacity) {
+        int bits = capacity <= 64 ? 64 : Integer.highestOneBit(capacity - 1) << 1;
+        this.words    = new long[bits >>> 6];
+        this.capacity = bits;
+        this.wordMask = words.length - 1;
+    }
+
+    /**
+     * 标记 seq 已见过。
+     *
+     * @return true = 首次见到（或无法判断，需落库）；false = 窗口内已见过，可跳过
+     */
+    boolean markSeen(long seq) {
+        if (seq <= 0) return true;
+        if (seq > highest) {
+            advanceTo(seq);
+            set(seq);
+            return true;
+        }
+        if (seq <= highest - capacity) return true;
+        if (get(seq)) return false;
+        set(seq);
+        return true;
+    }
+
+    /** 撤销标记（事件未提交成功，重放时必须重新处理）。 */
+    void forget(long seq) {
+        if (seq <= 0 || seq > highest || seq <= highest - capacity) return;
+        words[word(seq)] &= ~bit(seq);
+    }
+
+    void clear() {
+        Arrays.fill(words, 0L);
+        highest = 0;
+    }
+
+    /** 滑动窗口到 seq：清掉 (highest, seq] 对应的 bit（它们此前代表 capacity 之前的旧 seq）。 */
+    private void advanceTo(long seq) {
+        if (highest == 0 || seq - highest >= capacity) {
+            Arrays.fill(words, 0L);
+        } else {
+            for (long s = highest + 1; s <= seq; s++) {
+                words[word(s)] &= ~bit(s);
+            }
+        }
+        highest = seq;
+    }
+
+    private boolean get(long seq) {
+        return (words[word(seq)] & bit(seq)) != 0;
+    }
+
+    private void set(long seq) {
+        words[word(seq)] |= bit(seq);
+    }
+
+    private int word(long seq) {
+        return (int) (seq >>> 6) & wordMask;
+    }
+
+    private static long bit(long seq) {
+        return 1L << (seq & 63);
+    }
+}
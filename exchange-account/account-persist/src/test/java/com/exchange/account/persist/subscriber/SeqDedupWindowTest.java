@@ -0,0 +1,87 @@
+package com.exchange.account.persist.subscriber;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * seq 滑动位图去重测试：窗口内精确判重，滑出窗口的 seq 视为未见过，
+ * forget 只撤销窗口内的标记，不误伤共用同一 bit 的新 seq。
+ */
+public class SeqDedupWindowTest {
+
+    @Test
+    public void withinWindow_duplicatesAreDetected_inAnyOrder() {
+        SeqDedupWindow window = new SeqDedupWindow(64);
+        for (long seq = 1; seq <= 10; seq++) {
+            assertTrue(window.markSeen(seq));
+        }
+        assertFalse(window.markSeen(5));
+        assertFalse(window.markSeen(10));
+
+        // 乱序到达：先 20 后 15，均为首次
+        assertTrue(window.markSeen(20));
+        assertTrue(window.markSeen(15));
+        assertFalse(window.markSeen(15));
+        assertTrue(window.markSeen(12));
+    }
+
+    @Test
+    public void slidingPastCapacity_treatsOldSeqAsUnseen() {
+        SeqDedupWindow window = new SeqDedupWindow(64);
+        assertTrue(window.markSeen(1));
+        assertTrue(window.markSeen(64));
+        assertFalse(window.markSeen(1), "1 仍在窗口 (0, 64] 内");
+
+        // 65 与 1 共用同一 bit：滑动时清掉旧 bit，1 滑出窗口交给唯一键兜底
+        assertTrue(window.markSeen(65));
+        assertTrue(window.markSeen(1));
+        assertFalse(window.markSeen(65));
+        assertFalse(window.markSeen(64));
+    }
+
+    @Test
+    public void jumpBeyondCapacity_clearsWholeWindow() {
+        SeqDedupWindow window = new SeqDedupWindow(64);
+        assertTrue(window.markSeen(10));
+        // 1034 与 10 同 bit：整窗清零后不能被旧标记误判为重复
+        assertTrue(window.markSeen(10 + 1_024));
+        assertFalse(window.markSeen(10 + 1_024));
+        assertTrue(window.markSeen(10));
+    }
+
+    @Test
+    public void forget_allowsReprocessing_onlyInsideWindow() {
+        SeqDedupWindow window = new SeqDedupWindow(64);
+        assertTrue(window.markSeen(30));
+        window.forget(30);
+        assertTrue(window.markSeen(30));
+        assertFalse(window.markSeen(30));
+
+        assertTrue(window.markSeen(1));
+        assertTrue(window.markSeen(65));
+        // 1 已滑出窗口：forget 不能清掉 65 占用的同一 bit
+        window.forget(1);
+        assertFalse(window.markSeen(65));
+        // 未见过的更大 seq 也不受影响
+        window.forget(1_000);
+        assertTrue(window.markSeen(66));
+    }
+
+    @Test
+    public void capacityRoundsUpToPowerOfTwo_andSeqlessEventsAreNeverDeduplicated() {
+        SeqDedupWindow window = new SeqDedupWindow(100);   // → 128
+        assertTrue(window.markSeen(1));
+        assertTrue(window.markSeen(128));
+        assertFalse(window.markSeen(1));
+        assertTrue(window.markSeen(129));
+        assertTrue(window.markSeen(1));
+
+        assertTrue(window.markSeen(0));
+        assertTrue(window.markSeen(0));
+        assertTrue(window.markSeen(-1));
+
+        window.clear();
+        assertTrue(window.markSeen(129));
+    }
+}
@@ -0,0 +1,346 @@
+package com.exchange.account.core.cache;
+
+import com.exchange.account.api.enums.AccountType;
+import com.exchange.account.api.enums.AssetStatus;
+import com.exchange.account.core.entity.UserAsset;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * {@code t_user_asset} 投影的读穿透余额缓存（按 userId 整用户缓存）。
+ *
+ * <h3>分层</h3>
+ * <pre>
+ *   本地 LRU（每进程，按用户数限容 + 短 TTL）
+ *     → Redis Hash  asset:balance:{userId}（可选，多进程共享，persist 提交后写穿）
+ *       → DB selectList（回填上面两层）
+ * </pre>
+ *
+ * <h3>写穿与失效</h3>
+ * <p>account-persist 在事务提交后调用 {@link #writeThrough}：把变更行写入 Redis Hash，
+ * 并在 {@value #INVALIDATE_TOPIC} 上发布变更的 userId，各 account-web 实例据此逐出本地条目。
+ * 未启用 Redis 时没有跨进程通知，本地条目靠 {@code local-ttl-ms} 过期（默认 1s），
+ * 陈旧度与 DB 投影本身的持久化延迟同量级。
+ *
+ * <h3>Redis Hash 的完整性</h3>
+ * <p>Hash 字段为 {@code ACCOUNT_TYPE:ASSET}，带 {@value #COMPLETE_FIELD} 标记才表示是该用户的完整集合。
+ * persist 写穿可能先于任何读创建出不完整的 Hash（无标记）——读方视为未命中，从 DB 加载后用
+ * put-if-absent 回填（不覆盖 persist 写入的更新值）再打标记。整键带 TTL，兜底写穿失败的情况。
+ *
+ * <h3>只带余额的写穿</h3>
+ * <p>persist 的余额 UPSERT 不写 {@code status}（行上 status 为 null）。这类行只替换缓存值里的
+ * available / frozen / updateTime，保留已缓存的状态（FROZEN / CLOSED 不被改回 ACTIVE）；
+ * 字段尚不存在时不凭空补状态，而是去掉完整标记，让下次读从 DB 重新回填。
+ *
+ * <h3>指标</h3>
+ * <p>本地命中、Redis 命中、DB 加载、LRU 逐出、失效次数，命中率 = (本地 + Redis 命中) / 总读次数。
+ */
+@Slf4j
+@Component
+public class BalanceCache {
+
+    static final String KEY_PREFIX       = "asset:balance:";
+    static final String INVALIDATE_TOPIC = "asset:balance:changed";
+    static final String COMPLETE_FIELD   = "~complete";
+
+    /**
+     * 只带余额的写穿：ARGV[1] = 完整标记字段，之后每 4 个为 field / available / frozen / updateTime。
+     * 已有字段保留其 status 段，只换余额；缺字段时删完整标记（交给 DB 回填）。
+     */
+    private static final String MERGE_BALANCE_SCRIPT =
+            "local reload = false "
+          + "for i = 2, #ARGV, 4 do "
+          + "  local old = redis.call('HGET', KEYS[1], ARGV[i]) "
+          + "  if old then "
+          + "    local status = string.match(old, '^[^|]*|[^|]*|([^|]*)|') or '' "
+          + "    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i+1] .. '|' .. ARGV[i+2] .. '|' .. status .. '|' .. ARGV[i+3]) "
+          + "  else "
+          + "    reload = true "
+          + "  end "
+          + "end "
+          + "if reload then redis.call('HDEL', KEYS[1], ARGV[1]) end "
+          + "return 0";
+
+    private final boolean        enabled;
+    private final int            localMaxUsers;
+    private final long           localTtlMs;
+    private final Duration       redisTtl;
+    private final RedissonClient redisson;
+
+    /** 本地 LRU：accessOrder + removeEldestEntry 限容；所有访问在 this 上同步 */
+    private final LinkedHashMap<Long, Entry> local;
+
+    private final AtomicLong localHits     = new AtomicLong();
+    private final AtomicLong redisHits     = new AtomicLong();
+    private final AtomicLong loads         = new AtomicLong();
+    private final AtomicLong evictions     = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /** 缓存的一行余额（不可变；对外按需转换为 DTO）。 */
+    public record Row(AccountType accountType, String asset, BigDecimal available, BigDecimal frozen,
+                      AssetStatus status, LocalDateTime updateTime) {}
+
+    /**
+     * 缓存统计快照。
+     *
+     * @param hitRate (localHits + redisHits) / 总读次数；无读时为 0
+     */
+    public record Stats(long localHits, long redisHits, long loads, long evictions, long invalidations,
+                        int localSize, double hitRate) {}
+
+    private record Entry(List<Row> rows, long loadedAtMs) {}
+
+    @Autowired
+    public BalanceCache(@Autowired(required = false) RedissonClient redisson,
+                        @Value("${asset.balance-cache.enabled:true}") boolean enabled,
+                        @Value("${asset.balance-cache.local-max-users:100000}") int localMaxUsers,
+                        @Value("${asset.balance-cache.local-ttl-ms:1000}") long localTtlMs,
+                        @Value("${asset.balance-cache.redis.ttl-seconds:60}") long redisTtlSeconds) {
+        this.redisson      = redisson;
+        this.enabled       = enabled;
+        this.localMaxUsers = localMaxUsers;
+        this.localTtlMs    = localTtlMs;
+        this.redisTtl      = Duration.ofSeconds(redisTtlSeconds);
+        this.local         = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= BalanceCache.this.localMaxUsers) return false;
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    @PostConstruct
+    void subscribeInvalidations() {
+        if (!enabled || redisson == null) return;
+        RTopic topic = redisson.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE);
+        topic.addListener(String.class, (channel, msg) -> {
+            for (String id : msg.split(",")) {
+                if (!id.isEmpty()) evictLocal(Long.parseLong(id));
+            }
+        });
+        log.info("[BalanceCache] Redis tier enabled — ttl={}s localMaxUsers={} localTtlMs={}",
+                redisTtl.toSeconds(), localMaxUsers, localTtlMs);
+    }
+
+    // =========================================================================
+    // 读（account-web）
+    // =========================================================================
+
+    /**
+     * 读取用户全部余额行（所有账户类型），依次查本地、Redis、DB。
+     *
+     * @param loader 未命中时的 DB 加载（按 userId 查 {@code t_user_asset}）
+     */
+    public List<Row> getUserBalances(Long userId, Function<Long, List<UserAsset>> loader) {
+        if (!enabled) return toRows(loader.apply(userId));
+
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry e = local.get(userId);
+            if (e != null && now - e.loadedAtMs() < localTtlMs) {
+                localHits.incrementAndGet();
+                return e.rows();
+            }
+        }
+
+        List<Row> rows = redisson != null ? readRedis(userId) : null;
+        if (rows != null) {
+            redisHits.incrementAndGet();
+        } else {
+            loads.incrementAndGet();
+            rows = toRows(loader.apply(userId));
+            if (redisson != null) fillRedis(userId, rows);
+        }
+        synchronized (this) {
+            local.put(userId, new Entry(rows, now));
+        }
+        return rows;
+    }
+
+    // =========================================================================
+    // 写穿（account-persist，事务提交后）
+    // =========================================================================
+
+    /**
+     * 把已提交的余额行写入 Redis 并通知各实例逐出本地条目。失败只记日志（整键 TTL 兜底），不影响落库。
+     *
+     * <p>{@code status} 为 null 的行只写余额字段，保留缓存中的状态（见类注释）。
+     */
+    public void writeThrough(List<UserAsset> committed) {
+        if (!enabled || committed.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Map<String, String>> byUser      = new LinkedHashMap<>();
+        Map<Long, Map<String, Row>>    balanceOnly = new HashMap<>();
+        for (UserAsset ua : committed) {
+            Row r = toRow(ua);
+            if (r.updateTime() == null) {
+                r = new Row(r.accountType(), r.asset(), r.available(), r.frozen(), r.status(), now);
+            }
+            Map<String, String> fields = byUser.computeIfAbsent(ua.getUserId(), k -> new HashMap<>());
+            Map<String, Row>    merges = balanceOnly.computeIfAbsent(ua.getUserId(), k -> new LinkedHashMap<>());
+            String field = field(r.accountType(), r.asset());
+            // 同一字段批内以后者为准
+            if (r.status() != null) {
+                merges.remove(field);
+                fields.put(field, encode(r));
+            } else {
+                fields.remove(field);
+                merges.put(field, r);
+            }
+        }
+        synchronized (this) {
+            byUser.keySet().forEach(local::remove);
+        }
+        invalidations.addAndGet(byUser.size());
+        if (redisson == null) return;
+        try {
+            RBatch batch = redisson.createBatch();
+            StringJoiner ids = new StringJoiner(",");
+            byUser.forEach((userId, fields) -> {
+                String key = KEY_PREFIX + userId;
+                RMapAsync<String, String> map = batch.getMap(key, StringCodec.INSTANCE);
+                if (!fields.isEmpty()) map.putAllAsync(fields);
+                Map<String, Row> merges = balanceOnly.get(userId);
+                if (!merges.isEmpty()) {
+                    List<Object> args = new ArrayList<>(1 + merges.size() * 4);
+                    args.add(COMPLETE_FIELD);
+                    merges.forEach((f, r) -> Collections.addAll(args, f, r.available().toPlainString(),
+                            r.frozen().toPlainString(), r.updateTime().toString()));
+                    batch.getScript(StringCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE,
+                            MERGE_BALANCE_SCRIPT, RScript.ReturnType.VALUE,
+                            Collections.singletonList(key), args.toArray());
+                }
+                map.expireAsync(redisTtl);
+                ids.add(String.valueOf(userId));
+            });
+            batch.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE).publishAsync(ids.toString());
+            batch.execute();
+        } catch (RuntimeException e) {
+            log.warn("[BalanceCache] Redis write-through failed users={}, entries expire in {}s",
+                    byUser.size(), redisTtl.toSeconds(), e);
+        }
+    }
+
+    // =========================================================================
+    // Metrics
+    // =========================================================================
+
+    public Stats stats() {
+        long lh = localHits.get(), rh = redisHits.get(), ld = loads.get();
+        long total = lh + rh + ld;
+        int size;
+        synchronized (this) {
+            size = local.size();
+        }
+        return new Stats(lh, rh, ld, evictions.get(), invalidations.get(), size,
+                total == 0 ? 0.0 : (double) (lh + rh) / total);
+    }
+
+    // =========================================================================
+    // Redis tier
+    // =========================================================================
+
+    private List<Row> readRedis(Long userId) {
+        try {
+            Map<String, String> all = redisson.<String, String>getMap(KEY_PREFIX + userId, StringCodec.INSTANCE)
+                    .readAllMap();
+            if (!all.containsKey(COMPLETE_FIELD)) return null;
+            List<Row> rows = new ArrayList<>(all.size() - 1);
+            all.forEach((f, v) -> {
+                if (!COMPLETE_FIELD.equals(f)) rows.add(decode(f, v));
+            });
+            return List.copyOf(rows);
+        } catch (RuntimeException e) {
+            log.warn("[BalanceCache] Redis read failed userId={}, falling back to DB", userId, e);
+            return null;
+        }
+    }
+
+    private void fillRedis(Long userId, List<Row> rows) {
+        try {
+            RBatch batch = redisson.createBatch();
+            RMapAsync<String, String> map = batch.getMap(KEY_PREFIX + userId, StringCodec.INSTANCE);
+            for (Row r : rows) {
+                // put-if-absent：不覆盖 persist 在本次 DB 读之后写穿的更新值
+                map.fastPutIfAbsentAsync(field(r.accountType(), r.asset()), encode(r));
+            }
+            map.fastPutAsync(COMPLETE_FIELD, "1");
+            map.expireAsync(redisTtl);
+            batch.execute();
+        } catch (RuntimeException e) {
+            log.warn("[BalanceCache] Redis fill failed userId={}", userId, e);
+        }
+    }
+
+    private void evictLocal(long userId) {
+        synchronized (this) {
+            local.remove(userId);
+        }
+    }
+
+    // =========================================================================
+    // Encoding：字段 ACCOUNT_TYPE:ASSET，值 available|frozen|status|updateTime
+    // =========================================================================
+
+    private static String field(AccountType accountType, String asset) {
+        return accountType.name() + ':' + asset;
+    }
+
+    private static String encode(Row r) {
+        return r.available().toPlainString() + '|' + r.frozen().toPlainString() + '|'
+                + (r.status() != null ? r.status().name() : "") + '|'
+                + (r.updateTime() != null ? r.updateTime().toString() : "");
+    }
+
+    private static Row decode(String field, String value) {
+        int c = field.indexOf(':');
+        String[] p = value.split("\\|", -1);
+        return new Row(AccountType.valueOf(field.substring(0, c)), field.substring(c + 1),
+                new BigDecimal(p[0]), new BigDecimal(p[1]),
+                p[2].isEmpty() ? null : AssetStatus.valueOf(p[2]),
+                p[3].isEmpty() ? null : LocalDateTime.parse(p[3]));
+    }
+
+    /** DB 加载的整行：status 缺省按 ACTIVE。 */
+    private static List<Row> toRows(List<UserAsset> assets) {
+        List<Row> rows = new ArrayList<>(assets.size());
+        for (UserAsset ua : assets) {
+            Row r = toRow(ua);
+            rows.add(r.status() != null ? r : new Row(r.accountType(), r.asset(), r.available(), r.frozen(),
+                    AssetStatus.ACTIVE, r.updateTime()));
+        }
+        return List.copyOf(rows);
+    }
+
+    /** status 原样保留（null = 只带余额的行）。 */
+    private static Row toRow(UserAsset ua) {
+        return new Row(ua.getAccountType(), ua.getAsset(),
+                ua.getAvailableBalance() != null ? ua.getAvailableBalance() : BigDecimal.ZERO,
+                ua.getFrozenBalance()    != null ? ua.getFrozenBalance()    : BigDecimal.ZERO,
+                ua.getStatus(), ua.getUpdateTime());
+    }
+}
@@ -0,0 +1,33 @@
+package com.exchange.account.core.cache;
+
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 余额缓存 Redis 层的 Redisson 客户端（仅 {@code asset.balance-cache.redis.enabled=true} 时创建）。
+ *
+ * <p>不使用 redisson-spring-boot-starter：starter 会在任何引入 account-store 的进程启动时
+ * 无条件连接 Redis；这里未开启时不创建客户端，{@link BalanceCache} 只用本地层。
+ */
+@Configuration
+@ConditionalOnProperty(name = "asset.balance-cache.redis.enabled", havingValue = "true")
+public class BalanceCacheRedisConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public RedissonClient balanceCacheRedisson(
+            @Value("${asset.balance-cache.redis.address:redis://localhost:6379}") String address,
+            @Value("${asset.balance-cache.redis.password:}") String password,
+            @Value("${asset.balance-cache.redis.database:0}") int database) {
+        Config config = new Config();
+        config.useSingleServer()
+              .setAddress(address)
+              .setPassword(password.isEmpty() ? null : password)
+              .setDatabase(database);
+        return Redisson.create(config);
+    }
+}
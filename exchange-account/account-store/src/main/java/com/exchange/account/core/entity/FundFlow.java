@@ -16,6 +16,15 @@ import java.time.LocalDateTime;
  *
  * <p>对应数据库表 {@code t_fund_flow}，仅追加写（append-only），不做物理删除。
  * 每笔资产变动（冻结、解冻、成交入账等）均记录一条流水，保证资金可审计。
+ *
+ * <h3>索引</h3>
+ * <pre>
+ *   UNIQUE KEY uk_event_id      (event_id)
+ *   KEY        idx_user_time_id (user_id, create_time, flow_id)
+ * </pre>
+ * <p>{@code idx_user_time_id} 与查询的排序键 {@code (create_time DESC, flow_id DESC)} 一致：
+ * 游标翻页是一次索引范围定位 + 顺序读 N 条，不扫描跳过的行，也不需要 count；
+ * 导出沿同一索引倒序流式读取。
  */
 @Data
 @TableName("t_fund_flow")
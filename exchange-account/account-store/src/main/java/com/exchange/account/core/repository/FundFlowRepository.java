@@ -2,11 +2,67 @@ package com.exchange.account.core.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.exchange.account.core.entity.FundFlow;
+import com.exchange.account.api.dto.FundFlowQueryReq;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.List;
 
 /**
  * 资金流水数据访问层（append-only，不做 update/delete）。
  */
 @Mapper
 public interface FundFlowRepository extends BaseMapper<FundFlow> {
+
+    /**
+     * 多行插入流水，{@code event_id} 已存在的行跳过（ON DUPLICATE KEY 空更新，幂等由唯一索引保证）。
+     *
+     * <p>{@code flowId} 须由调用方预先生成。
+     *
+     * @return 实际插入的行数（重复行不计）
+     */
+    @Insert("""
+            <script>
+            INSERT INTO t_fund_flow (flow_id, event_id, user_id, account_type, asset, biz_type, flow_type, amount,
+                                     available_balance_before, available_balance_after,
+                                     frozen_balance_before, frozen_balance_after,
+                                     biz_no, remark, create_time)
+            VALUES
+            <foreach collection="flows" item="f" separator=",">
+                (#{f.flowId}, #{f.eventId}, #{f.userId}, #{f.accountType}, #{f.asset}, #{f.bizType}, #{f.flowType},
+                 #{f.amount}, #{f.availableBalanceBefore}, #{f.availableBalanceAfter},
+                 #{f.frozenBalanceBefore}, #{f.frozenBalanceAfter}, #{f.bizNo}, #{f.remark}, #{f.createTime})
+            </foreach>
+            ON DUPLICATE KEY UPDATE event_id = event_id
+            </script>
+            """)
+    int insertBatchSkipDuplicates(@Param("flows") List<FundFlow> flows);
+
+    /**
+     * 流式读取用户流水（服务端游标，按 createTime、flowId 倒序，走 {@code idx_user_time_id}）。
+     *
+     * <p>{@code fetchSize = Integer.MIN_VALUE} 让 MySQL 驱动逐行流式返回，结果集不进内存；
+     * 每行回调一次 {@code handler}，调用期间占用一个连接。忽略请求中的分页与游标字段。
+     */
+    @Select("""
+            <script>
+            SELECT * FROM t_fund_flow
+            WHERE user_id = #{q.userId}
+            <if test="q.asset != null">     AND asset = #{q.asset}</if>
+            <if test="q.bizType != null">   AND biz_type = #{q.bizType}</if>
+            <if test="q.flowType != null">  AND flow_type = #{q.flowType}</if>
+            <if test="q.startTime != null"> AND create_time &gt;= #{q.startTime}</if>
+            <if test="q.endTime != null">   AND create_time &lt;= #{q.endTime}</if>
+            ORDER BY create_time DESC, flow_id DESC
+            </script>
+            """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(FundFlow.class)
+    void streamByUser(@Param("q") FundFlowQueryReq query, ResultHandler<FundFlow> handler);
 }
@@ -2,7 +2,11 @@ package com.exchange.account.core.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.exchange.account.core.entity.UserAsset;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 用户资产账户数据访问层。
@@ -12,4 +16,27 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface UserAssetRepository extends BaseMapper<UserAsset> {
     // TODO: 如需自定义 SQL（如按 userId+asset 精确查询并加行锁），在此声明
+
+    /**
+     * 多行 UPSERT 余额快照（依赖唯一键 {@code (user_id, account_type, asset)}）。
+     *
+     * <p>新行用调用方预先生成的 {@code id}；已存在的行只覆盖余额与更新时间并递增版本号。
+     * 同一批内同一键只能出现一次（调用方先按键折叠为最后值）。
+     */
+    @Insert("""
+            <script>
+            INSERT INTO t_user_asset (id, user_id, account_type, asset, available_balance, frozen_balance,
+                                      status, create_time, update_time)
+            VALUES
+            <foreach collection="assets" item="a" separator=",">
+                (#{a.id}, #{a.userId}, #{a.accountType}, #{a.asset}, #{a.availableBalance}, #{a.frozenBalance},
+                 #{a.status}, #{a.createTime}, #{a.updateTime})
+            </foreach>
+            ON DUPLICATE KEY UPDATE available_balance = VALUES(available_balance),
+                                    frozen_balance    = VALUES(frozen_balance),
+                                    update_time       = VALUES(update_time),
+                                    version           = version + 1
+            </script>
+            """)
+    int upsertBatch(@Param("assets") List<UserAsset> assets);
 }
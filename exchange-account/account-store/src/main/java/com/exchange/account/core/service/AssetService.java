@@ -2,6 +2,7 @@ package com.exchange.account.core.service;
 
 import com.exchange.account.api.dto.AssetDTO;
 import com.exchange.account.api.enums.AccountType;
+import com.exchange.account.core.entity.UserAsset;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -65,4 +66,13 @@ public interface AssetService {
      */
     void upsertBalance(Long userId, com.exchange.account.api.enums.AccountType accountType,
                        String asset, BigDecimal available, BigDecimal frozen);
+
+    /**
+     * 批量同步余额快照：一条多行 UPSERT（group commit 路径）。
+     *
+     * <p>调用方须保证 {@code (userId, accountType, asset)} 在列表内唯一，且为该键在批内的最后值。
+     *
+     * @param balances 余额快照（只读取 userId / accountType / asset / availableBalance / frozenBalance）
+     */
+    void upsertBalances(List<UserAsset> balances);
 }
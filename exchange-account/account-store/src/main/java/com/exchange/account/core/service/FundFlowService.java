@@ -1,5 +1,6 @@
 package com.exchange.account.core.service;
 
+import com.exchange.account.api.dto.AssetStateChangeEvent;
 import com.exchange.account.api.dto.FundFlowDTO;
 import com.exchange.account.api.dto.FundFlowQueryReq;
 import com.exchange.account.api.enums.AccountType;
@@ -8,6 +9,7 @@ import com.exchange.account.core.entity.UserAsset;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 资金流水服务接口。
@@ -21,8 +23,9 @@ public interface FundFlowService {
      * 记录一条资金流水。
      *
      * <h3>幂等</h3>
-     * <p>{@code eventId} 非 null 时以其为幂等键：若 {@code t_fund_flow.event_id}
-     * 已存在同值记录则跳过插入（安全重放）。{@code eventId} 为 null 时不做去重
+     * <p>{@code eventId} 非 null 时以其为幂等键：直接插入，{@code t_fund_flow.event_id}
+     * 唯一索引冲突则按已存在跳过（安全重放）。不再先 select 探测——重放中的已提交事件由调用方
+     * 按 seq 水位线在进入本方法之前过滤，唯一索引只是兜底。{@code eventId} 为 null 时不做去重
      * （同步 DB 直接路径,调用方自身在事务内保证不重复）。
      *
      * @param userId         用户 ID
@@ -41,7 +44,26 @@ public interface FundFlowService {
                    String bizNo, String eventId, String remark);
 
     /**
-     * 分页查询资金流水。
+     * 批量记录 Cluster 事件流水：一条多行 INSERT，{@code eventId} 已存在的跳过（group commit 路径）。
+     *
+     * <p>与逐条 {@link #record}（assetSnapshot 为 null）写入的内容一致，幂等同样交给
+     * {@code t_fund_flow.event_id} 唯一索引。
+     *
+     * @return 实际插入的条数（重复事件不计）
+     */
+    int recordEvents(List<AssetStateChangeEvent> events);
+
+    /**
+     * 分页查询资金流水（createTime、flowId 倒序；游标翻页见 {@link FundFlowQueryReq}）。
      */
     List<FundFlowDTO> queryFlows(FundFlowQueryReq req);
+
+    /**
+     * 流式导出用户的全部匹配流水（服务端游标，不整体加载进内存）。
+     *
+     * @param req  过滤条件（分页与游标字段忽略）
+     * @param sink 逐行回调，在调用线程上执行；抛出 RuntimeException 即停止游标，该异常原样（不经 MyBatis 包装）抛回调用方
+     * @return 导出的行数
+     */
+    long exportFlows(FundFlowQueryReq req, Consumer<FundFlowDTO> sink);
 }
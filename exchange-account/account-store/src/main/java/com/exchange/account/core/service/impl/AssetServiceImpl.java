@@ -1,9 +1,11 @@
 package com.exchange.account.core.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.exchange.account.api.dto.AssetDTO;
 import com.exchange.account.api.enums.AccountType;
 import com.exchange.account.api.enums.AssetStatus;
+import com.exchange.account.core.cache.BalanceCache;
 import com.exchange.account.core.entity.UserAsset;
 import com.exchange.account.core.repository.UserAssetRepository;
 import com.exchange.account.core.service.AssetService;
@@ -13,6 +15,8 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -21,7 +25,8 @@ import java.util.stream.Collectors;
  *
  * <p>只做两件事：
  * <ul>
- *   <li><b>查询</b>：读 {@code t_user_asset} 投影,供 REST 返回余额（最终一致）。</li>
+ *   <li><b>查询</b>：读 {@code t_user_asset} 投影,供 REST 返回余额（最终一致）。
+ *       按用户整体经 {@link BalanceCache} 读穿透（本地 LRU → 可选 Redis → DB），各查询在缓存行上过滤。</li>
  *   <li><b>{@link #upsertBalance 落库}</b>：account-persist 消费 AssetStateChangeEvent 后调用,
  *       把内存账本余额同步到 {@code t_user_asset}。</li>
  * </ul>
@@ -33,6 +38,7 @@ import java.util.stream.Collectors;
 public class AssetServiceImpl implements AssetService {
 
     private final UserAssetRepository userAssetRepository;
+    private final BalanceCache        balanceCache;
 
     // =========================================================================
     // 查询
@@ -40,18 +46,15 @@ public class AssetServiceImpl implements AssetService {
 
     @Override
     public AssetDTO getBalance(Long userId, String asset) {
-        UserAsset ua = findByUserAndAsset(userId, asset);
-        return ua != null ? toDTO(ua) : emptyDTO(userId, asset);
+        // DB 直接路径（降级/Admin）历史接口未带 accountType，固定视为 SPOT
+        return getBalance(userId, AccountType.SPOT, asset);
     }
 
     @Override
     public List<AssetDTO> getAllBalances(Long userId) {
-        return userAssetRepository.selectList(
-                        new LambdaQueryWrapper<UserAsset>()
-                                .eq(UserAsset::getUserId, userId)
-                                .orderByAsc(UserAsset::getAsset))
-                .stream()
-                .map(this::toDTO)
+        return userRows(userId).stream()
+                .sorted(Comparator.comparing(BalanceCache.Row::asset))
+                .map(r -> toDTO(userId, r))
                 .collect(Collectors.toList());
     }
 
@@ -61,8 +64,9 @@ public class AssetServiceImpl implements AssetService {
 
     @Override
     public AssetDTO getBalance(Long userId, AccountType accountType, String asset) {
-        UserAsset ua = findByUserTypeAndAsset(userId, accountType, asset);
-        if (ua != null) return toDTO(ua);
+        for (BalanceCache.Row r : userRows(userId)) {
+            if (r.accountType() == accountType && r.asset().equals(asset)) return toDTO(userId, r);
+        }
         // 未持有该资产：返回全零占位（与 Cluster 查询语义一致）
         AssetDTO dto = emptyDTO(userId, asset);
         dto.setAccountType(accountType);
@@ -71,25 +75,20 @@ public class AssetServiceImpl implements AssetService {
 
     @Override
     public List<AssetDTO> getAllBalances(Long userId, AccountType accountType) {
-        return userAssetRepository.selectList(
-                        new LambdaQueryWrapper<UserAsset>()
-                                .eq(UserAsset::getUserId, userId)
-                                .eq(UserAsset::getAccountType, accountType)
-                                .orderByAsc(UserAsset::getAsset))
-                .stream()
-                .map(this::toDTO)
+        return userRows(userId).stream()
+                .filter(r -> r.accountType() == accountType)
+                .sorted(Comparator.comparing(BalanceCache.Row::asset))
+                .map(r -> toDTO(userId, r))
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<AssetDTO> getAllBalancesByType(Long userId) {
-        return userAssetRepository.selectList(
-                        new LambdaQueryWrapper<UserAsset>()
-                                .eq(UserAsset::getUserId, userId)
-                                .orderByAsc(UserAsset::getAccountType)
-                                .orderByAsc(UserAsset::getAsset))
-                .stream()
-                .map(this::toDTO)
+        // 与原 SQL ORDER BY account_type, asset 一致（枚举按名称存储）
+        return userRows(userId).stream()
+                .sorted(Comparator.comparing((BalanceCache.Row r) -> r.accountType().name())
+                                  .thenComparing(BalanceCache.Row::asset))
+                .map(r -> toDTO(userId, r))
                 .collect(Collectors.toList());
     }
 
@@ -128,13 +127,35 @@ public class AssetServiceImpl implements AssetService {
                 userId, accountType, asset, available, frozen);
     }
 
+    @Override
+    public void upsertBalances(List<UserAsset> balances) {
+        if (balances.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        List<UserAsset> rows = new ArrayList<>(balances.size());
+        for (UserAsset b : balances) {
+            UserAsset ua = new UserAsset();
+            ua.setId(IdWorker.getId());
+            ua.setUserId(b.getUserId());
+            ua.setAccountType(b.getAccountType());
+            ua.setAsset(b.getAsset());
+            ua.setAvailableBalance(nvl(b.getAvailableBalance()));
+            ua.setFrozenBalance(nvl(b.getFrozenBalance()));
+            ua.setStatus(AssetStatus.ACTIVE);
+            ua.setCreateTime(now);
+            ua.setUpdateTime(now);
+            rows.add(ua);
+        }
+        userAssetRepository.upsertBatch(rows);
+        log.debug("[AssetService] UPSERT balances rows={}", rows.size());
+    }
+
     // =========================================================================
     // Private helpers
     // =========================================================================
 
-    private UserAsset findByUserAndAsset(Long userId, String asset) {
-        // DB 直接路径（降级/Admin）历史接口未带 accountType，固定视为 SPOT
-        return findByUserTypeAndAsset(userId, AccountType.SPOT, asset);
+    private List<BalanceCache.Row> userRows(Long userId) {
+        return balanceCache.getUserBalances(userId, id -> userAssetRepository.selectList(
+                new LambdaQueryWrapper<UserAsset>().eq(UserAsset::getUserId, id)));
     }
 
     private UserAsset findByUserTypeAndAsset(Long userId, AccountType accountType, String asset) {
@@ -146,16 +167,16 @@ public class AssetServiceImpl implements AssetService {
                         .last("LIMIT 1"));
     }
 
-    private AssetDTO toDTO(UserAsset ua) {
+    private static AssetDTO toDTO(Long userId, BalanceCache.Row r) {
         AssetDTO dto = new AssetDTO();
-        dto.setUserId(ua.getUserId());
-        dto.setAccountType(ua.getAccountType());
-        dto.setAsset(ua.getAsset());
-        dto.setAvailableBalance(nvl(ua.getAvailableBalance()));
-        dto.setFrozenBalance(nvl(ua.getFrozenBalance()));
-        dto.setTotalBalance(nvl(ua.getAvailableBalance()).add(nvl(ua.getFrozenBalance())));
-        dto.setStatus(ua.getStatus());
-        dto.setUpdateTime(ua.getUpdateTime());
+        dto.setUserId(userId);
+        dto.setAccountType(r.accountType());
+        dto.setAsset(r.asset());
+        dto.setAvailableBalance(r.available());
+        dto.setFrozenBalance(r.frozen());
+        dto.setTotalBalance(r.available().add(r.frozen()));
+        dto.setStatus(r.status());
+        dto.setUpdateTime(r.updateTime());
         return dto;
     }
 
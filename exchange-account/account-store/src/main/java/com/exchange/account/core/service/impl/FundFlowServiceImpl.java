@@ -1,7 +1,9 @@
 package com.exchange.account.core.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.exchange.account.api.dto.AssetStateChangeEvent;
 import com.exchange.account.api.dto.FundFlowDTO;
 import com.exchange.account.api.dto.FundFlowQueryReq;
 import com.exchange.account.api.enums.AccountType;
@@ -17,7 +19,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -46,22 +50,15 @@ public class FundFlowServiceImpl implements FundFlowService {
      * 若 assetSnapshot 非 null，从其中读取"变动后"余额，并按 flowType 反推"变动前"余额近似值。
      *
      * <h3>eventId 幂等</h3>
-     * <p>eventId 非 null 时先查 {@code event_id} 是否已存在，存在则跳过（Archive 重放安全）。
-     * 单消费者进程内 select-then-insert 无竞争；DB 层 {@code event_id} UNIQUE 索引兜底，
-     * 若并发插入触发 DuplicateKey 同样按幂等跳过处理，不向上抛出。
+     * <p>直接 INSERT，不先 select：Archive 重放中已提交的事件由 persist 侧的 seq 水位线
+     * （{@code t_archive_position.last_seq}）在进入此处之前跳过，每条新事件省掉一次探测查询。
+     * DB 层 {@code event_id} UNIQUE 索引兜底，DuplicateKey 按幂等跳过处理，不向上抛出。
      */
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean record(Long userId, AccountType accountType, String asset, FundFlowType flowType,
                           BigDecimal amount, UserAsset assetSnapshot,
                           String bizNo, String eventId, String remark) {
-        // 幂等检查（Archive 重放 / 崩溃恢复时重复事件安全跳过）
-        if (eventId != null && fundFlowRepository.selectCount(
-                new LambdaQueryWrapper<FundFlow>().eq(FundFlow::getEventId, eventId)) > 0) {
-            log.debug("[FundFlowService] Duplicate eventId={} skipped", eventId);
-            return false;
-        }
-
         FundFlow flow = new FundFlow();
         flow.setEventId(eventId);
         flow.setUserId(userId);
@@ -122,8 +119,39 @@ public class FundFlowServiceImpl implements FundFlowService {
         return true;
     }
 
+    @Override
+    public int recordEvents(List<AssetStateChangeEvent> events) {
+        if (events.isEmpty()) return 0;
+        LocalDateTime now = LocalDateTime.now();
+        List<FundFlow> flows = new ArrayList<>(events.size());
+        for (AssetStateChangeEvent e : events) {
+            FundFlow flow = new FundFlow();
+            flow.setFlowId(IdWorker.getId());
+            flow.setEventId(e.getEventId());
+            flow.setUserId(e.getUserId());
+            flow.setAccountType(e.getAccountType());
+            flow.setAsset(e.getAsset());
+            flow.setBizType(e.getFlowType().getBizType());
+            flow.setFlowType(e.getFlowType());
+            flow.setAmount(e.getAmount());
+            flow.setBizNo(e.getBizNo());
+            flow.setRemark(e.getRemark());
+            flow.setCreateTime(now);
+            flows.add(flow);
+        }
+        int inserted = fundFlowRepository.insertBatchSkipDuplicates(flows);
+        log.debug("[FundFlowService] Recorded batch — events={} inserted={}", flows.size(), inserted);
+        return inserted;
+    }
+
     /**
-     * 分页查询资金流水（按 createTime 倒序）。
+     * 分页查询资金流水（按 createTime、flowId 倒序）。
+     *
+     * <p>传游标时为 keyset 翻页：{@code (create_time, flow_id) < (cursorCreateTime, cursorFlowId)}
+     * + {@code LIMIT pageSize}，沿 {@code idx_user_time_id} 定位后顺序读，代价与翻到第几页无关。
+     * 未传游标且 {@code page > 1} 时退回 OFFSET（兼容旧调用方）。两种方式都不再执行 count 查询。
+     *
+     * @throws IllegalArgumentException 游标两个字段只传了一个
      */
     @Override
     public List<FundFlowDTO> queryFlows(FundFlowQueryReq req) {
@@ -134,9 +162,26 @@ public class FundFlowServiceImpl implements FundFlowService {
                 .eq(req.getFlowType() != null, FundFlow::getFlowType,req.getFlowType())  // 子类型过滤
                 .ge(req.getStartTime()!= null, FundFlow::getCreateTime, req.getStartTime())
                 .le(req.getEndTime()  != null, FundFlow::getCreateTime, req.getEndTime())
-                .orderByDesc(FundFlow::getCreateTime);
+                .orderByDesc(FundFlow::getCreateTime)
+                .orderByDesc(FundFlow::getFlowId);
 
-        Page<FundFlow> page = new Page<>(req.getPage(), req.getPageSize());
+        LocalDateTime cursorTime = req.getCursorCreateTime();
+        Long          cursorId   = req.getCursorFlowId();
+        long          current    = req.getPage();
+        if ((cursorTime == null) != (cursorId == null)) {
+            // 只传一半游标：同一 createTime 的剩余行会被整段跳过（或 OFFSET 误用），直接拒绝
+            throw new IllegalArgumentException(
+                    "cursorCreateTime and cursorFlowId must be passed together");
+        }
+        if (cursorTime != null) {
+            // 展开为 OR 形式：MySQL 对行构造器比较的范围优化不稳定
+            query.and(w -> w.lt(FundFlow::getCreateTime, cursorTime)
+                    .or(o -> o.eq(FundFlow::getCreateTime, cursorTime)
+                              .lt(FundFlow::getFlowId, cursorId)));
+            current = 1;
+        }
+
+        Page<FundFlow> page = new Page<>(current, req.getPageSize(), false);
         return fundFlowRepository.selectPage(page, query)
                 .getRecords()
                 .stream()
@@ -144,6 +189,29 @@ public class FundFlowServiceImpl implements FundFlowService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public long exportFlows(FundFlowQueryReq req, Consumer<FundFlowDTO> sink) {
+        long[] rows = {0};
+        RuntimeException[] aborted = {null};
+        fundFlowRepository.streamByUser(req, ctx -> {
+            try {
+                sink.accept(toDTO(ctx.getResultObject()));
+                rows[0]++;
+            } catch (RuntimeException e) {
+                // 不能直接抛出：MyBatis 会把 ResultHandler 内的异常包成 PersistenceException，
+                // 调用方拿不到原始异常。停止游标，待 streamByUser 返回后原样重抛
+                aborted[0] = e;
+                ctx.stop();
+            }
+        });
+        if (aborted[0] != null) {
+            log.info("[FundFlowService] Export aborted userId={} rows={}", req.getUserId(), rows[0]);
+            throw aborted[0];
+        }
+        log.info("[FundFlowService] Exported userId={} rows={}", req.getUserId(), rows[0]);
+        return rows[0];
+    }
+
     // ── helpers ──────────────────────────────────────────────────────────────
 
     private FundFlowDTO toDTO(FundFlow f) {
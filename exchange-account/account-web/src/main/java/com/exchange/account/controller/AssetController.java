@@ -6,6 +6,7 @@ import com.exchange.account.api.dto.CreditDebitReq;
 import com.exchange.account.api.dto.FreezeReq;
 import com.exchange.account.api.dto.InternalTransferReq;
 import com.exchange.account.api.enums.AccountType;
+import com.exchange.account.core.cache.BalanceCache;
 import com.exchange.account.core.gateway.AssetGatewayService;
 import com.exchange.account.core.service.AssetService;
 import com.exchange.common.response.ApiResponse;
@@ -59,6 +60,7 @@ public class AssetController {
 
     private final AssetGatewayService gatewayService;
     private final AssetService        assetService;
+    private final BalanceCache        balanceCache;
 
     @Operation(summary = "查询单个资产余额（DB 投影，最终一致）")
     @GetMapping("/{userId}/{accountType}/{asset}")
@@ -82,6 +84,12 @@ public class AssetController {
         return ApiResponse.success(assetService.getAllBalancesByType(userId));
     }
 
+    @Operation(summary = "余额读缓存统计（本进程：本地 / Redis 命中、DB 加载、逐出、命中率）")
+    @GetMapping("/cache/stats")
+    public ApiResponse<BalanceCache.Stats> cacheStats() {
+        return ApiResponse.success(balanceCache.stats());
+    }
+
     @Operation(summary = "冻结资产（通过 Asset Cluster）")
     @PostMapping("/freeze")
     public ApiResponse<Void> freeze(@Valid @RequestBody FreezeReq req) throws Exception {
@@ -8,11 +8,21 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -20,7 +30,16 @@ import java.util.List;
  *
  * <p>流水数据由 {@link com.exchange.account.core.cluster.AssetClusteredService} 异步写入
  * {@code t_fund_flow}，此接口提供分页查询供前端展示账单明细。
+ *
+ * <h3>翻页</h3>
+ * <p>{@code /query} 用游标翻页：把上一页最后一条的 {@code createTime / flowId} 作为
+ * {@code cursorCreateTime / cursorFlowId} 传回即得下一页，深翻页代价不变。
+ *
+ * <h3>导出</h3>
+ * <p>{@code /export} 以 CSV 流式返回用户全部匹配流水：DB 端服务端游标逐行读取、逐行写出响应，
+ * 历史再长也不整体加载进内存。
  */
+@Slf4j
 @Tag(name = "FundFlow", description = "资金流水接口")
 @RestController
 @RequestMapping("/api/asset/flow")
@@ -29,9 +48,70 @@ public class FundFlowController {
 
     private final FundFlowService fundFlowService;
 
-    @Operation(summary = "分页查询资金流水（按 createTime 倒序）")
+    private static final String CSV_HEADER =
+            "flowId,createTime,asset,bizType,flowType,amount,balanceBefore,balanceAfter,bizNo,remark";
+
+    @Operation(summary = "分页查询资金流水（按 createTime 倒序，游标翻页）")
     @PostMapping("/query")
     public ApiResponse<List<FundFlowDTO>> queryFlows(@Valid @RequestBody FundFlowQueryReq req) {
         return ApiResponse.success(fundFlowService.queryFlows(req));
     }
+
+    @Operation(summary = "流式导出资金流水（CSV，按 createTime 倒序，忽略分页参数）")
+    @PostMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFlows(@Valid @RequestBody FundFlowQueryReq req) {
+        StreamingResponseBody body = out -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            try {
+                fundFlowService.exportFlows(req, dto -> writeRow(writer, dto));
+            } catch (UncheckedIOException e) {
+                // 客户端中途断开：写出失败即停止游标读取，原始 UncheckedIOException 由 exportFlows 重抛
+                log.info("[FundFlowController] Export aborted userId={}: {}", req.getUserId(), e.getMessage());
+                return;
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"fund-flow-" + req.getUserId() + ".csv\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    private static void writeRow(BufferedWriter writer, FundFlowDTO f) {
+        try {
+            writer.write(String.valueOf(f.getFlowId()));
+            writer.write(',');
+            writer.write(csv(f.getCreateTime()));
+            writer.write(',');
+            writer.write(csv(f.getAsset()));
+            writer.write(',');
+            writer.write(csv(f.getBizType()));
+            writer.write(',');
+            writer.write(csv(f.getFlowType()));
+            writer.write(',');
+            writer.write(csv(f.getAmount() != null ? f.getAmount().toPlainString() : null));
+            writer.write(',');
+            writer.write(csv(f.getBalanceBefore() != null ? f.getBalanceBefore().toPlainString() : null));
+            writer.write(',');
+            writer.write(csv(f.getBalanceAfter() != null ? f.getBalanceAfter().toPlainString() : null));
+            writer.write(',');
+            writer.write(csv(f.getBizNo()));
+            writer.write(',');
+            writer.write(csv(f.getRemark()));
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** RFC 4180 转义：含逗号、引号或换行时整体加引号，内部引号加倍。 */
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String s = value.toString();
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
 }
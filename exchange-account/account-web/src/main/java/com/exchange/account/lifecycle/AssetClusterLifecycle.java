@@ -5,8 +5,10 @@ import com.exchange.account.core.cluster.AssetClusteredService;
 import com.exchange.account.core.cluster.event.AeronArchiveEventPublisher;
 import com.exchange.account.core.cluster.event.AssetEventPublisher;
 import com.exchange.account.core.cluster.ClusterRuntimeStatus;
+import com.exchange.account.core.cluster.LocalBalanceReader;
 import com.exchange.account.core.cluster.ledger.BalanceLedger;
 import com.exchange.common.event.SystemEventReporter;
+import com.exchange.common.math.AssetScaleRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.SmartLifecycle;
@@ -46,6 +48,12 @@ public class AssetClusterLifecycle implements SmartLifecycle {
     /** 运行时状态快照，供 ClusterStatusController 读取。 */
     private final ClusterRuntimeStatus runtimeStatus;
 
+    /** 资产精度表（可选）；须与 AssetGatewayService 一致，缺省两端均为统一 scale=8。 */
+    private final AssetScaleRegistry scaleRegistry;
+
+    /** 本地余额读通道（可选），由 Service Thread 在两条日志之间服务。 */
+    private final LocalBalanceReader localReader;
+
     private AssetClusterNode clusterNode;
     private volatile boolean running = false;
 
@@ -53,10 +61,14 @@ public class AssetClusterLifecycle implements SmartLifecycle {
     public AssetClusterLifecycle(
             @Autowired(required = false) AssetEventPublisher eventPublisher,
             SystemEventReporter eventReporter,
-            ClusterRuntimeStatus runtimeStatus) {
+            ClusterRuntimeStatus runtimeStatus,
+            @Autowired(required = false) AssetScaleRegistry scaleRegistry,
+            @Autowired(required = false) LocalBalanceReader localReader) {
         this.eventPublisher = eventPublisher;
         this.eventReporter  = eventReporter;
         this.runtimeStatus  = runtimeStatus;
+        this.scaleRegistry  = scaleRegistry != null ? scaleRegistry : AssetScaleRegistry.uniform(8);
+        this.localReader    = localReader;
     }
 
     @Override
@@ -65,7 +77,7 @@ public class AssetClusterLifecycle implements SmartLifecycle {
 
         BalanceLedger ledger = new BalanceLedger(eventReporter);
         AssetClusteredService service =
-                new AssetClusteredService(ledger, eventPublisher, eventReporter, runtimeStatus);
+                new AssetClusteredService(ledger, eventPublisher, eventReporter, runtimeStatus, scaleRegistry, localReader);
 
         clusterNode = new AssetClusterNode();
         clusterNode.start(service);   // Archive 在此步启动
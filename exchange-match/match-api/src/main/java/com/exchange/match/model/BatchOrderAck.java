@@ -0,0 +1,44 @@
+package com.exchange.match.model;
+
+import com.exchange.match.enums.MatchStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 批量委托回包(Egress 一帧):每项只带精简结果,完整 {@link MatchResponse} 仍逐笔进结算流。
+ *
+ * <p>{@code accepted=false} 表示整批未执行(格式不合法 / 超过条目上限),{@code acks} 为空;
+ * 否则 {@code acks} 与请求 {@code items} 一一对应、顺序相同。
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchOrderAck implements Serializable {
+
+    private String batchId;
+    private boolean accepted;
+    private String error;
+    private List<Item> acks;
+
+    /**
+     * 单项结果。REPLACE 的 {@code orderId} 为新单;原单未命中时 status=REJECTED 且新单未下。
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Item implements Serializable {
+        private String orderId;
+        private MatchStatus status;
+        /** 累计成交数量(撤单为撤前已成交) */
+        private BigDecimal filled;
+        /** 剩余数量 */
+        private BigDecimal remaining;
+        private String error;
+    }
+}
@@ -6,7 +6,11 @@ import com.exchange.match.enums.MatchStatus;
 import com.exchange.match.enums.PositionSide;
 import com.exchange.match.enums.PositionAction;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,6 +19,11 @@ import java.util.List;
 /**
  * 撮合响应信息模型
  * 包含成交信息、撤单信息、仓位信息和拒绝信息
+ *
+ * <p><b>惰性 BigDecimal</b>:撮合引擎用 {@code setXxxRaw} 填定点 raw + {@link #setRawScales scale},
+ * 价/量/金额的 BigDecimal 在第一次调用 getter 时才物化(JSON 序列化、日志、展示)。
+ * Follower 不回包、不广播,整条撮合路径不产生这些 BigDecimal;
+ * 用 BigDecimal setter 填充(反序列化、冷路径)时行为与普通字段一致。
  */
 @Data
 public class MatchResponse {
@@ -99,6 +108,11 @@ public class MatchResponse {
      */
     private CancelInfo cancelInfo;
 
+    /**
+     * 改单信息(仅改单回包)
+     */
+    private AmendInfo amendInfo;
+
     /**
      * 撤单/下架产生的资金解冻指令(撮合驱动)。
      *
@@ -126,6 +140,47 @@ public class MatchResponse {
      * 处理时间
      */
     private LocalDateTime processTime;
+
+    // ========== 定点 raw(惰性物化,不参与序列化) ==========
+
+    static final int ORDER_PRICE        = 1;
+    static final int ORDER_QUANTITY     = 1 << 1;
+    static final int MATCH_PRICE        = 1 << 2;
+    static final int MATCH_QUANTITY     = 1 << 3;
+    static final int REMAINING_QUANTITY = 1 << 4;
+    static final int MATCH_AMOUNT       = 1 << 5;
+    static final int FEE                = 1 << 6;
+
+    /** 定点字段在二进制结算编码中的顺序({@link MatchResponseCodec})。 */
+    static final int[] DECIMAL_FIELDS = {
+            ORDER_PRICE, ORDER_QUANTITY, MATCH_PRICE, MATCH_QUANTITY, REMAINING_QUANTITY, MATCH_AMOUNT, FEE};
+
+    /** 尚未物化成 BigDecimal 的 raw 字段位图。 */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private int pendingRaw;
+
+    /** 价格 / 数量 / 金额(计价币)scale;-1 = 未设置。 */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private int priceScale = -1;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private int baseScale = -1;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private int quoteScale = -1;
+
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long orderPriceRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long orderQuantityRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long matchPriceRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long matchQuantityRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long remainingQuantityRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long matchAmountRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long feeRaw;
     
     public MatchResponse() {
         this.createTime = LocalDateTime.now();
@@ -141,22 +196,22 @@ public class MatchResponse {
      * 检查是否完全成交
      */
     public boolean isFullyFilled() {
-        return remainingQuantity.compareTo(BigDecimal.ZERO) == 0;
+        return signum(REMAINING_QUANTITY, remainingQuantityRaw, remainingQuantity) == 0;
     }
     
     /**
      * 检查是否部分成交
      */
     public boolean isPartiallyFilled() {
-        return matchQuantity.compareTo(BigDecimal.ZERO) > 0 && 
-               remainingQuantity.compareTo(BigDecimal.ZERO) > 0;
+        return signum(MATCH_QUANTITY, matchQuantityRaw, matchQuantity) > 0 &&
+               signum(REMAINING_QUANTITY, remainingQuantityRaw, remainingQuantity) > 0;
     }
     
     /**
      * 检查是否未成交
      */
     public boolean isUnfilled() {
-        return matchQuantity.compareTo(BigDecimal.ZERO) == 0;
+        return signum(MATCH_QUANTITY, matchQuantityRaw, matchQuantity) == 0;
     }
     
     /**
@@ -184,16 +239,186 @@ public class MatchResponse {
      * 获取成交率
      */
     public BigDecimal getFillRate() {
-        if (matchQuantity.compareTo(BigDecimal.ZERO) == 0) {
+        if (getMatchQuantity().compareTo(BigDecimal.ZERO) == 0) {
             return BigDecimal.ZERO;
         }
         
-        BigDecimal totalQuantity = matchQuantity.add(remainingQuantity);
+        BigDecimal totalQuantity = getMatchQuantity().add(getRemainingQuantity());
         if (totalQuantity.compareTo(BigDecimal.ZERO) == 0) {
             return BigDecimal.ZERO;
         }
         
-        return matchQuantity.divide(totalQuantity, 4, BigDecimal.ROUND_HALF_UP);
+        return getMatchQuantity().divide(totalQuantity, 4, BigDecimal.ROUND_HALF_UP);
+    }
+
+    // ========== 定点 raw 填充与惰性 getter ==========
+
+    /**
+     * 设置 raw 字段的 scale(价格 priceScale、数量 baseScale、金额/手续费 quoteScale)。
+     * 须在任何 {@code setXxxRaw} 之前调用。
+     */
+    public void setRawScales(int priceScale, int baseScale, int quoteScale) {
+        this.priceScale = priceScale;
+        this.baseScale = baseScale;
+        this.quoteScale = quoteScale;
+    }
+
+    public void setOrderPriceRaw(long raw)        { orderPriceRaw = raw;        markRaw(ORDER_PRICE, priceScale); }
+    public void setOrderQuantityRaw(long raw)     { orderQuantityRaw = raw;     markRaw(ORDER_QUANTITY, baseScale); }
+    public void setMatchPriceRaw(long raw)        { matchPriceRaw = raw;        markRaw(MATCH_PRICE, priceScale); }
+    public void setMatchQuantityRaw(long raw)     { matchQuantityRaw = raw;     markRaw(MATCH_QUANTITY, baseScale); }
+    public void setRemainingQuantityRaw(long raw) { remainingQuantityRaw = raw; markRaw(REMAINING_QUANTITY, baseScale); }
+    public void setMatchAmountRaw(long raw)       { matchAmountRaw = raw;       markRaw(MATCH_AMOUNT, quoteScale); }
+    public void setFeeRaw(long raw)               { feeRaw = raw;               markRaw(FEE, quoteScale); }
+
+    /** 成交数量 raw(baseScale);以 BigDecimal 填充时按 baseScale 四舍五入换算。 */
+    @JsonIgnore
+    public long getMatchQuantityRaw() {
+        return raw(MATCH_QUANTITY, matchQuantityRaw, matchQuantity, baseScale);
+    }
+
+    /** 剩余数量 raw(baseScale);以 BigDecimal 填充时按 baseScale 四舍五入换算。 */
+    @JsonIgnore
+    public long getRemainingQuantityRaw() {
+        return raw(REMAINING_QUANTITY, remainingQuantityRaw, remainingQuantity, baseScale);
+    }
+
+    /** 成交金额 raw(quoteScale);以 BigDecimal 填充时按 quoteScale 四舍五入换算。 */
+    @JsonIgnore
+    public long getMatchAmountRaw() {
+        return raw(MATCH_AMOUNT, matchAmountRaw, matchAmount, quoteScale);
+    }
+
+    public BigDecimal getOrderPrice() {
+        if ((pendingRaw & ORDER_PRICE) != 0) orderPrice = materialize(ORDER_PRICE, orderPriceRaw, priceScale);
+        return orderPrice;
+    }
+
+    public BigDecimal getOrderQuantity() {
+        if ((pendingRaw & ORDER_QUANTITY) != 0) orderQuantity = materialize(ORDER_QUANTITY, orderQuantityRaw, baseScale);
+        return orderQuantity;
+    }
+
+    public BigDecimal getMatchPrice() {
+        if ((pendingRaw & MATCH_PRICE) != 0) matchPrice = materialize(MATCH_PRICE, matchPriceRaw, priceScale);
+        return matchPrice;
+    }
+
+    public BigDecimal getMatchQuantity() {
+        if ((pendingRaw & MATCH_QUANTITY) != 0) matchQuantity = materialize(MATCH_QUANTITY, matchQuantityRaw, baseScale);
+        return matchQuantity;
+    }
+
+    public BigDecimal getRemainingQuantity() {
+        if ((pendingRaw & REMAINING_QUANTITY) != 0) remainingQuantity = materialize(REMAINING_QUANTITY, remainingQuantityRaw, baseScale);
+        return remainingQuantity;
+    }
+
+    public BigDecimal getMatchAmount() {
+        if ((pendingRaw & MATCH_AMOUNT) != 0) matchAmount = materialize(MATCH_AMOUNT, matchAmountRaw, quoteScale);
+        return matchAmount;
+    }
+
+    public BigDecimal getFee() {
+        if ((pendingRaw & FEE) != 0) fee = materialize(FEE, feeRaw, quoteScale);
+        return fee;
+    }
+
+    public void setOrderPrice(BigDecimal v)        { orderPrice = v;        pendingRaw &= ~ORDER_PRICE; }
+    public void setOrderQuantity(BigDecimal v)     { orderQuantity = v;     pendingRaw &= ~ORDER_QUANTITY; }
+    public void setMatchPrice(BigDecimal v)        { matchPrice = v;        pendingRaw &= ~MATCH_PRICE; }
+    public void setMatchQuantity(BigDecimal v)     { matchQuantity = v;     pendingRaw &= ~MATCH_QUANTITY; }
+    public void setRemainingQuantity(BigDecimal v) { remainingQuantity = v; pendingRaw &= ~REMAINING_QUANTITY; }
+    public void setMatchAmount(BigDecimal v)       { matchAmount = v;       pendingRaw &= ~MATCH_AMOUNT; }
+    public void setFee(BigDecimal v)               { fee = v;               pendingRaw &= ~FEE; }
+
+    private void markRaw(int bit, int scale) {
+        if (scale < 0) throw new IllegalStateException("raw scale not set, call setRawScales first");
+        pendingRaw |= bit;
+    }
+
+    // ========== 同包二进制编解码直读(MatchResponseCodec):raw 未物化时不分配 BigDecimal ==========
+
+    int priceScale() { return priceScale; }
+    int baseScale()  { return baseScale; }
+    int quoteScale() { return quoteScale; }
+
+    /** 字段是否仍为未物化的 raw。 */
+    boolean isPendingRaw(int bit) {
+        return (pendingRaw & bit) != 0;
+    }
+
+    /** 字段所属的 scale(价格 priceScale、数量 baseScale、金额/手续费 quoteScale),-1 = 未设置。 */
+    int scaleOf(int bit) {
+        return switch (bit) {
+            case ORDER_PRICE, MATCH_PRICE -> priceScale;
+            case ORDER_QUANTITY, MATCH_QUANTITY, REMAINING_QUANTITY -> baseScale;
+            default -> quoteScale;
+        };
+    }
+
+    long rawOf(int bit) {
+        return switch (bit) {
+            case ORDER_PRICE        -> orderPriceRaw;
+            case ORDER_QUANTITY     -> orderQuantityRaw;
+            case MATCH_PRICE        -> matchPriceRaw;
+            case MATCH_QUANTITY     -> matchQuantityRaw;
+            case REMAINING_QUANTITY -> remainingQuantityRaw;
+            case MATCH_AMOUNT       -> matchAmountRaw;
+            default                 -> feeRaw;
+        };
+    }
+
+    /** 已物化(或以 BigDecimal 填充)的字段值,不触发物化。 */
+    BigDecimal decimalOf(int bit) {
+        return switch (bit) {
+            case ORDER_PRICE        -> orderPrice;
+            case ORDER_QUANTITY     -> orderQuantity;
+            case MATCH_PRICE        -> matchPrice;
+            case MATCH_QUANTITY     -> matchQuantity;
+            case REMAINING_QUANTITY -> remainingQuantity;
+            case MATCH_AMOUNT       -> matchAmount;
+            default                 -> fee;
+        };
+    }
+
+    void setRawOf(int bit, long raw) {
+        switch (bit) {
+            case ORDER_PRICE        -> setOrderPriceRaw(raw);
+            case ORDER_QUANTITY     -> setOrderQuantityRaw(raw);
+            case MATCH_PRICE        -> setMatchPriceRaw(raw);
+            case MATCH_QUANTITY     -> setMatchQuantityRaw(raw);
+            case REMAINING_QUANTITY -> setRemainingQuantityRaw(raw);
+            case MATCH_AMOUNT       -> setMatchAmountRaw(raw);
+            default                 -> setFeeRaw(raw);
+        }
+    }
+
+    void setDecimalOf(int bit, BigDecimal value) {
+        switch (bit) {
+            case ORDER_PRICE        -> setOrderPrice(value);
+            case ORDER_QUANTITY     -> setOrderQuantity(value);
+            case MATCH_PRICE        -> setMatchPrice(value);
+            case MATCH_QUANTITY     -> setMatchQuantity(value);
+            case REMAINING_QUANTITY -> setRemainingQuantity(value);
+            case MATCH_AMOUNT       -> setMatchAmount(value);
+            default                 -> setFee(value);
+        }
+    }
+
+    private BigDecimal materialize(int bit, long raw, int scale) {
+        pendingRaw &= ~bit;
+        return BigDecimal.valueOf(raw, scale);
+    }
+
+    private int signum(int bit, long raw, BigDecimal value) {
+        return (pendingRaw & bit) != 0 ? Long.signum(raw) : value.signum();
+    }
+
+    private long raw(int bit, long raw, BigDecimal value, int scale) {
+        if ((pendingRaw & bit) != 0) return raw;
+        if (scale < 0) throw new IllegalStateException("raw scale not set");
+        return value.movePointRight(scale).setScale(0, java.math.RoundingMode.HALF_UP).longValueExact();
     }
     
     /**
@@ -336,9 +561,29 @@ public class MatchResponse {
         private BigDecimal amount;
         /** 幂等键(如 CANCEL:{orderId})。 */
         private String bizNo;
-        /** 关联订单。 */
+        /** 关联订单;改单释放为 {@code AMEND:{orderId}:{amendId}}(资产侧按此去重,不能占用订单终态解冻的键)。 */
         private String orderId;
     }
+
+    /**
+     * 改单信息。改单回包的 {@code orderPrice} / {@code orderQuantity} 为改后值,
+     * {@code matchQuantity} 为累计成交,{@code matchAmount} / {@code trades} 仅含本次改单重新撮合的成交。
+     */
+    @Data
+    public static class AmendInfo {
+        /** 改单请求号 */
+        private String amendId;
+        /** 改前价格 */
+        private BigDecimal previousPrice;
+        /** 改前委托总量 */
+        private BigDecimal previousQuantity;
+        /** 是否保留原队列位置(同价减量) */
+        private boolean priorityKept;
+        /** 冻结净变化(lockedAsset 计):正为追加冻结被占用,负为随回包解冻 */
+        private BigDecimal lockDelta;
+        /** 冻结资产 */
+        private String lockedAsset;
+    }
     
     /**
      * 拒绝信息
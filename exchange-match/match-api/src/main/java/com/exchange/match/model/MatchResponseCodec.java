@@ -0,0 +1,499 @@
+package com.exchange.match.model;
+
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.enums.OrderSide;
+import com.exchange.match.enums.OrderType;
+import com.exchange.match.enums.PositionAction;
+import com.exchange.match.enums.PositionSide;
+import com.exchange.match.enums.TradeSide;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结算流(Archive 录制的 settlement stream)上 {@link MatchResponse} 的二进制编解码。
+ *
+ * <h3>消息格式</h3>
+ * <pre>
+ *   [1 byte MAGIC][1 byte VERSION][i8 priceScale][i8 baseScale][i8 quoteScale]
+ *   [响应标量字段][7 个定点字段][trades][positionChange][cancelInfo][releases][amendInfo][rejectInfo]
+ * </pre>
+ * <p>JSON body 以 {@code '{'} 开头,二进制 body 以 {@link #MAGIC} 开头,消费端据此区分——
+ * Archive 里的旧 JSON 录制重放时仍按 JSON 解析。MDC 行情流、查询接口继续用 JSON。
+ *
+ * <h3>字段约定</h3>
+ * <ul>
+ *   <li>整数一律小端({@link #ORDER})。</li>
+ *   <li>定点字段为 {@code [i8 scale][i64 unscaled]}:撮合引擎以 raw 填充、尚未物化的字段
+ *       直接写 raw 与所属 scale,编码全程不产生 BigDecimal。{@link #NULL_SCALE} 表示 null;
+ *       放不进 long 的值(反序列化来的冷路径数据)写 {@link #BIG_SCALE} + 十进制字符串。
+ *       解码时 scale 与头部同组 scale 相同的字段仍以 raw 惰性填充。</li>
+ *   <li>字符串为 {@code [i32 len][UTF-8]},len = -1 表示 null;枚举按名称写字符串。</li>
+ *   <li>可空 Long 为 {@code [u8 present][i64]};时间为 {@code [i64 epochSecond(UTC)][i32 nano]},
+ *       epochSecond = {@link Long#MIN_VALUE} 表示 null。</li>
+ *   <li>列表为 {@code [i32 count]} + 元素,count = -1 表示 null;嵌套对象为 {@code [u8 present]} + 字段。</li>
+ * </ul>
+ */
+public final class MatchResponseCodec {
+
+    private MatchResponseCodec() {}
+
+    /** 二进制 body 首字节(JSON body 首字节恒为 '{')。 */
+    public static final byte MAGIC   = (byte) 0xB2;
+    public static final byte VERSION = 1;
+
+    /** MAGIC + VERSION */
+    public static final int HEADER_LENGTH = 2;
+
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /** 定点字段 scale 槽:null。 */
+    static final byte NULL_SCALE = Byte.MIN_VALUE;
+    /** 定点字段 scale 槽:unscaled 超出 long 或 scale 超出 i8,后跟十进制字符串。 */
+    static final byte BIG_SCALE  = Byte.MIN_VALUE + 1;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    /** body 是否为二进制格式。 */
+    public static boolean isBinary(DirectBuffer buffer, int offset, int length) {
+        return length >= HEADER_LENGTH && buffer.getByte(offset) == MAGIC;
+    }
+
+    // =========================================================================
+    // 编码
+    // =========================================================================
+
+    /**
+     * 编码到 {@code buffer[offset..]},返回写入字节数。
+     * {@code buffer} 需能按需扩容(ExpandableDirectByteBuffer / ExpandableArrayBuffer)。
+     */
+    public static int encode(MutableDirectBuffer buffer, int offset, MatchResponse r) {
+        int pos = offset;
+        buffer.putByte(pos++, MAGIC);
+        buffer.putByte(pos++, VERSION);
+        buffer.putByte(pos++, (byte) r.priceScale());
+        buffer.putByte(pos++, (byte) r.baseScale());
+        buffer.putByte(pos++, (byte) r.quoteScale());
+
+        pos = putString(buffer, pos, r.getOrderId());
+        pos = putLong(buffer, pos, r.getUserId());
+        pos = putString(buffer, pos, r.getSymbol());
+        pos = putEnum(buffer, pos, r.getSide());
+        pos = putEnum(buffer, pos, r.getOrderType());
+        pos = putEnum(buffer, pos, r.getStatus());
+        for (int bit : MatchResponse.DECIMAL_FIELDS) {
+            pos = r.isPendingRaw(bit)
+                    ? putRaw(buffer, pos, r.scaleOf(bit), r.rawOf(bit))
+                    : putDecimal(buffer, pos, r.decimalOf(bit));
+        }
+        pos = putString(buffer, pos, r.getErrorMessage());
+        pos = putTime(buffer, pos, r.getCreateTime());
+        pos = putTime(buffer, pos, r.getProcessTime());
+
+        List<Trade> trades = r.getTrades();
+        buffer.putInt(pos, trades == null ? -1 : trades.size(), ORDER);
+        pos += Integer.BYTES;
+        if (trades != null) {
+            for (int i = 0, n = trades.size(); i < n; i++) {
+                pos = putTrade(buffer, pos, trades.get(i));
+            }
+        }
+        pos = putPositionChange(buffer, pos, r.getPositionChange());
+        pos = putCancelInfo(buffer, pos, r.getCancelInfo());
+
+        List<MatchResponse.CancelRelease> releases = r.getReleases();
+        buffer.putInt(pos, releases == null ? -1 : releases.size(), ORDER);
+        pos += Integer.BYTES;
+        if (releases != null) {
+            for (int i = 0, n = releases.size(); i < n; i++) {
+                pos = putRelease(buffer, pos, releases.get(i));
+            }
+        }
+        pos = putAmendInfo(buffer, pos, r.getAmendInfo());
+        pos = putRejectInfo(buffer, pos, r.getRejectInfo());
+        return pos - offset;
+    }
+
+    private static int putTrade(MutableDirectBuffer buffer, int pos, Trade t) {
+        buffer.putByte(pos++, (byte) t.priceScale());
+        buffer.putByte(pos++, (byte) t.baseScale());
+        buffer.putByte(pos++, (byte) t.quoteScale());
+        pos = putString(buffer, pos, t.getTradeId());
+        pos = putString(buffer, pos, t.getSymbol());
+        buffer.putInt(pos, t.getSymbolId(), ORDER);
+        pos += Integer.BYTES;
+        pos = putString(buffer, pos, t.getBuyOrderId());
+        pos = putString(buffer, pos, t.getSellOrderId());
+        pos = putLong(buffer, pos, t.getBuyUserId());
+        pos = putLong(buffer, pos, t.getSellUserId());
+        for (int bit : Trade.DECIMAL_FIELDS) {
+            pos = t.isPendingRaw(bit)
+                    ? putRaw(buffer, pos, t.scaleOf(bit), t.rawOf(bit))
+                    : putDecimal(buffer, pos, t.decimalOf(bit));
+        }
+        pos = putTime(buffer, pos, t.getTradeTime());
+        pos = putEnum(buffer, pos, t.getSide());
+        pos = putEnum(buffer, pos, t.getBuyPositionAction());
+        pos = putEnum(buffer, pos, t.getSellPositionAction());
+        pos = putDecimal(buffer, pos, t.getBuyPositionChange());
+        return putDecimal(buffer, pos, t.getSellPositionChange());
+    }
+
+    private static int putPositionChange(MutableDirectBuffer buffer, int pos, MatchResponse.PositionChange p) {
+        buffer.putByte(pos++, (byte) (p == null ? 0 : 1));
+        if (p == null) return pos;
+        pos = putLong(buffer, pos, p.getUserId());
+        pos = putString(buffer, pos, p.getSymbol());
+        pos = putEnum(buffer, pos, p.getSide());
+        pos = putEnum(buffer, pos, p.getPositionAction());
+        pos = putDecimal(buffer, pos, p.getQuantityChange());
+        pos = putDecimal(buffer, pos, p.getValueChange());
+        pos = putDecimal(buffer, pos, p.getNewQuantity());
+        pos = putDecimal(buffer, pos, p.getNewValue());
+        pos = putDecimal(buffer, pos, p.getNewUnrealizedPnl());
+        pos = putDecimal(buffer, pos, p.getNewRealizedPnl());
+        pos = putDecimal(buffer, pos, p.getAverageCost());
+        pos = putDecimal(buffer, pos, p.getOpenAveragePrice());
+        pos = putDecimal(buffer, pos, p.getCloseAveragePrice());
+        pos = putDecimal(buffer, pos, p.getRealizedPnlChange());
+        return putTime(buffer, pos, p.getUpdateTime());
+    }
+
+    private static int putCancelInfo(MutableDirectBuffer buffer, int pos, MatchResponse.CancelInfo c) {
+        buffer.putByte(pos++, (byte) (c == null ? 0 : 1));
+        if (c == null) return pos;
+        pos = putLong(buffer, pos, c.getCancelUserId());
+        pos = putString(buffer, pos, c.getCancelReason());
+        pos = putDecimal(buffer, pos, c.getCancelQuantity());
+        pos = putTime(buffer, pos, c.getCancelTime());
+        return putEnum(buffer, pos, c.getPreviousStatus());
+    }
+
+    private static int putRelease(MutableDirectBuffer buffer, int pos, MatchResponse.CancelRelease c) {
+        pos = putLong(buffer, pos, c.getUserId());
+        pos = putString(buffer, pos, c.getAccountType());
+        pos = putString(buffer, pos, c.getAsset());
+        pos = putDecimal(buffer, pos, c.getAmount());
+        pos = putString(buffer, pos, c.getBizNo());
+        return putString(buffer, pos, c.getOrderId());
+    }
+
+    private static int putAmendInfo(MutableDirectBuffer buffer, int pos, MatchResponse.AmendInfo a) {
+        buffer.putByte(pos++, (byte) (a == null ? 0 : 1));
+        if (a == null) return pos;
+        pos = putString(buffer, pos, a.getAmendId());
+        pos = putDecimal(buffer, pos, a.getPreviousPrice());
+        pos = putDecimal(buffer, pos, a.getPreviousQuantity());
+        buffer.putByte(pos++, (byte) (a.isPriorityKept() ? 1 : 0));
+        pos = putDecimal(buffer, pos, a.getLockDelta());
+        return putString(buffer, pos, a.getLockedAsset());
+    }
+
+    private static int putRejectInfo(MutableDirectBuffer buffer, int pos, MatchResponse.RejectInfo r) {
+        buffer.putByte(pos++, (byte) (r == null ? 0 : 1));
+        if (r == null) return pos;
+        pos = putString(buffer, pos, r.getRejectCode());
+        pos = putString(buffer, pos, r.getRejectReason());
+        pos = putTime(buffer, pos, r.getRejectTime());
+        return putEnum(buffer, pos, r.getRejectType());
+    }
+
+    private static int putRaw(MutableDirectBuffer buffer, int pos, int scale, long raw) {
+        buffer.putByte(pos, (byte) scale);
+        buffer.putLong(pos + 1, raw, ORDER);
+        return pos + 1 + Long.BYTES;
+    }
+
+    private static int putDecimal(MutableDirectBuffer buffer, int pos, BigDecimal value) {
+        if (value == null) {
+            buffer.putByte(pos, NULL_SCALE);
+            return pos + 1;
+        }
+        int scale = value.scale();
+        if (scale > BIG_SCALE && scale <= Byte.MAX_VALUE && value.unscaledValue().bitLength() < Long.SIZE) {
+            return putRaw(buffer, pos, scale, value.unscaledValue().longValue());
+        }
+        buffer.putByte(pos, BIG_SCALE);
+        return putString(buffer, pos + 1, value.toString());
+    }
+
+    private static int putString(MutableDirectBuffer buffer, int pos, String value) {
+        if (value == null) {
+            buffer.putInt(pos, -1, ORDER);
+            return pos + Integer.BYTES;
+        }
+        return pos + buffer.putStringUtf8(pos, value, ORDER);
+    }
+
+    private static int putEnum(MutableDirectBuffer buffer, int pos, Enum<?> value) {
+        return putString(buffer, pos, value == null ? null : value.name());
+    }
+
+    private static int putLong(MutableDirectBuffer buffer, int pos, Long value) {
+        buffer.putByte(pos, (byte) (value == null ? 0 : 1));
+        buffer.putLong(pos + 1, value == null ? 0L : value, ORDER);
+        return pos + 1 + Long.BYTES;
+    }
+
+    private static int putTime(MutableDirectBuffer buffer, int pos, LocalDateTime value) {
+        buffer.putLong(pos, value == null ? NULL_TIME : value.toEpochSecond(ZoneOffset.UTC), ORDER);
+        buffer.putInt(pos + Long.BYTES, value == null ? 0 : value.getNano(), ORDER);
+        return pos + Long.BYTES + Integer.BYTES;
+    }
+
+    // =========================================================================
+    // 解码
+    // =========================================================================
+
+    /**
+     * 结算流消费端入口:二进制 body 按本编码解码,旧录制里的 JSON body 交给 {@code objectMapper}。
+     */
+    public static MatchResponse read(DirectBuffer buffer, int offset, int length, ObjectMapper objectMapper)
+            throws IOException {
+        if (isBinary(buffer, offset, length)) {
+            return decode(buffer, offset, length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.getBytes(offset, bytes);
+        return objectMapper.readValue(bytes, MatchResponse.class);
+    }
+
+    /**
+     * 解码 {@code buffer[offset, offset + length)}。格式不符(MAGIC / VERSION / 长度)抛
+     * {@link IllegalStateException},由消费端按坏消息处理。
+     */
+    public static MatchResponse decode(DirectBuffer buffer, int offset, int length) {
+        if (!isBinary(buffer, offset, length)) {
+            throw new IllegalStateException("not a binary match response");
+        }
+        byte version = buffer.getByte(offset + 1);
+        if (version != VERSION) {
+            throw new IllegalStateException("unsupported match response version: " + version);
+        }
+        Reader in = new Reader(buffer, offset + HEADER_LENGTH);
+        MatchResponse r = new MatchResponse();
+        int priceScale = in.getByte();
+        int baseScale = in.getByte();
+        int quoteScale = in.getByte();
+        r.setRawScales(priceScale, baseScale, quoteScale);
+
+        r.setOrderId(in.getString());
+        r.setUserId(in.getLong());
+        r.setSymbol(in.getString());
+        r.setSide(in.getEnum(OrderSide.class));
+        r.setOrderType(in.getEnum(OrderType.class));
+        r.setStatus(in.getEnum(MatchStatus.class));
+        for (int bit : MatchResponse.DECIMAL_FIELDS) {
+            int scale = in.getByte();
+            if (scale >= 0 && scale == r.scaleOf(bit)) {
+                r.setRawOf(bit, in.getRawLong());
+            } else {
+                r.setDecimalOf(bit, in.decimalAfterScale(scale));
+            }
+        }
+        r.setErrorMessage(in.getString());
+        r.setCreateTime(in.getTime());
+        r.setProcessTime(in.getTime());
+
+        int tradeCount = in.getInt();
+        if (tradeCount >= 0) {
+            List<Trade> trades = new ArrayList<>(tradeCount);
+            for (int i = 0; i < tradeCount; i++) {
+                trades.add(getTrade(in));
+            }
+            r.setTrades(trades);
+        } else {
+            r.setTrades(null);
+        }
+        r.setPositionChange(getPositionChange(in));
+        r.setCancelInfo(getCancelInfo(in));
+
+        int releaseCount = in.getInt();
+        if (releaseCount >= 0) {
+            List<MatchResponse.CancelRelease> releases = new ArrayList<>(releaseCount);
+            for (int i = 0; i < releaseCount; i++) {
+                releases.add(getRelease(in));
+            }
+            r.setReleases(releases);
+        } else {
+            r.setReleases(null);
+        }
+        r.setAmendInfo(getAmendInfo(in));
+        r.setRejectInfo(getRejectInfo(in));
+
+        if (in.pos != offset + length) {
+            throw new IllegalStateException("match response length mismatch: decoded "
+                    + (in.pos - offset) + " of " + length + " bytes");
+        }
+        return r;
+    }
+
+    private static Trade getTrade(Reader in) {
+        Trade t = new Trade();
+        t.setRawScales(in.getByte(), in.getByte(), in.getByte());
+        t.setTradeId(in.getString());
+        t.setSymbol(in.getString());
+        t.setSymbolId(in.getInt());
+        t.setBuyOrderId(in.getString());
+        t.setSellOrderId(in.getString());
+        t.setBuyUserId(in.getLong());
+        t.setSellUserId(in.getLong());
+        for (int bit : Trade.DECIMAL_FIELDS) {
+            int scale = in.getByte();
+            if (scale >= 0 && scale == t.scaleOf(bit)) {
+                t.setRawOf(bit, in.getRawLong());
+            } else {
+                t.setDecimalOf(bit, in.decimalAfterScale(scale));
+            }
+        }
+        t.setTradeTime(in.getTime());
+        t.setSide(in.getEnum(TradeSide.class));
+        t.setBuyPositionAction(in.getEnum(PositionAction.class));
+        t.setSellPositionAction(in.getEnum(PositionAction.class));
+        t.setBuyPositionChange(in.getDecimal());
+        t.setSellPositionChange(in.getDecimal());
+        return t;
+    }
+
+    private static MatchResponse.PositionChange getPositionChange(Reader in) {
+        if (in.getByte() == 0) return null;
+        MatchResponse.PositionChange p = new MatchResponse.PositionChange();
+        p.setUserId(in.getLong());
+        p.setSymbol(in.getString());
+        p.setSide(in.getEnum(PositionSide.class));
+        p.setPositionAction(in.getEnum(PositionAction.class));
+        p.setQuantityChange(in.getDecimal());
+        p.setValueChange(in.getDecimal());
+        p.setNewQuantity(in.getDecimal());
+        p.setNewValue(in.getDecimal());
+        p.setNewUnrealizedPnl(in.getDecimal());
+        p.setNewRealizedPnl(in.getDecimal());
+        p.setAverageCost(in.getDecimal());
+        p.setOpenAveragePrice(in.getDecimal());
+        p.setCloseAveragePrice(in.getDecimal());
+        p.setRealizedPnlChange(in.getDecimal());
+        p.setUpdateTime(in.getTime());
+        return p;
+    }
+
+    private static MatchResponse.CancelInfo getCancelInfo(Reader in) {
+        if (in.getByte() == 0) return null;
+        MatchResponse.CancelInfo c = new MatchResponse.CancelInfo();
+        c.setCancelUserId(in.getLong());
+        c.setCancelReason(in.getString());
+        c.setCancelQuantity(in.getDecimal());
+        c.setCancelTime(in.getTime());
+        c.setPreviousStatus(in.getEnum(MatchStatus.class));
+        return c;
+    }
+
+    private static MatchResponse.CancelRelease getRelease(Reader in) {
+        MatchResponse.CancelRelease c = new MatchResponse.CancelRelease();
+        c.setUserId(in.getLong());
+        c.setAccountType(in.getString());
+        c.setAsset(in.getString());
+        c.setAmount(in.getDecimal());
+        c.setBizNo(in.getString());
+        c.setOrderId(in.getString());
+        return c;
+    }
+
+    private static MatchResponse.AmendInfo getAmendInfo(Reader in) {
+        if (in.getByte() == 0) return null;
+        MatchResponse.AmendInfo a = new MatchResponse.AmendInfo();
+        a.setAmendId(in.getString());
+        a.setPreviousPrice(in.getDecimal());
+        a.setPreviousQuantity(in.getDecimal());
+        a.setPriorityKept(in.getByte() != 0);
+        a.setLockDelta(in.getDecimal());
+        a.setLockedAsset(in.getString());
+        return a;
+    }
+
+    private static MatchResponse.RejectInfo getRejectInfo(Reader in) {
+        if (in.getByte() == 0) return null;
+        MatchResponse.RejectInfo r = new MatchResponse.RejectInfo();
+        r.setRejectCode(in.getString());
+        r.setRejectReason(in.getString());
+        r.setRejectTime(in.getTime());
+        r.setRejectType(in.getEnum(MatchResponse.RejectInfo.RejectType.class));
+        return r;
+    }
+
+    /** 顺序读游标。 */
+    private static final class Reader {
+
+        private final DirectBuffer buffer;
+        private int pos;
+
+        Reader(DirectBuffer buffer, int pos) {
+            this.buffer = buffer;
+            this.pos = pos;
+        }
+
+        int getByte() {
+            return buffer.getByte(pos++);
+        }
+
+        int getInt() {
+            int v = buffer.getInt(pos, ORDER);
+            pos += Integer.BYTES;
+            return v;
+        }
+
+        long getRawLong() {
+            long v = buffer.getLong(pos, ORDER);
+            pos += Long.BYTES;
+            return v;
+        }
+
+        Long getLong() {
+            boolean present = buffer.getByte(pos) != 0;
+            long v = buffer.getLong(pos + 1, ORDER);
+            pos += 1 + Long.BYTES;
+            return present ? v : null;
+        }
+
+        String getString() {
+            int len = buffer.getInt(pos, ORDER);
+            if (len < 0) {
+                pos += Integer.BYTES;
+                return null;
+            }
+            String v = buffer.getStringUtf8(pos, ORDER);
+            pos += Integer.BYTES + len;
+            return v;
+        }
+
+        <E extends Enum<E>> E getEnum(Class<E> type) {
+            String name = getString();
+            return name == null ? null : Enum.valueOf(type, name);
+        }
+
+        BigDecimal getDecimal() {
+            return decimalAfterScale(getByte());
+        }
+
+        /** scale 槽已读出后读取剩余部分。 */
+        BigDecimal decimalAfterScale(int scale) {
+            if (scale == NULL_SCALE) return null;
+            if (scale == BIG_SCALE) return new BigDecimal(getString());
+            return BigDecimal.valueOf(getRawLong(), scale);
+        }
+
+        LocalDateTime getTime() {
+            long epochSecond = buffer.getLong(pos, ORDER);
+            int nano = buffer.getInt(pos + Long.BYTES, ORDER);
+            pos += Long.BYTES + Integer.BYTES;
+            return epochSecond == NULL_TIME ? null : LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        }
+    }
+}
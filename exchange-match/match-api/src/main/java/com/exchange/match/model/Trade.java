@@ -3,13 +3,20 @@ package com.exchange.match.model;
 import com.exchange.match.enums.TradeSide;
 import com.exchange.match.enums.PositionAction;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
  * 成交记录模型
+ *
+ * <p>撮合引擎以定点 raw 填充价/量/金额/手续费({@code setXxxRaw}),BigDecimal 在 getter
+ * 首次调用时才物化,规则同 {@link MatchResponse}。
  */
 @Data
 public class Trade {
@@ -24,6 +31,11 @@ public class Trade {
      */
     private String symbol;
     
+    /**
+     * 交易对在撮合内部的稠密 symbolId(-1 = 未知)
+     */
+    private int symbolId = -1;
+    
     /**
      * 买方订单ID
      */
@@ -99,6 +111,40 @@ public class Trade {
      */
     private BigDecimal sellPositionChange;
     
+    // ========== 定点 raw(惰性物化,不参与序列化) ==========
+
+    static final int PRICE    = 1;
+    static final int QUANTITY = 1 << 1;
+    static final int AMOUNT   = 1 << 2;
+    static final int BUY_FEE  = 1 << 3;
+    static final int SELL_FEE = 1 << 4;
+
+    /** 定点字段在二进制结算编码中的顺序({@link MatchResponseCodec})。 */
+    static final int[] DECIMAL_FIELDS = {PRICE, QUANTITY, AMOUNT, BUY_FEE, SELL_FEE};
+
+    /** 尚未物化成 BigDecimal 的 raw 字段位图。 */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private int pendingRaw;
+
+    /** 价格 / 数量 / 金额(计价币)scale;-1 = 未设置。 */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private int priceScale = -1;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private int baseScale = -1;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private int quoteScale = -1;
+
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long priceRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long quantityRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long amountRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long buyFeeRaw;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long sellFeeRaw;
+    
     public Trade() {
         this.tradeTime = LocalDateTime.now();
     }
@@ -107,14 +153,149 @@ public class Trade {
      * 计算成交金额
      */
     public void calculateAmount() {
-        this.amount = this.price.multiply(this.quantity);
+        setAmount(getPrice().multiply(getQuantity()));
     }
     
     /**
      * 计算手续费
      */
     public void calculateFees(BigDecimal buyFeeRate, BigDecimal sellFeeRate) {
-        this.buyFee = this.amount.multiply(buyFeeRate);
-        this.sellFee = this.amount.multiply(sellFeeRate);
+        setBuyFee(getAmount().multiply(buyFeeRate));
+        setSellFee(getAmount().multiply(sellFeeRate));
+    }
+
+    // ========== 定点 raw 填充与惰性 getter ==========
+
+    /**
+     * 设置 raw 字段的 scale(价格 priceScale、数量 baseScale、金额/手续费 quoteScale)。
+     * 须在任何 {@code setXxxRaw} 之前调用。
+     */
+    public void setRawScales(int priceScale, int baseScale, int quoteScale) {
+        this.priceScale = priceScale;
+        this.baseScale = baseScale;
+        this.quoteScale = quoteScale;
+    }
+
+    public void setPriceRaw(long raw)    { priceRaw = raw;    markRaw(PRICE, priceScale); }
+    public void setQuantityRaw(long raw) { quantityRaw = raw; markRaw(QUANTITY, baseScale); }
+    public void setAmountRaw(long raw)   { amountRaw = raw;   markRaw(AMOUNT, quoteScale); }
+    public void setBuyFeeRaw(long raw)   { buyFeeRaw = raw;   markRaw(BUY_FEE, quoteScale); }
+    public void setSellFeeRaw(long raw)  { sellFeeRaw = raw;  markRaw(SELL_FEE, quoteScale); }
+
+    /** 成交数量 raw(baseScale);以 BigDecimal 填充时按 baseScale 四舍五入换算。 */
+    @JsonIgnore
+    public long getQuantityRaw() {
+        return raw(QUANTITY, quantityRaw, quantity, baseScale);
+    }
+
+    /** 成交金额 raw(quoteScale);以 BigDecimal 填充时按 quoteScale 四舍五入换算。 */
+    @JsonIgnore
+    public long getAmountRaw() {
+        return raw(AMOUNT, amountRaw, amount, quoteScale);
+    }
+
+    public BigDecimal getPrice() {
+        if ((pendingRaw & PRICE) != 0) price = materialize(PRICE, priceRaw, priceScale);
+        return price;
+    }
+
+    public BigDecimal getQuantity() {
+        if ((pendingRaw & QUANTITY) != 0) quantity = materialize(QUANTITY, quantityRaw, baseScale);
+        return quantity;
+    }
+
+    public BigDecimal getAmount() {
+        if ((pendingRaw & AMOUNT) != 0) amount = materialize(AMOUNT, amountRaw, quoteScale);
+        return amount;
+    }
+
+    public BigDecimal getBuyFee() {
+        if ((pendingRaw & BUY_FEE) != 0) buyFee = materialize(BUY_FEE, buyFeeRaw, quoteScale);
+        return buyFee;
+    }
+
+    public BigDecimal getSellFee() {
+        if ((pendingRaw & SELL_FEE) != 0) sellFee = materialize(SELL_FEE, sellFeeRaw, quoteScale);
+        return sellFee;
+    }
+
+    public void setPrice(BigDecimal v)    { price = v;    pendingRaw &= ~PRICE; }
+    public void setQuantity(BigDecimal v) { quantity = v; pendingRaw &= ~QUANTITY; }
+    public void setAmount(BigDecimal v)   { amount = v;   pendingRaw &= ~AMOUNT; }
+    public void setBuyFee(BigDecimal v)   { buyFee = v;   pendingRaw &= ~BUY_FEE; }
+    public void setSellFee(BigDecimal v)  { sellFee = v;  pendingRaw &= ~SELL_FEE; }
+
+    private void markRaw(int bit, int scale) {
+        if (scale < 0) throw new IllegalStateException("raw scale not set, call setRawScales first");
+        pendingRaw |= bit;
+    }
+
+    // ========== 同包二进制编解码直读(MatchResponseCodec),规则同 MatchResponse ==========
+
+    int priceScale() { return priceScale; }
+    int baseScale()  { return baseScale; }
+    int quoteScale() { return quoteScale; }
+
+    boolean isPendingRaw(int bit) {
+        return (pendingRaw & bit) != 0;
+    }
+
+    int scaleOf(int bit) {
+        return switch (bit) {
+            case PRICE    -> priceScale;
+            case QUANTITY -> baseScale;
+            default       -> quoteScale;
+        };
+    }
+
+    long rawOf(int bit) {
+        return switch (bit) {
+            case PRICE    -> priceRaw;
+            case QUANTITY -> quantityRaw;
+            case AMOUNT   -> amountRaw;
+            case BUY_FEE  -> buyFeeRaw;
+            default       -> sellFeeRaw;
+        };
+    }
+
+    BigDecimal decimalOf(int bit) {
+        return switch (bit) {
+            case PRICE    -> price;
+            case QUANTITY -> quantity;
+            case AMOUNT   -> amount;
+            case BUY_FEE  -> buyFee;
+            default       -> sellFee;
+        };
+    }
+
+    void setRawOf(int bit, long raw) {
+        switch (bit) {
+            case PRICE    -> setPriceRaw(raw);
+            case QUANTITY -> setQuantityRaw(raw);
+            case AMOUNT   -> setAmountRaw(raw);
+            case BUY_FEE  -> setBuyFeeRaw(raw);
+            default       -> setSellFeeRaw(raw);
+        }
+    }
+
+    void setDecimalOf(int bit, BigDecimal value) {
+        switch (bit) {
+            case PRICE    -> setPrice(value);
+            case QUANTITY -> setQuantity(value);
+            case AMOUNT   -> setAmount(value);
+            case BUY_FEE  -> setBuyFee(value);
+            default       -> setSellFee(value);
+        }
+    }
+
+    private BigDecimal materialize(int bit, long raw, int scale) {
+        pendingRaw &= ~bit;
+        return BigDecimal.valueOf(raw, scale);
+    }
+
+    private long raw(int bit, long raw, BigDecimal value, int scale) {
+        if ((pendingRaw & bit) != 0) return raw;
+        if (scale < 0) throw new IllegalStateException("raw scale not set");
+        return value.movePointRight(scale).setScale(0, java.math.RoundingMode.HALF_UP).longValueExact();
     }
 } 
\ No newline at end of file
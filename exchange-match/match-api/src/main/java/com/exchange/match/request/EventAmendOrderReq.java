@@ -0,0 +1,32 @@
+package com.exchange.match.request;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 改单请求(原子 cancel-replace,一条 Raft 日志)。
+ *
+ * <p>同价减量保留队列位置;改价或加量撤出原位、按新价重新撮合并排到队尾。
+ * {@code price} / {@code quantity} 为 null 表示不改;{@code quantity} 是新的委托总量(含已成交),
+ * 须大于已成交量。
+ *
+ * <p>冻结额:撮合按新剩余量(计价币冻结再按新价)等比例重算所需冻结,多出部分随回包解冻;
+ * 不足部分须由调用方先冻结并经 {@code additionalLocked} 带入(资产为订单原 lockedAsset),
+ * 仍不足则拒绝改单并原样解冻这笔追加。{@code amendId} 必填,作回包关联,与 orderId 组成解冻幂等键;
+ * {@code additionalLocked} 的精度不得超过 lockedAsset 的 scale,否则整单拒绝。
+ */
+@Data
+public class EventAmendOrderReq implements Serializable {
+    private String amendId;
+    private String orderId;
+    private String symbol;
+    private long userId;
+    private BigDecimal price;
+    private BigDecimal quantity;
+    /** 追加冻结的资产(应与订单 lockedAsset 一致),仅拒绝时用于解冻追加额。 */
+    private String lockedAsset;
+    /** 调用方为本次改单追加冻结的金额;null 视为 0。 */
+    private BigDecimal additionalLocked;
+}
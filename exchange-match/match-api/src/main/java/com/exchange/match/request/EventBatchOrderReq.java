@@ -0,0 +1,48 @@
+package com.exchange.match.request;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量下单 / 撤单 / 改单请求(一条 Ingress 消息 = 一条 Raft 日志)。
+ *
+ * <p>做市商一次刷新整组报价:撮合在同一次 {@code onSessionMessage} 内按 {@code items} 顺序逐项执行,
+ * 期间不会插入其他消息;整批回一帧 {@link com.exchange.match.model.BatchOrderAck}。
+ * 批内全部委托必须属于 {@code userId},任一项格式不合法则整批拒绝、一项都不执行。
+ * {@code batchId} 作回包关联 / 审计键。
+ */
+@Data
+public class EventBatchOrderReq implements Serializable {
+
+    /**
+     * 单批最多条目数。整批是一条 Raft 日志:撮合 log term-length=256k 时单条上限 32KB,
+     * 64 项(省略空字段)约 18KB;更多报价由客户端拆成多批。
+     */
+    public static final int MAX_ITEMS = 64;
+
+    private String batchId;
+    private long userId;
+    private List<Item> items;
+
+    /**
+     * 批内单项。
+     * <ul>
+     *   <li>PLACE:下新单 {@code order}。</li>
+     *   <li>CANCEL:撤 {@code cancelOrderId}。</li>
+     *   <li>REPLACE:新单已超时则整项拒绝、原单不撤;否则先撤 {@code cancelOrderId},撤单命中后再下新单 {@code order}(新单排队,不保留原优先级);
+     *       原单已不在簿上时新单不下。</li>
+     * </ul>
+     */
+    @Data
+    public static class Item implements Serializable {
+        private String action;
+        private String cancelOrderId;
+        private EventNewOrderReq order;
+    }
+
+    public static final String ACTION_PLACE   = "PLACE";
+    public static final String ACTION_CANCEL  = "CANCEL";
+    public static final String ACTION_REPLACE = "REPLACE";
+}
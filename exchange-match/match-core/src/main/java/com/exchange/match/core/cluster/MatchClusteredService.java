@@ -1,5 +1,6 @@
 package com.exchange.match.core.cluster;
 
+import com.exchange.match.model.BatchOrderAck;
 import com.exchange.match.model.MatchResponse;
 import com.exchange.match.enums.MatchStatus;
 import com.exchange.match.enums.OrderSide;
@@ -16,6 +17,8 @@ import com.exchange.match.core.memory.MemoryStats;
 import com.exchange.match.core.model.*;
 import com.exchange.match.core.service.MatchEngineService;
 import com.exchange.match.core.transport.AeronMatchResultPublisher;
+import com.exchange.match.request.EventAmendOrderReq;
+import com.exchange.match.request.EventBatchOrderReq;
 import com.exchange.match.request.EventCanalReq;
 import com.exchange.match.request.EventNewOrderReq;
 import com.exchange.match.request.EventListSymbolReq;
@@ -35,10 +38,10 @@ import io.aeron.cluster.service.ClusteredService;
 import io.aeron.logbuffer.Header;
 import lombok.extern.slf4j.Slf4j;
 import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -64,6 +67,16 @@ import java.util.Map;
  *   <li>实现 {@code onTakeSnapshot} / {@code onLoadSnapshot} 保证崩溃重启后状态完整恢复。</li>
  * </ul>
  *
+ * <h3>批量委托</h3>
+ * <p>{@link #MSG_BATCH_ORDERS} 一条 Ingress 消息携带最多 {@link EventBatchOrderReq#MAX_ITEMS} 项
+ * 下单 / 撤单 / 改单,在同一次 {@code onSessionMessage} 内按序执行(一条 Raft 日志,中间不插入其他消息),
+ * 整批回一帧 {@link #MSG_BATCH_ACK};每项的完整结果仍逐笔进结算流。
+ *
+ * <h3>改单</h3>
+ * <p>{@link #MSG_AMEND} 原子 cancel-replace:同价减量原地改量保留队列位置,改价或加量重新撮合排到队尾。
+ * 一条日志、一帧回包({@link #MSG_AMEND_ACK} / {@link #MSG_REJECT})、一条结算记录,
+ * 回包 {@code amendInfo.lockDelta} 为冻结净变化,多冻部分随 {@code releases} 解冻。
+ *
  * <h3>确定性约束</h3>
  * <p>所有节点在相同输入下必须产生相同输出。禁止在此类中直接调用
  * {@code System.currentTimeMillis()} 或 {@code LocalDateTime.now()}；
@@ -99,6 +112,10 @@ public class MatchClusteredService implements ClusteredService {
     public static final byte MSG_CANCEL_USER   = 0x05;
     /** Ingress: 标的挂单全撤 */
     public static final byte MSG_CANCEL_SYMBOL = 0x06;
+    /** Ingress: 批量下单 / 撤单 / 改单 */
+    public static final byte MSG_BATCH_ORDERS  = 0x07;
+    /** Ingress: 改单（原子 cancel-replace） */
+    public static final byte MSG_AMEND         = 0x08;
 
     /** Egress: 引擎接受订单（挂单成功或全部成交） */
     public static final byte MSG_ACK          = 0x10;
@@ -108,10 +125,16 @@ public class MatchClusteredService implements ClusteredService {
     public static final byte MSG_CANCEL_ACK   = 0x12;
     /** Egress: 标的运维（上架/下架）确认 */
     public static final byte MSG_SYMBOL_ACK    = 0x13;
+    /** Egress: 批量委托回包（整批一帧） */
+    public static final byte MSG_BATCH_ACK     = 0x14;
+    /** Egress: 改单确认（拒绝仍走 MSG_REJECT） */
+    public static final byte MSG_AMEND_ACK     = 0x15;
 
     // ---- 依赖（由 Spring 通过构造器注入，不在 ClusteredService 内使用 Spring） ---
     /** Egress offer 有界重试上限，避免无限自旋阻塞 Service Thread。 */
     private static final int  EGRESS_OFFER_MAX_RETRIES = 100_000;
+    /** 单帧 Egress 上限（批量回包约 {@link EventBatchOrderReq#MAX_ITEMS} × 150B,远低于此值）。 */
+    private static final int  EGRESS_MAX_BYTES         = 64 * 1024;
     /** 冷指标（O(n) 规模统计）抽样间隔:每处理这么多条消息刷新一次。 */
     private static final long COLD_UPDATE_EVERY_N_MSG  = 1024L;
 
@@ -131,8 +154,8 @@ public class MatchClusteredService implements ClusteredService {
     /** 已处理消息计数，用于冷指标抽样（非状态机状态，仅本地观测）。 */
     private long    messageCount = 0L;
 
-    /** 复用发送缓冲区（单线程，无需 ThreadLocal） */
-    private final UnsafeBuffer egressBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(4096));
+    /** 复用发送缓冲区（单线程，无需 ThreadLocal；批量回包按需扩容，上限 {@link #EGRESS_MAX_BYTES}） */
+    private final ExpandableDirectByteBuffer egressBuffer = new ExpandableDirectByteBuffer(4096);
 
     public MatchClusteredService(MatchEngineService matchEngineService,
                                  MemoryManager memoryManager,
@@ -215,6 +238,8 @@ public class MatchClusteredService implements ClusteredService {
                 case MSG_DELIST_SYMBOL -> handleDelistSymbol(session, timestamp, buffer, offset + 1, jsonLen);
                 case MSG_CANCEL_USER   -> handleCancelUser(session, timestamp, buffer, offset + 1, jsonLen);
                 case MSG_CANCEL_SYMBOL -> handleCancelSymbol(session, timestamp, buffer, offset + 1, jsonLen);
+                case MSG_BATCH_ORDERS  -> handleBatchOrders(session, timestamp, buffer, offset + 1, jsonLen);
+                case MSG_AMEND         -> handleAmend(session, timestamp, buffer, offset + 1, jsonLen);
                 default             -> {
                     eventReporter.record(CoreSystemEvent.REQUEST_INVALID, timestamp,
                             () -> "unknownMsgType=0x" + Integer.toHexString(msgType & 0xFF));
@@ -276,45 +301,19 @@ public class MatchClusteredService implements ClusteredService {
 
         log.debug("[MatchCluster] NEW_ORDER orderId={} symbol={}", req.getOrderId(), req.getSymbol());
 
-        // 委托超时校验：解析 orderId Snowflake 时间戳，超过 10s 直接拒绝。
-        // 确定性：以 clusterTimestamp 作为合理性校验参考时间，不读 wall-clock，
-        // 保证 Raft 日志重放时判定与原始执行一致（此前用单参重载会读 System.currentTimeMillis）。
-        long snowflakeTs = SnowflakeId.tryExtractTimestampMs(req.getOrderId(), clusterTimestamp);
-        if (snowflakeTs > 0 && clusterTimestamp - snowflakeTs > ORDER_TIMEOUT_MS) {
-            final long age = clusterTimestamp - snowflakeTs;
-            // 期望恒为 0：持续非零说明合法委托被超时误杀，需排查 Ingress 积压
-            eventReporter.record(CoreSystemEvent.REQUEST_EXPIRED, clusterTimestamp,
-                    () -> "orderId=" + req.getOrderId() + " age=" + age + "ms ttl=" + ORDER_TIMEOUT_MS + "ms");
-            log.warn("[MatchCluster] ORDER TIMEOUT orderId={} age={}ms", req.getOrderId(), age);
-            MatchResponse timeoutResp = new MatchResponse();
-            timeoutResp.setOrderId(req.getOrderId());
-            timeoutResp.setUserId(req.getUserId());
-            timeoutResp.setSymbol(req.getSymbol());
-            timeoutResp.setStatus(MatchStatus.REJECTED);
-            timeoutResp.setErrorMessage("Order timeout: age " + age + "ms > " + ORDER_TIMEOUT_MS + "ms");
-            sendEgress(session, MSG_REJECT, objectMapper.writeValueAsString(timeoutResp));
+        MatchResponse expired = expiredResponse(req, clusterTimestamp);
+        if (expired != null) {
+            sendEgress(session, MSG_REJECT, expired);
             return;
         }
 
-        // 将集群时间注入订单（确保所有节点产生相同时间戳）
-        Order order = buildOrder(req, clusterTimestamp);
-
-        MatchResponse response = matchEngineService.submitOrder(order);
+        MatchResponse response = submitOrder(req, clusterTimestamp);
 
         // ① Egress 回包给 Order Service（快速确认/拒绝）
-        if (response.isRejected()) {
-            eventReporter.record(MatchSystemEvent.MATCH_ORDER_REJECTED, clusterTimestamp,
-                    () -> "orderId=" + req.getOrderId() + " symbol=" + req.getSymbol()
-                            + " reason=" + response.getErrorMessage());
-            sendEgress(session, MSG_REJECT, objectMapper.writeValueAsString(response));
-        } else {
-            sendEgress(session, MSG_ACK, objectMapper.writeValueAsString(response));
-        }
+        sendEgress(session, response.isRejected() ? MSG_REJECT : MSG_ACK, response);
 
         // ② MDC 广播 TradeEvent（仅 Leader 节点广播，Follower 静默）
-        if (cluster.role() == Cluster.Role.LEADER && aeronPublisher != null) {
-            aeronPublisher.send(response);
-        }
+        publish(response);
     }
 
     private void handleCancel(ClientSession session, long clusterTimestamp,
@@ -325,22 +324,283 @@ public class MatchClusteredService implements ClusteredService {
 
         log.debug("[MatchCluster] CANCEL orderId={}", req.getOrderId());
 
-        MatchResponse response = matchEngineService.cancelOrder(req.getOrderId(), req.getUserId());
+        MatchResponse response = cancelOrder(req.getOrderId(), req.getUserId(), clusterTimestamp);
+
+        sendEgress(session, MSG_CANCEL_ACK, response);
+
+        // 撤单也产生状态变更，通过 MDC 广播
+        publish(response);
+    }
+
+    private void handleAmend(ClientSession session, long clusterTimestamp,
+                             DirectBuffer buffer, int offset, int length) throws IOException {
+        byte[] jsonBytes = new byte[length];
+        buffer.getBytes(offset, jsonBytes);
+        EventAmendOrderReq req = objectMapper.readValue(jsonBytes, EventAmendOrderReq.class);
+
+        log.debug("[MatchCluster] AMEND orderId={} amendId={}", req.getOrderId(), req.getAmendId());
+
+        String invalid = amendInvalid(req);
+        if (invalid != null) {
+            eventReporter.record(CoreSystemEvent.REQUEST_INVALID, clusterTimestamp,
+                    () -> "orderId=" + req.getOrderId() + " amendId=" + req.getAmendId() + " reason=" + invalid);
+            log.warn("[MatchCluster] AMEND rejected orderId={} amendId={} reason={}",
+                    req.getOrderId(), req.getAmendId(), invalid);
+            MatchResponse rejected = invalidAmendResponse(req, invalid);
+            sendEgress(session, MSG_REJECT, rejected);
+            publish(rejected);
+            return;
+        }
+
+        MatchResponse response = matchEngineService.amendOrder(buildAmend(req, clusterTimestamp));
+        if (response.isRejected()) {
+            eventReporter.record(MatchSystemEvent.MATCH_AMEND_REJECTED, clusterTimestamp,
+                    () -> "orderId=" + req.getOrderId() + " amendId=" + req.getAmendId()
+                            + " reason=" + response.getErrorMessage());
+        }
+
+        sendEgress(session, response.isRejected() ? MSG_REJECT : MSG_AMEND_ACK, response);
+
+        // 改单结果(含重新撮合的成交与解冻,拒绝时含追加冻结的解冻)进结算流
+        publish(response);
+    }
+
+    /**
+     * 委托超时校验：解析 orderId Snowflake 时间戳，超过 10s 返回拒绝回包（不进撮合、不广播）；未超时返回 null。
+     *
+     * <p>确定性：以 clusterTimestamp 作为合理性校验参考时间，不读 wall-clock，
+     * 保证 Raft 日志重放时判定与原始执行一致（此前用单参重载会读 System.currentTimeMillis）。
+     */
+    private MatchResponse expiredResponse(EventNewOrderReq req, long clusterTimestamp) {
+        long snowflakeTs = SnowflakeId.tryExtractTimestampMs(req.getOrderId(), clusterTimestamp);
+        if (snowflakeTs <= 0 || clusterTimestamp - snowflakeTs <= ORDER_TIMEOUT_MS) {
+            return null;
+        }
+        final long age = clusterTimestamp - snowflakeTs;
+        // 期望恒为 0：持续非零说明合法委托被超时误杀，需排查 Ingress 积压
+        eventReporter.record(CoreSystemEvent.REQUEST_EXPIRED, clusterTimestamp,
+                () -> "orderId=" + req.getOrderId() + " age=" + age + "ms ttl=" + ORDER_TIMEOUT_MS + "ms");
+        log.warn("[MatchCluster] ORDER TIMEOUT orderId={} age={}ms", req.getOrderId(), age);
+        MatchResponse timeoutResp = new MatchResponse();
+        timeoutResp.setOrderId(req.getOrderId());
+        timeoutResp.setUserId(req.getUserId());
+        timeoutResp.setSymbol(req.getSymbol());
+        timeoutResp.setStatus(MatchStatus.REJECTED);
+        timeoutResp.setErrorMessage("Order timeout: age " + age + "ms > " + ORDER_TIMEOUT_MS + "ms");
+        return timeoutResp;
+    }
+
+    /** 转换并提交撮合（将集群时间注入订单，确保所有节点产生相同时间戳）。 */
+    private MatchResponse submitOrder(EventNewOrderReq req, long clusterTimestamp) {
+        Order order = buildOrder(req, clusterTimestamp);
+        MatchResponse response = matchEngineService.submitOrder(order);
+        if (response.isRejected()) {
+            eventReporter.record(MatchSystemEvent.MATCH_ORDER_REJECTED, clusterTimestamp,
+                    () -> "orderId=" + req.getOrderId() + " symbol=" + req.getSymbol()
+                            + " reason=" + response.getErrorMessage());
+        }
+        return response;
+    }
 
+    private MatchResponse cancelOrder(String orderId, long userId, long clusterTimestamp) {
+        MatchResponse response = matchEngineService.cancelOrder(orderId, userId);
         // 撤单未命中活跃订单（重复撤单/已成交/userId 不符）——观测撤单质量
         if (response.isRejected()) {
             eventReporter.record(MatchSystemEvent.MATCH_CANCEL_MISS, clusterTimestamp,
-                    () -> "orderId=" + req.getOrderId() + " reason=" + response.getErrorMessage());
+                    () -> "orderId=" + orderId + " reason=" + response.getErrorMessage());
         }
+        return response;
+    }
 
-        sendEgress(session, MSG_CANCEL_ACK, objectMapper.writeValueAsString(response));
-
-        // 撤单也产生状态变更，通过 MDC 广播
+    /** 撮合结果进结算流（仅 Leader 节点广播，Follower 静默）。 */
+    private void publish(MatchResponse response) {
         if (cluster.role() == Cluster.Role.LEADER && aeronPublisher != null) {
             aeronPublisher.send(response);
         }
     }
 
+    // =========================================================================
+    // 批量委托（一条日志 N 项,整批一帧回包）
+    // =========================================================================
+
+    private void handleBatchOrders(ClientSession session, long clusterTimestamp,
+                                   DirectBuffer buffer, int offset, int length) throws IOException {
+        byte[] jsonBytes = new byte[length];
+        buffer.getBytes(offset, jsonBytes);
+        EventBatchOrderReq req = objectMapper.readValue(jsonBytes, EventBatchOrderReq.class);
+
+        BatchOrderAck ack = new BatchOrderAck();
+        ack.setBatchId(req.getBatchId());
+
+        // 先整批校验,任一项不合法整批拒绝——不会出现执行到一半才因格式错误中断的半批
+        String invalid = validateBatch(req);
+        if (invalid != null) {
+            eventReporter.record(CoreSystemEvent.REQUEST_INVALID, clusterTimestamp,
+                    () -> "batchId=" + req.getBatchId() + " reason=" + invalid);
+            log.warn("[MatchCluster] BATCH rejected batchId={} reason={}", req.getBatchId(), invalid);
+            ack.setError(invalid);
+            sendBatchAck(session, ack);
+            return;
+        }
+
+        // Follower 不回包,也就不构建精简结果(不物化 BigDecimal)
+        boolean leader = cluster.role() == Cluster.Role.LEADER;
+        List<BatchOrderAck.Item> acks = new ArrayList<>(req.getItems().size());
+        for (EventBatchOrderReq.Item item : req.getItems()) {
+            BatchOrderAck.Item result = executeBatchItem(req.getUserId(), item, clusterTimestamp);
+            if (leader) acks.add(result);
+        }
+        log.debug("[MatchCluster] BATCH batchId={} userId={} items={}",
+                req.getBatchId(), req.getUserId(), req.getItems().size());
+
+        ack.setAccepted(true);
+        ack.setAcks(acks);
+        sendBatchAck(session, ack);
+    }
+
+    /** 执行批内一项:与单笔下单 / 撤单同一路径(超时校验、事件上报、结算流广播)。 */
+    private BatchOrderAck.Item executeBatchItem(long userId, EventBatchOrderReq.Item item, long clusterTimestamp) {
+        String action = item.getAction();
+        if (EventBatchOrderReq.ACTION_CANCEL.equals(action)) {
+            MatchResponse cancelled = cancelOrder(item.getCancelOrderId(), userId, clusterTimestamp);
+            publish(cancelled);
+            return ackItem(cancelled);
+        }
+
+        // 新单时效先于撤单校验:超时的 REPLACE 整项不执行,原单保留在簿上
+        MatchResponse expired = expiredResponse(item.getOrder(), clusterTimestamp);
+        if (expired != null) {
+            return ackItem(expired);
+        }
+        // 冻结额与本集群标的参数不符:整项拒绝(REPLACE 原单保留),由订单服务解冻
+        String lockMismatch = lockMismatch(item.getOrder());
+        if (lockMismatch != null) {
+            eventReporter.record(CoreSystemEvent.REQUEST_INVALID, clusterTimestamp,
+                    () -> "orderId=" + item.getOrder().getOrderId() + " reason=" + lockMismatch);
+            log.warn("[MatchCluster] BATCH item rejected orderId={} symbol={} reason={}",
+                    item.getOrder().getOrderId(), item.getOrder().getSymbol(), lockMismatch);
+            return new BatchOrderAck.Item(item.getOrder().getOrderId(), MatchStatus.REJECTED, null, null, lockMismatch);
+        }
+        if (EventBatchOrderReq.ACTION_REPLACE.equals(action)) {
+            MatchResponse cancelled = cancelOrder(item.getCancelOrderId(), userId, clusterTimestamp);
+            publish(cancelled);
+            if (cancelled.isRejected()) {
+                // 原单已不在簿上(已成交 / 已撤),新单不下,避免重复挂单
+                return new BatchOrderAck.Item(item.getOrder().getOrderId(), MatchStatus.REJECTED, null, null,
+                        "replace target not active: " + cancelled.getErrorMessage());
+            }
+        }
+        MatchResponse placed = submitOrder(item.getOrder(), clusterTimestamp);
+        publish(placed);
+        return ackItem(placed);
+    }
+
+    /**
+     * 随单冻结额与本集群 {@link Symbol} 核对。订单服务按自己的标的配置(scale / 费率)计算冻结额,
+     * 两边配置漂移时在此拒单,而不是等到结算时冻结不足:
+     * 冻结币种须为买单计价币 / 卖单基础币;冻结额不低于按本集群参数算出的下限
+     * (限价买 {@code price × qty + fee},各步 DOWN 取整,避免舍入差异误拒;卖单 {@code qty})。
+     * 未随单冻结、标的未上架(由下单路径拒绝)、无价格的市价买不在此校验。
+     *
+     * @return 不一致描述;一致返回 null
+     */
+    private String lockMismatch(EventNewOrderReq req) {
+        if (req.getLockedAsset() == null || req.getLockedAmount() == null) return null;
+        Symbol sym = memoryManager.getSymbol(req.getSymbol());
+        if (sym == null) return null;
+
+        boolean buy = OrderSide.BUY.name().equals(req.getSide());
+        String expectedAsset = buy ? sym.getQuoteCurrency() : sym.getBaseCurrency();
+        if (!req.getLockedAsset().equals(expectedAsset)) {
+            return "locked asset " + req.getLockedAsset() + " != symbol " + (buy ? "quote " : "base ") + expectedAsset;
+        }
+        int lockScale = buy ? sym.quoteScaleOrDefault() : sym.baseScale();
+        long lockedRaw = FixedPoint.fromBigDecimal(req.getLockedAmount(), lockScale, java.math.RoundingMode.UP);
+        long qtyRaw = req.getQuantity() != null
+                ? FixedPoint.fromBigDecimal(req.getQuantity(), sym.baseScale(), java.math.RoundingMode.DOWN) : 0L;
+        long required;
+        if (buy) {
+            long priceRaw = req.getPrice() != null
+                    ? FixedPoint.fromBigDecimal(req.getPrice(), sym.priceScale(), java.math.RoundingMode.DOWN) : 0L;
+            if (priceRaw <= 0) return null;
+            long amountRaw = FixedPoint.mulScaled(priceRaw, qtyRaw, sym.priceScale(), sym.baseScale(),
+                    sym.quoteScaleOrDefault(), java.math.RoundingMode.DOWN);
+            required = Math.addExact(amountRaw, FixedPoint.mulDiv(amountRaw, sym.feeRateRaw(),
+                    FixedPoint.pow10(Symbol.FEE_SCALE), java.math.RoundingMode.DOWN));
+        } else {
+            required = qtyRaw;
+        }
+        if (lockedRaw < required) {
+            return "locked amount " + req.getLockedAmount().toPlainString() + " below required "
+                    + FixedPoint.toBigDecimal(required, lockScale).toPlainString() + " (symbol spec mismatch)";
+        }
+        return null;
+    }
+
+    /**
+     * 整批校验(纯格式,不读撮合状态):条目数、动作、必填字段、委托归属、枚举取值。
+     *
+     * @return 错误描述;合法返回 null
+     */
+    private static String validateBatch(EventBatchOrderReq req) {
+        List<EventBatchOrderReq.Item> items = req.getItems();
+        if (items == null || items.isEmpty()) {
+            return "empty batch";
+        }
+        if (items.size() > EventBatchOrderReq.MAX_ITEMS) {
+            return "too many items: " + items.size() + " > " + EventBatchOrderReq.MAX_ITEMS;
+        }
+        for (int i = 0; i < items.size(); i++) {
+            EventBatchOrderReq.Item item = items.get(i);
+            String action = item != null ? item.getAction() : null;
+            boolean place  = EventBatchOrderReq.ACTION_PLACE.equals(action)
+                    || EventBatchOrderReq.ACTION_REPLACE.equals(action);
+            boolean cancel = EventBatchOrderReq.ACTION_CANCEL.equals(action)
+                    || EventBatchOrderReq.ACTION_REPLACE.equals(action);
+            if (!place && !cancel) {
+                return "item " + i + ": unknown action " + action;
+            }
+            if (cancel && item.getCancelOrderId() == null) {
+                return "item " + i + ": cancelOrderId required";
+            }
+            if (place) {
+                EventNewOrderReq order = item.getOrder();
+                if (order == null || order.getOrderId() == null || order.getSymbol() == null) {
+                    return "item " + i + ": order with orderId and symbol required";
+                }
+                if (order.getUserId() != req.getUserId()) {
+                    return "item " + i + ": order userId " + order.getUserId() + " != batch userId " + req.getUserId();
+                }
+                if (!isEnumValue(OrderSide.class, order.getSide(), false)
+                        || !isEnumValue(OrderType.class, order.getOrderType(), true)
+                        || !isEnumValue(PositionAction.class, order.getPositionAction(), true)) {
+                    return "item " + i + ": invalid side / orderType / positionAction";
+                }
+            }
+        }
+        return null;
+    }
+
+    private static <E extends Enum<E>> boolean isEnumValue(Class<E> type, String value, boolean optional) {
+        if (value == null) return optional;
+        try {
+            Enum.valueOf(type, value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static BatchOrderAck.Item ackItem(MatchResponse r) {
+        return new BatchOrderAck.Item(r.getOrderId(), r.getStatus(), r.getMatchQuantity(),
+                r.getRemainingQuantity(), r.isRejected() ? r.getErrorMessage() : null);
+    }
+
+    private void sendBatchAck(ClientSession session, BatchOrderAck ack) throws IOException {
+        if (cluster.role() != Cluster.Role.LEADER) return;
+        sendEgress(session, MSG_BATCH_ACK, objectMapper.writeValueAsString(ack));
+    }
+
     // =========================================================================
     // 批量撤单（用户全撤 / 标的全撤）—— 确定性遍历,聚合解冻经可靠流到资产
     // =========================================================================
@@ -355,11 +615,9 @@ public class MatchClusteredService implements ClusteredService {
         log.info("[MatchCluster] CANCEL_USER userId={} releases={}",
                 req.getUserId(), response.getReleases() != null ? response.getReleases().size() : 0);
 
-        sendEgress(session, MSG_CANCEL_ACK, objectMapper.writeValueAsString(response));
+        sendEgress(session, MSG_CANCEL_ACK, response);
         // 解冻指令随 response 经可靠结算流到 TradeSettlementForwarder → 资产 UNFREEZE
-        if (cluster.role() == Cluster.Role.LEADER && aeronPublisher != null) {
-            aeronPublisher.send(response);
-        }
+        publish(response);
     }
 
     private void handleCancelSymbol(ClientSession session, long clusterTimestamp,
@@ -372,10 +630,8 @@ public class MatchClusteredService implements ClusteredService {
         log.info("[MatchCluster] CANCEL_SYMBOL symbol={} releases={}",
                 req.getSymbol(), response.getReleases() != null ? response.getReleases().size() : 0);
 
-        sendEgress(session, MSG_CANCEL_ACK, objectMapper.writeValueAsString(response));
-        if (cluster.role() == Cluster.Role.LEADER && aeronPublisher != null) {
-            aeronPublisher.send(response);
-        }
+        sendEgress(session, MSG_CANCEL_ACK, response);
+        publish(response);
     }
 
     // =========================================================================
@@ -424,9 +680,10 @@ public class MatchClusteredService implements ClusteredService {
         s.setUpdateTime(t);
         s.setStatus(SymbolStatus.ACTIVE);
 
+        // 分配稠密 symbolId(按日志顺序,各副本一致)
         memoryManager.addSymbol(s);
-        log.info("[MatchCluster] LISTED symbol={} type={} base/quote={}/{} pScale={} bScale={} qScale={}",
-                symbol, s.getTradingType(), s.getBaseCurrency(), s.getQuoteCurrency(),
+        log.info("[MatchCluster] LISTED symbol={} symbolId={} type={} base/quote={}/{} pScale={} bScale={} qScale={}",
+                symbol, s.getSymbolId(), s.getTradingType(), s.getBaseCurrency(), s.getQuoteCurrency(),
                 s.getPricePrecision(), s.getQuantityPrecision(), s.getQuoteScale());
         sendEgress(session, MSG_SYMBOL_ACK, symbolAckJson(req.getListId(), symbol, "LISTED"));
     }
@@ -520,7 +777,7 @@ public class MatchClusteredService implements ClusteredService {
      * <pre>
      *   N 条:  {"type":"symbols","symbols":{...},"activeOrders":{...},"orderBookMeta":{...}}
      *   M 条:  {"type":"positions","positions":{...}}
-     *   1 条:  {"type":"end","logPosition":P,"clusterTimestamp":T,"symbolChunks":N,"positionChunks":M}
+     *   1 条:  {"type":"end","logPosition":P,"clusterTimestamp":T,"symbolChunks":N,"positionChunks":M,"symbolIds":{...}}
      * </pre>
      */
     @Override
@@ -572,7 +829,8 @@ public class MatchClusteredService implements ClusteredService {
                     "logPosition",      full.getLogPosition(),
                     "clusterTimestamp", full.getClusterTimestamp(),
                     "symbolChunks",     symbolChunks,
-                    "positionChunks",   positionChunks));
+                    "positionChunks",   positionChunks,
+                    "symbolIds",        full.getSymbolIds()));
 
             final int symCount = allSymbols.size();
             final int symCk = symbolChunks, posCk = positionChunks;
@@ -658,6 +916,7 @@ public class MatchClusteredService implements ClusteredService {
                     snap.setActiveOrders(old.getActiveOrders());
                     snap.setOrderBookMeta(old.getOrderBookMeta());
                     snap.setPositions(old.getPositions() != null ? old.getPositions() : new HashMap<>());
+                    snap.setSymbolIds(old.getSymbolIds());
                     snap.setLogPosition(old.getLogPosition());
                     snap.setClusterTimestamp(old.getClusterTimestamp());
                 } else if ("symbols".equals(type)) {
@@ -705,6 +964,9 @@ public class MatchClusteredService implements ClusteredService {
             }
             snap.setLogPosition(end.path("logPosition").asLong(0L));
             snap.setClusterTimestamp(end.path("clusterTimestamp").asLong(0L));
+            if (end.has("symbolIds")) {
+                snap.setSymbolIds(convertMap(end.get("symbolIds"), Integer.class));
+            }
         }
 
         restoreFromSnapshot(snap);
@@ -770,6 +1032,7 @@ public class MatchClusteredService implements ClusteredService {
         order.setOrderId(req.getOrderId());
         order.setUserId(req.getUserId());
         order.setSymbol(req.getSymbol());
+        order.setSymbolId(sym != null ? sym.getSymbolId() : -1);
         order.setPrice(req.getPrice() != null
                 ? FixedPoint.fromBigDecimal(req.getPrice(), pScale, java.math.RoundingMode.DOWN) : 0L);
         order.setQuantity(req.getQuantity() != null
@@ -801,6 +1064,89 @@ public class MatchClusteredService implements ClusteredService {
         return order;
     }
 
+    /**
+     * 将改单请求换算为引擎内部定点指令(价/量 DOWN 截断,同 {@link #buildOrder});改单时间取集群时间。
+     * 追加冻结 DOWN 截断:引擎按此额度记入订单冻结,不能超过调用方实际冻结的金额。
+     */
+    /**
+     * 改单请求格式校验(不读撮合状态):amendId 必填——它是解冻幂等键的一部分;
+     * 追加冻结须恰好落在 lockedAsset 的 scale 上,否则截断后撮合只认截断额,
+     * 拒绝时也只解冻截断额,差额永远留在资产侧。
+     *
+     * @return 错误描述;合法返回 null
+     */
+    private String amendInvalid(EventAmendOrderReq req) {
+        if (req.getAmendId() == null || req.getAmendId().isBlank()) {
+            return "amendId is required";
+        }
+        Symbol sym = memoryManager.getSymbol(req.getSymbol());
+        if (req.getLockedAsset() == null || req.getAdditionalLocked() == null || sym == null) return null;
+        int lockScale = amendLockScale(sym, req.getLockedAsset());
+        if (req.getAdditionalLocked().stripTrailingZeros().scale() > lockScale) {
+            return "additionalLocked " + req.getAdditionalLocked().toPlainString()
+                    + " exceeds " + req.getLockedAsset() + " scale " + lockScale;
+        }
+        return null;
+    }
+
+    /**
+     * 格式不合法的改单回包:订单不动;追加冻结按请求原值(不截断)解冻,
+     * 幂等键与引擎改单解冻一致。amendId 缺失时没有幂等键,不产出解冻,由调用方按自身冻结单号处理。
+     */
+    private MatchResponse invalidAmendResponse(EventAmendOrderReq req, String reason) {
+        MatchResponse response = new MatchResponse();
+        response.setOrderId(req.getOrderId());
+        response.setUserId(req.getUserId());
+        response.setSymbol(req.getSymbol());
+        response.setStatus(MatchStatus.REJECTED);
+        response.setErrorMessage(reason);
+        MatchResponse.AmendInfo amendInfo = new MatchResponse.AmendInfo();
+        amendInfo.setAmendId(req.getAmendId());
+        response.setAmendInfo(amendInfo);
+
+        Symbol sym = memoryManager.getSymbol(req.getSymbol());
+        boolean hasKey = req.getAmendId() != null && !req.getAmendId().isBlank();
+        if (hasKey && sym != null && req.getLockedAsset() != null
+                && req.getAdditionalLocked() != null && req.getAdditionalLocked().signum() > 0) {
+            String key = OrderAmend.releaseKey(req.getOrderId(), req.getAmendId());
+            response.setReleases(new ArrayList<>(List.of(new MatchResponse.CancelRelease(
+                    req.getUserId(), sym.supportsPosition() ? "FUTURES" : "SPOT",
+                    req.getLockedAsset(), req.getAdditionalLocked(), key, key))));
+        }
+        return response;
+    }
+
+    /** 追加冻结资产的 scale:计价币 quoteScale,标的币 baseScale,其它 8。 */
+    private static int amendLockScale(Symbol sym, String lockedAsset) {
+        return lockedAsset.equals(sym.getQuoteCurrency())
+                ? sym.quoteScaleOrDefault()
+                : (lockedAsset.equals(sym.getBaseCurrency()) ? sym.baseScale() : 8);
+    }
+
+    private OrderAmend buildAmend(EventAmendOrderReq req, long clusterTimestamp) {
+        Symbol sym = memoryManager.getSymbol(req.getSymbol());
+        int pScale = sym != null ? sym.priceScale() : 8;
+        int bScale = sym != null ? sym.baseScale() : 8;
+
+        OrderAmend amend = new OrderAmend();
+        amend.setAmendId(req.getAmendId());
+        amend.setOrderId(req.getOrderId());
+        amend.setUserId(req.getUserId());
+        amend.setSymbol(req.getSymbol());
+        amend.setPrice(req.getPrice() != null
+                ? FixedPoint.fromBigDecimal(req.getPrice(), pScale, java.math.RoundingMode.DOWN) : 0L);
+        amend.setQuantity(req.getQuantity() != null
+                ? FixedPoint.fromBigDecimal(req.getQuantity(), bScale, java.math.RoundingMode.DOWN) : 0L);
+        if (req.getLockedAsset() != null && req.getAdditionalLocked() != null && sym != null) {
+            // 精度已由 amendInvalid 校验,换算无截断
+            amend.setLockedAsset(req.getLockedAsset());
+            amend.setAdditionalLocked(FixedPoint.fromBigDecimal(req.getAdditionalLocked(),
+                    amendLockScale(sym, req.getLockedAsset()), java.math.RoundingMode.UNNECESSARY));
+        }
+        amend.setTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(clusterTimestamp), ZoneId.of("UTC")));
+        return amend;
+    }
+
     /** 构建快照对象，遍历 MemoryManager 当前全量状态 */
     private ClusterMatchSnapshot buildSnapshot() {
         ClusterMatchSnapshot snapshot = new ClusterMatchSnapshot();
@@ -809,6 +1155,7 @@ public class MatchClusteredService implements ClusteredService {
 
         // 1. 交易对配置
         snapshot.setSymbols(new HashMap<>(memoryManager.getAllSymbols()));
+        snapshot.setSymbolIds(memoryManager.getSymbolIds());
 
         // 2. 各订单薄中的活跃订单（按 price-time 顺序遍历）
         Map<String, List<Order>> activeOrders = new HashMap<>();
@@ -849,7 +1196,12 @@ public class MatchClusteredService implements ClusteredService {
     private void restoreFromSnapshot(ClusterMatchSnapshot snapshot) {
         memoryManager.clearAll();
 
-        // 1. 恢复交易对
+        // 1. 恢复 symbolId 分配表,再恢复交易对;旧快照无分配表时按字典序分配,保证各副本一致
+        if (snapshot.getSymbolIds() != null) {
+            memoryManager.restoreSymbolIds(snapshot.getSymbolIds());
+        } else {
+            new java.util.TreeSet<>(snapshot.getSymbols().keySet()).forEach(memoryManager::internSymbolId);
+        }
         snapshot.getSymbols().forEach((sym, symbol) -> memoryManager.addSymbol(symbol));
 
         // 2. 恢复订单薄（按已排序的订单重建价格队列）
@@ -875,6 +1227,15 @@ public class MatchClusteredService implements ClusteredService {
         }
     }
 
+    /**
+     * 回包撮合结果。Follower 的 session offer 本就被 Cluster 忽略,这里直接跳过序列化,
+     * 使 Follower 上 {@link MatchResponse} 的价/量 BigDecimal 永不物化。
+     */
+    private void sendEgress(ClientSession session, byte msgType, MatchResponse response) throws IOException {
+        if (cluster.role() != Cluster.Role.LEADER) return;
+        sendEgress(session, msgType, objectMapper.writeValueAsString(response));
+    }
+
     /**
      * 向 Cluster Session 发送 Egress 消息，格式：[1 byte msgType][JSON body]。
      *
@@ -884,7 +1245,7 @@ public class MatchClusteredService implements ClusteredService {
     private void sendEgress(ClientSession session, byte msgType, String json) {
         byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
         int totalLen = 1 + jsonBytes.length;
-        if (totalLen > egressBuffer.capacity()) {
+        if (totalLen > EGRESS_MAX_BYTES) {
             eventReporter.record(CoreSystemEvent.EGRESS_DROPPED, cluster.time(),
                     () -> "reason=payload_too_large bytes=" + jsonBytes.length);
             log.error("[MatchCluster] Egress payload too large ({} bytes), dropping", jsonBytes.length);
@@ -27,6 +27,13 @@ public enum MatchSystemEvent implements SystemEvent {
      */
     MATCH_CANCEL_MISS(Severity.INFO, "撤单未命中活跃订单", false),
 
+    /**
+     * 改单被拒绝(订单已结束、价量非法、POST_ONLY 改价会成交、冻结不足等),原单不变。
+     *
+     * <p>非致命,用于观测改单质量;冻结不足持续出现说明上游未按新价量追加冻结。
+     */
+    MATCH_AMEND_REJECTED(Severity.INFO, "改单被拒绝", false),
+
     /**
      * 撮合产生成交（累计吞吐观测）。
      *
@@ -34,6 +34,12 @@ public class ClusterMatchSnapshot {
     /** 已注册的所有交易对配置 */
     private Map<String, Symbol> symbols;
 
+    /**
+     * symbolId 分配表（symbol → 稠密 id，含已下架的交易对）。
+     * 恢复时先还原该表，保证各副本、快照前后 id 一致；旧快照无此字段时按 symbol 字典序重新分配。
+     */
+    private Map<String, Integer> symbolIds;
+
     /**
      * 各交易对的活跃挂单列表（仅 ACTIVE 状态）。
      * Key = symbol，Value = 按 price-time 优先顺序排列的订单列表。
@@ -27,4 +27,13 @@ public interface EventHandler {
     default boolean supports(EventType eventType) {
         return getSupportedEventType() == eventType;
     }
+
+    /**
+     * 落地暂存的合并工作。
+     *
+     * <p>合并执行的处理器（如批量强平）在 {@link #handle} 中只暂存，由分发方在 Disruptor 批尾、
+     * 或切换到其他类型事件之前调用本方法统一执行，保证与其他事件的相对顺序不变。默认无暂存。
+     */
+    default void flush() {
+    }
 } 
\ No newline at end of file
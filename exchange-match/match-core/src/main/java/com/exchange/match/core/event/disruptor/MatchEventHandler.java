@@ -19,6 +19,9 @@ import java.util.stream.Collectors;
 public class MatchEventHandler implements EventHandler<MatchEvent> {
     
     private final Map<EventType, com.exchange.match.core.event.EventHandler> eventHandlers;
+
+    /** 上一个事件的处理器（仅 Disruptor 消费线程访问）；切换类型前先让它落地暂存的合并工作 */
+    private com.exchange.match.core.event.EventHandler lastHandler;
     
     @Autowired
     public MatchEventHandler(List<com.exchange.match.core.event.EventHandler> handlers) {
@@ -44,6 +47,10 @@ public class MatchEventHandler implements EventHandler<MatchEvent> {
                 log.error("未找到事件类型 {} 的处理器", eventType);
                 return;
             }
+            if (lastHandler != null && lastHandler != handler) {
+                flush(lastHandler);
+            }
+            lastHandler = handler;
             
             log.debug("开始处理事件: type={}, sequence={}", eventType, sequence);
             
@@ -56,6 +63,19 @@ public class MatchEventHandler implements EventHandler<MatchEvent> {
         } catch (Exception e) {
             log.error("处理事件失败: sequence={}", sequence, e);
             event.setException(e);
+        } finally {
+            if (endOfBatch && lastHandler != null) {
+                flush(lastHandler);
+                lastHandler = null;
+            }
+        }
+    }
+
+    private void flush(com.exchange.match.core.event.EventHandler handler) {
+        try {
+            handler.flush();
+        } catch (Exception e) {
+            log.error("落地合并事件失败: type={}", handler.getSupportedEventType(), e);
         }
     }
 } 
\ No newline at end of file
@@ -12,8 +12,10 @@ import com.exchange.match.core.event.MatchEvent;
 import com.exchange.match.core.memory.MemoryManager;
 import com.exchange.match.core.model.*;
 import com.exchange.match.model.MatchResponse;
+import com.exchange.match.core.service.BatchLiquidationExecutor;
 import com.exchange.match.core.service.RiskManagementService;
 import com.exchange.match.core.service.RiskRecalculationService;
+import com.exchange.match.core.transport.AeronMatchResultPublisher;
 import com.exchange.match.enums.EventType;
 import com.exchange.match.request.EventLiquidationReq;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +29,11 @@ import java.util.List;
 
 /**
  * 强平事件处理器
+ *
+ * <p>风险重算、降档、分档平仓、ADL 逐事件执行；最终的市价强平不立即扫簿，而是暂存到本批，
+ * 由 {@link #flush()}（Disruptor 批尾或切换到其他事件类型前）经 {@link BatchLiquidationExecutor}
+ * 合并成每个 (symbol, 方向) 一次扫簿、一条结算批次。限价强平有独立价格约束，仍单独撮合。
+ * 结算批次经 {@link AeronMatchResultPublisher} 发到结算流（每次 flush 一条），与普通下单同一路径入账。
  */
 @Slf4j
 @Component
@@ -61,6 +68,16 @@ public class LiquidationEventHandler implements EventHandler {
     @Autowired
     private RiskRecalculationService riskRecalculationService;
 
+    @Autowired
+    private BatchLiquidationExecutor batchLiquidationExecutor;
+
+    /** 结算流发布者（可选，Aeron 未启用时不注入，同 NewOrderEventHandler） */
+    @Autowired(required = false)
+    private AeronMatchResultPublisher aeronPublisher;
+
+    /** 本批待合并执行的市价强平（仅 Disruptor 消费线程访问） */
+    private final List<PendingLiquidation> pending = new ArrayList<>();
+
     @Override
     public void handle(MatchEvent event) {
         try {
@@ -74,6 +91,13 @@ public class LiquidationEventHandler implements EventHandler {
 
             // 执行强平逻辑
             LiquidationRequest.LiquidationResult result = processLiquidation(liquidationRequest);
+            if (result == null) {
+                // 市价强平：结果在 flush() 合并执行后回填
+                pending.add(new PendingLiquidation(event, liquidationRequest));
+                log.debug("强平请求已并入本批: liquidationId={}, 待合并数: {}",
+                        liquidationRequest.getLiquidationId(), pending.size());
+                return;
+            }
 
             // 设置处理结果
             event.setResult(result);
@@ -88,6 +112,47 @@ public class LiquidationEventHandler implements EventHandler {
         }
     }
     
+    /**
+     * 合并执行本批暂存的市价强平，并把各自结果回填到对应事件。
+     */
+    @Override
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<LiquidationRequest> requests = new ArrayList<>(pending.size());
+        for (PendingLiquidation p : pending) {
+            requests.add(p.request());
+        }
+        try {
+            BatchLiquidationExecutor.BatchLiquidationResult batch = batchLiquidationExecutor.executeBatch(requests);
+            // 整批成交合并为一条结算消息：强平方与 maker 的资金变动经结算流入账（无成交不发）
+            MatchResponse settlement = batch.getSettlementBatch();
+            if (aeronPublisher != null && settlement != null
+                    && settlement.getTrades() != null && !settlement.getTrades().isEmpty()) {
+                aeronPublisher.send(settlement);
+            }
+            for (PendingLiquidation p : pending) {
+                LiquidationRequest.LiquidationResult result = batch.getResults().get(p.request().getLiquidationId());
+                p.event().setResult(result);
+                log.info("强平事件处理完成: liquidationId={}, status={}, successQuantity={}",
+                        p.request().getLiquidationId(), p.request().getStatus(),
+                        result != null ? result.getSuccessQuantity() : null);
+            }
+        } catch (Exception e) {
+            log.error("批量强平执行失败，请求数: {}", requests.size(), e);
+            for (PendingLiquidation p : pending) {
+                p.request().setStatus(LiquidationRequest.LiquidationStatus.FAILED);
+                p.event().setException(e);
+            }
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /** 暂存的市价强平：事件（回填结果）+ 已完成前置处理的请求。 */
+    private record PendingLiquidation(MatchEvent event, LiquidationRequest request) {}
+
     /**
      * 从请求创建强平请求对象
      */
@@ -141,6 +206,8 @@ public class LiquidationEventHandler implements EventHandler {
     
     /**
      * 处理强平逻辑
+     *
+     * @return 处理结果；市价强平已就绪、待 {@link #flush()} 合并执行时返回 null
      */
     private LiquidationRequest.LiquidationResult processLiquidation(LiquidationRequest liquidationRequest) {
         LiquidationRequest.LiquidationResult result = new LiquidationRequest.LiquidationResult();
@@ -293,7 +360,12 @@ public class LiquidationEventHandler implements EventHandler {
                 }
             }
             
-            // 创建强平订单
+            // 市价强平并入本批，由 BatchLiquidationExecutor 合并扫簿（数量 / 方向按同一口径重新确定）
+            if (!liquidationRequest.isLimitLiquidation()) {
+                return null;
+            }
+
+            // 限价强平：有独立价格约束，单独撮合
             Order liquidationOrder = createLiquidationOrder(liquidationRequest, liquidationQuantity, liquidationSide);
             
             // 执行强平撮合
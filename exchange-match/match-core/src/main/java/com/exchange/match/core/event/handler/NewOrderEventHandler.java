@@ -181,10 +181,10 @@ public class NewOrderEventHandler implements EventHandler {
 
             int priceScale = symbol.priceScale();
             int baseScale  = symbol.baseScale();
-            BigDecimal priceBdVal = FixedPoint.toBigDecimal(order.getPrice(), priceScale);
-            BigDecimal qtyBdVal   = FixedPoint.toBigDecimal(order.getQuantity(), baseScale);
 
-            if (!symbol.isValidPrice(priceBdVal)) {
+            // 定点校验:tick 取模 + 数量上下限比较;BigDecimal 只在拒单文案里出现
+            if (!symbol.isValidPriceRaw(order.getPrice())) {
+                BigDecimal priceBdVal = FixedPoint.toBigDecimal(order.getPrice(), priceScale);
                 response.setStatus(MatchStatus.REJECTED);
                 response.setErrorMessage("价格无效: " + priceBdVal);
                 response.setRejectInfo(createRejectInfo(
@@ -194,7 +194,8 @@ public class NewOrderEventHandler implements EventHandler {
                 return response;
             }
 
-            if (!symbol.isValidQuantity(qtyBdVal)) {
+            if (!symbol.isValidQuantityRaw(order.getQuantity())) {
+                BigDecimal qtyBdVal = FixedPoint.toBigDecimal(order.getQuantity(), baseScale);
                 response.setStatus(MatchStatus.REJECTED);
                 response.setErrorMessage("数量无效: " + qtyBdVal);
                 response.setRejectInfo(createRejectInfo(
@@ -204,9 +205,7 @@ public class NewOrderEventHandler implements EventHandler {
                 return response;
             }
 
-            // 格式化价格和数量（Symbol 冷格式化返回 BigDecimal，转回 long raw；DOWN 不放大金额）
-            order.setPrice(FixedPoint.fromBigDecimal(symbol.formatPrice(priceBdVal), priceScale, RoundingMode.DOWN));
-            order.setQuantity(FixedPoint.fromBigDecimal(symbol.formatQuantity(qtyBdVal), baseScale, RoundingMode.DOWN));
+            // 通过校验的价格已是 tick 整数倍、数量 raw 已是 quantityPrecision 精度,无需再格式化
             order.setRemainingQuantity(order.getQuantity());
 
             // 根据交易类型设置开平仓动作
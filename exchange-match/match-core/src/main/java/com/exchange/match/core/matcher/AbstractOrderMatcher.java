@@ -20,7 +20,7 @@ import java.util.List;
  *
  * <p><b>定点</b>:订单价/量为 long raw(priceScale/baseScale);金额/手续费用
  * {@link Symbol#calcAmountRaw}/{@link Symbol#calcFeeRaw} 定点计算,生成 {@link Trade}
- * 时经 {@link FixedPoint#toBigDecimal} 转回 BigDecimal(对外输出契约不变)。
+ * 时只写入 raw 与精度,BigDecimal 在首次读取时才物化(对外输出契约不变)。
  */
 @Slf4j
 public abstract class AbstractOrderMatcher implements OrderMatcher {
@@ -158,12 +158,16 @@ public abstract class AbstractOrderMatcher implements OrderMatcher {
         Trade trade = new Trade();
         trade.setTradeId(SnowflakeId.nextIdStr());
         trade.setSymbol(buyOrder.getSymbol());
+        trade.setSymbolId(symbol.getSymbolId());
         trade.setBuyOrderId(buyOrder.getOrderId());
         trade.setSellOrderId(sellOrder.getOrderId());
         trade.setBuyUserId(buyOrder.getUserId());
         trade.setSellUserId(sellOrder.getUserId());
-        trade.setPrice(FixedPoint.toBigDecimal(price, symbol.priceScale()));
-        trade.setQuantity(FixedPoint.toBigDecimal(quantity, symbol.baseScale()));
+        // 价/量/金额以 raw 填充,BigDecimal 在序列化等首次读取时才物化
+        int quoteScale = symbol.quoteScaleOrDefault();
+        trade.setRawScales(symbol.priceScale(), symbol.baseScale(), quoteScale);
+        trade.setPriceRaw(price);
+        trade.setQuantityRaw(quantity);
         trade.setSide(TradeSide.BUY);
 
         // 设置开平仓动作（仅合约交易）
@@ -175,13 +179,12 @@ public abstract class AbstractOrderMatcher implements OrderMatcher {
             trade.setSellPositionChange(calculatePositionChange(sellOrder, quantity, symbol));
         }
 
-        // 定点计算成交金额与手续费,再转 BigDecimal 填入 Trade
+        // 定点计算成交金额与手续费
         long amountRaw = symbol.calcAmountRaw(price, quantity);
         long feeRaw    = symbol.calcFeeRaw(amountRaw);
-        int quoteScale = symbol.quoteScaleOrDefault();
-        trade.setAmount(FixedPoint.toBigDecimal(amountRaw, quoteScale));
-        trade.setBuyFee(FixedPoint.toBigDecimal(feeRaw, quoteScale));
-        trade.setSellFee(FixedPoint.toBigDecimal(feeRaw, quoteScale));
+        trade.setAmountRaw(amountRaw);
+        trade.setBuyFeeRaw(feeRaw);
+        trade.setSellFeeRaw(feeRaw);
 
         // 冻结额随单递减:买方消耗 quote(成交额+买手续费),卖方消耗 base(成交量);
         // 与资产侧 SETTLE 扣冻结口径一致,残余留待撤单/完成时解冻。
@@ -4,6 +4,9 @@ import com.exchange.match.core.model.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -11,233 +14,412 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * 内存管理器
  * 管理订单薄、仓位和标的的内存数据
+ *
+ * <p><b>symbolId</b>:每个交易对第一次出现(正常为上架)时分配一个稠密 int id,
+ * 之后标的、订单薄、仓位都存放在按 id 下标的数组里,热路径一次数组访问即可取得。
+ * id 只增不减、不回收(下架后槽位置空,重新上架沿用原 id);分配只发生在 Service Thread
+ * 上,按日志顺序进行,各副本一致,并随快照持久化。字符串接口保留,先查一次 id 再走数组。
+ *
+ * <p><b>并发</b>:读路径(查 id、按 id 取数组元素)不加锁。所有对 id 表和数组槽位的写
+ * (分配 id、扩容、放入/移除订单薄、仓位表、标的)都在同一把锁({@code this})下进行,
+ * 扩容复制与槽位写入互斥,不会出现写进旧数组而丢失的情况。
  */
 @Slf4j
 @Component
 public class MemoryManager {
-    
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * symbol → symbolId(只增不减)
+     */
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+
+    /**
+     * 下一个待分配的 symbolId
+     */
+    private int nextSymbolId;
+
+    /**
+     * 标的表（symbolId -> Symbol）
+     */
+    private volatile Symbol[] symbols = new Symbol[INITIAL_CAPACITY];
+
+    /**
+     * 订单薄表（symbolId -> OrderBook）
+     */
+    private volatile OrderBook[] orderBooks = new OrderBook[INITIAL_CAPACITY];
+
+    /**
+     * 仓位表（symbolId -> userId -> Position）
+     */
+    @SuppressWarnings("unchecked")
+    private volatile Map<Long, Position>[] positions = new Map[INITIAL_CAPACITY];
+
+    // ===================== symbolId =====================
+
     /**
-     * 订单薄映射（symbol -> OrderBook）
+     * 取 symbol 的 id,未分配时按顺序分配一个新的(已分配时无锁返回)。
      */
-    private final Map<String, OrderBook> orderBooks = new ConcurrentHashMap<>();
-    
+    public int internSymbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        return id != null ? id : allocateSymbolId(symbol);
+    }
+
+    private synchronized int allocateSymbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        int newId = nextSymbolId++;
+        ensureCapacity(newId);
+        symbolIds.put(symbol, newId);
+        return newId;
+    }
+
+    /**
+     * 取 symbol 的 id,未分配返回 -1。
+     */
+    public int symbolIdOf(String symbol) {
+        Integer id = symbol != null ? symbolIds.get(symbol) : null;
+        return id != null ? id : -1;
+    }
+
+    /**
+     * 全部已分配的 symbolId(用于快照)
+     */
+    public Map<String, Integer> getSymbolIds() {
+        return new HashMap<>(symbolIds);
+    }
+
     /**
-     * 仓位映射（userId_symbol -> Position）
+     * 恢复 symbolId 分配表(用于快照恢复,须在恢复标的之前调用)
      */
-    private final Map<String, Position> positions = new ConcurrentHashMap<>();
-    
+    public synchronized void restoreSymbolIds(Map<String, Integer> ids) {
+        ids.forEach((symbol, id) -> {
+            ensureCapacity(id);
+            symbolIds.put(symbol, id);
+            nextSymbolId = Math.max(nextSymbolId, id + 1);
+        });
+    }
+
     /**
-     * 标的映射（symbol -> Symbol）
+     * 须持有 {@code this} 锁调用
      */
-    private final Map<String, Symbol> symbols = new ConcurrentHashMap<>();
-    
+    private void ensureCapacity(int id) {
+        if (id < symbols.length) {
+            return;
+        }
+        int capacity = Math.max(id + 1, symbols.length * 2);
+        orderBooks = Arrays.copyOf(orderBooks, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        symbols = Arrays.copyOf(symbols, capacity);
+    }
+
+    // ===================== 订单薄 =====================
+
     /**
      * 获取或创建订单薄
      */
     public OrderBook getOrCreateOrderBook(String symbol) {
-        return orderBooks.computeIfAbsent(symbol, OrderBook::new);
+        return getOrCreateOrderBook(internSymbolId(symbol), symbol);
+    }
+
+    /**
+     * 按 symbolId 获取或创建订单薄
+     */
+    public OrderBook getOrCreateOrderBook(int symbolId, String symbol) {
+        OrderBook orderBook = orderBooks[symbolId];
+        return orderBook != null ? orderBook : createOrderBook(symbolId, symbol);
+    }
+
+    private synchronized OrderBook createOrderBook(int symbolId, String symbol) {
+        OrderBook orderBook = orderBooks[symbolId];
+        if (orderBook == null) {
+            orderBook = new OrderBook(symbol);
+            orderBook.setSymbolId(symbolId);
+            orderBooks[symbolId] = orderBook;
+        }
+        return orderBook;
     }
-    
+
     /**
      * 获取订单薄
      */
     public OrderBook getOrderBook(String symbol) {
-        return orderBooks.get(symbol);
+        return getOrderBook(symbolIdOf(symbol));
+    }
+
+    /**
+     * 按 symbolId 获取订单薄
+     */
+    public OrderBook getOrderBook(int symbolId) {
+        OrderBook[] table = orderBooks;
+        return symbolId >= 0 && symbolId < table.length ? table[symbolId] : null;
     }
-    
+
     /**
      * 移除订单薄
      */
-    public void removeOrderBook(String symbol) {
-        OrderBook orderBook = orderBooks.remove(symbol);
+    public synchronized void removeOrderBook(String symbol) {
+        int id = symbolIdOf(symbol);
+        OrderBook orderBook = id >= 0 ? orderBooks[id] : null;
         if (orderBook != null) {
+            orderBooks[id] = null;
             orderBook.clear();
             log.info("移除订单薄: symbol={}", symbol);
         }
     }
-    
+
     /**
      * 获取所有订单薄
      */
     public Map<String, OrderBook> getAllOrderBooks() {
-        return new ConcurrentHashMap<>(orderBooks);
+        Map<String, OrderBook> result = new ConcurrentHashMap<>();
+        for (OrderBook orderBook : orderBooks) {
+            if (orderBook != null) {
+                result.put(orderBook.getSymbol(), orderBook);
+            }
+        }
+        return result;
     }
-    
+
     /**
      * 设置订单薄（用于恢复时）
      */
-    public void setOrderBook(String symbol, OrderBook orderBook) {
-        orderBooks.put(symbol, orderBook);
+    public synchronized void setOrderBook(String symbol, OrderBook orderBook) {
+        int id = internSymbolId(symbol);
+        orderBook.setSymbolId(id);
+        orderBooks[id] = orderBook;
         log.info("设置订单薄: symbol={}", symbol);
     }
-    
+
+    // ===================== 仓位 =====================
+
     /**
      * 获取或创建仓位
      */
     public Position getOrCreatePosition(Long userId, String symbol) {
-        String key = generatePositionKey(userId, symbol);
-        return positions.computeIfAbsent(key, k -> {
+        return getOrCreatePosition(userId, internSymbolId(symbol), symbol);
+    }
+
+    /**
+     * 按 symbolId 获取或创建仓位(id 未知时回落按名分配)
+     */
+    public Position getOrCreatePosition(Long userId, int symbolId, String symbol) {
+        int id = symbolId >= 0 ? symbolId : internSymbolId(symbol);
+        return positionsOf(id).computeIfAbsent(userId, k -> {
             Position position = new Position();
             position.setUserId(userId);
             position.setSymbol(symbol);
+            position.setSymbolId(id);
             return position;
         });
     }
-    
+
     /**
      * 获取仓位
      */
     public Position getPosition(Long userId, String symbol) {
-        String key = generatePositionKey(userId, symbol);
-        return positions.get(key);
+        return getPosition(userId, symbolIdOf(symbol));
+    }
+
+    /**
+     * 按 symbolId 获取仓位
+     */
+    public Position getPosition(Long userId, int symbolId) {
+        Map<Long, Position> symbolPositions = symbolPositions(symbolId);
+        return symbolPositions != null ? symbolPositions.get(userId) : null;
     }
-    
+
     /**
      * 移除仓位
      */
     public void removePosition(Long userId, String symbol) {
-        String key = generatePositionKey(userId, symbol);
-        Position position = positions.remove(key);
+        Map<Long, Position> symbolPositions = symbolPositions(symbolIdOf(symbol));
+        Position position = symbolPositions != null ? symbolPositions.remove(userId) : null;
         if (position != null) {
             log.info("移除仓位: userId={}, symbol={}", userId, symbol);
         }
     }
-    
+
     /**
      * 获取用户的所有仓位
      */
     public List<Position> getUserPositions(Long userId) {
-        return positions.values().stream()
-                .filter(position -> position.getUserId().equals(userId))
-                .toList();
+        List<Position> result = new ArrayList<>();
+        for (Map<Long, Position> symbolPositions : positions) {
+            Position position = symbolPositions != null ? symbolPositions.get(userId) : null;
+            if (position != null) {
+                result.add(position);
+            }
+        }
+        return result;
     }
-    
+
     /**
      * 获取标的所有仓位
      */
     public List<Position> getSymbolPositions(String symbol) {
-        return positions.values().stream()
-                .filter(position -> position.getSymbol().equals(symbol))
-                .toList();
+        Map<Long, Position> symbolPositions = symbolPositions(symbolIdOf(symbol));
+        return symbolPositions != null ? new ArrayList<>(symbolPositions.values()) : new ArrayList<>();
     }
-    
+
     /**
      * 获取标的的所有仓位映射
      */
     public Map<Long, Position> getAllPositions(String symbol) {
-        Map<Long, Position> symbolPositions = new ConcurrentHashMap<>();
-        positions.values().stream()
-                .filter(position -> position.getSymbol().equals(symbol))
-                .forEach(position -> symbolPositions.put(position.getUserId(), position));
+        Map<Long, Position> symbolPositions = symbolPositions(symbolIdOf(symbol));
+        return symbolPositions != null ? new ConcurrentHashMap<>(symbolPositions) : new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 更新仓位
+     */
+    public void updatePosition(Position position) {
+        int id = position.getSymbolId() >= 0 ? position.getSymbolId() : internSymbolId(position.getSymbol());
+        position.setSymbolId(id);
+        positionsOf(id).put(position.getUserId(), position);
+    }
+
+    private Map<Long, Position> symbolPositions(int symbolId) {
+        Map<Long, Position>[] table = positions;
+        return symbolId >= 0 && symbolId < table.length ? table[symbolId] : null;
+    }
+
+    private Map<Long, Position> positionsOf(int symbolId) {
+        Map<Long, Position> symbolPositions = positions[symbolId];
+        return symbolPositions != null ? symbolPositions : createPositions(symbolId);
+    }
+
+    private synchronized Map<Long, Position> createPositions(int symbolId) {
+        Map<Long, Position> symbolPositions = positions[symbolId];
+        if (symbolPositions == null) {
+            symbolPositions = new ConcurrentHashMap<>();
+            positions[symbolId] = symbolPositions;
+        }
         return symbolPositions;
     }
-    
+
+    // ===================== 标的 =====================
+
     /**
-     * 添加标的
+     * 添加标的（未分配 symbolId 时在此分配）
      */
-    public void addSymbol(Symbol symbol) {
-        symbols.put(symbol.getSymbol(), symbol);
-        log.info("添加标的: symbol={}", symbol.getSymbol());
+    public synchronized void addSymbol(Symbol symbol) {
+        int id = internSymbolId(symbol.getSymbol());
+        symbol.setSymbolId(id);
+        symbols[id] = symbol;
+        log.info("添加标的: symbol={}, symbolId={}", symbol.getSymbol(), id);
     }
-    
+
     /**
      * 获取标的
      */
     public Symbol getSymbol(String symbol) {
-        return symbols.get(symbol);
+        return getSymbol(symbolIdOf(symbol));
     }
-    
+
+    /**
+     * 按 symbolId 获取标的（热路径:一次数组访问）
+     */
+    public Symbol getSymbol(int symbolId) {
+        Symbol[] table = symbols;
+        return symbolId >= 0 && symbolId < table.length ? table[symbolId] : null;
+    }
+
     /**
      * 更新标的
      */
     public void updateSymbol(Symbol symbol) {
-        symbols.put(symbol.getSymbol(), symbol);
+        addSymbol(symbol);
         log.info("更新标的: symbol={}", symbol.getSymbol());
     }
-    
+
     /**
      * 移除标的
      */
-    public void removeSymbol(String symbol) {
-        Symbol removedSymbol = symbols.remove(symbol);
+    public synchronized void removeSymbol(String symbol) {
+        int id = symbolIdOf(symbol);
+        Symbol removedSymbol = id >= 0 ? symbols[id] : null;
         if (removedSymbol != null) {
+            symbols[id] = null;
             // 同时移除相关的订单薄和仓位
             removeOrderBook(symbol);
-            removeAllSymbolPositions(symbol);
+            removeAllSymbolPositions(id);
             log.info("移除标的: symbol={}", symbol);
         }
     }
-    
+
     /**
      * 获取所有标的
      */
     public Map<String, Symbol> getAllSymbols() {
-        return new ConcurrentHashMap<>(symbols);
+        Map<String, Symbol> result = new ConcurrentHashMap<>();
+        for (Symbol symbol : symbols) {
+            if (symbol != null) {
+                result.put(symbol.getSymbol(), symbol);
+            }
+        }
+        return result;
     }
-    
+
     /**
      * 获取活跃的标的
      */
     public List<Symbol> getActiveSymbols() {
-        return symbols.values().stream()
-                .filter(Symbol::isTradeable)
+        return Arrays.stream(symbols)
+                .filter(symbol -> symbol != null && symbol.isTradeable())
                 .toList();
     }
-    
-    /**
-     * 更新仓位
-     */
-    public void updatePosition(Position position) {
-        String key = generatePositionKey(position.getUserId(), position.getSymbol());
-        positions.put(key, position);
-    }
-    
+
     /**
      * 获取内存统计信息
      */
     public MemoryStats getMemoryStats() {
         MemoryStats stats = new MemoryStats();
-        stats.setOrderBookCount(orderBooks.size());
-        stats.setPositionCount(positions.size());
-        stats.setSymbolCount(symbols.size());
-        
-        // 计算总订单数
-        int totalOrders = orderBooks.values().stream()
-                .mapToInt(OrderBook::getOrderCount)
-                .sum();
+        int orderBookCount = 0;
+        int totalOrders = 0;
+        for (OrderBook orderBook : orderBooks) {
+            if (orderBook != null) {
+                orderBookCount++;
+                totalOrders += orderBook.getOrderCount();
+            }
+        }
+        int positionCount = 0;
+        for (Map<Long, Position> symbolPositions : positions) {
+            if (symbolPositions != null) {
+                positionCount += symbolPositions.size();
+            }
+        }
+        stats.setOrderBookCount(orderBookCount);
+        stats.setPositionCount(positionCount);
+        stats.setSymbolCount(getAllSymbols().size());
         stats.setTotalOrderCount(totalOrders);
-        
+
         return stats;
     }
-    
+
     /**
-     * 清空所有数据
+     * 清空所有数据（含 symbolId 分配表）
      */
-    public void clearAll() {
-        orderBooks.clear();
-        positions.clear();
-        symbols.clear();
+    public synchronized void clearAll() {
+        Arrays.fill(orderBooks, null);
+        Arrays.fill(positions, null);
+        Arrays.fill(symbols, null);
+        symbolIds.clear();
+        nextSymbolId = 0;
         log.info("清空所有内存数据");
     }
-    
-    /**
-     * 生成仓位键
-     */
-    private String generatePositionKey(Long userId, String symbol) {
-        return userId + "_" + symbol;
-    }
-    
+
     /**
-     * 移除标的所有仓位
+     * 移除标的所有仓位(须持有 {@code this} 锁调用)
      */
-    private void removeAllSymbolPositions(String symbol) {
-        positions.entrySet().removeIf(entry -> {
-            Position position = entry.getValue();
-            boolean shouldRemove = position.getSymbol().equals(symbol);
-            if (shouldRemove) {
-                log.debug("移除仓位: userId={}, symbol={}", position.getUserId(), symbol);
-            }
-            return shouldRemove;
-        });
+    private void removeAllSymbolPositions(int symbolId) {
+        Map<Long, Position> symbolPositions = positions[symbolId];
+        if (symbolPositions != null) {
+            log.debug("移除仓位: symbolId={}, count={}", symbolId, symbolPositions.size());
+            positions[symbolId] = null;
+        }
     }
-} 
\ No newline at end of file
+}
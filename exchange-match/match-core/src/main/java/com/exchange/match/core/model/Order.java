@@ -42,6 +42,11 @@ public class Order {
      */
     private String symbol;
 
+    /**
+     * 交易对的稠密 symbolId(入场时由 Symbol 带入;-1 = 未解析)
+     */
+    private int symbolId = -1;
+
     /**
      * 订单方向（买/卖）
      */
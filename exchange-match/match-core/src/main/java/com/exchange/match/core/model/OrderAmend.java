@@ -0,0 +1,68 @@
+package com.exchange.match.core.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 改单指令(引擎内部,定点 raw)。
+ *
+ * <p>由集群层按标的 scale 从 {@code EventAmendOrderReq} 换算:价格 priceScale、数量 baseScale、
+ * 追加冻结按 lockedAsset scale。{@code price} / {@code quantity} 为 0 表示不改。
+ */
+@Data
+public class OrderAmend {
+
+    /**
+     * 改单请求号(回包关联 / 解冻幂等键的一部分),必填
+     */
+    private String amendId;
+
+    /**
+     * 被改订单ID
+     */
+    private String orderId;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 交易对(须与原单一致)
+     */
+    private String symbol;
+
+    /**
+     * 新价格 raw;0 = 不改
+     */
+    private long price;
+
+    /**
+     * 新委托总量 raw(含已成交);0 = 不改
+     */
+    private long quantity;
+
+    /**
+     * 追加冻结的资产
+     */
+    private String lockedAsset;
+
+    /**
+     * 调用方为本次改单追加冻结的金额 raw(lockedAsset scale)
+     */
+    private long additionalLocked;
+
+    /**
+     * 改单时间(集群时间;重新排队时作为新的时间优先)
+     */
+    private LocalDateTime time;
+
+    /**
+     * 改单解冻的幂等键 {@code AMEND:{orderId}:{amendId}}。资产侧按 bizNo 全局去重 UNFREEZE,
+     * amendId 只在单个订单内唯一,必须带上 orderId;也不能占用订单终态解冻的 orderId 键。
+     */
+    public static String releaseKey(String orderId, String amendId) {
+        return "AMEND:" + orderId + ":" + amendId;
+    }
+}
@@ -27,6 +27,11 @@ public class OrderBook {
      */
     private String symbol;
 
+    /**
+     * 交易对的稠密 symbolId(由 MemoryManager 创建订单薄时写入;-1 = 未解析)
+     */
+    private int symbolId = -1;
+
     /**
      * 买单队列（价格从高到低排序，同价格按时间排序）。
      *
@@ -94,6 +99,9 @@ public class OrderBook {
      * 添加订单
      */
     public void addOrder(Order order) {
+        if (order.getSymbolId() < 0) {
+            order.setSymbolId(symbolId);
+        }
         orderMap.put(order.getOrderId(), order);
 
         userOrders.computeIfAbsent(order.getUserId(), k -> new CopyOnWriteArrayList<>()).add(order);
@@ -23,6 +23,11 @@ public class Position {
      */
     private String symbol;
     
+    /**
+     * 交易对的稠密 symbolId(-1 = 未解析)
+     */
+    private int symbolId = -1;
+    
     /**
      * 基础货币（如BTC）
      */
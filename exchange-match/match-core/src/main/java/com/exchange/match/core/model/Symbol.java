@@ -1,9 +1,13 @@
 package com.exchange.match.core.model;
 
 import com.exchange.common.math.FixedPoint;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
@@ -23,6 +27,12 @@ public class Symbol {
      * 交易对
      */
     private String symbol;
+
+    /**
+     * 撮合内部稠密 symbolId(上架时按日志顺序分配,随快照持久化;-1 = 未分配)。
+     * 热路径用它直接下标访问 {@code MemoryManager} 的按 id 数组,不再按字符串查找。
+     */
+    private int symbolId = -1;
     
     /**
      * 交易类型
@@ -137,6 +147,24 @@ public class Symbol {
      * 更新时间
      */
     private LocalDateTime updateTime;
+
+    // ========== 定点校验参数(由 tickSize/精度/数量限制/费率的 setter 维护,不序列化) ==========
+
+    /** 价格最小变动单位,priceScale raw;tickSize 为空时为 1(即价格精度本身)。 */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long tickSizeRaw = 1L;
+
+    /** 最小交易数量,baseScale raw(向上取整;为空时为 1)。 */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long minQuantityRaw = 1L;
+
+    /** 最大交易数量,baseScale raw(向下取整;为空或超出 long 时不设上限)。 */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long maxQuantityRaw = Long.MAX_VALUE;
+
+    /** 手续费率,FEE_SCALE raw。 */
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private long feeRateScaled;
     
     public Symbol() {
         this.createTime = LocalDateTime.now();
@@ -153,6 +181,7 @@ public class Symbol {
         
         // 初始化风险限额配置
         initializeRiskConfig();
+        compileRawLimits();
     }
     
     /**
@@ -248,8 +277,99 @@ public class Symbol {
 
     /** 手续费率定点值(feeRate × 10^FEE_SCALE)。feeRate 为空按 0 处理。 */
     public long feeRateRaw() {
-        if (feeRate == null) return 0L;
-        return FixedPoint.fromBigDecimal(feeRate, FEE_SCALE, RoundingMode.HALF_UP);
+        return feeRateScaled;
+    }
+
+    /** 价格最小变动单位(priceScale raw)。 */
+    public long tickSizeRaw() {
+        return tickSizeRaw;
+    }
+
+    /**
+     * 定点校验价格:{@code price > 0} 且为 tick 的整数倍。
+     * 与 {@link #isValidPrice(BigDecimal)} 等价,撮合入口使用,不产生 BigDecimal。
+     *
+     * @param priceRaw priceScale 下的价格 raw
+     */
+    public boolean isValidPriceRaw(long priceRaw) {
+        return priceRaw > 0 && priceRaw % tickSizeRaw == 0;
+    }
+
+    /**
+     * 定点校验数量:{@code 0 < quantity} 且在 [minQuantity, maxQuantity] 内。
+     * baseScale raw 本身就是 quantityPrecision 精度,无需再校验小数位。
+     *
+     * @param qtyRaw baseScale 下的数量 raw
+     */
+    public boolean isValidQuantityRaw(long qtyRaw) {
+        return qtyRaw > 0 && qtyRaw >= minQuantityRaw && qtyRaw <= maxQuantityRaw;
+    }
+
+    public void setTickSize(BigDecimal tickSize) {
+        this.tickSize = tickSize;
+        compileRawLimits();
+    }
+
+    public void setPricePrecision(Integer pricePrecision) {
+        this.pricePrecision = pricePrecision;
+        compileRawLimits();
+    }
+
+    public void setQuantityPrecision(Integer quantityPrecision) {
+        this.quantityPrecision = quantityPrecision;
+        compileRawLimits();
+    }
+
+    public void setMinQuantity(BigDecimal minQuantity) {
+        this.minQuantity = minQuantity;
+        compileRawLimits();
+    }
+
+    public void setMaxQuantity(BigDecimal maxQuantity) {
+        this.maxQuantity = maxQuantity;
+        compileRawLimits();
+    }
+
+    public void setFeeRate(BigDecimal feeRate) {
+        this.feeRate = feeRate;
+        compileRawLimits();
+    }
+
+    /**
+     * 按当前 BigDecimal 配置重算定点校验参数。上架、快照恢复(Jackson 走 setter)和
+     * 配置变更都会经过 setter,因此 raw 参数始终与 BigDecimal 配置一致。
+     */
+    private void compileRawLimits() {
+        this.tickSizeRaw = tickSize != null && tickSize.signum() > 0
+                ? tickRaw(tickSize, priceScale()) : 1L;
+        this.minQuantityRaw = minQuantity != null
+                ? Math.max(1L, boundRaw(minQuantity, RoundingMode.UP)) : 1L;
+        this.maxQuantityRaw = maxQuantity != null
+                ? boundRaw(maxQuantity, RoundingMode.DOWN) : Long.MAX_VALUE;
+        this.feeRateScaled = feeRate != null
+                ? FixedPoint.fromBigDecimal(feeRate, FEE_SCALE, RoundingMode.HALF_UP) : 0L;
+    }
+
+    /**
+     * tick 在 priceScale 下的整数步长。tick 比价格精度更细时(如 scale 2、tick 0.005),
+     * 价格 raw 是 tick 倍数 ⇔ 是 tick 最简分数分子的倍数,取分子即可保持与 BigDecimal 校验一致。
+     */
+    private static long tickRaw(BigDecimal tick, int scale) {
+        BigDecimal t = tick.movePointRight(scale).stripTrailingZeros();
+        if (t.scale() <= 0) {
+            return t.longValueExact();
+        }
+        BigInteger unscaled = t.unscaledValue();
+        return unscaled.divide(unscaled.gcd(BigInteger.TEN.pow(t.scale()))).longValueExact();
+    }
+
+    /** 数量边界 → baseScale raw;超出 long 视为无上限。 */
+    private long boundRaw(BigDecimal bound, RoundingMode rm) {
+        try {
+            return FixedPoint.fromBigDecimal(bound, baseScale(), rm);
+        } catch (ArithmeticException e) {
+            return bound.signum() > 0 ? Long.MAX_VALUE : 0L;
+        }
     }
 
     /**
@@ -0,0 +1,510 @@
+package com.exchange.match.core.service;
+
+import com.exchange.common.id.SnowflakeId;
+import com.exchange.common.math.FixedPoint;
+import com.exchange.match.core.memory.MemoryManager;
+import com.exchange.match.core.model.LiquidationRequest;
+import com.exchange.match.core.model.Order;
+import com.exchange.match.core.model.OrderBook;
+import com.exchange.match.core.model.Position;
+import com.exchange.match.core.model.Symbol;
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.enums.OrderSide;
+import com.exchange.match.enums.PositionAction;
+import com.exchange.match.enums.PositionSide;
+import com.exchange.match.enums.TradeSide;
+import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.Trade;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量强平执行器（强平潮合并撮合）
+ *
+ * <h3>为什么需要</h3>
+ * <p>{@code LiquidationEventHandler} / {@link RiskManagementService#executeTieredLiquidation} 逐用户执行：
+ * 每个用户（每一档）各建一张平仓单、各扫一遍订单薄、各产生一批成交。
+ * 插针行情下成千上万个仓位同时强平，订单薄被重复遍历 N 次，结算消息也放大 N 倍。
+ *
+ * <h3>合并流程</h3>
+ * <ol>
+ *   <li>按 (symbol, 平仓方向) 分组，同组平仓量定点累加（净额）。</li>
+ *   <li>每组只扫一次对手盘：逐档吃单，更新 maker 成交量，完全成交的 maker 出簿。</li>
+ *   <li>总成交量按各仓位请求量<b>按比例</b>回分（向下取整，余数按请求顺序逐个补 1 raw，确定性）。</li>
+ *   <li>分配量与 maker 成交按顺序归并，生成带真实双方 userId 的成交（至多 N+M-1 笔），
+ *       汇总进<b>一条</b> {@link MatchResponse} 作为合并结算批次。</li>
+ * </ol>
+ *
+ * <p>价格档位按请求顺序分配（先到先得更优价），调用方如需按紧急程度优先应事先排好序。
+ * 限价强平有独立的价格约束，不参与合并，直接返回错误由调用方走单用户路径。
+ * 仅合约标的（{@link Symbol#supportsPosition()}）可强平。
+ *
+ * <p>持仓：被强平方按成交量扣减；maker 按其开平仓动作同步开 / 平仓（与撮合
+ * {@code MatchEngineServiceImpl#updatePositionsFromTrade} 口径一致），每笔成交带双方持仓变化量。
+ */
+@Slf4j
+@Service
+public class BatchLiquidationExecutor {
+
+    @Autowired
+    private MemoryManager memoryManager;
+
+    /**
+     * 批量执行强平。
+     *
+     * @param requests 强平请求（顺序即价格档位分配顺序）
+     * @return 批量结果：每个请求的结果 + 一条合并结算批次
+     */
+    public BatchLiquidationResult executeBatch(List<LiquidationRequest> requests) {
+        BatchLiquidationResult result = new BatchLiquidationResult();
+        result.setStartTime(System.currentTimeMillis());
+
+        // (symbol, side) → 平仓腿；LinkedHashMap 保证分组及组内顺序与请求顺序一致（确定性）
+        Map<String, List<LiquidationLeg>> groups = new LinkedHashMap<>();
+        Set<String> positionKeys = new HashSet<>();
+        for (LiquidationRequest request : requests) {
+            // 同一仓位只允许一条腿，否则各腿按同一持仓量封顶会超平
+            if (!positionKeys.add(request.getUserId() + "_" + request.getSymbol())) {
+                result.putResult(request, failedResult("同一仓位重复强平请求"));
+                continue;
+            }
+            LiquidationLeg leg = createLeg(request, result);
+            if (leg != null) {
+                groups.computeIfAbsent(request.getSymbol() + "|" + leg.side, k -> new ArrayList<>()).add(leg);
+            }
+        }
+
+        List<Trade> allTrades = new ArrayList<>();
+        for (List<LiquidationLeg> legs : groups.values()) {
+            allTrades.addAll(executeGroup(legs, result));
+            result.setBookSweeps(result.getBookSweeps() + 1);
+        }
+
+        result.setSettlementBatch(buildSettlementBatch(allTrades, groups));
+        result.setEndTime(System.currentTimeMillis());
+
+        log.info("批量强平完成，请求数: {}, 合并组数: {}, 成交笔数: {}, 耗时: {}ms",
+                requests.size(), result.getBookSweeps(), allTrades.size(), result.getDuration());
+        return result;
+    }
+
+    /**
+     * 校验请求并换算平仓量；不可合并时直接写入失败结果并返回 null。
+     */
+    private LiquidationLeg createLeg(LiquidationRequest request, BatchLiquidationResult result) {
+        if (request.isLimitLiquidation()) {
+            result.putResult(request, failedResult("限价强平不参与批量合并"));
+            return null;
+        }
+
+        Symbol symbol = memoryManager.getSymbol(request.getSymbol());
+        if (symbol == null) {
+            result.putResult(request, failedResult("交易对不存在: " + request.getSymbol()));
+            return null;
+        }
+
+        if (!symbol.supportsPosition()) {
+            result.putResult(request, failedResult("非合约标的不支持强平: " + request.getSymbol()));
+            return null;
+        }
+
+        Position position = memoryManager.getPosition(request.getUserId(), request.getSymbol());
+        if (position == null || position.getSide() == null
+                || position.getQuantity().compareTo(BigDecimal.ZERO) <= 0) {
+            result.putResult(request, failedResult("无持仓可平"));
+            return null;
+        }
+
+        BigDecimal quantity = request.isPartialLiquidation()
+                ? request.getQuantity().min(position.getQuantity())
+                : position.getQuantity();
+        long quantityRaw = FixedPoint.fromBigDecimal(quantity, symbol.baseScale(), RoundingMode.DOWN);
+        if (quantityRaw <= 0) {
+            result.putResult(request, failedResult("强平数量为零"));
+            return null;
+        }
+
+        OrderSide side = request.getSide() != null ? request.getSide()
+                : position.getSide() == PositionSide.LONG ? OrderSide.SELL : OrderSide.BUY;
+
+        request.setStatus(LiquidationRequest.LiquidationStatus.EXECUTING);
+        request.setExecuteTime(LocalDateTime.now());
+        return new LiquidationLeg(request, position, symbol, side, quantityRaw);
+    }
+
+    /**
+     * 执行一组同向强平：单次扫簿 → 按比例分配 → 归并生成成交 → 更新持仓。
+     */
+    private List<Trade> executeGroup(List<LiquidationLeg> legs, BatchLiquidationResult result) {
+        Symbol symbol = legs.get(0).symbol;
+        OrderSide side = legs.get(0).side;
+
+        long totalRaw = 0L;
+        for (LiquidationLeg leg : legs) {
+            totalRaw = Math.addExact(totalRaw, leg.quantityRaw);
+        }
+
+        List<MakerFill> fills = sweepBook(symbol, side, totalRaw);
+        long filledRaw = 0L;
+        for (MakerFill fill : fills) {
+            filledRaw = Math.addExact(filledRaw, fill.quantity);
+        }
+
+        allocateProRata(legs, totalRaw, filledRaw);
+        List<Trade> trades = distributeFills(legs, fills, symbol);
+
+        for (LiquidationLeg leg : legs) {
+            applyToPosition(leg);
+            result.putResult(leg.request, buildLegResult(leg));
+        }
+
+        log.info("批量强平组完成，交易对: {}, 方向: {}, 仓位数: {}, 合并数量: {}, 成交数量: {}, 对手单数: {}",
+                symbol.getSymbol(), side, legs.size(),
+                FixedPoint.toBigDecimal(totalRaw, symbol.baseScale()),
+                FixedPoint.toBigDecimal(filledRaw, symbol.baseScale()), fills.size());
+        return trades;
+    }
+
+    /**
+     * 单次扫描对手盘（市价，价格优先 + 时间优先），累计吃满 {@code quantityRaw} 为止。
+     *
+     * <p>maker 成交量在此更新，冻结消耗在生成成交时按实际金额扣减；完全成交的 maker 出簿。
+     */
+    private List<MakerFill> sweepBook(Symbol symbol, OrderSide side, long quantityRaw) {
+        OrderBook orderBook = memoryManager.getOrCreateOrderBook(symbol.getSymbol());
+        Map<Long, ? extends List<Order>> opposite = side == OrderSide.SELL
+                ? orderBook.getBuyOrders() : orderBook.getSellOrders();
+
+        List<MakerFill> fills = new ArrayList<>();
+        long remaining = quantityRaw;
+        for (Map.Entry<Long, ? extends List<Order>> level : opposite.entrySet()) {
+            if (remaining <= 0) {
+                break;
+            }
+            for (Order maker : new ArrayList<>(level.getValue())) {
+                if (remaining <= 0) {
+                    break;
+                }
+                if (maker.getRemainingQuantity() <= 0) {
+                    continue;
+                }
+                long fillQuantity = Math.min(remaining, maker.getRemainingQuantity());
+                maker.updateFilledQuantity(fillQuantity);
+                fills.add(new MakerFill(maker, level.getKey(), fillQuantity));
+
+                orderBook.updateLastPrice(level.getKey());
+                orderBook.addVolume(fillQuantity);
+                remaining = Math.subtractExact(remaining, fillQuantity);
+            }
+        }
+
+        for (MakerFill fill : fills) {
+            if (fill.maker.getRemainingQuantity() <= 0) {
+                orderBook.removeOrder(fill.maker.getOrderId());
+            } else {
+                orderBook.updateOrder(fill.maker);
+            }
+        }
+        return fills;
+    }
+
+    /**
+     * 按请求量比例分配总成交量：{@code alloc_i = floor(q_i × filled / total)}，
+     * 取整余数（必小于腿数）按请求顺序逐个补 1 raw。
+     *
+     * <p>未全部成交时 {@code alloc_i < q_i}，补 1 后仍不超过请求量。
+     */
+    private void allocateProRata(List<LiquidationLeg> legs, long totalRaw, long filledRaw) {
+        long allocated = 0L;
+        for (LiquidationLeg leg : legs) {
+            leg.allocatedRaw = filledRaw == totalRaw ? leg.quantityRaw
+                    : FixedPoint.mulDiv(leg.quantityRaw, filledRaw, totalRaw, RoundingMode.DOWN);
+            allocated = Math.addExact(allocated, leg.allocatedRaw);
+        }
+        long remainder = filledRaw - allocated;
+        for (int i = 0; remainder > 0 && i < legs.size(); i++) {
+            LiquidationLeg leg = legs.get(i);
+            if (leg.allocatedRaw < leg.quantityRaw) {
+                leg.allocatedRaw++;
+                remainder--;
+            }
+        }
+    }
+
+    /**
+     * 将各腿分配量与 maker 成交按顺序归并，每段生成一笔成交。
+     */
+    private List<Trade> distributeFills(List<LiquidationLeg> legs, List<MakerFill> fills, Symbol symbol) {
+        List<Trade> trades = new ArrayList<>();
+        int fillIndex = 0;
+        long fillLeft = fills.isEmpty() ? 0L : fills.get(0).quantity;
+
+        for (LiquidationLeg leg : legs) {
+            long legLeft = leg.allocatedRaw;
+            while (legLeft > 0 && fillIndex < fills.size()) {
+                MakerFill fill = fills.get(fillIndex);
+                long pieceRaw = Math.min(legLeft, fillLeft);
+
+                Trade trade = createTrade(leg, fill, pieceRaw, symbol);
+                trades.add(trade);
+                leg.trades.add(trade);
+
+                legLeft -= pieceRaw;
+                fillLeft -= pieceRaw;
+                if (fillLeft == 0 && ++fillIndex < fills.size()) {
+                    fillLeft = fills.get(fillIndex).quantity;
+                }
+            }
+        }
+        return trades;
+    }
+
+    /**
+     * 创建成交记录：强平腿为吃单方（平仓），maker 按自身挂单价成交。
+     */
+    private Trade createTrade(LiquidationLeg leg, MakerFill fill, long quantityRaw, Symbol symbol) {
+        Order maker = fill.maker;
+        boolean liquidationBuys = leg.side == OrderSide.BUY;
+
+        Trade trade = new Trade();
+        trade.setTradeId(SnowflakeId.nextIdStr());
+        trade.setSymbol(symbol.getSymbol());
+        trade.setSymbolId(symbol.getSymbolId());
+        trade.setBuyOrderId(liquidationBuys ? leg.orderId : maker.getOrderId());
+        trade.setSellOrderId(liquidationBuys ? maker.getOrderId() : leg.orderId);
+        trade.setBuyUserId(liquidationBuys ? leg.request.getUserId() : maker.getUserId());
+        trade.setSellUserId(liquidationBuys ? maker.getUserId() : leg.request.getUserId());
+        trade.setPrice(FixedPoint.toBigDecimal(fill.price, symbol.priceScale()));
+        trade.setQuantity(FixedPoint.toBigDecimal(quantityRaw, symbol.baseScale()));
+        trade.setSide(liquidationBuys ? TradeSide.BUY : TradeSide.SELL);
+        trade.setBuyPositionAction(liquidationBuys ? PositionAction.CLOSE : maker.getPositionAction());
+        trade.setSellPositionAction(liquidationBuys ? maker.getPositionAction() : PositionAction.CLOSE);
+
+        long amountRaw = symbol.calcAmountRaw(fill.price, quantityRaw);
+        long feeRaw    = symbol.calcFeeRaw(amountRaw);
+        int quoteScale = symbol.quoteScaleOrDefault();
+        trade.setAmount(FixedPoint.toBigDecimal(amountRaw, quoteScale));
+        trade.setBuyFee(FixedPoint.toBigDecimal(feeRaw, quoteScale));
+        trade.setSellFee(FixedPoint.toBigDecimal(feeRaw, quoteScale));
+        trade.setTradeTime(LocalDateTime.now());
+
+        // 持仓变化：被强平方平仓（持仓在整组成交后由 applyToPosition 扣减），maker 按其动作即时开 / 平仓
+        BigDecimal quantity = trade.getQuantity();
+        BigDecimal legChange = positionChange(leg.side, PositionAction.CLOSE, leg.position.getSide(), quantity);
+        BigDecimal makerChange = applyToMakerPosition(maker, symbol, quantity, trade.getPrice());
+        trade.setBuyPositionChange(liquidationBuys ? legChange : makerChange);
+        trade.setSellPositionChange(liquidationBuys ? makerChange : legChange);
+
+        // maker 冻结额按实际结算额递减（与 AbstractOrderMatcher 口径一致）
+        maker.consumeLocked(liquidationBuys ? quantityRaw : Math.addExact(amountRaw, feeRaw));
+
+        leg.filledRaw = Math.addExact(leg.filledRaw, quantityRaw);
+        leg.amountRaw = Math.addExact(leg.amountRaw, amountRaw);
+        leg.feeRaw = Math.addExact(leg.feeRaw, feeRaw);
+        return trade;
+    }
+
+    /**
+     * 按实际成交量扣减持仓（与单用户强平口径一致：清零时重置方向与均价）。
+     */
+    private void applyToPosition(LiquidationLeg leg) {
+        if (leg.filledRaw <= 0) {
+            return;
+        }
+        Position position = leg.position;
+        BigDecimal closed = FixedPoint.toBigDecimal(leg.filledRaw, leg.symbol.baseScale());
+        leg.realizedPnl = calculateRealizedPnl(position, leg.averagePrice(), closed);
+
+        position.setQuantity(position.getQuantity().subtract(closed));
+        if (position.getQuantity().compareTo(BigDecimal.ZERO) <= 0) {
+            position.setQuantity(BigDecimal.ZERO);
+            position.setSide(null);
+            position.setAveragePrice(BigDecimal.ZERO);
+            position.setUnrealizedPnl(BigDecimal.ZERO);
+        }
+        memoryManager.updatePosition(position);
+    }
+
+    /**
+     * maker 侧持仓随成交开 / 平仓，返回持仓变化量。
+     *
+     * <p>maker 已在簿上成交、无法回滚，持仓更新失败（如平仓量超过持仓）只记错误不中断整批。
+     */
+    private BigDecimal applyToMakerPosition(Order maker, Symbol symbol, BigDecimal quantity, BigDecimal price) {
+        PositionAction action = maker.getPositionAction();
+        if (action == null) {
+            return BigDecimal.ZERO;
+        }
+        Position position = memoryManager.getOrCreatePosition(maker.getUserId(), symbol.getSymbolId(), symbol.getSymbol());
+        BigDecimal change = positionChange(maker.getSide(), action, position.getSide(), quantity);
+        try {
+            if (action.isOpen()) {
+                position.openPosition(quantity, price);
+            } else {
+                position.closePosition(quantity, price);
+            }
+            memoryManager.updatePosition(position);
+        } catch (IllegalArgumentException e) {
+            log.error("强平对手方持仓更新失败，userId: {}, orderId: {}, 数量: {}, 原因: {}",
+                    maker.getUserId(), maker.getOrderId(), quantity, e.getMessage());
+        }
+        return change;
+    }
+
+    /** 单方持仓变化量（与撮合成交 buy/sellPositionChange 口径一致）；开平仓动作不合法记 0。 */
+    private static BigDecimal positionChange(OrderSide side, PositionAction action,
+                                             PositionSide currentSide, BigDecimal quantity) {
+        PositionAction.PositionChangeResult change =
+                PositionAction.calculatePositionChange(side, action, currentSide, quantity);
+        return change.isValid() ? change.getQuantityChange() : BigDecimal.ZERO;
+    }
+
+    /**
+     * 计算已实现盈亏
+     */
+    private BigDecimal calculateRealizedPnl(Position position, BigDecimal closePrice, BigDecimal closeQuantity) {
+        BigDecimal openPrice = position.getAveragePrice();
+        if (position.getSide() == PositionSide.LONG) {
+            return closeQuantity.multiply(closePrice.subtract(openPrice));
+        } else {
+            return closeQuantity.multiply(openPrice.subtract(closePrice));
+        }
+    }
+
+    private LiquidationRequest.LiquidationResult buildLegResult(LiquidationLeg leg) {
+        LiquidationRequest.LiquidationResult legResult = new LiquidationRequest.LiquidationResult();
+        int baseScale = leg.symbol.baseScale();
+        int quoteScale = leg.symbol.quoteScaleOrDefault();
+
+        legResult.setSuccessQuantity(FixedPoint.toBigDecimal(leg.filledRaw, baseScale));
+        legResult.setFailedQuantity(FixedPoint.toBigDecimal(leg.quantityRaw - leg.filledRaw, baseScale));
+        legResult.setTotalAmount(FixedPoint.toBigDecimal(leg.amountRaw, quoteScale));
+        legResult.setFee(FixedPoint.toBigDecimal(leg.feeRaw, quoteScale));
+        legResult.setAveragePrice(leg.averagePrice());
+        legResult.setRealizedPnl(leg.realizedPnl);
+        legResult.setDetails(leg.filledRaw > 0
+                ? "批量强平成功，成交" + leg.trades.size() + "笔"
+                : "批量强平失败：无成交");
+        legResult.setExecuteTime(leg.request.getExecuteTime());
+        legResult.setCompleteTime(LocalDateTime.now());
+
+        leg.request.setStatus(leg.filledRaw > 0
+                ? LiquidationRequest.LiquidationStatus.COMPLETED
+                : LiquidationRequest.LiquidationStatus.FAILED);
+        leg.request.setCompleteTime(legResult.getCompleteTime());
+        return legResult;
+    }
+
+    private LiquidationRequest.LiquidationResult failedResult(String errorMessage) {
+        LiquidationRequest.LiquidationResult failed = new LiquidationRequest.LiquidationResult();
+        failed.setSuccessQuantity(BigDecimal.ZERO);
+        failed.setTotalAmount(BigDecimal.ZERO);
+        failed.setAveragePrice(BigDecimal.ZERO);
+        failed.setFee(BigDecimal.ZERO);
+        failed.setRealizedPnl(BigDecimal.ZERO);
+        failed.setErrorMessage(errorMessage);
+        return failed;
+    }
+
+    /**
+     * 合并结算批次：整批成交放入一条 {@link MatchResponse}，下游一次 BATCH_SETTLE 完成结算。
+     */
+    private MatchResponse buildSettlementBatch(List<Trade> trades, Map<String, List<LiquidationLeg>> groups) {
+        MatchResponse response = new MatchResponse();
+        response.setOrderId("LIQ_BATCH_" + SnowflakeId.nextIdStr());
+        if (groups.size() == 1) {
+            response.setSymbol(groups.values().iterator().next().get(0).symbol.getSymbol());
+        }
+        response.setTrades(trades);
+
+        boolean allFilled = true;
+        for (List<LiquidationLeg> legs : groups.values()) {
+            for (LiquidationLeg leg : legs) {
+                allFilled &= leg.filledRaw == leg.quantityRaw;
+            }
+        }
+        response.setStatus(trades.isEmpty() ? MatchStatus.REJECTED
+                : allFilled ? MatchStatus.SUCCESS : MatchStatus.PARTIALLY_FILLED);
+        response.setCreateTime(LocalDateTime.now());
+        response.setProcessTime(LocalDateTime.now());
+        return response;
+    }
+
+    // =========================================================================
+    // 内部类型
+    // =========================================================================
+
+    /** 一个待平仓位（批量中的一条腿）。 */
+    private static final class LiquidationLeg {
+        final LiquidationRequest request;
+        final Position position;
+        final Symbol symbol;
+        final OrderSide side;
+        final long quantityRaw;
+        final String orderId;
+        final List<Trade> trades = new ArrayList<>();
+        long allocatedRaw;
+        long filledRaw;
+        long amountRaw;
+        long feeRaw;
+        BigDecimal realizedPnl = BigDecimal.ZERO;
+
+        LiquidationLeg(LiquidationRequest request, Position position, Symbol symbol,
+                       OrderSide side, long quantityRaw) {
+            this.request = request;
+            this.position = position;
+            this.symbol = symbol;
+            this.side = side;
+            this.quantityRaw = quantityRaw;
+            this.orderId = "LIQ_" + request.getLiquidationId() + "_" + SnowflakeId.nextIdStr();
+        }
+
+        /** 成交均价（priceScale，HALF_UP）；无成交为 0。 */
+        BigDecimal averagePrice() {
+            if (filledRaw <= 0) {
+                return BigDecimal.ZERO;
+            }
+            return FixedPoint.toBigDecimal(amountRaw, symbol.quoteScaleOrDefault())
+                    .divide(FixedPoint.toBigDecimal(filledRaw, symbol.baseScale()),
+                            symbol.priceScale(), RoundingMode.HALF_UP);
+        }
+    }
+
+    /** 扫簿得到的一段 maker 成交（price 为 maker 挂单价 raw）。 */
+    private record MakerFill(Order maker, long price, long quantity) {}
+
+    /**
+     * 批量强平结果
+     */
+    @lombok.Data
+    public static class BatchLiquidationResult {
+        private long startTime;
+        private long endTime;
+        /** 扫簿次数（= 合并后的 (symbol, 方向) 组数）。 */
+        private int bookSweeps;
+        /** liquidationId → 单个请求的结果（顺序同请求）。 */
+        private Map<String, LiquidationRequest.LiquidationResult> results = new LinkedHashMap<>();
+        /** 合并结算批次（整批成交）。 */
+        private MatchResponse settlementBatch;
+
+        public void putResult(LiquidationRequest request, LiquidationRequest.LiquidationResult result) {
+            request.setResult(result);
+            results.put(request.getLiquidationId(), result);
+        }
+
+        public long getDuration() {
+            return endTime - startTime;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.exchange.match.core.service;
 
 import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.MatchResponseCodec;
 import com.exchange.match.enums.MatchStatus;
 import com.exchange.match.model.Trade;
 
@@ -201,9 +202,7 @@ public class EventReplayService {
      */
     private void applyFragment(DirectBuffer buf, int offset, int length, AtomicInteger count) {
         try {
-            byte[] bytes = new byte[length];
-            buf.getBytes(offset, bytes);
-            MatchResponse response = objectMapper.readValue(bytes, MatchResponse.class);
+            MatchResponse response = MatchResponseCodec.read(buf, offset, length, objectMapper);
             count.incrementAndGet();
 
             // 1. Apply all trade fills
@@ -2,7 +2,6 @@ package com.exchange.match.core.service;
 
 import com.exchange.match.core.model.Order;
 import com.exchange.match.core.model.Position;
-import com.exchange.match.core.model.SymbolRiskLimitConfig;
 import com.exchange.match.core.model.RiskLevel;
 import com.exchange.match.core.memory.MemoryManager;
 import lombok.extern.slf4j.Slf4j;
@@ -225,15 +224,10 @@ public class LeverageAdjustmentService {
      * @return 最大杠杆
      */
     private BigDecimal getMaxLeverage(String symbol, boolean isCrossMode) {
-        // 获取风险限额配置
-        SymbolRiskLimitConfig riskConfig = symbolRiskLimitConfigManager.getRiskLimitConfig(symbol);
-        
-        // 撮合系统使用固定的NORMAL风险等级，确保系统稳定可控
-        RiskLevel currentRiskLevel = RiskLevel.NORMAL;
-        
-        // 同一个标的全仓逐仓使用同一个风险限额配置
-        // 使用逐仓模式的配置作为统一配置，因为逐仓模式通常更保守
-        return riskConfig.getIsolatedModeConfig().getMaxLeverage(currentRiskLevel);
+        // 撮合系统使用固定的NORMAL风险等级，确保系统稳定可控；
+        // 全仓逐仓统一取逐仓配置，走预编译档位表的 symbolId 查询
+        int symbolId = symbolRiskLimitConfigManager.resolveSymbolId(symbol);
+        return symbolRiskLimitConfigManager.getMaxLeverage(symbolId, RiskLevel.NORMAL);
     }
     
     /**
@@ -23,6 +23,11 @@ public interface MatchEngineService {
      */
     MatchResponse cancelOrder(String orderId, Long userId);
 
+    /**
+     * 改单(原子 cancel-replace):同价减量保留队列位置,改价或加量重新撮合并排到队尾。
+     */
+    MatchResponse amendOrder(OrderAmend amend);
+
     /** 撤销用户在所有标的的全部挂单(确定性,聚合解冻)。 */
     MatchResponse cancelUserOrders(Long userId);
 
@@ -78,21 +78,19 @@ public class OrderValidationService {
                 return result;
             }
             
-            // 4. 验证价格(Order 为定点 long,按 symbol scale 转 BigDecimal 交冷校验)
-            java.math.BigDecimal priceBdVal = com.exchange.common.math.FixedPoint.toBigDecimal(order.getPrice(), symbol.priceScale());
-            if (!symbol.isValidPrice(priceBdVal)) {
+            // 4. 验证价格(Order 为定点 long,直接做定点校验;BigDecimal 只用于错误文案)
+            if (!symbol.isValidPriceRaw(order.getPrice())) {
                 result.setValid(false);
                 result.setErrorCode("INVALID_PRICE");
-                result.setErrorMessage("价格无效: " + priceBdVal);
+                result.setErrorMessage("价格无效: " + com.exchange.common.math.FixedPoint.toBigDecimal(order.getPrice(), symbol.priceScale()));
                 return result;
             }
 
             // 5. 验证数量
-            java.math.BigDecimal qtyBdVal = com.exchange.common.math.FixedPoint.toBigDecimal(order.getQuantity(), symbol.baseScale());
-            if (!symbol.isValidQuantity(qtyBdVal)) {
+            if (!symbol.isValidQuantityRaw(order.getQuantity())) {
                 result.setValid(false);
                 result.setErrorCode("INVALID_QUANTITY");
-                result.setErrorMessage("数量无效: " + qtyBdVal);
+                result.setErrorMessage("数量无效: " + com.exchange.common.math.FixedPoint.toBigDecimal(order.getQuantity(), symbol.baseScale()));
                 return result;
             }
             
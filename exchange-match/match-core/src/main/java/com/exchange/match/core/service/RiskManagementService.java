@@ -327,7 +327,7 @@ public class RiskManagementService {
     }
     
     /**
-     * 获取档位平仓比例
+     * 获取档位平仓比例（走 symbolId 查询）
      */
     private BigDecimal getLiquidationRatioForTier(RiskLevel riskLevel, LiquidationRequest liquidationRequest) {
         String symbol = liquidationRequest.getSymbol();
@@ -340,11 +340,12 @@ public class RiskManagementService {
         }
         
         // 根据仓位模式获取相应的强平比例
+        int symbolId = symbolRiskLimitConfigManager.resolveSymbolId(position.getSymbolId(), symbol);
         BigDecimal liquidationRatio;
         if (position.isIsolatedMode()) {
-            liquidationRatio = symbolRiskLimitConfigManager.getIsolatedTieredLiquidationRatio(symbol, riskLevel);
+            liquidationRatio = symbolRiskLimitConfigManager.getIsolatedTieredLiquidationRatio(symbolId, riskLevel);
         } else {
-            liquidationRatio = symbolRiskLimitConfigManager.getCrossTieredLiquidationRatio(symbol, riskLevel);
+            liquidationRatio = symbolRiskLimitConfigManager.getCrossTieredLiquidationRatio(symbolId, riskLevel);
         }
         
         log.debug("获取档位平仓比例: symbol={}, riskLevel={}, positionMode={}, ratio={}", 
@@ -370,13 +371,13 @@ public class RiskManagementService {
      * 检查是否启用分档平仓
      */
     private boolean isTieredLiquidationEnabled(Position position) {
-        String symbol = position.getSymbol();
+        int symbolId = symbolRiskLimitConfigManager.resolveSymbolId(position.getSymbolId(), position.getSymbol());
         
         // 根据仓位模式检查是否启用分档平仓
         if (position.isIsolatedMode()) {
-            return symbolRiskLimitConfigManager.isIsolatedTieredLiquidationEnabled(symbol);
+            return symbolRiskLimitConfigManager.isIsolatedTieredLiquidationEnabled(symbolId);
         } else {
-            return symbolRiskLimitConfigManager.isCrossTieredLiquidationEnabled(symbol);
+            return symbolRiskLimitConfigManager.isCrossTieredLiquidationEnabled(symbolId);
         }
     }
     
@@ -384,13 +385,13 @@ public class RiskManagementService {
      * 获取最大分档步骤数
      */
     private int getMaxTieredSteps(Position position) {
-        String symbol = position.getSymbol();
+        int symbolId = symbolRiskLimitConfigManager.resolveSymbolId(position.getSymbolId(), position.getSymbol());
         
         // 根据仓位模式获取最大步骤数
         if (position.isIsolatedMode()) {
-            return symbolRiskLimitConfigManager.getIsolatedMaxTieredSteps(symbol);
+            return symbolRiskLimitConfigManager.getIsolatedMaxTieredSteps(symbolId);
         } else {
-            return symbolRiskLimitConfigManager.getCrossMaxTieredSteps(symbol);
+            return symbolRiskLimitConfigManager.getCrossMaxTieredSteps(symbolId);
         }
     }
     
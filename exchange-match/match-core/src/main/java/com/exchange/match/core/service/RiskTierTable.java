@@ -0,0 +1,211 @@
+package com.exchange.match.core.service;
+
+import com.exchange.common.math.FixedPoint;
+import com.exchange.match.core.model.RiskLevel;
+import com.exchange.match.core.model.SymbolRiskLimitConfig;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * 预编译的风险档位查找表（不可变）。
+ *
+ * <p>把每个 symbol 的 {@link SymbolRiskLimitConfig} 按 {@code symbolId × RiskLevel.ordinal}
+ * 展平成并行数组：比例/阈值/杠杆同时保存 BigDecimal（兼容既有接口，零分配返回）
+ * 与定点 raw（{@link #RATIO_SCALE} 位小数）。查询只需一次下标计算和一次数组读取。
+ *
+ * <p>symbolId 默认与 {@link com.exchange.match.core.memory.MemoryManager} 共用同一 id 空间
+ * （由调用方传入分配函数），持有 Position / Order 的调用方可直接用其上的 symbolId 查表。
+ *
+ * <p>实例一经构建不再修改；更新时由 {@link SymbolRiskLimitConfigManager} 复制出新表、
+ * 编译变更的 symbol，再通过 volatile 引用整体发布，读者永远看到一致的整表。
+ */
+final class RiskTierTable {
+
+    /** 比例、阈值、杠杆 raw 的统一 scale。 */
+    static final int RATIO_SCALE = 8;
+
+    static final int LEVELS = RiskLevel.values().length;
+
+    private static final RiskLevel[] LEVEL_VALUES = RiskLevel.values();
+
+    static final RiskTierTable EMPTY = new RiskTierTable(new HashMap<>(), 0);
+
+    /** symbol → symbolId（稠密、只增不减；被删除的 symbol 保留槽位，{@link #compiled} 置 false）。 */
+    final Map<String, Integer> symbolIds;
+    /** symbolId → symbol（反查，用于校验调用方带入的 id）。 */
+    final String[] symbolOf;
+    final boolean[] compiled;
+
+    final BigDecimal[] isolatedThreshold;
+    final BigDecimal[] isolatedReductionRatio;
+    final BigDecimal[] isolatedLiquidationRatio;
+    final BigDecimal[] isolatedMaxLeverage;
+    final BigDecimal[] crossThreshold;
+    final BigDecimal[] crossReductionRatio;
+    final BigDecimal[] crossLiquidationRatio;
+
+    final long[] isolatedThresholdRaw;
+    final long[] isolatedReductionRatioRaw;
+    final long[] isolatedLiquidationRatioRaw;
+    final long[] isolatedMaxLeverageRaw;
+    final long[] crossThresholdRaw;
+    final long[] crossReductionRatioRaw;
+    final long[] crossLiquidationRatioRaw;
+
+    final boolean[] allowLeverage;
+    final SymbolRiskLimitConfig.LeverageValidationRule[] leverageValidationRule;
+
+    /** 以下按 symbolId 索引（与风险等级无关）。 */
+    final boolean[] isolatedTieredEnabled;
+    final boolean[] crossTieredEnabled;
+    final int[] isolatedMaxTieredSteps;
+    final int[] crossMaxTieredSteps;
+
+    private RiskTierTable(Map<String, Integer> symbolIds, int capacity) {
+        this.symbolIds = symbolIds;
+        int cells = capacity * LEVELS;
+        this.symbolOf = new String[capacity];
+        this.compiled = new boolean[capacity];
+        this.isolatedThreshold = new BigDecimal[cells];
+        this.isolatedReductionRatio = new BigDecimal[cells];
+        this.isolatedLiquidationRatio = new BigDecimal[cells];
+        this.isolatedMaxLeverage = new BigDecimal[cells];
+        this.crossThreshold = new BigDecimal[cells];
+        this.crossReductionRatio = new BigDecimal[cells];
+        this.crossLiquidationRatio = new BigDecimal[cells];
+        this.isolatedThresholdRaw = new long[cells];
+        this.isolatedReductionRatioRaw = new long[cells];
+        this.isolatedLiquidationRatioRaw = new long[cells];
+        this.isolatedMaxLeverageRaw = new long[cells];
+        this.crossThresholdRaw = new long[cells];
+        this.crossReductionRatioRaw = new long[cells];
+        this.crossLiquidationRatioRaw = new long[cells];
+        this.allowLeverage = new boolean[cells];
+        this.leverageValidationRule = new SymbolRiskLimitConfig.LeverageValidationRule[cells];
+        this.isolatedTieredEnabled = new boolean[capacity];
+        this.crossTieredEnabled = new boolean[capacity];
+        this.isolatedMaxTieredSteps = new int[capacity];
+        this.crossMaxTieredSteps = new int[capacity];
+    }
+
+    /** 展平下标：{@code symbolId × LEVELS + ordinal}。 */
+    static int cell(int symbolId, RiskLevel riskLevel) {
+        return symbolId * LEVELS + riskLevel.ordinal();
+    }
+
+    /** symbol 已分配 id 且已编译则返回 id，否则 -1。 */
+    int idOf(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        return id != null && compiled[id] ? id : -1;
+    }
+
+    /** 给定 id 已编译且确属该 symbol 时返回 true。 */
+    boolean isCompiled(int symbolId, String symbol) {
+        return symbolId >= 0 && symbolId < compiled.length && compiled[symbolId]
+                && symbol.equals(symbolOf[symbolId]);
+    }
+
+    /**
+     * 基于当前表复制出新表并（重新）编译给定配置；新 symbol 由 {@code idAllocator} 分配 id
+     * （为 null 时按表内顺序追加分配）。
+     * {@code null} 配置表示删除该 symbol 的编译结果（槽位保留）。
+     */
+    RiskTierTable with(Map<String, SymbolRiskLimitConfig> changes, ToIntFunction<String> idAllocator) {
+        Map<String, Integer> ids = new HashMap<>(symbolIds);
+        int capacity = compiled.length;
+        for (String symbol : changes.keySet()) {
+            Integer id = ids.get(symbol);
+            if (id == null) {
+                id = idAllocator != null ? idAllocator.applyAsInt(symbol) : ids.size();
+                ids.put(symbol, id);
+            }
+            capacity = Math.max(capacity, id + 1);
+        }
+        RiskTierTable next = new RiskTierTable(ids, capacity);
+        next.copyFrom(this);
+        changes.forEach((symbol, config) -> {
+            int id = ids.get(symbol);
+            next.symbolOf[id] = symbol;
+            if (config == null) {
+                next.compiled[id] = false;
+            } else {
+                next.compile(id, config);
+            }
+        });
+        return next;
+    }
+
+    private void copyFrom(RiskTierTable prev) {
+        int n = prev.compiled.length;
+        int cells = n * LEVELS;
+        System.arraycopy(prev.symbolOf, 0, symbolOf, 0, n);
+        System.arraycopy(prev.compiled, 0, compiled, 0, n);
+        System.arraycopy(prev.isolatedThreshold, 0, isolatedThreshold, 0, cells);
+        System.arraycopy(prev.isolatedReductionRatio, 0, isolatedReductionRatio, 0, cells);
+        System.arraycopy(prev.isolatedLiquidationRatio, 0, isolatedLiquidationRatio, 0, cells);
+        System.arraycopy(prev.isolatedMaxLeverage, 0, isolatedMaxLeverage, 0, cells);
+        System.arraycopy(prev.crossThreshold, 0, crossThreshold, 0, cells);
+        System.arraycopy(prev.crossReductionRatio, 0, crossReductionRatio, 0, cells);
+        System.arraycopy(prev.crossLiquidationRatio, 0, crossLiquidationRatio, 0, cells);
+        System.arraycopy(prev.isolatedThresholdRaw, 0, isolatedThresholdRaw, 0, cells);
+        System.arraycopy(prev.isolatedReductionRatioRaw, 0, isolatedReductionRatioRaw, 0, cells);
+        System.arraycopy(prev.isolatedLiquidationRatioRaw, 0, isolatedLiquidationRatioRaw, 0, cells);
+        System.arraycopy(prev.isolatedMaxLeverageRaw, 0, isolatedMaxLeverageRaw, 0, cells);
+        System.arraycopy(prev.crossThresholdRaw, 0, crossThresholdRaw, 0, cells);
+        System.arraycopy(prev.crossReductionRatioRaw, 0, crossReductionRatioRaw, 0, cells);
+        System.arraycopy(prev.crossLiquidationRatioRaw, 0, crossLiquidationRatioRaw, 0, cells);
+        System.arraycopy(prev.allowLeverage, 0, allowLeverage, 0, cells);
+        System.arraycopy(prev.leverageValidationRule, 0, leverageValidationRule, 0, cells);
+        System.arraycopy(prev.isolatedTieredEnabled, 0, isolatedTieredEnabled, 0, n);
+        System.arraycopy(prev.crossTieredEnabled, 0, crossTieredEnabled, 0, n);
+        System.arraycopy(prev.isolatedMaxTieredSteps, 0, isolatedMaxTieredSteps, 0, n);
+        System.arraycopy(prev.crossMaxTieredSteps, 0, crossMaxTieredSteps, 0, n);
+    }
+
+    private void compile(int id, SymbolRiskLimitConfig config) {
+        SymbolRiskLimitConfig.IsolatedModeRiskLimitConfig isolated = config.getIsolatedModeConfig();
+        SymbolRiskLimitConfig.CrossModeRiskLimitConfig cross = config.getCrossModeConfig();
+
+        for (RiskLevel level : LEVEL_VALUES) {
+            int c = cell(id, level);
+            SymbolRiskLimitConfig.RiskLevelConfig iso = isolated.getRiskLevelConfig(level);
+            SymbolRiskLimitConfig.RiskLevelConfig crs = cross.getRiskLevelConfig(level);
+
+            isolatedThreshold[c] = iso.getThreshold();
+            isolatedReductionRatio[c] = iso.getReductionRatio();
+            isolatedLiquidationRatio[c] = iso.getLiquidationRatio();
+            isolatedMaxLeverage[c] = iso.getMaxLeverage();
+            crossThreshold[c] = crs.getThreshold();
+            crossReductionRatio[c] = crs.getReductionRatio();
+            crossLiquidationRatio[c] = crs.getLiquidationRatio();
+
+            isolatedThresholdRaw[c] = raw(iso.getThreshold());
+            isolatedReductionRatioRaw[c] = raw(iso.getReductionRatio());
+            isolatedLiquidationRatioRaw[c] = raw(iso.getLiquidationRatio());
+            isolatedMaxLeverageRaw[c] = raw(iso.getMaxLeverage());
+            crossThresholdRaw[c] = raw(crs.getThreshold());
+            crossReductionRatioRaw[c] = raw(crs.getReductionRatio());
+            crossLiquidationRatioRaw[c] = raw(crs.getLiquidationRatio());
+
+            allowLeverage[c] = Boolean.TRUE.equals(iso.getAllowLeverage());
+            // 仅 NORMAL 读配置；高风险等级一律使用更严格的统一杠杆规则
+            leverageValidationRule[c] = level == RiskLevel.NORMAL
+                    ? iso.getLeverageValidationRule()
+                    : SymbolRiskLimitConfig.LeverageValidationRule.UNIFORM;
+        }
+
+        isolatedTieredEnabled[id] = Boolean.TRUE.equals(isolated.getEnableTieredLiquidation());
+        crossTieredEnabled[id] = Boolean.TRUE.equals(cross.getEnableTieredLiquidation());
+        isolatedMaxTieredSteps[id] = isolated.getMaxTieredSteps() != null ? isolated.getMaxTieredSteps() : 0;
+        crossMaxTieredSteps[id] = cross.getMaxTieredSteps() != null ? cross.getMaxTieredSteps() : 0;
+        compiled[id] = true;
+    }
+
+    private static long raw(BigDecimal v) {
+        return v != null ? FixedPoint.fromBigDecimal(v, RATIO_SCALE, RoundingMode.HALF_UP) : 0L;
+    }
+}
@@ -1,17 +1,28 @@
 package com.exchange.match.core.service;
 
+import com.exchange.match.core.memory.MemoryManager;
 import com.exchange.match.core.model.SymbolRiskLimitConfig;
 import com.exchange.match.core.model.RiskLevel;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
 
 /**
  * Symbol风险限额配置管理器
  * 负责管理不同Symbol的风险限额配置
+ *
+ * <p>读路径（每笔订单、每次风控检查都会调用）走预编译的 {@link RiskTierTable}：
+ * 配置在写入时按 {@code symbolId × RiskLevel.ordinal} 展平成不可变数组，
+ * 经 volatile 引用整体发布；查询只是数组读取，不遍历配置对象、不分配内存。
+ * 已知 symbolId 的调用方可用 {@code *Raw(int symbolId, ...)} 系列，连 symbol 字符串哈希也省掉。
+ * 查找表的 symbolId 取自 {@link MemoryManager}，Position / Order 上携带的 id 可直接使用。
  */
 @Slf4j
 @Service
@@ -23,15 +34,31 @@ public class SymbolRiskLimitConfigManager {
      */
     private final Map<String, SymbolRiskLimitConfig> configCache = new ConcurrentHashMap<>();
     
+    /**
+     * 预编译的档位查找表（写时复制，volatile 整体发布）。
+     * symbolId 一经分配永不回收、数组只增不减，因此读者拿到的 id 对之后发布的表依然有效。
+     */
+    private volatile RiskTierTable tierTable = RiskTierTable.EMPTY;
+    
+    /**
+     * symbolId 分配来源；未注入时（如单元测试）查找表自行分配 id
+     */
+    @Autowired(required = false)
+    private MemoryManager memoryManager;
+    
     /**
      * 获取Symbol的风险限额配置
      * 如果不存在则创建默认配置
      * 
+     * <p>返回的是配置对象本身；直接修改其字段<b>不会</b>反映到查找表，
+     * 修改后须经 {@link #setRiskLimitConfig} / {@link #batchUpdateConfigs} 重新发布。
+     * 
      * @param symbol 交易对
      * @return 风险限额配置
      */
     public SymbolRiskLimitConfig getRiskLimitConfig(String symbol) {
-        return configCache.computeIfAbsent(symbol, this::createDefaultConfig);
+        SymbolRiskLimitConfig config = configCache.get(symbol);
+        return config != null ? config : createAndPublishDefault(symbol);
     }
     
     /**
@@ -40,8 +67,9 @@ public class SymbolRiskLimitConfigManager {
      * @param symbol 交易对
      * @param config 风险限额配置
      */
-    public void setRiskLimitConfig(String symbol, SymbolRiskLimitConfig config) {
+    public synchronized void setRiskLimitConfig(String symbol, SymbolRiskLimitConfig config) {
         configCache.put(symbol, config);
+        tierTable = tierTable.with(Map.of(symbol, config), idAllocator());
         log.info("更新Symbol风险限额配置: {}, 配置: {}", symbol, config);
     }
     
@@ -50,11 +78,64 @@ public class SymbolRiskLimitConfigManager {
      * 
      * @param symbol 交易对
      */
-    public void removeRiskLimitConfig(String symbol) {
+    public synchronized void removeRiskLimitConfig(String symbol) {
         configCache.remove(symbol);
+        tierTable = tierTable.with(Collections.singletonMap(symbol, null), idAllocator());
         log.info("删除Symbol风险限额配置: {}", symbol);
     }
     
+    /**
+     * 解析 symbol 在查找表中的稠密 id（未配置时先创建默认配置）。
+     * 调用方可缓存该 id，之后用 {@code *Raw(int symbolId, ...)} 查询。
+     * 
+     * @param symbol 交易对
+     * @return symbolId
+     */
+    public int resolveSymbolId(String symbol) {
+        RiskTierTable table = compiledTable(symbol);
+        return table.idOf(symbol);
+    }
+    
+    /**
+     * 已知 symbolId（Position / Order 上携带的 {@link MemoryManager} id）时直接校验并返回，
+     * 省去 symbol 哈希；id 未解析、未编译或与 symbol 不符时回落按名解析。
+     * 
+     * @param symbolId 调用方持有的 symbolId（-1 = 未解析）
+     * @param symbol 交易对
+     * @return symbolId
+     */
+    public int resolveSymbolId(int symbolId, String symbol) {
+        return tierTable.isCompiled(symbolId, symbol) ? symbolId : resolveSymbolId(symbol);
+    }
+    
+    private ToIntFunction<String> idAllocator() {
+        return memoryManager != null ? memoryManager::internSymbolId : null;
+    }
+    
+    /**
+     * 取得已编译该 symbol 的查找表快照（未编译时先发布默认配置）。
+     * 调用方须在同一快照上取 id 和读数组，不能先读字段再触发发布。
+     */
+    private RiskTierTable compiledTable(String symbol) {
+        RiskTierTable table = tierTable;
+        if (table.idOf(symbol) < 0) {
+            createAndPublishDefault(symbol);
+            table = tierTable;
+        }
+        return table;
+    }
+    
+    /**
+     * 缓存未命中：创建默认配置并编译进查找表（每个 symbol 只发生一次）。
+     */
+    private synchronized SymbolRiskLimitConfig createAndPublishDefault(String symbol) {
+        SymbolRiskLimitConfig config = configCache.computeIfAbsent(symbol, this::createDefaultConfig);
+        if (tierTable.idOf(symbol) < 0) {
+            tierTable = tierTable.with(Map.of(symbol, config), idAllocator());
+        }
+        return config;
+    }
+    
     /**
      * 检查Symbol是否有自定义风险限额配置
      * 
@@ -82,8 +163,8 @@ public class SymbolRiskLimitConfigManager {
      * @return 风险阈值
      */
     public BigDecimal getIsolatedRiskThreshold(String symbol, RiskLevel riskLevel) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getIsolatedModeConfig().getThreshold(riskLevel);
+        RiskTierTable table = compiledTable(symbol);
+        return table.isolatedThreshold[RiskTierTable.cell(table.idOf(symbol), riskLevel)];
     }
     
     /**
@@ -94,8 +175,8 @@ public class SymbolRiskLimitConfigManager {
      * @return 风险阈值
      */
     public BigDecimal getCrossRiskThreshold(String symbol, RiskLevel riskLevel) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getCrossModeConfig().getThreshold(riskLevel);
+        RiskTierTable table = compiledTable(symbol);
+        return table.crossThreshold[RiskTierTable.cell(table.idOf(symbol), riskLevel)];
     }
     
     /**
@@ -106,8 +187,8 @@ public class SymbolRiskLimitConfigManager {
      * @return 减仓比例
      */
     public BigDecimal getIsolatedReductionRatio(String symbol, RiskLevel riskLevel) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getIsolatedModeConfig().getReductionRatio(riskLevel);
+        RiskTierTable table = compiledTable(symbol);
+        return table.isolatedReductionRatio[RiskTierTable.cell(table.idOf(symbol), riskLevel)];
     }
     
     /**
@@ -118,8 +199,8 @@ public class SymbolRiskLimitConfigManager {
      * @return 减仓比例
      */
     public BigDecimal getCrossReductionRatio(String symbol, RiskLevel riskLevel) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getCrossModeConfig().getReductionRatio(riskLevel);
+        RiskTierTable table = compiledTable(symbol);
+        return table.crossReductionRatio[RiskTierTable.cell(table.idOf(symbol), riskLevel)];
     }
     
     /**
@@ -130,8 +211,8 @@ public class SymbolRiskLimitConfigManager {
      * @return 平仓比例
      */
     public BigDecimal getIsolatedTieredLiquidationRatio(String symbol, RiskLevel riskLevel) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getIsolatedModeConfig().getLiquidationRatio(riskLevel);
+        RiskTierTable table = compiledTable(symbol);
+        return table.isolatedLiquidationRatio[RiskTierTable.cell(table.idOf(symbol), riskLevel)];
     }
     
     /**
@@ -142,8 +223,8 @@ public class SymbolRiskLimitConfigManager {
      * @return 平仓比例
      */
     public BigDecimal getCrossTieredLiquidationRatio(String symbol, RiskLevel riskLevel) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getCrossModeConfig().getLiquidationRatio(riskLevel);
+        RiskTierTable table = compiledTable(symbol);
+        return table.crossLiquidationRatio[RiskTierTable.cell(table.idOf(symbol), riskLevel)];
     }
     
     /**
@@ -153,8 +234,8 @@ public class SymbolRiskLimitConfigManager {
      * @return 是否启用
      */
     public boolean isIsolatedTieredLiquidationEnabled(String symbol) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getIsolatedModeConfig().getEnableTieredLiquidation();
+        RiskTierTable table = compiledTable(symbol);
+        return table.isolatedTieredEnabled[table.idOf(symbol)];
     }
     
     /**
@@ -164,8 +245,28 @@ public class SymbolRiskLimitConfigManager {
      * @return 是否启用
      */
     public boolean isCrossTieredLiquidationEnabled(String symbol) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getCrossModeConfig().getEnableTieredLiquidation();
+        RiskTierTable table = compiledTable(symbol);
+        return table.crossTieredEnabled[table.idOf(symbol)];
+    }
+    
+    /**
+     * 检查是否启用分档平仓（逐仓模式，symbolId 由 {@link #resolveSymbolId} 取得）
+     * 
+     * @param symbolId 查找表 id
+     * @return 是否启用
+     */
+    public boolean isIsolatedTieredLiquidationEnabled(int symbolId) {
+        return tierTable.isolatedTieredEnabled[symbolId];
+    }
+    
+    /**
+     * 检查是否启用分档平仓（全仓模式，symbolId 由 {@link #resolveSymbolId} 取得）
+     * 
+     * @param symbolId 查找表 id
+     * @return 是否启用
+     */
+    public boolean isCrossTieredLiquidationEnabled(int symbolId) {
+        return tierTable.crossTieredEnabled[symbolId];
     }
     
     /**
@@ -175,8 +276,8 @@ public class SymbolRiskLimitConfigManager {
      * @return 最大步骤数
      */
     public int getIsolatedMaxTieredSteps(String symbol) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getIsolatedModeConfig().getMaxTieredSteps();
+        RiskTierTable table = compiledTable(symbol);
+        return table.isolatedMaxTieredSteps[table.idOf(symbol)];
     }
     
     /**
@@ -186,8 +287,28 @@ public class SymbolRiskLimitConfigManager {
      * @return 最大步骤数
      */
     public int getCrossMaxTieredSteps(String symbol) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getCrossModeConfig().getMaxTieredSteps();
+        RiskTierTable table = compiledTable(symbol);
+        return table.crossMaxTieredSteps[table.idOf(symbol)];
+    }
+    
+    /**
+     * 获取最大分档步骤数（逐仓模式，symbolId 由 {@link #resolveSymbolId} 取得）
+     * 
+     * @param symbolId 查找表 id
+     * @return 最大步骤数
+     */
+    public int getIsolatedMaxTieredSteps(int symbolId) {
+        return tierTable.isolatedMaxTieredSteps[symbolId];
+    }
+    
+    /**
+     * 获取最大分档步骤数（全仓模式，symbolId 由 {@link #resolveSymbolId} 取得）
+     * 
+     * @param symbolId 查找表 id
+     * @return 最大步骤数
+     */
+    public int getCrossMaxTieredSteps(int symbolId) {
+        return tierTable.crossMaxTieredSteps[symbolId];
     }
     
     /**
@@ -403,16 +524,22 @@ public class SymbolRiskLimitConfigManager {
      * 
      * @param configs 配置映射
      */
-    public void batchUpdateConfigs(Map<String, SymbolRiskLimitConfig> configs) {
+    public synchronized void batchUpdateConfigs(Map<String, SymbolRiskLimitConfig> configs) {
         configCache.putAll(configs);
+        // 整批编译进一张新表后一次性发布：读者要么看到全部旧值，要么看到全部新值
+        tierTable = tierTable.with(configs, idAllocator());
         log.info("批量更新Symbol风险限额配置，共{}个配置", configs.size());
     }
     
     /**
      * 清空所有配置
      */
-    public void clearAllConfigs() {
+    public synchronized void clearAllConfigs() {
         configCache.clear();
+        // 保留已分配的 symbolId（调用方可能已缓存），仅标记为未编译，下次查询重建默认配置
+        Map<String, SymbolRiskLimitConfig> cleared = new HashMap<>();
+        tierTable.symbolIds.keySet().forEach(symbol -> cleared.put(symbol, null));
+        tierTable = tierTable.with(cleared, idAllocator());
         log.info("清空所有Symbol风险限额配置");
     }
     
@@ -435,15 +562,9 @@ public class SymbolRiskLimitConfigManager {
      * @return 杠杆验证规则
      */
     public SymbolRiskLimitConfig.LeverageValidationRule getLeverageValidationRule(String symbol, RiskLevel riskLevel) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        
-        // 根据风险等级获取验证规则
-        if (riskLevel == RiskLevel.NORMAL) {
-            return config.getIsolatedModeConfig().getRiskLevelConfig(riskLevel).getLeverageValidationRule();
-        } else {
-            // 高风险等级使用更严格的规则
-            return SymbolRiskLimitConfig.LeverageValidationRule.UNIFORM;
-        }
+        // NORMAL 取配置，高风险等级使用更严格的 UNIFORM 规则（编译时已展开）
+        RiskTierTable table = compiledTable(symbol);
+        return table.leverageValidationRule[RiskTierTable.cell(table.idOf(symbol), riskLevel)];
     }
     
     /**
@@ -454,8 +575,8 @@ public class SymbolRiskLimitConfigManager {
      * @return 是否允许
      */
     public boolean isLeverageTradingAllowed(String symbol, RiskLevel riskLevel) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        return config.getIsolatedModeConfig().getRiskLevelConfig(riskLevel).getAllowLeverage();
+        RiskTierTable table = compiledTable(symbol);
+        return table.allowLeverage[RiskTierTable.cell(table.idOf(symbol), riskLevel)];
     }
     
     /**
@@ -467,11 +588,67 @@ public class SymbolRiskLimitConfigManager {
      * @return 最大杠杆
      */
     public BigDecimal getMaxLeverage(String symbol, RiskLevel riskLevel, boolean isCrossMode) {
-        SymbolRiskLimitConfig config = getRiskLimitConfig(symbol);
-        
         // 同一个标的全仓逐仓使用同一个风险限额配置
         // 使用逐仓模式的配置作为统一配置，因为逐仓模式通常更保守
-        return config.getIsolatedModeConfig().getMaxLeverage(riskLevel);
+        RiskTierTable table = compiledTable(symbol);
+        return table.isolatedMaxLeverage[RiskTierTable.cell(table.idOf(symbol), riskLevel)];
+    }
+    
+    // ===== symbolId 查询（symbolId 由 resolveSymbolId 取得；返回配置原值，scale 不变）=====
+    
+    /** 档位平仓比例（逐仓模式）。 */
+    public BigDecimal getIsolatedTieredLiquidationRatio(int symbolId, RiskLevel riskLevel) {
+        return tierTable.isolatedLiquidationRatio[RiskTierTable.cell(symbolId, riskLevel)];
+    }
+    
+    /** 档位平仓比例（全仓模式）。 */
+    public BigDecimal getCrossTieredLiquidationRatio(int symbolId, RiskLevel riskLevel) {
+        return tierTable.crossLiquidationRatio[RiskTierTable.cell(symbolId, riskLevel)];
+    }
+    
+    /** 指定风险等级的最大杠杆（全仓逐仓统一取逐仓配置）。 */
+    public BigDecimal getMaxLeverage(int symbolId, RiskLevel riskLevel) {
+        return tierTable.isolatedMaxLeverage[RiskTierTable.cell(symbolId, riskLevel)];
+    }
+    
+    // ===== 定点 raw 查询（symbolId 由 resolveSymbolId 取得；scale = RATIO_SCALE）=====
+    
+    /** raw 值的小数位数。 */
+    public static final int RATIO_SCALE = RiskTierTable.RATIO_SCALE;
+    
+    /** 风险等级阈值（逐仓模式），定点 raw。 */
+    public long getIsolatedRiskThresholdRaw(int symbolId, RiskLevel riskLevel) {
+        return tierTable.isolatedThresholdRaw[RiskTierTable.cell(symbolId, riskLevel)];
+    }
+    
+    /** 风险等级阈值（全仓模式），定点 raw。 */
+    public long getCrossRiskThresholdRaw(int symbolId, RiskLevel riskLevel) {
+        return tierTable.crossThresholdRaw[RiskTierTable.cell(symbolId, riskLevel)];
+    }
+    
+    /** 减仓比例（逐仓模式），定点 raw。 */
+    public long getIsolatedReductionRatioRaw(int symbolId, RiskLevel riskLevel) {
+        return tierTable.isolatedReductionRatioRaw[RiskTierTable.cell(symbolId, riskLevel)];
+    }
+    
+    /** 减仓比例（全仓模式），定点 raw。 */
+    public long getCrossReductionRatioRaw(int symbolId, RiskLevel riskLevel) {
+        return tierTable.crossReductionRatioRaw[RiskTierTable.cell(symbolId, riskLevel)];
+    }
+    
+    /** 档位平仓比例（逐仓模式），定点 raw。 */
+    public long getIsolatedTieredLiquidationRatioRaw(int symbolId, RiskLevel riskLevel) {
+        return tierTable.isolatedLiquidationRatioRaw[RiskTierTable.cell(symbolId, riskLevel)];
+    }
+    
+    /** 档位平仓比例（全仓模式），定点 raw。 */
+    public long getCrossTieredLiquidationRatioRaw(int symbolId, RiskLevel riskLevel) {
+        return tierTable.crossLiquidationRatioRaw[RiskTierTable.cell(symbolId, riskLevel)];
+    }
+    
+    /** 指定风险等级的最大杠杆（全仓逐仓统一取逐仓配置），定点 raw。 */
+    public long getMaxLeverageRaw(int symbolId, RiskLevel riskLevel) {
+        return tierTable.isolatedMaxLeverageRaw[RiskTierTable.cell(symbolId, riskLevel)];
     }
     
     /**
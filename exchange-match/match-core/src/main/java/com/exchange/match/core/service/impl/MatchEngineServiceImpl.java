@@ -3,6 +3,7 @@ package com.exchange.match.core.service.impl;
 import com.exchange.match.model.MatchResponse;
 import com.exchange.match.enums.MatchStatus;
 import com.exchange.match.enums.OrderSide;
+import com.exchange.match.enums.OrderType;
 import com.exchange.match.enums.PositionAction;
 import com.exchange.match.enums.PositionSide;
 import com.exchange.match.model.Trade;
@@ -40,26 +41,39 @@ public class MatchEngineServiceImpl implements MatchEngineService {
 
     // ===================== 定点边界换算 (Order long ↔ MatchResponse/Symbol BigDecimal) =====================
 
-    /** 该 symbol 的价格 scale(找不到 symbol 兜底 8)。 */
-    private int priceScaleOf(String symbolCode) {
-        Symbol s = memoryManager.getSymbol(symbolCode);
-        return s != null ? s.priceScale() : 8;
+    /**
+     * 订单所属标的:按 symbolId 一次数组访问;未带 id 的订单回落按名查找并回填 id。
+     */
+    private Symbol symbolOf(Order order) {
+        Symbol s = memoryManager.getSymbol(order.getSymbolId());
+        if (s == null) {
+            s = memoryManager.getSymbol(order.getSymbol());
+            if (s != null) order.setSymbolId(s.getSymbolId());
+        }
+        return s;
     }
 
-    /** 该 symbol 的数量/base scale(找不到 symbol 兜底 8)。 */
-    private int baseScaleOf(String symbolCode) {
-        Symbol s = memoryManager.getSymbol(symbolCode);
-        return s != null ? s.baseScale() : 8;
+    /** 价格 raw → BigDecimal(找不到 symbol 兜底 scale 8)。 */
+    private BigDecimal priceBd(Order order, long raw) {
+        Symbol s = symbolOf(order);
+        return FixedPoint.toBigDecimal(raw, s != null ? s.priceScale() : 8);
     }
 
-    /** 价格 raw → BigDecimal。 */
-    private BigDecimal priceBd(String symbolCode, long raw) {
-        return FixedPoint.toBigDecimal(raw, priceScaleOf(symbolCode));
+    /** 数量 raw → BigDecimal(找不到 symbol 兜底 scale 8)。 */
+    private BigDecimal qtyBd(Order order, long raw) {
+        Symbol s = symbolOf(order);
+        return FixedPoint.toBigDecimal(raw, s != null ? s.baseScale() : 8);
     }
 
-    /** 数量 raw → BigDecimal。 */
-    private BigDecimal qtyBd(String symbolCode, long raw) {
-        return FixedPoint.toBigDecimal(raw, baseScaleOf(symbolCode));
+    /**
+     * 成交均价 raw(priceScale):{@code amount(quoteScale) / quantity(baseScale)},HALF_UP,
+     * 与 {@code totalAmount.divide(totalQuantity, pricePrecision, HALF_UP)} 等价。
+     */
+    private long avgPriceRaw(Symbol symbol, long amountRaw, long quantityRaw) {
+        int exp = symbol.priceScale() + symbol.baseScale() - symbol.quoteScaleOrDefault();
+        return exp >= 0
+                ? FixedPoint.mulDiv(amountRaw, FixedPoint.pow10(exp), quantityRaw, RoundingMode.HALF_UP)
+                : FixedPoint.mulDiv(amountRaw, 1L, Math.multiplyExact(quantityRaw, FixedPoint.pow10(-exp)), RoundingMode.HALF_UP);
     }
 
     /**
@@ -67,22 +81,32 @@ public class MatchEngineServiceImpl implements MatchEngineService {
      * 单撤/批量撤单共用,保证"解冻额 = 冻结额 − 已结算"。
      */
     private MatchResponse.CancelRelease buildRelease(Order order) {
+        return buildRelease(order, symbolOf(order));
+    }
+
+    private MatchResponse.CancelRelease buildRelease(Order order, Symbol relSym) {
         long releaseRaw = order.getLockedRemaining();
         if (releaseRaw <= 0 || order.getLockedAsset() == null) return null;
-        Symbol relSym = memoryManager.getSymbol(order.getSymbol());
-        int lockScale = (relSym != null && order.getLockedAsset().equals(relSym.getQuoteCurrency()))
-                ? relSym.quoteScaleOrDefault()
-                : (relSym != null && order.getLockedAsset().equals(relSym.getBaseCurrency()))
-                    ? relSym.baseScale() : 8;
-        String acct = (relSym != null && relSym.supportsPosition()) ? "FUTURES" : "SPOT";
         MatchResponse.CancelRelease rel = new MatchResponse.CancelRelease(
-                order.getUserId(), acct, order.getLockedAsset(),
-                FixedPoint.toBigDecimal(releaseRaw, lockScale),
+                order.getUserId(), accountType(relSym), order.getLockedAsset(),
+                FixedPoint.toBigDecimal(releaseRaw, lockScale(relSym, order.getLockedAsset())),
                 "RELEASE:" + order.getOrderId(), order.getOrderId());
         order.setLockedRemaining(0L);
         return rel;
     }
 
+    /** 冻结资产 scale:quote → quoteScale,base → baseScale,其他兜底 8。 */
+    private static int lockScale(Symbol symbol, String asset) {
+        if (symbol == null || asset == null) return 8;
+        if (asset.equals(symbol.getQuoteCurrency())) return symbol.quoteScaleOrDefault();
+        return asset.equals(symbol.getBaseCurrency()) ? symbol.baseScale() : 8;
+    }
+
+    /** 解冻账户类型:合约标的 FUTURES,否则 SPOT。 */
+    private static String accountType(Symbol symbol) {
+        return (symbol != null && symbol.supportsPosition()) ? "FUTURES" : "SPOT";
+    }
+
     /**
      * 撤销指定用户在所有标的上的全部挂单(确定性:按 orderId 升序)。
      * 每笔产出解冻指令,聚合到返回的 {@link MatchResponse#getReleases()}。
@@ -101,7 +125,7 @@ public class MatchEngineServiceImpl implements MatchEngineService {
 
         List<MatchResponse.CancelRelease> releases = new ArrayList<>();
         for (Order o : targets) {
-            OrderBook ob = memoryManager.getOrderBook(o.getSymbol());
+            OrderBook ob = memoryManager.getOrderBook(o.getSymbolId());
             o.cancel();
             if (ob != null) ob.removeOrder(o.getOrderId());
             MatchResponse.CancelRelease rel = buildRelease(o);
@@ -148,18 +172,24 @@ public class MatchEngineServiceImpl implements MatchEngineService {
 
     @Override
     public MatchResponse submitOrder(Order order) {
+        // 标的只解析一次(按 symbolId 一次数组访问),后续 scale/校验/解冻均复用
+        Symbol symbol = symbolOf(order);
+        int priceScale = symbol != null ? symbol.priceScale() : 8;
+        int baseScale  = symbol != null ? symbol.baseScale() : 8;
+
         MatchResponse response = new MatchResponse();
         response.setOrderId(order.getOrderId());
         response.setUserId(order.getUserId());
         response.setSymbol(order.getSymbol());
         response.setSide(order.getSide());
         response.setOrderType(order.getType());
-        response.setOrderPrice(priceBd(order.getSymbol(), order.getPrice()));
-        response.setOrderQuantity(qtyBd(order.getSymbol(), order.getQuantity()));
+        // 价/量/金额以 raw 填充,BigDecimal 仅在回包/广播序列化时物化(Follower 不物化)
+        response.setRawScales(priceScale, baseScale, symbol != null ? symbol.quoteScaleOrDefault() : 8);
+        response.setOrderPriceRaw(order.getPrice());
+        response.setOrderQuantityRaw(order.getQuantity());
 
         try {
             // 验证标的
-            Symbol symbol = memoryManager.getSymbol(order.getSymbol());
             if (symbol == null) {
                 response.setStatus(MatchStatus.REJECTED);
                 response.setErrorMessage("标的不存在: " + order.getSymbol());
@@ -180,13 +210,9 @@ public class MatchEngineServiceImpl implements MatchEngineService {
                 return response;
             }
             
-            // 验证订单参数（Order 为 long raw，转 BigDecimal 交给 Symbol 冷校验）
-            int priceScale = symbol.priceScale();
-            int baseScale  = symbol.baseScale();
-            BigDecimal priceBdVal = FixedPoint.toBigDecimal(order.getPrice(), priceScale);
-            BigDecimal qtyBdVal   = FixedPoint.toBigDecimal(order.getQuantity(), baseScale);
-
-            if (!symbol.isValidPrice(priceBdVal)) {
+            // 验证订单参数（定点校验:tick 取模 + 数量上下限比较;BigDecimal 只在拒单文案里出现）
+            if (!symbol.isValidPriceRaw(order.getPrice())) {
+                BigDecimal priceBdVal = FixedPoint.toBigDecimal(order.getPrice(), priceScale);
                 response.setStatus(MatchStatus.REJECTED);
                 response.setErrorMessage("价格无效: " + priceBdVal);
                 response.setRejectInfo(createRejectInfo(
@@ -196,7 +222,8 @@ public class MatchEngineServiceImpl implements MatchEngineService {
                 return response;
             }
 
-            if (!symbol.isValidQuantity(qtyBdVal)) {
+            if (!symbol.isValidQuantityRaw(order.getQuantity())) {
+                BigDecimal qtyBdVal = FixedPoint.toBigDecimal(order.getQuantity(), baseScale);
                 response.setStatus(MatchStatus.REJECTED);
                 response.setErrorMessage("数量无效: " + qtyBdVal);
                 response.setRejectInfo(createRejectInfo(
@@ -206,16 +233,14 @@ public class MatchEngineServiceImpl implements MatchEngineService {
                 return response;
             }
 
-            // 格式化价格和数量（Symbol 冷格式化返回 BigDecimal，转回 long raw；DOWN 不放大金额）
-            order.setPrice(FixedPoint.fromBigDecimal(symbol.formatPrice(priceBdVal), priceScale, RoundingMode.DOWN));
-            order.setQuantity(FixedPoint.fromBigDecimal(symbol.formatQuantity(qtyBdVal), baseScale, RoundingMode.DOWN));
+            // 通过校验的价格已是 tick 整数倍、数量 raw 已是 quantityPrecision 精度,无需再格式化
             order.setRemainingQuantity(order.getQuantity());
             
             // 根据交易类型设置开平仓动作
             if (symbol.supportsPosition()) {
                 // 合约交易：如果没有设置开平仓动作，则自动判断
                 if (order.getPositionAction() == null) {
-                    Position currentPosition = memoryManager.getPosition(order.getUserId(), order.getSymbol());
+                    Position currentPosition = memoryManager.getPosition(order.getUserId(), symbol.getSymbolId());
                     PositionSide currentPositionSide = currentPosition != null ? currentPosition.getSide() : null;
                     order.setPositionAction(PositionAction.determineAction(order.getSide(), currentPositionSide));
                 }
@@ -225,28 +250,28 @@ public class MatchEngineServiceImpl implements MatchEngineService {
             }
             
             // 获取订单薄
-            OrderBook orderBook = memoryManager.getOrCreateOrderBook(order.getSymbol());
+            OrderBook orderBook = memoryManager.getOrCreateOrderBook(symbol.getSymbolId(), symbol.getSymbol());
             
             // 执行撮合
             List<Trade> trades = executeMatching(order, orderBook, symbol);
             
             // 更新响应信息
             response.setTrades(trades);
-            response.setMatchQuantity(FixedPoint.toBigDecimal(order.getFilledQuantity(), baseScale));
-            response.setRemainingQuantity(FixedPoint.toBigDecimal(order.getRemainingQuantity(), baseScale));
+            response.setMatchQuantityRaw(order.getFilledQuantity());
+            response.setRemainingQuantityRaw(order.getRemainingQuantity());
             
-            // 计算成交价格和金额
+            // 计算成交价格和金额（定点累加,不物化成交 BigDecimal）
             if (!trades.isEmpty()) {
-                BigDecimal totalAmount = trades.stream()
-                        .map(Trade::getAmount)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                BigDecimal totalQuantity = trades.stream()
-                        .map(Trade::getQuantity)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+                long totalAmountRaw = 0L;
+                long totalQuantityRaw = 0L;
+                for (Trade trade : trades) {
+                    totalAmountRaw = Math.addExact(totalAmountRaw, trade.getAmountRaw());
+                    totalQuantityRaw = Math.addExact(totalQuantityRaw, trade.getQuantityRaw());
+                }
                 
-                response.setMatchAmount(totalAmount);
-                response.setMatchPrice(totalAmount.divide(totalQuantity, symbol.getPricePrecision(), BigDecimal.ROUND_HALF_UP));
-                response.setFee(symbol.calculateFee(totalAmount, BigDecimal.ONE));
+                response.setMatchAmountRaw(totalAmountRaw);
+                response.setMatchPriceRaw(avgPriceRaw(symbol, totalAmountRaw, totalQuantityRaw));
+                response.setFeeRaw(symbol.calcFeeRaw(totalAmountRaw));
             }
             
             // 更新状态
@@ -261,7 +286,7 @@ public class MatchEngineServiceImpl implements MatchEngineService {
             // 完全成交但吃单价优于限价时,残余冻结额需解冻(否则价格改善的剩余冻结泄漏)。
             // 仅 taker 会有此残余(maker 按自身价成交,消耗=冻结)。
             if (order.isFullyFilled() && order.getLockedRemaining() > 0) {
-                MatchResponse.CancelRelease rel = buildRelease(order);
+                MatchResponse.CancelRelease rel = buildRelease(order, symbol);
                 if (rel != null) {
                     List<MatchResponse.CancelRelease> rs = response.getReleases() != null
                             ? response.getReleases() : new java.util.ArrayList<>();
@@ -285,9 +310,9 @@ public class MatchEngineServiceImpl implements MatchEngineService {
                 }
             }
             
-            log.info("订单提交成功: orderId={}, symbol={}, status={}, filled={}, remaining={}",
+            log.info("订单提交成功: orderId={}, symbol={}, status={}, filledRaw={}, remainingRaw={}",
                     order.getOrderId(), order.getSymbol(), response.getStatus(), 
-                    response.getMatchQuantity(), response.getRemainingQuantity());
+                    order.getFilledQuantity(), order.getRemainingQuantity());
             
         } catch (Exception e) {
             log.error("订单提交失败: orderId={}", order.getOrderId(), e);
@@ -346,7 +371,7 @@ public class MatchEngineServiceImpl implements MatchEngineService {
             // 设置撤单信息
             MatchResponse.CancelInfo cancelInfo = new MatchResponse.CancelInfo();
             cancelInfo.setCancelUserId(userId);
-            cancelInfo.setCancelQuantity(qtyBd(order.getSymbol(), order.getRemainingQuantity()));
+            cancelInfo.setCancelQuantity(qtyBd(order, order.getRemainingQuantity()));
             cancelInfo.setCancelReason("用户主动撤单");
             // 将OrderStatus转换为MatchStatus
             MatchStatus previousStatus = convertOrderStatusToMatchStatus(order.getStatus());
@@ -368,10 +393,10 @@ public class MatchEngineServiceImpl implements MatchEngineService {
             response.setSymbol(order.getSymbol());
             response.setSide(order.getSide());
             response.setOrderType(order.getType());
-            response.setOrderPrice(priceBd(order.getSymbol(), order.getPrice()));
-            response.setOrderQuantity(qtyBd(order.getSymbol(), order.getQuantity()));
-            response.setMatchQuantity(qtyBd(order.getSymbol(), order.getFilledQuantity()));
-            response.setRemainingQuantity(qtyBd(order.getSymbol(), order.getRemainingQuantity()));
+            response.setOrderPrice(priceBd(order, order.getPrice()));
+            response.setOrderQuantity(qtyBd(order, order.getQuantity()));
+            response.setMatchQuantity(qtyBd(order, order.getFilledQuantity()));
+            response.setRemainingQuantity(qtyBd(order, order.getRemainingQuantity()));
 
             log.info("订单取消成功: orderId={}, userId={}, cancelQuantity={}",
                     orderId, userId, cancelInfo.getCancelQuantity());
@@ -389,6 +414,197 @@ public class MatchEngineServiceImpl implements MatchEngineService {
         return response;
     }
     
+    /**
+     * 改单:一次状态变更完成 cancel-replace,回包带净冻结变化。
+     *
+     * <ul>
+     *   <li>同价且新总量不大于原总量:原地改量({@link OrderBook#updateOrder} 同价分支),保留队列位置,不撮合。</li>
+     *   <li>改价或加量:撤出原位,以改单时间重新撮合,剩余排到新价位队尾(与新单同一撮合路径)。
+     *       POST_ONLY 改价后会立即成交则拒绝,原单不动。</li>
+     * </ul>
+     *
+     * <p>冻结额按新剩余量(计价币冻结再按新价)等比例重算,向上取整。原残余 + 追加仍不足则拒绝;
+     * 多出部分产出一条解冻指令,幂等键 {@code AMEND:{orderId}:{amendId}},不占用订单终态解冻的 orderId 键。
+     * 拒绝时追加额原样解冻。
+     */
+    @Override
+    public MatchResponse amendOrder(OrderAmend amend) {
+        String orderId = amend.getOrderId();
+        MatchResponse response = new MatchResponse();
+        response.setOrderId(orderId);
+        response.setUserId(amend.getUserId());
+        response.setSymbol(amend.getSymbol());
+        MatchResponse.AmendInfo amendInfo = new MatchResponse.AmendInfo();
+        amendInfo.setAmendId(amend.getAmendId());
+        response.setAmendInfo(amendInfo);
+
+        // ---- 阶段一:校验与全部定点运算,不改任何状态;失败一律走 rejectAmend(解冻追加额) ----
+        OrderBook orderBook;
+        Order order;
+        Symbol symbol;
+        long oldPrice, oldQty, newPrice, newQty, newRemaining;
+        long oldLocked = 0L, required = 0L, releaseRaw = 0L, newLockedAmount = 0L;
+        boolean samePrice;
+        try {
+            orderBook = findOrderBookByOrderId(orderId);
+            order = orderBook != null ? orderBook.getOrder(orderId) : null;
+            if (order == null || order.getRemainingQuantity() <= 0 || isTerminal(order.getStatus())) {
+                return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.ORDER_NOT_FOUND,
+                        "订单不存在或已结束: " + orderId);
+            }
+            if (!order.getUserId().equals(amend.getUserId())) {
+                return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.INSUFFICIENT_PERMISSION,
+                        "用户权限不足: " + amend.getUserId());
+            }
+            if (!order.getSymbol().equals(amend.getSymbol())) {   // 价/量已按请求标的 scale 换算
+                return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.INVALID_ORDER_STATUS,
+                        "交易对不符: " + amend.getSymbol());
+            }
+            symbol = symbolOf(order);
+            if (symbol == null || !symbol.isTradeable()) {
+                return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.MARKET_CLOSED,
+                        "标的不可交易: " + order.getSymbol());
+            }
+
+            int priceScale = symbol.priceScale();
+            int baseScale  = symbol.baseScale();
+            response.setSymbol(order.getSymbol());
+            response.setSide(order.getSide());
+            response.setOrderType(order.getType());
+            response.setRawScales(priceScale, baseScale, symbol.quoteScaleOrDefault());
+
+            oldPrice = order.getPrice();
+            oldQty   = order.getQuantity();
+            newPrice = amend.getPrice() > 0 ? amend.getPrice() : oldPrice;
+            newQty   = amend.getQuantity() > 0 ? amend.getQuantity() : oldQty;
+            if (!symbol.isValidPriceRaw(newPrice)) {
+                return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.INVALID_PRICE,
+                        "价格无效: " + FixedPoint.toBigDecimal(newPrice, priceScale));
+            }
+            if (!symbol.isValidQuantityRaw(newQty) || newQty <= order.getFilledQuantity()) {
+                return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.INVALID_QUANTITY,
+                        "数量无效: " + FixedPoint.toBigDecimal(newQty, baseScale));
+            }
+            samePrice = newPrice == oldPrice;
+            if (!samePrice && order.getType() == OrderType.POST_ONLY
+                    && wouldCross(orderBook, order.getSide(), newPrice)) {
+                return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.POST_ONLY_REJECTED,
+                        "POST_ONLY改价后会立即成交: " + FixedPoint.toBigDecimal(newPrice, priceScale));
+            }
+            long additional = amend.getAdditionalLocked();
+            if (additional > 0 && !java.util.Objects.equals(order.getLockedAsset(), amend.getLockedAsset())) {
+                return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.INSUFFICIENT_BALANCE,
+                        "追加冻结资产不符: " + amend.getLockedAsset());
+            }
+
+            // 冻结重算:required = 残余 × 新剩余/原剩余,计价币冻结再 × 新价/原价,向上取整
+            newRemaining = Math.subtractExact(newQty, order.getFilledQuantity());
+            if (order.getLockedAsset() != null) {
+                oldLocked = order.getLockedRemaining();
+                required  = FixedPoint.mulDiv(oldLocked, newRemaining, order.getRemainingQuantity(), RoundingMode.UP);
+                if (!samePrice && order.getLockedAsset().equals(symbol.getQuoteCurrency())) {
+                    required = FixedPoint.mulDiv(required, newPrice, oldPrice, RoundingMode.UP);
+                }
+                long pool = Math.addExact(oldLocked, additional);
+                if (pool < required) {
+                    return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.INSUFFICIENT_BALANCE,
+                            "冻结不足: 需追加 " + FixedPoint.toBigDecimal(required - oldLocked,
+                                    lockScale(symbol, order.getLockedAsset())));
+                }
+                releaseRaw      = pool - required;
+                newLockedAmount = Math.subtractExact(Math.addExact(order.getLockedAmount(), additional), releaseRaw);
+            }
+        } catch (Exception e) {
+            log.error("订单改单校验失败: orderId={}, amendId={}", orderId, amend.getAmendId(), e);
+            return rejectAmend(response, amend, MatchResponse.RejectInfo.RejectType.SYSTEM_ERROR,
+                    "订单改单失败: " + e.getMessage());
+        }
+
+        // ---- 阶段二:生效。此后订单簿已变,不再回 REJECTED(否则下游会认为原单未变) ----
+        if (order.getLockedAsset() != null) {
+            int lockScale = lockScale(symbol, order.getLockedAsset());
+            order.setLockedRemaining(required);
+            order.setLockedAmount(newLockedAmount);
+            amendInfo.setLockedAsset(order.getLockedAsset());
+            amendInfo.setLockDelta(FixedPoint.toBigDecimal(required - oldLocked, lockScale));
+        }
+        amendInfo.setPreviousPrice(FixedPoint.toBigDecimal(oldPrice, symbol.priceScale()));
+        amendInfo.setPreviousQuantity(FixedPoint.toBigDecimal(oldQty, symbol.baseScale()));
+
+        List<Trade> trades;
+        boolean keepPriority = samePrice && newQty <= oldQty;
+        if (keepPriority) {
+            // 同价减量:原地改量,队列位置不变
+            order.setQuantity(newQty);
+            order.setRemainingQuantity(newRemaining);
+            order.setUpdateTime(amend.getTime());
+            orderBook.updateOrder(order);
+            trades = new ArrayList<>();
+        } else {
+            // 先按原价移出(removeOrder 按订单当前价定位价位),再改价改量重新撮合;时间优先取改单时间
+            orderBook.removeOrder(orderId);
+            order.setPrice(newPrice);
+            order.setQuantity(newQty);
+            order.setRemainingQuantity(newRemaining);
+            order.setCreateTime(amend.getTime());
+            order.setUpdateTime(amend.getTime());
+            trades = executeMatching(order, orderBook, symbol);
+        }
+        amendInfo.setPriorityKept(keepPriority);
+
+        response.setOrderPriceRaw(order.getPrice());
+        response.setOrderQuantityRaw(order.getQuantity());
+        response.setTrades(trades);
+        response.setMatchQuantityRaw(order.getFilledQuantity());
+        response.setRemainingQuantityRaw(order.getRemainingQuantity());
+        if (!trades.isEmpty()) {
+            long totalAmountRaw = 0L;
+            long totalQuantityRaw = 0L;
+            for (Trade trade : trades) {
+                totalAmountRaw = Math.addExact(totalAmountRaw, trade.getAmountRaw());
+                totalQuantityRaw = Math.addExact(totalQuantityRaw, trade.getQuantityRaw());
+            }
+            response.setMatchAmountRaw(totalAmountRaw);
+            response.setMatchPriceRaw(avgPriceRaw(symbol, totalAmountRaw, totalQuantityRaw));
+            response.setFeeRaw(symbol.calcFeeRaw(totalAmountRaw));
+        }
+        if (order.isFullyFilled()) {
+            response.setStatus(MatchStatus.SUCCESS);
+        } else if (order.isPartiallyFilled()) {
+            response.setStatus(MatchStatus.PARTIALLY_FILLED);
+        } else {
+            response.setStatus(MatchStatus.PENDING);
+        }
+
+        List<MatchResponse.CancelRelease> releases = new ArrayList<>();
+        if (releaseRaw > 0) {
+            releases.add(amendRelease(amend, accountType(symbol), order.getLockedAsset(),
+                    FixedPoint.toBigDecimal(releaseRaw, lockScale(symbol, order.getLockedAsset()))));
+        }
+        // 改价后完全成交且吃单价更优:残余随订单终态解冻(同下单)
+        if (order.isFullyFilled() && order.getLockedRemaining() > 0) {
+            MatchResponse.CancelRelease rel = buildRelease(order, symbol);
+            if (rel != null) releases.add(rel);
+        }
+        if (!releases.isEmpty()) {
+            response.setReleases(releases);
+        }
+
+        if (!trades.isEmpty() && symbol.supportsPosition()) {
+            try {
+                response.setPositionChange(calculatePositionChange(order, trades));
+            } catch (IllegalArgumentException e) {
+                // 订单簿已变更,改单结果不能回退;仅缺仓位摘要,仓位本身已按成交更新
+                log.warn("改单仓位摘要计算失败: orderId={}, reason={}", orderId, e.getMessage());
+            }
+        }
+
+        log.info("订单改单成功: orderId={}, amendId={}, priorityKept={}, status={}, filledRaw={}, remainingRaw={}",
+                orderId, amend.getAmendId(), keepPriority, response.getStatus(),
+                order.getFilledQuantity(), order.getRemainingQuantity());
+        return response;
+    }
+
     @Override
     public Order getOrder(String orderId) {
         OrderBook orderBook = findOrderBookByOrderId(orderId);
@@ -483,7 +699,7 @@ public class MatchEngineServiceImpl implements MatchEngineService {
      */
     private void updatePositionsFromTrade(Trade trade) {
         // 更新买方仓位
-        Position buyPosition = memoryManager.getOrCreatePosition(trade.getBuyUserId(), trade.getSymbol());
+        Position buyPosition = memoryManager.getOrCreatePosition(trade.getBuyUserId(), trade.getSymbolId(), trade.getSymbol());
         if (trade.getBuyPositionAction().isOpen()) {
             buyPosition.openPosition(trade.getQuantity(), trade.getPrice());
         } else {
@@ -492,7 +708,7 @@ public class MatchEngineServiceImpl implements MatchEngineService {
         memoryManager.updatePosition(buyPosition);
         
         // 更新卖方仓位
-        Position sellPosition = memoryManager.getOrCreatePosition(trade.getSellUserId(), trade.getSymbol());
+        Position sellPosition = memoryManager.getOrCreatePosition(trade.getSellUserId(), trade.getSymbolId(), trade.getSymbol());
         if (trade.getSellPositionAction().isOpen()) {
             sellPosition.openPosition(trade.getQuantity(), trade.getPrice());
         } else {
@@ -513,6 +729,47 @@ public class MatchEngineServiceImpl implements MatchEngineService {
         return null;
     }
     
+    /** 已结束(不可再改)的订单状态。 */
+    private static boolean isTerminal(OrderStatus status) {
+        return status == OrderStatus.FILLED || status == OrderStatus.CANCELLED
+                || status == OrderStatus.REJECTED || status == OrderStatus.EXPIRED;
+    }
+
+    /** 按新价挂单是否会与对手盘最优价立即成交(POST_ONLY 改价校验,口径同 PostOnlyOrderMatcher)。 */
+    private static boolean wouldCross(OrderBook orderBook, OrderSide side, long price) {
+        if (side == OrderSide.BUY) {
+            Long bestAsk = orderBook.getBestAsk();
+            return bestAsk != null && price >= bestAsk;
+        }
+        Long bestBid = orderBook.getBestBid();
+        return bestBid != null && price <= bestBid;
+    }
+
+    /**
+     * 改单被拒:订单不动;调用方为本次改单追加的冻结原样解冻。
+     */
+    private MatchResponse rejectAmend(MatchResponse response, OrderAmend amend,
+                                      MatchResponse.RejectInfo.RejectType rejectType, String reason) {
+        response.setStatus(MatchStatus.REJECTED);
+        response.setErrorMessage(reason);
+        response.setRejectInfo(createRejectInfo(rejectType, reason));
+        if (amend.getAdditionalLocked() > 0 && amend.getLockedAsset() != null) {
+            Symbol symbol = memoryManager.getSymbol(amend.getSymbol());
+            response.setReleases(new ArrayList<>(List.of(amendRelease(amend, accountType(symbol),
+                    amend.getLockedAsset(),
+                    FixedPoint.toBigDecimal(amend.getAdditionalLocked(), lockScale(symbol, amend.getLockedAsset()))))));
+        }
+        log.info("订单改单被拒: orderId={}, amendId={}, reason={}", amend.getOrderId(), amend.getAmendId(), reason);
+        return response;
+    }
+
+    /** 改单解冻指令:幂等键 {@link OrderAmend#releaseKey}(订单仍活跃,终态解冻另用 orderId 键)。 */
+    private static MatchResponse.CancelRelease amendRelease(OrderAmend amend, String accountType,
+                                                           String asset, BigDecimal amount) {
+        String key = OrderAmend.releaseKey(amend.getOrderId(), amend.getAmendId());
+        return new MatchResponse.CancelRelease(amend.getUserId(), accountType, asset, amount, key, key);
+    }
+
     /**
      * 创建拒绝信息
      */
@@ -549,7 +806,7 @@ public class MatchEngineServiceImpl implements MatchEngineService {
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         
         // 使用新的计算逻辑
-        Position currentPosition = memoryManager.getPosition(order.getUserId(), order.getSymbol());
+        Position currentPosition = memoryManager.getPosition(order.getUserId(), order.getSymbolId());
         PositionSide currentPositionSide = currentPosition != null ? currentPosition.getSide() : null;
         
         PositionAction.PositionChangeResult result = PositionAction.calculatePositionChange(
@@ -570,7 +827,7 @@ public class MatchEngineServiceImpl implements MatchEngineService {
         positionChange.setValueChange(totalValue);
         
         // 获取当前仓位
-        Position position = memoryManager.getPosition(order.getUserId(), order.getSymbol());
+        Position position = memoryManager.getPosition(order.getUserId(), order.getSymbolId());
         if (position != null) {
             positionChange.setNewQuantity(position.getQuantity().add(positionChangeQuantity));
             positionChange.setNewValue(position.getPositionValue().add(totalValue));
@@ -2,6 +2,7 @@ package com.exchange.match.core.transport;
 
 import com.exchange.match.constant.MatchSettlementStream;
 import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.MatchResponseCodec;
 import com.exchange.transport.aeron.config.AeronConfigFactory;
 import com.exchange.transport.aeron.config.AeronConfigFactory.PublisherChannelConfig;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,6 +11,7 @@ import io.aeron.Publication;
 import io.aeron.archive.client.AeronArchive;
 import io.aeron.archive.codecs.SourceLocation;
 import lombok.extern.slf4j.Slf4j;
+import org.agrona.ExpandableDirectByteBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
@@ -32,6 +34,11 @@ import java.util.concurrent.atomic.LongAdder;
  * <p>Aeron Archive 同步录制 MDC 出站流，{@code TradeSettlementForwarder} 从 Archive 消费
  * 成交结果并转发至 Asset Cluster，取代原 Kafka 路径。
  *
+ * <h3>编码</h3>
+ * <p>结算流用 {@link MatchResponseCodec} 二进制编码：撮合引擎填的定点 raw 直接写入缓冲，
+ * 不物化 BigDecimal、不走 JSON。实时 MDC 流的订阅方（Risk / Quote）仍收 JSON，
+ * 无订阅方时不做 JSON 序列化。
+ *
  * <h3>激活条件</h3>
  * <pre>
  *   aeron.enabled=true              # 默认 true
@@ -72,6 +79,9 @@ public class AeronMatchResultPublisher implements InitializingBean, DisposableBe
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /** 结算流编码缓冲，仅 Disruptor 事件处理线程使用，按需扩容后复用。 */
+    private final ExpandableDirectByteBuffer settlementBuffer = new ExpandableDirectByteBuffer(4096);
+
     /** 实时广播 publication（UDP MDC）→ Risk / Quote 等动态订阅方,尽力而为。 */
     private Publication livePublication;
 
@@ -165,16 +175,17 @@ public class AeronMatchResultPublisher implements InitializingBean, DisposableBe
         if (response == null) return;
 
         try {
-            byte[] jsonBytes = objectMapper.writeValueAsBytes(response);
-            // UnsafeBuffer 直接包装字节数组，零拷贝传入 Aeron（不额外分配堆内存）
-            UnsafeBuffer buffer = new UnsafeBuffer(jsonBytes);
-
             // ① 结算流：可靠写入 IPC（Archive 录制）。绝不丢——漏一条就漏一笔结算。
             //    IPC 本地极快,背压罕见;真背压时自旋直到成功(宁可短暂阻塞撮合,也不丢钱)。
-            publishSettlementReliable(buffer, jsonBytes.length, response.getOrderId());
-
-            // ② 实时流：尽力而为广播给 Risk/Quote。慢消费者背压→丢弃,不影响结算,不阻塞撮合。
-            publishLiveBestEffort(buffer, jsonBytes.length, response.getOrderId());
+            publishSettlementReliable(response);
+
+            // ② 实时流：尽力而为广播给 Risk/Quote（JSON）。无订阅方时不序列化;
+            //    慢消费者背压→丢弃,不影响结算,不阻塞撮合。
+            if (livePublication.isConnected()) {
+                byte[] jsonBytes = objectMapper.writeValueAsBytes(response);
+                // UnsafeBuffer 直接包装字节数组，零拷贝传入 Aeron（不额外分配堆内存）
+                publishLiveBestEffort(new UnsafeBuffer(jsonBytes), jsonBytes.length, response.getOrderId());
+            }
 
         } catch (Exception e) {
             errorCount.increment();
@@ -190,15 +201,18 @@ public class AeronMatchResultPublisher implements InitializingBean, DisposableBe
      * 外<b>绝不放弃</b>。IPC→本地 Archive 极快,持续背压意味着磁盘/Archive 严重异常,
      * 此时短暂阻塞撮合线程(可被延迟监控发现)远优于静默漏结算。
      */
-    private void publishSettlementReliable(UnsafeBuffer buffer, int len, String orderId) {
+    private void publishSettlementReliable(MatchResponse response) {
         if (settlementPublication == null) {
             // 降级模式(Archive 未启用):无结算持久化——仅测试/无 Aeron 部署
             errorCount.increment();
             return;
         }
+        // 定点 raw 直接编码进复用缓冲,不经 BigDecimal / JSON
+        int len = MatchResponseCodec.encode(settlementBuffer, 0, response);
+        String orderId = response.getOrderId();
         long result;
         long retries = 0;
-        while ((result = settlementPublication.offer(buffer, 0, len)) < 0) {
+        while ((result = settlementPublication.offer(settlementBuffer, 0, len)) < 0) {
             if (result == Publication.CLOSED) {
                 log.error("[AeronMatchResultPublisher] Settlement publication CLOSED — trade NOT recorded, orderId={}", orderId);
                 errorCount.increment();
@@ -0,0 +1,149 @@
+package com.exchange.match.core.cluster;
+
+import com.exchange.match.core.memory.MemoryManager;
+import com.exchange.match.core.model.OrderAmend;
+import com.exchange.match.core.model.Symbol;
+import com.exchange.match.core.service.MatchEngineService;
+import com.exchange.match.core.transport.AeronMatchResultPublisher;
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.model.MatchResponse;
+import com.exchange.match.request.EventAmendOrderReq;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.aeron.cluster.service.ClientSession;
+import io.aeron.cluster.service.Cluster;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * 改单入口格式校验:amendId 必填;追加冻结精度超出 lockedAsset scale 整单拒绝,
+ * 追加额按请求原值解冻(幂等键 AMEND:{orderId}:{amendId}),不进撮合。
+ */
+public class MatchClusteredServiceAmendTest {
+
+    private static final long USER = 7L;
+    private static final long NOW  = 1_800_000_000_000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MatchEngineService        engine;
+    private AeronMatchResultPublisher publisher;
+    private ClientSession             session;
+    private MatchClusteredService     service;
+    /** 每帧 Egress 的 msgType */
+    private final List<Byte>          egress = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        engine    = mock(MatchEngineService.class);
+        publisher = mock(AeronMatchResultPublisher.class);
+        session   = mock(ClientSession.class);
+        Cluster cluster = mock(Cluster.class);
+        when(cluster.role()).thenReturn(Cluster.Role.LEADER);
+        when(cluster.time()).thenReturn(NOW);
+        when(session.offer(any(DirectBuffer.class), anyInt(), anyInt())).thenAnswer(inv -> {
+            DirectBuffer buf = inv.getArgument(0);
+            egress.add(buf.getByte(inv.getArgument(1)));
+            return 1L;
+        });
+
+        MemoryManager memoryManager = new MemoryManager();
+        Symbol sym = new Symbol();
+        sym.setSymbol("BTC_USDT");
+        sym.setBaseCurrency("BTC");
+        sym.setQuoteCurrency("USDT");
+        sym.setPricePrecision(2);
+        sym.setQuantityPrecision(6);
+        sym.setQuoteScale(2);
+        memoryManager.addSymbol(sym);
+
+        service = new MatchClusteredService(engine, memoryManager, publisher);
+        service.onStart(cluster, null);
+    }
+
+    @Test
+    public void blankAmendId_isRejectedWithoutRelease() throws Exception {
+        send(amend(" ", "10.00"));
+
+        verify(engine, never()).amendOrder(any());
+        MatchResponse r = published();
+        assertEquals(MatchStatus.REJECTED, r.getStatus());
+        assertEquals("amendId is required", r.getErrorMessage());
+        // 没有幂等键:不产出解冻
+        assertNull(r.getReleases());
+        assertEquals(List.of(MatchClusteredService.MSG_REJECT), egress);
+    }
+
+    @Test
+    public void additionalLockedBeyondLockScale_rejectsAndReleasesExactAmount() throws Exception {
+        send(amend("A1", "10.005"));
+
+        verify(engine, never()).amendOrder(any());
+        MatchResponse r = published();
+        assertEquals(MatchStatus.REJECTED, r.getStatus());
+        assertTrue(r.getErrorMessage().contains("scale 2"));
+        MatchResponse.CancelRelease release = r.getReleases().get(0);
+        // 按请求原值解冻,不截断成 10.00
+        assertEquals(new BigDecimal("10.005"), release.getAmount());
+        assertEquals("USDT", release.getAsset());
+        assertEquals("SPOT", release.getAccountType());
+        assertEquals("AMEND:O1:A1", release.getBizNo());
+        assertEquals("A1", r.getAmendInfo().getAmendId());
+    }
+
+    @Test
+    public void additionalLockedAtLockScale_reachesEngineUntruncated() throws Exception {
+        MatchResponse ok = new MatchResponse();
+        ok.setOrderId("O1");
+        when(engine.amendOrder(any(OrderAmend.class))).thenReturn(ok);
+
+        send(amend("A1", "10.500"));   // 尾零不算超精度
+
+        ArgumentCaptor<OrderAmend> captor = ArgumentCaptor.forClass(OrderAmend.class);
+        verify(engine).amendOrder(captor.capture());
+        assertEquals(1_050L, captor.getValue().getAdditionalLocked());
+        assertEquals("A1", captor.getValue().getAmendId());
+        assertEquals(List.of(MatchClusteredService.MSG_AMEND_ACK), egress);
+    }
+
+    // =========================================================================
+    // Helpers
+    // =========================================================================
+
+    private void send(EventAmendOrderReq req) throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(req);
+        UnsafeBuffer buf = new UnsafeBuffer(new byte[json.length + 1]);
+        buf.putByte(0, MatchClusteredService.MSG_AMEND);
+        buf.putBytes(1, json);
+        service.onSessionMessage(session, NOW, buf, 0, json.length + 1, null);
+    }
+
+    private MatchResponse published() {
+        ArgumentCaptor<MatchResponse> captor = ArgumentCaptor.forClass(MatchResponse.class);
+        verify(publisher).send(captor.capture());
+        return captor.getValue();
+    }
+
+    private static EventAmendOrderReq amend(String amendId, String additionalLocked) {
+        EventAmendOrderReq req = new EventAmendOrderReq();
+        req.setAmendId(amendId);
+        req.setOrderId("O1");
+        req.setUserId(USER);
+        req.setSymbol("BTC_USDT");
+        req.setQuantity(new BigDecimal("2"));
+        req.setLockedAsset("USDT");
+        req.setAdditionalLocked(new BigDecimal(additionalLocked));
+        return req;
+    }
+}
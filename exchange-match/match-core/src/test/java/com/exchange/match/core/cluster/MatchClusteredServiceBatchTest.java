@@ -0,0 +1,245 @@
+package com.exchange.match.core.cluster;
+
+import com.exchange.common.id.SnowflakeId;
+import com.exchange.match.core.memory.MemoryManager;
+import com.exchange.match.core.model.Order;
+import com.exchange.match.core.model.Symbol;
+import com.exchange.match.core.service.MatchEngineService;
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.model.BatchOrderAck;
+import com.exchange.match.model.MatchResponse;
+import com.exchange.match.request.EventBatchOrderReq;
+import com.exchange.match.request.EventNewOrderReq;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.aeron.cluster.service.ClientSession;
+import io.aeron.cluster.service.Cluster;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 批量委托:一条 Ingress 消息按序执行 N 项,整批一帧回包;格式不合法整批不执行。
+ */
+public class MatchClusteredServiceBatchTest {
+
+    private static final long USER = 7L;
+    private static final long NOW  = 1_800_000_000_000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MatchEngineService    engine;
+    private MemoryManager         memoryManager;
+    private ClientSession         session;
+    private MatchClusteredService service;
+    /** 每帧 Egress:[msgType][JSON] */
+    private final List<byte[]>    egress = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        engine  = mock(MatchEngineService.class);
+        session = mock(ClientSession.class);
+        Cluster cluster = mock(Cluster.class);
+        when(cluster.role()).thenReturn(Cluster.Role.LEADER);
+        when(cluster.time()).thenReturn(NOW);
+        when(session.offer(any(DirectBuffer.class), anyInt(), anyInt())).thenAnswer(inv -> {
+            DirectBuffer buf = inv.getArgument(0);
+            byte[] frame = new byte[(int) inv.getArgument(2)];
+            buf.getBytes(inv.getArgument(1), frame);
+            egress.add(frame);
+            return 1L;
+        });
+
+        memoryManager = new MemoryManager();
+        service = new MatchClusteredService(engine, memoryManager, null);
+        service.onStart(cluster, null);
+    }
+
+    @Test
+    public void batch_executesItemsInOrder_andRepliesWithOneFrame() throws Exception {
+        when(engine.submitOrder(any(Order.class))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return response(o.getOrderId(), MatchStatus.PENDING, null);
+        });
+        when(engine.cancelOrder(eq("O10"), eq(USER))).thenReturn(response("O10", MatchStatus.CANCELLED, null));
+        when(engine.cancelOrder(eq("O11"), eq(USER))).thenReturn(response("O11", MatchStatus.REJECTED, "订单不存在: O11"));
+
+        EventBatchOrderReq req = batch(
+                item(EventBatchOrderReq.ACTION_PLACE, null, order("O1", USER)),
+                item(EventBatchOrderReq.ACTION_CANCEL, "O10", null),
+                item(EventBatchOrderReq.ACTION_REPLACE, "O11", order("O2", USER)));
+        send(req);
+
+        InOrder inOrder = inOrder(engine);
+        ArgumentCaptor<Order> placed = ArgumentCaptor.forClass(Order.class);
+        inOrder.verify(engine).submitOrder(placed.capture());
+        inOrder.verify(engine).cancelOrder("O10", USER);
+        inOrder.verify(engine).cancelOrder("O11", USER);
+        // REPLACE 的原单未命中:新单不下
+        verify(engine, times(1)).submitOrder(any(Order.class));
+        assertEquals("O1", placed.getValue().getOrderId());
+
+        BatchOrderAck ack = singleBatchAck();
+        assertEquals("B1", ack.getBatchId());
+        assertTrue(ack.isAccepted());
+        assertEquals(3, ack.getAcks().size());
+        assertEquals(MatchStatus.PENDING, ack.getAcks().get(0).getStatus());
+        assertEquals("O10", ack.getAcks().get(1).getOrderId());
+        assertEquals(MatchStatus.CANCELLED, ack.getAcks().get(1).getStatus());
+        assertEquals("O2", ack.getAcks().get(2).getOrderId());
+        assertEquals(MatchStatus.REJECTED, ack.getAcks().get(2).getStatus());
+        assertNotNull(ack.getAcks().get(2).getError());
+    }
+
+    @Test
+    public void expiredReplacement_keepsOriginalOrder() throws Exception {
+        // 新单 orderId 为 60s 前生成的 Snowflake:超时,REPLACE 整项不执行
+        String staleId = String.valueOf((NOW - 60_000L - SnowflakeId.EPOCH) << 22);
+        send(batch(item(EventBatchOrderReq.ACTION_REPLACE, "O10", order(staleId, USER))));
+
+        verify(engine, never()).cancelOrder(any(), anyLong());
+        verify(engine, never()).submitOrder(any());
+        BatchOrderAck ack = singleBatchAck();
+        assertEquals(MatchStatus.REJECTED, ack.getAcks().get(0).getStatus());
+        assertEquals(staleId, ack.getAcks().get(0).getOrderId());
+    }
+
+    @Test
+    public void invalidItem_rejectsWholeBatchWithoutTouchingEngine() throws Exception {
+        EventBatchOrderReq req = batch(
+                item(EventBatchOrderReq.ACTION_PLACE, null, order("O1", USER)),
+                item(EventBatchOrderReq.ACTION_PLACE, null, order("O2", USER + 1)));
+        send(req);
+
+        verify(engine, never()).submitOrder(any());
+        verify(engine, never()).cancelOrder(any(), anyLong());
+        BatchOrderAck ack = singleBatchAck();
+        assertFalse(ack.isAccepted());
+        assertNull(ack.getAcks());
+        assertTrue(ack.getError().contains("item 1"));
+    }
+
+    @Test
+    public void lockBelowSymbolSpec_rejectsOnlyThatItem() throws Exception {
+        Symbol sym = new Symbol();
+        sym.setSymbol("BTC_USDT");
+        sym.setBaseCurrency("BTC");
+        sym.setQuoteCurrency("USDT");
+        sym.setPricePrecision(2);
+        sym.setQuantityPrecision(6);
+        sym.setQuoteScale(8);
+        sym.setFeeRate(new BigDecimal("0.001"));
+        memoryManager.addSymbol(sym);
+        when(engine.submitOrder(any(Order.class))).thenAnswer(inv -> {
+            Order o = inv.getArgument(0);
+            return response(o.getOrderId(), MatchStatus.PENDING, null);
+        });
+
+        // 100 × 1 × (1 + 0.001) = 100.1:按零费率配置算出的 100 冻结不足;币种错配同样拒绝
+        send(batch(
+                item(EventBatchOrderReq.ACTION_PLACE, null, locked(order("O1", USER), "USDT", "100")),
+                item(EventBatchOrderReq.ACTION_PLACE, null, locked(order("O2", USER), "USDT", "100.1")),
+                item(EventBatchOrderReq.ACTION_REPLACE, "O10", locked(order("O3", USER), "BTC", "100.1"))));
+
+        ArgumentCaptor<Order> placed = ArgumentCaptor.forClass(Order.class);
+        verify(engine, times(1)).submitOrder(placed.capture());
+        assertEquals("O2", placed.getValue().getOrderId());
+        // REPLACE 新单被拒:原单不撤
+        verify(engine, never()).cancelOrder(any(), anyLong());
+
+        BatchOrderAck ack = singleBatchAck();
+        assertTrue(ack.isAccepted());
+        assertEquals(MatchStatus.REJECTED, ack.getAcks().get(0).getStatus());
+        assertTrue(ack.getAcks().get(0).getError().contains("symbol spec mismatch"));
+        assertEquals(MatchStatus.PENDING, ack.getAcks().get(1).getStatus());
+        assertEquals(MatchStatus.REJECTED, ack.getAcks().get(2).getStatus());
+        assertTrue(ack.getAcks().get(2).getError().contains("locked asset"));
+    }
+
+    @Test
+    public void oversizedBatch_isRejected() throws Exception {
+        EventBatchOrderReq.Item[] items = new EventBatchOrderReq.Item[EventBatchOrderReq.MAX_ITEMS + 1];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = item(EventBatchOrderReq.ACTION_CANCEL, String.valueOf(i), null);
+        }
+        send(batch(items));
+
+        verify(engine, never()).cancelOrder(any(), anyLong());
+        assertFalse(singleBatchAck().isAccepted());
+    }
+
+    // =========================================================================
+    // Helpers
+    // =========================================================================
+
+    private void send(EventBatchOrderReq req) throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(req);
+        UnsafeBuffer buf = new UnsafeBuffer(new byte[json.length + 1]);
+        buf.putByte(0, MatchClusteredService.MSG_BATCH_ORDERS);
+        buf.putBytes(1, json);
+        service.onSessionMessage(session, NOW, buf, 0, json.length + 1, null);
+    }
+
+    private BatchOrderAck singleBatchAck() throws Exception {
+        assertEquals(1, egress.size());
+        byte[] frame = egress.get(0);
+        assertEquals(MatchClusteredService.MSG_BATCH_ACK, frame[0]);
+        return objectMapper.readValue(frame, 1, frame.length - 1, BatchOrderAck.class);
+    }
+
+    private static EventBatchOrderReq batch(EventBatchOrderReq.Item... items) {
+        EventBatchOrderReq req = new EventBatchOrderReq();
+        req.setBatchId("B1");
+        req.setUserId(USER);
+        req.setItems(List.of(items));
+        return req;
+    }
+
+    private static EventBatchOrderReq.Item item(String action, String cancelOrderId, EventNewOrderReq order) {
+        EventBatchOrderReq.Item item = new EventBatchOrderReq.Item();
+        item.setAction(action);
+        item.setCancelOrderId(cancelOrderId);
+        item.setOrder(order);
+        return item;
+    }
+
+    private static EventNewOrderReq order(String orderId, long userId) {
+        EventNewOrderReq o = new EventNewOrderReq();
+        o.setOrderId(orderId);
+        o.setUserId(userId);
+        o.setSymbol("BTC_USDT");
+        o.setSide("BUY");
+        o.setOrderType("LIMIT");
+        o.setPrice(new BigDecimal("100"));
+        o.setQuantity(BigDecimal.ONE);
+        return o;
+    }
+
+    private static EventNewOrderReq locked(EventNewOrderReq o, String asset, String amount) {
+        o.setLockedAsset(asset);
+        o.setLockedAmount(new BigDecimal(amount));
+        return o;
+    }
+
+    private static MatchResponse response(String orderId, MatchStatus status, String error) {
+        MatchResponse r = new MatchResponse();
+        r.setOrderId(orderId);
+        r.setUserId(USER);
+        r.setStatus(status);
+        r.setErrorMessage(error);
+        return r;
+    }
+}
@@ -0,0 +1,140 @@
+package com.exchange.match.core.event.handler;
+
+import com.exchange.match.core.event.MatchEvent;
+import com.exchange.match.core.memory.MemoryManager;
+import com.exchange.match.core.model.LiquidationRequest;
+import com.exchange.match.core.model.Position;
+import com.exchange.match.core.model.RiskLevel;
+import com.exchange.match.core.service.BatchLiquidationExecutor;
+import com.exchange.match.core.service.RiskManagementService;
+import com.exchange.match.core.service.RiskRecalculationService;
+import com.exchange.match.core.transport.AeronMatchResultPublisher;
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.Trade;
+import com.exchange.match.request.EventLiquidationReq;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 强平事件处理器测试：同批市价强平在 flush 时合并执行，每次 flush 只发一条结算消息，
+ * 无成交或无暂存请求时不发。
+ */
+@ExtendWith(MockitoExtension.class)
+public class LiquidationEventHandlerTest {
+
+    @Mock
+    private MemoryManager memoryManager;
+
+    @Mock
+    private RiskManagementService riskManagementService;
+
+    @Mock
+    private RiskRecalculationService riskRecalculationService;
+
+    @Mock
+    private BatchLiquidationExecutor batchLiquidationExecutor;
+
+    @Mock
+    private AeronMatchResultPublisher aeronPublisher;
+
+    @InjectMocks
+    private LiquidationEventHandler handler;
+
+    @Test
+    public void flush_publishesOneSettlementMessagePerBatch() {
+        stubMarketLiquidationPath();
+        MatchResponse settlement = settlement(new Trade(), new Trade());
+        BatchLiquidationExecutor.BatchLiquidationResult batch = new BatchLiquidationExecutor.BatchLiquidationResult();
+        batch.setSettlementBatch(settlement);
+        batch.getResults().put("L1", new LiquidationRequest.LiquidationResult());
+        batch.getResults().put("L2", new LiquidationRequest.LiquidationResult());
+        when(batchLiquidationExecutor.executeBatch(anyList())).thenReturn(batch);
+
+        MatchEvent e1 = event("L1", 1L);
+        MatchEvent e2 = event("L2", 2L);
+        handler.handle(e1);
+        handler.handle(e2);
+        // 市价强平暂存到批尾，处理时不扫簿也不发结算
+        verifyNoInteractions(batchLiquidationExecutor, aeronPublisher);
+
+        handler.flush();
+
+        ArgumentCaptor<List<LiquidationRequest>> requests = ArgumentCaptor.forClass(List.class);
+        verify(batchLiquidationExecutor, times(1)).executeBatch(requests.capture());
+        assertEquals(2, requests.getValue().size());
+        verify(aeronPublisher, times(1)).send(any(MatchResponse.class));
+        verify(aeronPublisher).send(settlement);
+        assertSame(batch.getResults().get("L1"), e1.getResult());
+        assertSame(batch.getResults().get("L2"), e2.getResult());
+
+        // 暂存已清空：再次 flush 不执行、不发送
+        handler.flush();
+        verify(batchLiquidationExecutor, times(1)).executeBatch(anyList());
+        verify(aeronPublisher, times(1)).send(any(MatchResponse.class));
+    }
+
+    @Test
+    public void flush_withoutTrades_publishesNothing() {
+        stubMarketLiquidationPath();
+        BatchLiquidationExecutor.BatchLiquidationResult batch = new BatchLiquidationExecutor.BatchLiquidationResult();
+        batch.setSettlementBatch(settlement());
+        when(batchLiquidationExecutor.executeBatch(anyList())).thenReturn(batch);
+
+        handler.handle(event("L1", 1L));
+        handler.flush();
+
+        verify(batchLiquidationExecutor).executeBatch(anyList());
+        verify(aeronPublisher, never()).send(any());
+    }
+
+    // =========================================================================
+    // Helpers
+    // =========================================================================
+
+    /** 持仓存在、重算后需强平（非第五档、无需降档）：市价强平进入本批暂存。 */
+    private void stubMarketLiquidationPath() {
+        Position position = new Position();
+        position.setQuantity(BigDecimal.ONE);
+        when(memoryManager.getPosition(anyLong(), anyString())).thenReturn(position);
+        RiskRecalculationService.RiskRecalculationResult risk = mock(RiskRecalculationService.RiskRecalculationResult.class);
+        when(risk.isNeedLiquidation()).thenReturn(true);
+        when(risk.getRiskLevel()).thenReturn(RiskLevel.DANGER);
+        when(riskRecalculationService.recalculateRisk(any(LiquidationRequest.class))).thenReturn(risk);
+    }
+
+    private static MatchEvent event(String liquidationId, long userId) {
+        EventLiquidationReq req = new EventLiquidationReq();
+        req.setLiquidationId(liquidationId);
+        req.setUserId(userId);
+        req.setSymbol("BTC_USDT");
+        req.setLiquidationType("SYSTEM_RISK");
+        req.setSide("SELL");
+        req.setIsFullLiquidation(true);
+        MatchEvent event = new MatchEvent();
+        event.setLiquidationReq(req);
+        return event;
+    }
+
+    private static MatchResponse settlement(Trade... trades) {
+        MatchResponse r = new MatchResponse();
+        r.setOrderId("LIQ_BATCH_1");
+        r.setTrades(List.of(trades));
+        r.setStatus(trades.length == 0 ? MatchStatus.REJECTED : MatchStatus.SUCCESS);
+        return r;
+    }
+}
@@ -0,0 +1,92 @@
+package com.exchange.match.core.memory;
+
+import com.exchange.match.core.model.OrderBook;
+import com.exchange.match.core.model.Position;
+import com.exchange.match.core.model.Symbol;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * symbolId 分配与按 id 数组查找测试:上架顺序分配稠密 id,id 不回收,快照还原后 id 不变。
+ */
+public class SymbolIdTableTest {
+
+    private Symbol symbol(String code) {
+        Symbol s = new Symbol();
+        s.setSymbol(code);
+        return s;
+    }
+
+    @Test
+    public void listing_assignsDenseIds_andArrayLookupsAgree() {
+        MemoryManager mm = new MemoryManager();
+        Symbol btc = symbol("BTC/USDT");
+        Symbol eth = symbol("ETH/USDT");
+        mm.addSymbol(btc);
+        mm.addSymbol(eth);
+
+        assertEquals(0, btc.getSymbolId());
+        assertEquals(1, eth.getSymbolId());
+        assertSame(eth, mm.getSymbol(1));
+        assertSame(eth, mm.getSymbol("ETH/USDT"));
+        assertNull(mm.getSymbol(-1));
+        assertNull(mm.getSymbol(99));
+
+        OrderBook book = mm.getOrCreateOrderBook("ETH/USDT");
+        assertEquals(1, book.getSymbolId());
+        assertSame(book, mm.getOrderBook(1));
+
+        Position p = mm.getOrCreatePosition(7L, "ETH/USDT");
+        assertEquals(1, p.getSymbolId());
+        assertSame(p, mm.getPosition(7L, 1));
+        assertEquals(1, mm.getUserPositions(7L).size());
+    }
+
+    @Test
+    public void delistedIds_areNotReused_andSurviveRestore() {
+        MemoryManager mm = new MemoryManager();
+        mm.addSymbol(symbol("A"));
+        mm.addSymbol(symbol("B"));
+        mm.removeSymbol("A");
+        mm.addSymbol(symbol("C"));
+        assertNull(mm.getSymbol(0));
+        assertEquals(2, mm.getSymbol("C").getSymbolId());
+
+        // 快照还原:先还原分配表,再加回标的,下一个新标的 id 与未重启副本一致
+        Map<String, Integer> ids = mm.getSymbolIds();
+        MemoryManager restored = new MemoryManager();
+        restored.restoreSymbolIds(ids);
+        restored.addSymbol(symbol("C"));
+        restored.addSymbol(symbol("B"));
+        assertEquals(2, restored.getSymbol("C").getSymbolId());
+        assertEquals(1, restored.getSymbol("B").getSymbolId());
+        assertEquals(mm.internSymbolId("D"), restored.internSymbolId("D"));
+    }
+
+    @Test
+    public void growth_keepsSlotsWrittenBeforeAndDuringResize() throws Exception {
+        MemoryManager mm = new MemoryManager();
+        // 两个线程同时上架并建订单薄,跨越多次扩容;槽位写与扩容同锁,不应丢失
+        Thread other = new Thread(() -> {
+            for (int i = 0; i < 300; i++) {
+                mm.getOrCreateOrderBook("T" + i);
+            }
+        });
+        other.start();
+        for (int i = 0; i < 300; i++) {
+            mm.addSymbol(symbol("S" + i));
+            mm.getOrCreatePosition(1L, "S" + i);
+        }
+        other.join();
+
+        for (int i = 0; i < 300; i++) {
+            assertNotNull(mm.getSymbol("S" + i));
+            assertNotNull(mm.getPosition(1L, "S" + i));
+            assertNotNull(mm.getOrderBook("T" + i));
+        }
+        assertEquals(600, mm.getSymbolIds().size());
+    }
+}
@@ -0,0 +1,66 @@
+package com.exchange.match.core.model;
+
+import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.Trade;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 惰性 BigDecimal 测试:raw 填充后 getter/JSON 与直接填 BigDecimal 一致,raw 字段不进 JSON。
+ */
+public class LazyMatchResponseTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    public void rawBackedFields_materializeOnFirstRead() {
+        MatchResponse resp = new MatchResponse();
+        resp.setRawScales(2, 4, 8);
+        resp.setOrderPriceRaw(10_050L);
+        resp.setMatchQuantityRaw(15_000L);
+        resp.setRemainingQuantityRaw(0L);
+
+        assertTrue(resp.isFullyFilled());
+        assertFalse(resp.isUnfilled());
+        assertEquals(new BigDecimal("100.50"), resp.getOrderPrice());
+        assertEquals(new BigDecimal("1.5000"), resp.getMatchQuantity());
+        assertSame(resp.getOrderPrice(), resp.getOrderPrice());
+
+        // BigDecimal setter 覆盖 raw,raw getter 反向换算
+        resp.setMatchQuantity(new BigDecimal("2"));
+        assertEquals(20_000L, resp.getMatchQuantityRaw());
+    }
+
+    @Test
+    public void json_isSameAsEagerBigDecimal() throws Exception {
+        Trade lazy = new Trade();
+        lazy.setRawScales(2, 4, 8);
+        lazy.setPriceRaw(10_000L);
+        lazy.setQuantityRaw(5_000L);
+        lazy.setAmountRaw(5_000_000_000L);
+
+        Trade eager = new Trade();
+        eager.setTradeTime(lazy.getTradeTime());
+        eager.setPrice(new BigDecimal("100.00"));
+        eager.setQuantity(new BigDecimal("0.5000"));
+        eager.setAmount(new BigDecimal("50.00000000"));
+
+        MatchResponse resp = new MatchResponse();
+        resp.setTrades(List.of(lazy));
+        JsonNode node = objectMapper.readTree(objectMapper.writeValueAsBytes(resp));
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(eager)), node.get("trades").get(0));
+        assertFalse(node.get("trades").get(0).has("quantityRaw"));
+        assertFalse(node.has("matchQuantityRaw"));
+
+        Trade back = objectMapper.readValue(objectMapper.writeValueAsBytes(lazy), Trade.class);
+        assertEquals(new BigDecimal("0.5000"), back.getQuantity());
+    }
+}
@@ -0,0 +1,173 @@
+package com.exchange.match.core.model;
+
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.enums.OrderSide;
+import com.exchange.match.enums.OrderType;
+import com.exchange.match.enums.PositionAction;
+import com.exchange.match.enums.PositionSide;
+import com.exchange.match.enums.TradeSide;
+import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.MatchResponseCodec;
+import com.exchange.match.model.Trade;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 结算流二进制编解码测试：raw 字段直接按定点写出，往返后与 JSON 表示一致；
+ * BigDecimal 冷路径（非同组 scale、超出 long、负 scale、null）同样无损；旧 JSON 消息不被识别为二进制。
+ */
+public class MatchResponseCodecTest {
+
+    private static final int OFFSET = 5;
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 8, 30, 15, 123_456_789);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    public void rawBackedResponse_roundTripsAllSections() throws Exception {
+        MatchResponse resp = new MatchResponse();
+        resp.setRawScales(2, 4, 8);
+        resp.setOrderId("1001");
+        resp.setUserId(7L);
+        resp.setSymbol("BTCUSDT");
+        resp.setSide(OrderSide.BUY);
+        resp.setOrderType(OrderType.LIMIT);
+        resp.setStatus(MatchStatus.PARTIALLY_FILLED);
+        resp.setOrderPriceRaw(10_050L);
+        resp.setOrderQuantityRaw(20_000L);
+        resp.setMatchPriceRaw(10_000L);
+        resp.setMatchQuantityRaw(5_000L);
+        resp.setRemainingQuantityRaw(15_000L);
+        resp.setMatchAmountRaw(5_000_000_000L);
+        resp.setFeeRaw(-1_000L);
+        resp.setCreateTime(T0);
+        resp.setProcessTime(T0.plusNanos(1));
+
+        Trade trade = new Trade();
+        trade.setRawScales(2, 4, 8);
+        trade.setTradeId("T1");
+        trade.setSymbol("BTCUSDT");
+        trade.setSymbolId(3);
+        trade.setBuyOrderId("1001");
+        trade.setSellOrderId("900");
+        trade.setBuyUserId(7L);
+        trade.setSellUserId(8L);
+        trade.setPriceRaw(10_000L);
+        trade.setQuantityRaw(5_000L);
+        trade.setAmountRaw(5_000_000_000L);
+        trade.setBuyFeeRaw(0L);
+        trade.setSellFeeRaw(5_000_000L);
+        trade.setTradeTime(T0);
+        trade.setSide(TradeSide.BUY);
+        trade.setBuyPositionAction(PositionAction.OPEN);
+        resp.setTrades(List.of(trade));
+
+        MatchResponse.PositionChange position = new MatchResponse.PositionChange();
+        position.setUserId(7L);
+        position.setSymbol("BTCUSDT");
+        position.setSide(PositionSide.LONG);
+        position.setPositionAction(PositionAction.OPEN);
+        position.setNewQuantity(new BigDecimal("0.5000"));
+        position.setUpdateTime(T0);
+        resp.setPositionChange(position);
+
+        MatchResponse.CancelInfo cancel = new MatchResponse.CancelInfo();
+        cancel.setCancelReason("用户撤单");
+        cancel.setCancelQuantity(new BigDecimal("1.5"));
+        cancel.setCancelTime(T0);
+        cancel.setPreviousStatus(MatchStatus.PARTIALLY_FILLED);
+        resp.setCancelInfo(cancel);
+        resp.setReleases(List.of(new MatchResponse.CancelRelease(
+                7L, "SPOT", "USDT", new BigDecimal("150.75000000"), "CANCEL:1001", "1001")));
+
+        MatchResponse.AmendInfo amend = new MatchResponse.AmendInfo();
+        amend.setAmendId("A1");
+        amend.setPreviousPrice(new BigDecimal("100.00"));
+        amend.setPriorityKept(true);
+        amend.setLockDelta(new BigDecimal("-0.5"));
+        amend.setLockedAsset("USDT");
+        resp.setAmendInfo(amend);
+
+        MatchResponse.RejectInfo reject = new MatchResponse.RejectInfo();
+        reject.setRejectCode("E1");
+        reject.setRejectTime(T0);
+        reject.setRejectType(MatchResponse.RejectInfo.RejectType.INVALID_ORDER_STATUS);
+        resp.setRejectInfo(reject);
+
+        MatchResponse back = roundTrip(resp);
+
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsBytes(resp)),
+                objectMapper.readTree(objectMapper.writeValueAsBytes(back)));
+        assertEquals(5_000L, back.getMatchQuantityRaw());
+        assertEquals(5_000_000_000L, back.getMatchAmountRaw());
+        assertEquals(new BigDecimal("100.50"), back.getOrderPrice());
+        assertEquals(new BigDecimal("-0.00001000"), back.getFee());
+        assertEquals(new BigDecimal("0.05000000"), back.getTrades().get(0).getSellFee());
+        assertEquals(T0, back.getCreateTime());
+        assertNull(back.getErrorMessage());
+        assertNull(back.getTrades().get(0).getSellPositionAction());
+        assertTrue(back.getAmendInfo().isPriorityKept());
+        assertEquals("用户撤单", back.getCancelInfo().getCancelReason());
+    }
+
+    @Test
+    public void bigDecimalFields_roundTripScaleAndNulls() {
+        MatchResponse resp = new MatchResponse();
+        resp.setOrderId("2002");
+        resp.setOrderPrice(new BigDecimal("1E+3"));
+        resp.setOrderQuantity(new BigDecimal("123456789012345678901234567890.123"));
+        resp.setMatchQuantity(null);
+        resp.setFee(new BigDecimal("0.000100"));
+        resp.setErrorMessage("余额不足");
+        resp.setCreateTime(null);
+
+        MatchResponse back = roundTrip(resp);
+
+        assertEquals(new BigDecimal("1E+3"), back.getOrderPrice());
+        assertEquals(-3, back.getOrderPrice().scale());
+        assertEquals(new BigDecimal("123456789012345678901234567890.123"), back.getOrderQuantity());
+        assertNull(back.getMatchQuantity());
+        assertNull(back.getMatchPrice());
+        assertEquals(new BigDecimal("0.000100"), back.getFee());
+        assertEquals(BigDecimal.ZERO, back.getMatchAmount());
+        assertEquals("余额不足", back.getErrorMessage());
+        assertNull(back.getCreateTime());
+        assertNull(back.getUserId());
+        assertNull(back.getSide());
+        assertEquals(MatchStatus.PENDING, back.getStatus());
+        assertNull(back.getTrades());
+        assertNull(back.getReleases());
+        assertNull(back.getPositionChange());
+        assertNull(back.getAmendInfo());
+    }
+
+    @Test
+    public void legacyJson_isNotBinary_andCorruptBodyIsRejected() throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(new MatchResponse());
+        assertFalse(MatchResponseCodec.isBinary(new UnsafeBuffer(json), 0, json.length));
+
+        ExpandableArrayBuffer buffer = new ExpandableArrayBuffer(16);
+        int length = MatchResponseCodec.encode(buffer, OFFSET, new MatchResponse());
+        assertTrue(MatchResponseCodec.isBinary(buffer, OFFSET, length));
+        // 长度不符（截断 / 多余尾字节）或版本不符都拒绝
+        assertThrows(IllegalStateException.class, () -> MatchResponseCodec.decode(buffer, OFFSET, length + 1));
+        buffer.putByte(OFFSET + 1, (byte) 99);
+        assertThrows(IllegalStateException.class, () -> MatchResponseCodec.decode(buffer, OFFSET, length));
+    }
+
+    private static MatchResponse roundTrip(MatchResponse resp) {
+        // 初始容量很小，编码过程中按需扩容
+        ExpandableArrayBuffer buffer = new ExpandableArrayBuffer(16);
+        int length = MatchResponseCodec.encode(buffer, OFFSET, resp);
+        return MatchResponseCodec.decode(buffer, OFFSET, length);
+    }
+}
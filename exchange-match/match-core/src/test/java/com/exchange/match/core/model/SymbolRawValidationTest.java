@@ -0,0 +1,61 @@
+package com.exchange.match.core.model;
+
+import com.exchange.common.math.FixedPoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 定点校验与 BigDecimal 冷校验一致性测试:tick 取模、数量上下限、配置变更后重算。
+ */
+public class SymbolRawValidationTest {
+
+    private static final int P = 2;   // priceScale
+    private static final int B = 4;   // baseScale
+
+    private Symbol symbol(String tick) {
+        Symbol s = new Symbol();
+        s.setSymbol("BTC/USDT");
+        s.setPricePrecision(P);
+        s.setQuantityPrecision(B);
+        s.setTickSize(new BigDecimal(tick));
+        s.setMinQuantity(new BigDecimal("0.001"));
+        s.setMaxQuantity(new BigDecimal("100"));
+        return s;
+    }
+
+    @Test
+    public void rawValidators_agreeWithBigDecimalValidators() {
+        for (String tick : new String[]{"0.05", "0.01", "0.005", "0.25", "1.5"}) {
+            Symbol s = symbol(tick);
+            for (long priceRaw = -10; priceRaw <= 1000; priceRaw++) {
+                BigDecimal price = FixedPoint.toBigDecimal(priceRaw, P);
+                assertEquals(s.isValidPrice(price), s.isValidPriceRaw(priceRaw),
+                        "tick=" + tick + " price=" + price);
+            }
+        }
+
+        Symbol s = symbol("0.01");
+        for (long qtyRaw : new long[]{-1, 0, 9, 10, 11, 1_000_000, 1_000_001}) {
+            BigDecimal qty = FixedPoint.toBigDecimal(qtyRaw, B);
+            assertEquals(s.isValidQuantity(qty), s.isValidQuantityRaw(qtyRaw), "qty=" + qty);
+        }
+    }
+
+    @Test
+    public void rawLimits_followConfigChanges() {
+        Symbol s = symbol("0.05");
+        assertFalse(s.isValidPriceRaw(10_001));
+
+        s.setTickSize(new BigDecimal("0.01"));
+        assertTrue(s.isValidPriceRaw(10_001));
+
+        s.setMaxQuantity(new BigDecimal("1"));
+        assertFalse(s.isValidQuantityRaw(10_001));
+
+        s.setFeeRate(new BigDecimal("0.001"));
+        assertEquals(100_000L, s.feeRateRaw());
+    }
+}
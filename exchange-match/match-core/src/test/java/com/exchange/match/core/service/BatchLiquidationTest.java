@@ -0,0 +1,191 @@
+package com.exchange.match.core.service;
+
+import com.exchange.common.math.FixedPoint;
+import com.exchange.match.core.memory.MemoryManager;
+import com.exchange.match.core.model.*;
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.enums.OrderSide;
+import com.exchange.match.enums.OrderType;
+import com.exchange.match.enums.PositionAction;
+import com.exchange.match.enums.PositionSide;
+import com.exchange.match.model.Trade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量强平测试：同向合并单次扫簿、按比例回分、合并结算批次、双方持仓变化。
+ */
+@ExtendWith(MockitoExtension.class)
+public class BatchLiquidationTest {
+
+    private static final String SYMBOL = "BTC_USDT";
+    private static final int P = 2;   // priceScale
+    private static final int B = 4;   // baseScale
+
+    @Spy
+    private MemoryManager memoryManager = new MemoryManager();
+
+    @InjectMocks
+    private BatchLiquidationExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        Symbol s = new Symbol();
+        s.setSymbol(SYMBOL);
+        s.setTradingType(TradingType.PERPETUAL);
+        s.setBaseCurrency("BTC");
+        s.setQuoteCurrency("USDT");
+        s.setPricePrecision(P);
+        s.setQuantityPrecision(B);
+        s.setQuoteScale(8);
+        s.setFeeRate(new BigDecimal("0.001"));
+        memoryManager.addSymbol(s);
+    }
+
+    @Test
+    public void sameSideLiquidations_sweepOnce_allocateProRata() {
+        bid("B1", 2001L, "100.00", "1.0");
+        bid("B2", 2002L, "99.00", "2.0");
+        longPosition(1L, "1.0");
+        longPosition(2L, "1.0");
+        longPosition(3L, "2.0");
+
+        BatchLiquidationExecutor.BatchLiquidationResult result = executor.executeBatch(List.of(
+                request("L1", 1L), request("L2", 2L), request("L3", 3L)));
+
+        // 三个多仓合并为一组，只扫一次簿；簿深 3.0 < 合并量 4.0，按 1:1:2 比例回分
+        assertEquals(1, result.getBookSweeps());
+        assertEquals(0, new BigDecimal("0.75").compareTo(result.getResults().get("L1").getSuccessQuantity()));
+        assertEquals(0, new BigDecimal("0.75").compareTo(result.getResults().get("L2").getSuccessQuantity()));
+        assertEquals(0, new BigDecimal("1.5").compareTo(result.getResults().get("L3").getSuccessQuantity()));
+
+        // 归并成交至多 N+M-1 = 4 笔，全部在同一结算批次里，卖方为被强平用户
+        List<Trade> trades = result.getSettlementBatch().getTrades();
+        assertEquals(4, trades.size());
+        assertEquals(MatchStatus.PARTIALLY_FILLED, result.getSettlementBatch().getStatus());
+        assertEquals(1L, trades.get(0).getSellUserId());
+        assertEquals(2001L, trades.get(0).getBuyUserId());
+
+        // 持仓按实际成交扣减，吃满的 maker 出簿
+        assertEquals(0, new BigDecimal("0.25").compareTo(memoryManager.getPosition(1L, SYMBOL).getQuantity()));
+        assertEquals(0, new BigDecimal("0.5").compareTo(memoryManager.getPosition(3L, SYMBOL).getQuantity()));
+        assertTrue(memoryManager.getOrderBook(SYMBOL).getBuyOrders().isEmpty());
+    }
+
+    @Test
+    public void proRataRemainder_isAssignedDeterministically() {
+        bid("B1", 2001L, "100.00", "1.0");
+        longPosition(1L, "1.0");
+        longPosition(2L, "1.0");
+        longPosition(3L, "1.0");
+
+        BatchLiquidationExecutor.BatchLiquidationResult result = executor.executeBatch(List.of(
+                request("L1", 1L), request("L2", 2L), request("L3", 3L)));
+
+        // 1.0 三等分：3333 raw ×3，余 1 raw 按请求顺序补给第一条腿，总量守恒
+        assertEquals(0, new BigDecimal("0.3334").compareTo(result.getResults().get("L1").getSuccessQuantity()));
+        assertEquals(0, new BigDecimal("0.3333").compareTo(result.getResults().get("L2").getSuccessQuantity()));
+        assertEquals(0, new BigDecimal("0.3333").compareTo(result.getResults().get("L3").getSuccessQuantity()));
+        BigDecimal total = result.getSettlementBatch().getTrades().stream()
+                .map(Trade::getQuantity).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, BigDecimal.ONE.compareTo(total));
+    }
+
+    @Test
+    public void invalidRequests_failWithoutJoiningBatch() {
+        bid("B1", 2001L, "100.00", "1.0");
+        longPosition(1L, "1.0");
+
+        LiquidationRequest limit = request("L3", 1L);
+        limit.setPrice(new BigDecimal("100"));
+        BatchLiquidationExecutor.BatchLiquidationResult result = executor.executeBatch(List.of(
+                request("L1", 1L), request("L2", 1L), request("L4", 9L)));
+
+        assertEquals(0, BigDecimal.ONE.compareTo(result.getResults().get("L1").getSuccessQuantity()));
+        assertEquals("同一仓位重复强平请求", result.getResults().get("L2").getErrorMessage());
+        assertEquals("无持仓可平", result.getResults().get("L4").getErrorMessage());
+
+        BatchLiquidationExecutor.BatchLiquidationResult limitResult = executor.executeBatch(List.of(limit));
+        assertEquals(0, limitResult.getBookSweeps());
+        assertNotNull(limitResult.getResults().get("L3").getErrorMessage());
+    }
+
+    @Test
+    public void makerPosition_isOpenedAndTradesCarryBothSidesChange() {
+        Order maker = bid("B1", 2001L, "100.00", "1.0");
+        maker.setPositionAction(PositionAction.OPEN);
+        longPosition(1L, "1.0");
+
+        BatchLiquidationExecutor.BatchLiquidationResult result = executor.executeBatch(List.of(request("L1", 1L)));
+
+        Trade trade = result.getSettlementBatch().getTrades().get(0);
+        // 被强平多仓卖出平仓 -1.0，maker 买入开多 +1.0
+        assertEquals(0, new BigDecimal("-1.0").compareTo(trade.getSellPositionChange()));
+        assertEquals(0, BigDecimal.ONE.compareTo(trade.getBuyPositionChange()));
+        Position makerPosition = memoryManager.getPosition(2001L, SYMBOL);
+        assertEquals(PositionSide.LONG, makerPosition.getSide());
+        assertEquals(0, BigDecimal.ONE.compareTo(makerPosition.getQuantity()));
+        assertEquals(0, new BigDecimal("100").compareTo(makerPosition.getAveragePrice()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(memoryManager.getPosition(1L, SYMBOL).getQuantity()));
+    }
+
+    @Test
+    public void spotSymbol_isRejected() {
+        Symbol spot = new Symbol();
+        spot.setSymbol("ETH_USDT");
+        spot.setBaseCurrency("ETH");
+        spot.setQuoteCurrency("USDT");
+        spot.setPricePrecision(P);
+        spot.setQuantityPrecision(B);
+        memoryManager.addSymbol(spot);
+        LiquidationRequest r = request("L1", 1L);
+        r.setSymbol("ETH_USDT");
+
+        BatchLiquidationExecutor.BatchLiquidationResult result = executor.executeBatch(List.of(r));
+
+        assertEquals(0, result.getBookSweeps());
+        assertTrue(result.getResults().get("L1").getErrorMessage().startsWith("非合约标的"));
+    }
+
+    private Order bid(String orderId, Long userId, String price, String qty) {
+        Order o = new Order();
+        o.setOrderId(orderId);
+        o.setUserId(userId);
+        o.setSymbol(SYMBOL);
+        o.setSide(OrderSide.BUY);
+        o.setType(OrderType.LIMIT);
+        o.setStatus(OrderStatus.ACTIVE);
+        o.setPrice(FixedPoint.fromBigDecimal(new BigDecimal(price), P, RoundingMode.DOWN));
+        long q = FixedPoint.fromBigDecimal(new BigDecimal(qty), B, RoundingMode.DOWN);
+        o.setQuantity(q);
+        o.setRemainingQuantity(q);
+        memoryManager.getOrCreateOrderBook(SYMBOL).addOrder(o);
+        return o;
+    }
+
+    private void longPosition(Long userId, String qty) {
+        Position p = memoryManager.getOrCreatePosition(userId, SYMBOL);
+        p.setSide(PositionSide.LONG);
+        p.setQuantity(new BigDecimal(qty));
+        p.setAveragePrice(new BigDecimal("110"));
+    }
+
+    private LiquidationRequest request(String id, Long userId) {
+        LiquidationRequest r = new LiquidationRequest();
+        r.setLiquidationId(id);
+        r.setUserId(userId);
+        r.setSymbol(SYMBOL);
+        r.setIsFullLiquidation(true);
+        return r;
+    }
+}
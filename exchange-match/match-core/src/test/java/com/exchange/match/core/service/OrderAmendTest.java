@@ -0,0 +1,255 @@
+package com.exchange.match.core.service;
+
+import com.exchange.common.math.FixedPoint;
+import com.exchange.match.core.matcher.LimitOrderMatcher;
+import com.exchange.match.core.matcher.OrderMatcherFactory;
+import com.exchange.match.core.matcher.PostOnlyOrderMatcher;
+import com.exchange.match.core.memory.MemoryManager;
+import com.exchange.match.core.model.*;
+import com.exchange.match.core.service.impl.MatchEngineServiceImpl;
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.enums.OrderSide;
+import com.exchange.match.enums.OrderType;
+import com.exchange.match.model.MatchResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 改单测试：同价减量保留队列位置、改价重新排队 / 撮合、冻结净变化与解冻。
+ */
+@ExtendWith(MockitoExtension.class)
+public class OrderAmendTest {
+
+    private static final String SYMBOL = "BTC_USDT";
+    private static final int P = 2;   // priceScale
+    private static final int B = 4;   // baseScale
+    private static final int Q = 8;   // quoteScale
+
+    @Spy
+    private MemoryManager memoryManager = new MemoryManager();
+
+    @Spy
+    private OrderMatcherFactory orderMatcherFactory =
+            new OrderMatcherFactory(List.of(new LimitOrderMatcher(), new PostOnlyOrderMatcher()));
+
+    @InjectMocks
+    private MatchEngineServiceImpl engine;
+
+    private OrderBook book;
+
+    @BeforeEach
+    void setUp() {
+        Symbol s = new Symbol();
+        s.setSymbol(SYMBOL);
+        s.setBaseCurrency("BTC");
+        s.setQuoteCurrency("USDT");
+        s.setPricePrecision(P);
+        s.setQuantityPrecision(B);
+        s.setQuoteScale(Q);
+        s.setFeeRate(new BigDecimal("0.001"));
+        memoryManager.addSymbol(s);
+        book = memoryManager.getOrCreateOrderBook(SYMBOL);
+    }
+
+    @Test
+    public void sizeDecreaseAtSamePrice_keepsQueuePosition_andReleasesExcessLock() {
+        bid("B1", 1L, "100.00", "2.0");
+        bid("B2", 2L, "100.00", "1.0");
+
+        MatchResponse r = engine.amendOrder(amend("A1", "B1", 1L, null, "1.0", null));
+
+        assertEquals(MatchStatus.PENDING, r.getStatus());
+        assertTrue(r.getAmendInfo().isPriorityKept());
+        // B1 仍排在 B2 之前
+        assertEquals(List.of("B1", "B2"), level(100_00L));
+        assertEquals(qty("1.0"), book.getOrder("B1").getRemainingQuantity());
+
+        // 冻结 200.2 → 100.1,多出的 100.1 以 AMEND:{orderId}:{amendId} 解冻
+        assertEquals(quote("100.1"), book.getOrder("B1").getLockedRemaining());
+        assertEquals(0, new BigDecimal("-100.1").compareTo(r.getAmendInfo().getLockDelta()));
+        assertEquals(1, r.getReleases().size());
+        MatchResponse.CancelRelease rel = r.getReleases().get(0);
+        assertEquals("AMEND:B1:A1", rel.getBizNo());
+        assertEquals("AMEND:B1:A1", rel.getOrderId());
+        assertEquals(0, new BigDecimal("100.1").compareTo(rel.getAmount()));
+        assertTrue(r.getTrades().isEmpty());
+    }
+
+    @Test
+    public void priceChange_requeuesAtTailOfNewLevel() {
+        bid("B1", 1L, "100.00", "1.0");
+        bid("B3", 3L, "99.00", "1.0");
+
+        MatchResponse r = engine.amendOrder(amend("A2", "B1", 1L, "99.00", null, null));
+
+        assertEquals(MatchStatus.PENDING, r.getStatus());
+        assertFalse(r.getAmendInfo().isPriorityKept());
+        assertNull(book.getBuyOrders().get(100_00L));
+        assertEquals(List.of("B3", "B1"), level(99_00L));
+        // 买单冻结按新价等比例下调:100.1 × 99/100 = 99.099,解冻 1.001
+        assertEquals(quote("99.099"), book.getOrder("B1").getLockedRemaining());
+        assertEquals(0, new BigDecimal("1.001").compareTo(r.getReleases().get(0).getAmount()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(r.getAmendInfo().getPreviousPrice()));
+    }
+
+    @Test
+    public void priceChangeThatCrosses_tradesWithTopUpLock() {
+        bid("B1", 1L, "100.00", "1.0");
+        ask("S1", 9L, "101.00", "1.0");
+
+        // 新价需冻结 101.101,原 100.1 + 追加 1.001 恰好覆盖
+        MatchResponse r = engine.amendOrder(amend("A3", "B1", 1L, "101.00", null, "1.001"));
+
+        assertEquals(MatchStatus.SUCCESS, r.getStatus());
+        assertEquals(1, r.getTrades().size());
+        assertEquals("S1", r.getTrades().get(0).getSellOrderId());
+        assertEquals(0, new BigDecimal("1.001").compareTo(r.getAmendInfo().getLockDelta()));
+        assertNull(r.getReleases());
+        assertEquals(qty("1.0"), r.getTrades().get(0).getQuantityRaw());
+        assertNull(book.getOrder("B1"));
+    }
+
+    @Test
+    public void insufficientLock_rejectsAndReleasesTopUp() {
+        bid("B1", 1L, "100.00", "1.0");
+        bid("B2", 2L, "100.00", "1.0");
+
+        // 加量到 2.0 需冻结 200.2,追加 50 不够
+        MatchResponse r = engine.amendOrder(amend("A4", "B1", 1L, null, "2.0", "50"));
+
+        assertEquals(MatchStatus.REJECTED, r.getStatus());
+        assertEquals(MatchResponse.RejectInfo.RejectType.INSUFFICIENT_BALANCE, r.getRejectInfo().getRejectType());
+        // 原单不动
+        assertEquals(List.of("B1", "B2"), level(100_00L));
+        assertEquals(qty("1.0"), book.getOrder("B1").getQuantity());
+        assertEquals(quote("100.1"), book.getOrder("B1").getLockedRemaining());
+        // 追加额原样解冻
+        assertEquals("AMEND:B1:A4", r.getReleases().get(0).getBizNo());
+        assertEquals(0, new BigDecimal("50").compareTo(r.getReleases().get(0).getAmount()));
+    }
+
+    @Test
+    public void postOnlyRepriceThatWouldCross_isRejected() {
+        Order o = bid("B1", 1L, "100.00", "1.0");
+        o.setType(OrderType.POST_ONLY);
+        ask("S1", 9L, "101.00", "1.0");
+
+        MatchResponse r = engine.amendOrder(amend("A5", "B1", 1L, "101.00", null, null));
+
+        assertEquals(MatchStatus.REJECTED, r.getStatus());
+        assertEquals(MatchResponse.RejectInfo.RejectType.POST_ONLY_REJECTED, r.getRejectInfo().getRejectType());
+        assertEquals(100_00L, book.getOrder("B1").getPrice());
+        assertNotNull(book.getOrder("S1"));
+    }
+
+    @Test
+    public void quoteLockedSell_rescalesLockByPrice() {
+        // 卖单以计价币冻结(如合约保证金):冻结随价格等比例变化,与方向无关
+        Order o = ask("S1", 9L, "100.00", "1.0");
+        o.setLockedAsset("USDT");
+        o.setLockedAmount(quote("100"));
+        o.setLockedRemaining(quote("100"));
+
+        MatchResponse r = engine.amendOrder(amend("A6", "S1", 9L, "90.00", null, null));
+
+        assertEquals(MatchStatus.PENDING, r.getStatus());
+        assertEquals(quote("90"), book.getOrder("S1").getLockedRemaining());
+        assertEquals(0, new BigDecimal("10").compareTo(r.getReleases().get(0).getAmount()));
+    }
+
+    @Test
+    public void arithmeticFailure_rejectsWithoutTouchingOrder_andReleasesTopUp() {
+        bid("B1", 1L, "100.00", "1.0");
+        OrderAmend a = amend("A7", "B1", 1L, null, "2.0", "1");
+        a.setAdditionalLocked(Long.MAX_VALUE);   // 残余 + 追加溢出
+
+        MatchResponse r = engine.amendOrder(a);
+
+        assertEquals(MatchStatus.REJECTED, r.getStatus());
+        assertEquals(MatchResponse.RejectInfo.RejectType.SYSTEM_ERROR, r.getRejectInfo().getRejectType());
+        Order o = book.getOrder("B1");
+        assertEquals(qty("1.0"), o.getQuantity());
+        assertEquals(quote("100.1"), o.getLockedRemaining());
+        assertEquals(quote("100.1"), o.getLockedAmount());
+        assertEquals("AMEND:B1:A7", r.getReleases().get(0).getBizNo());
+    }
+
+    // =========================================================================
+    // Helpers
+    // =========================================================================
+
+    /** 限价买单挂簿,按限价 × 数量 × (1 + 0.1%) 冻结 USDT。 */
+    private Order bid(String id, long userId, String price, String quantity) {
+        Order o = order(id, userId, OrderSide.BUY, price, quantity);
+        long locked = quote(new BigDecimal(price).multiply(new BigDecimal(quantity))
+                .multiply(new BigDecimal("1.001")).toPlainString());
+        o.setLockedAsset("USDT");
+        o.setLockedAmount(locked);
+        o.setLockedRemaining(locked);
+        book.addOrder(o);
+        return o;
+    }
+
+    private Order ask(String id, long userId, String price, String quantity) {
+        Order o = order(id, userId, OrderSide.SELL, price, quantity);
+        o.setLockedAsset("BTC");
+        o.setLockedAmount(o.getQuantity());
+        o.setLockedRemaining(o.getQuantity());
+        book.addOrder(o);
+        return o;
+    }
+
+    private Order order(String id, long userId, OrderSide side, String price, String quantity) {
+        Order o = new Order();
+        o.setOrderId(id);
+        o.setUserId(userId);
+        o.setSymbol(SYMBOL);
+        o.setSide(side);
+        o.setType(OrderType.LIMIT);
+        o.setStatus(OrderStatus.ACTIVE);
+        o.setPrice(FixedPoint.fromBigDecimal(new BigDecimal(price), P, RoundingMode.DOWN));
+        o.setQuantity(qty(quantity));
+        o.setRemainingQuantity(qty(quantity));
+        return o;
+    }
+
+    private static OrderAmend amend(String amendId, String orderId, long userId,
+                                    String price, String quantity, String additionalLocked) {
+        OrderAmend a = new OrderAmend();
+        a.setAmendId(amendId);
+        a.setOrderId(orderId);
+        a.setUserId(userId);
+        a.setSymbol(SYMBOL);
+        if (price != null) a.setPrice(FixedPoint.fromBigDecimal(new BigDecimal(price), P, RoundingMode.DOWN));
+        if (quantity != null) a.setQuantity(qty(quantity));
+        if (additionalLocked != null) {
+            a.setLockedAsset("USDT");
+            a.setAdditionalLocked(quote(additionalLocked));
+        }
+        a.setTime(LocalDateTime.of(2026, 1, 1, 0, 0));
+        return a;
+    }
+
+    private List<String> level(long priceRaw) {
+        return book.getBuyOrders().get(priceRaw).stream().map(Order::getOrderId).toList();
+    }
+
+    private static long qty(String v) {
+        return FixedPoint.fromBigDecimal(new BigDecimal(v), B, RoundingMode.DOWN);
+    }
+
+    private static long quote(String v) {
+        return FixedPoint.fromBigDecimal(new BigDecimal(v), Q, RoundingMode.UP);
+    }
+}
@@ -0,0 +1,124 @@
+package com.exchange.match.core.service;
+
+import com.exchange.match.core.memory.MemoryManager;
+import com.exchange.match.core.model.Position;
+import com.exchange.match.core.model.RiskLevel;
+import com.exchange.match.core.model.Symbol;
+import com.exchange.match.core.model.SymbolRiskLimitConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预编译风险档位表测试：查询结果与配置对象一致，批量更新整体发布，symbolId 稳定。
+ */
+public class RiskTierTableTest {
+
+    private SymbolRiskLimitConfigManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new SymbolRiskLimitConfigManager();
+    }
+
+    @Test
+    public void compiledLookups_matchConfigObject() {
+        // 未配置 symbol：首次查询创建默认配置并编译，结果与配置对象逐级一致
+        SymbolRiskLimitConfig config = manager.getRiskLimitConfig("BTCUSDT");
+        int id = manager.resolveSymbolId("BTCUSDT");
+
+        for (RiskLevel level : RiskLevel.values()) {
+            assertEquals(config.getIsolatedModeConfig().getThreshold(level),
+                    manager.getIsolatedRiskThreshold("BTCUSDT", level));
+            assertEquals(config.getCrossModeConfig().getReductionRatio(level),
+                    manager.getCrossReductionRatio("BTCUSDT", level));
+            assertEquals(config.getIsolatedModeConfig().getMaxLeverage(level),
+                    manager.getMaxLeverage("BTCUSDT", level, true));
+            assertEquals(0, config.getIsolatedModeConfig().getMaxLeverage(level).compareTo(
+                    BigDecimal.valueOf(manager.getMaxLeverageRaw(id, level),
+                            SymbolRiskLimitConfigManager.RATIO_SCALE)));
+            // 按 id 查询返回配置原值（scale 不变）
+            assertEquals(config.getIsolatedModeConfig().getMaxLeverage(level),
+                    manager.getMaxLeverage(id, level));
+            assertEquals(manager.getCrossTieredLiquidationRatio("BTCUSDT", level),
+                    manager.getCrossTieredLiquidationRatio(id, level));
+            assertEquals(manager.getIsolatedTieredLiquidationRatio("BTCUSDT", level),
+                    manager.getIsolatedTieredLiquidationRatio(id, level));
+        }
+        assertEquals(SymbolRiskLimitConfig.LeverageValidationRule.UNIFORM,
+                manager.getLeverageValidationRule("BTCUSDT", RiskLevel.DANGER));
+    }
+
+    @Test
+    public void batchUpdate_publishesNewValues_andKeepsSymbolIds() {
+        int btc = manager.resolveSymbolId("BTCUSDT");
+        int eth = manager.resolveSymbolId("ETHUSDT");
+        assertNotEquals(btc, eth);
+
+        Map<String, SymbolRiskLimitConfig> updates = new LinkedHashMap<>();
+        updates.put("ETHUSDT", configWithNormalLeverage("ETHUSDT", "20"));
+        updates.put("SOLUSDT", configWithNormalLeverage("SOLUSDT", "10"));
+        manager.batchUpdateConfigs(updates);
+
+        assertEquals(eth, manager.resolveSymbolId("ETHUSDT"), "已分配的 symbolId 不应变化");
+        assertEquals(new BigDecimal("20"), manager.getMaxLeverage("ETHUSDT", RiskLevel.NORMAL, false));
+        assertEquals(new BigDecimal("10"), manager.getMaxLeverage("SOLUSDT", RiskLevel.NORMAL, false));
+        assertEquals(2_000_000_000L, manager.getMaxLeverageRaw(eth, RiskLevel.NORMAL));
+    }
+
+    @Test
+    public void remove_fallsBackToDefaultOnNextLookup() {
+        manager.setRiskLimitConfig("BTCUSDT", configWithNormalLeverage("BTCUSDT", "3"));
+        int id = manager.resolveSymbolId("BTCUSDT");
+        assertEquals(new BigDecimal("3"), manager.getMaxLeverage("BTCUSDT", RiskLevel.NORMAL, false));
+
+        manager.removeRiskLimitConfig("BTCUSDT");
+        assertFalse(manager.hasCustomConfig("BTCUSDT"));
+        assertEquals(new BigDecimal("100"), manager.getMaxLeverage("BTCUSDT", RiskLevel.NORMAL, false));
+        assertEquals(id, manager.resolveSymbolId("BTCUSDT"));
+    }
+
+    @Test
+    public void symbolIds_areSharedWithMemoryManager() {
+        MemoryManager memoryManager = new MemoryManager();
+        Symbol eth = symbolOf("ETHUSDT");
+        memoryManager.addSymbol(symbolOf("BTCUSDT"));
+        memoryManager.addSymbol(eth);
+        ReflectionTestUtils.setField(manager, "memoryManager", memoryManager);
+
+        // 查找表沿用 MemoryManager 的 id，仓位上携带的 id 可直接查表
+        Position position = memoryManager.getOrCreatePosition(1L, "ETHUSDT");
+        assertEquals(eth.getSymbolId(), manager.resolveSymbolId("ETHUSDT"));
+        assertEquals(position.getSymbolId(), manager.resolveSymbolId(position.getSymbolId(), "ETHUSDT"));
+        assertEquals(0, manager.getMaxLeverage("ETHUSDT", RiskLevel.NORMAL, false).compareTo(BigDecimal.valueOf(
+                manager.getMaxLeverageRaw(position.getSymbolId(), RiskLevel.NORMAL),
+                SymbolRiskLimitConfigManager.RATIO_SCALE)));
+
+        // 带入的 id 与 symbol 不符时回落按名解析
+        assertEquals(eth.getSymbolId(), manager.resolveSymbolId(-1, "ETHUSDT"));
+        assertEquals(eth.getSymbolId(), manager.resolveSymbolId(memoryManager.symbolIdOf("BTCUSDT"), "ETHUSDT"));
+
+        // 仅有风控配置、尚未上架的 symbol 也从 MemoryManager 分配 id
+        int sol = manager.resolveSymbolId("SOLUSDT");
+        assertEquals(memoryManager.symbolIdOf("SOLUSDT"), sol);
+    }
+
+    private static Symbol symbolOf(String code) {
+        Symbol s = new Symbol();
+        s.setSymbol(code);
+        return s;
+    }
+
+    private SymbolRiskLimitConfig configWithNormalLeverage(String symbol, String leverage) {
+        SymbolRiskLimitConfig config = new SymbolRiskLimitConfig();
+        config.setSymbol(symbol);
+        config.getIsolatedModeConfig().getRiskLevelConfig(RiskLevel.NORMAL).setMaxLeverage(new BigDecimal(leverage));
+        return config;
+    }
+}
@@ -1,5 +1,7 @@
 package com.exchange.order.api.client;
 
+import com.exchange.order.api.dto.BatchOrderReq;
+import com.exchange.order.api.dto.BatchOrderResult;
 import com.exchange.order.api.dto.CancelOrderReq;
 import com.exchange.order.api.dto.CreateOrderReq;
 import com.exchange.order.api.dto.OrderDTO;
@@ -32,6 +34,12 @@ public interface OrderServiceClient {
     @PostMapping("/cancel")
     void cancelOrder(@RequestBody CancelOrderReq req);
 
+    /**
+     * 批量下单 / 撤单 / 改单
+     */
+    @PostMapping("/batch")
+    BatchOrderResult batchOrders(@RequestBody BatchOrderReq req);
+
     /**
      * 查询单个订单
      */
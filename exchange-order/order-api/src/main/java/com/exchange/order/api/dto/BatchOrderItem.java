@@ -0,0 +1,52 @@
+package com.exchange.order.api.dto;
+
+import com.exchange.order.api.enums.BatchAction;
+import com.exchange.order.api.enums.OrderSide;
+import com.exchange.order.api.enums.OrderType;
+import com.exchange.order.api.enums.TimeInForce;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 批量委托单项。
+ *
+ * <p>CANCEL 只需 {@code orderId}；PLACE 需要新单字段；REPLACE 两者都要（{@code orderId} 为被替换的旧单）。
+ * 冻结额由订单服务按标的配置计算并冻结，客户端不传。
+ */
+@Data
+@Schema(description = "批量委托单项")
+public class BatchOrderItem {
+
+    @NotNull
+    @Schema(description = "动作：PLACE / CANCEL / REPLACE")
+    private BatchAction action;
+
+    @Schema(description = "被撤 / 被替换的系统订单 ID（CANCEL、REPLACE 必填）")
+    private Long orderId;
+
+    @Schema(description = "交易对，例如 BTC_USDT", example = "BTC_USDT")
+    private String symbol;
+
+    @Schema(description = "买卖方向")
+    private OrderSide side;
+
+    @Schema(description = "订单类型（批量委托仅支持 LIMIT / MARKET）")
+    private OrderType orderType;
+
+    @Schema(description = "有效期策略，默认 GTC")
+    private TimeInForce timeInForce = TimeInForce.GTC;
+
+    @DecimalMin(value = "0", inclusive = false)
+    @Schema(description = "委托数量")
+    private BigDecimal quantity;
+
+    @Schema(description = "委托价格（市价单可为 null）")
+    private BigDecimal price;
+
+    @Schema(description = "客户端自定义订单 ID")
+    private String clientOrderId;
+}
@@ -0,0 +1,30 @@
+package com.exchange.order.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量委托请求：一批作为撮合集群的一条日志按序执行，中间不插入其他委托。
+ *
+ * <p>单批上限与撮合 {@code EventBatchOrderReq.MAX_ITEMS} 一致（64），更多报价请拆批。
+ */
+@Data
+@Schema(description = "批量委托请求")
+public class BatchOrderReq {
+
+    @NotNull
+    @Schema(description = "用户 ID（批内全部委托归属该用户）")
+    private Long userId;
+
+    @Valid
+    @NotEmpty
+    @Size(max = 64)
+    @Schema(description = "委托列表（按序执行）")
+    private List<BatchOrderItem> items;
+}
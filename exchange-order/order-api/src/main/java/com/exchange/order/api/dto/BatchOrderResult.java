@@ -0,0 +1,47 @@
+package com.exchange.order.api.dto;
+
+import com.exchange.order.api.enums.BatchAction;
+import com.exchange.order.api.enums.OrderStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/** 批量委托结果（与请求 items 一一对应、顺序相同） */
+@Data
+@Schema(description = "批量委托结果")
+public class BatchOrderResult {
+
+    @Schema(description = "批次 ID")
+    private String batchId;
+
+    @Schema(description = "各项结果")
+    private List<Item> results;
+
+    @Data
+    @Schema(description = "批量委托单项结果")
+    public static class Item {
+
+        @Schema(description = "动作")
+        private BatchAction action;
+
+        @Schema(description = "系统订单 ID（PLACE / REPLACE 为新单，CANCEL 为被撤订单）")
+        private Long orderId;
+
+        @Schema(description = "客户端自定义订单 ID")
+        private String clientOrderId;
+
+        @Schema(description = "订单状态")
+        private OrderStatus status;
+
+        @Schema(description = "已成交数量")
+        private BigDecimal executedQty;
+
+        @Schema(description = "剩余数量")
+        private BigDecimal remainingQty;
+
+        @Schema(description = "拒绝原因")
+        private String error;
+    }
+}
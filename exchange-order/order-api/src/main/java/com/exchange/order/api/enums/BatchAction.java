@@ -0,0 +1,14 @@
+package com.exchange.order.api.enums;
+
+/** 批量委托单项动作 */
+public enum BatchAction {
+
+    /** 下新单 */
+    PLACE,
+
+    /** 撤单 */
+    CANCEL,
+
+    /** 撤旧单并下新单（新单重新排队；旧单已不在簿上时新单不下） */
+    REPLACE;
+}
@@ -0,0 +1,63 @@
+package com.exchange.order.core.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 订单服务侧的现货标的配置：下单冻结额由服务端按此计算，不信任客户端。
+ *
+ * <h3>配置示例</h3>
+ * <pre>
+ * order:
+ *   symbols:
+ *     BTC_USDT:
+ *       base-currency: BTC
+ *       quote-currency: USDT
+ *       base-scale: 6         # 与撮合 Symbol.quantityPrecision 一致
+ *       quote-scale: 8        # 与撮合 Symbol.quoteScale 一致
+ *       fee-rate: 0.001       # 与撮合 Symbol.feeRate 一致
+ * </pre>
+ *
+ * <p>须与撮合集群 LIST_SYMBOL 时的参数保持一致：冻结少于撮合实际消耗会导致结算时冻结不足。
+ * 撮合集群在执行每个新单前按自身 Symbol 核对冻结币种与冻结额下限，不符即拒单（原因含
+ * {@code symbol spec mismatch}），订单服务解冻并记错误日志，配置漂移不会带进结算。
+ * 未配置的标的拒绝下单。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order")
+public class OrderSymbolProperties {
+
+    /** key 为交易对，如 BTC_USDT（大小写敏感）。 */
+    private Map<String, SymbolSpec> symbols = new LinkedHashMap<>();
+
+    /**
+     * 查标的配置。
+     *
+     * @throws IllegalArgumentException 标的未配置
+     */
+    public SymbolSpec require(String symbol) {
+        SymbolSpec spec = symbols.get(symbol);
+        if (spec == null) {
+            throw new IllegalArgumentException("Symbol not configured for trading: " + symbol);
+        }
+        return spec;
+    }
+
+    @Data
+    public static class SymbolSpec {
+        private String baseCurrency;
+        private String quoteCurrency;
+        /** 基础币精度（数量小数位） */
+        private int baseScale = 8;
+        /** 计价币精度（金额小数位） */
+        private int quoteScale = 8;
+        /** taker / maker 统一费率，买单按 amount × (1 + feeRate) 冻结 */
+        private BigDecimal feeRate = BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,299 @@
+package com.exchange.order.core.consumer;
+
+import com.exchange.match.constant.MatchSettlementStream;
+import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.MatchResponseCodec;
+import com.exchange.order.core.entity.OrderArchivePosition;
+import com.exchange.order.core.entity.OrderRecord;
+import com.exchange.order.core.projection.ActiveOrderIndex;
+import com.exchange.order.core.projection.OrderStateProjector;
+import com.exchange.order.core.repository.OrderArchivePositionMapper;
+import com.exchange.order.core.service.OrderPersistService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.aeron.Aeron;
+import io.aeron.FragmentAssembler;
+import io.aeron.Image;
+import io.aeron.Subscription;
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.driver.MediaDriver;
+import io.aeron.logbuffer.Header;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.DirectBuffer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 订单状态投影订阅者：撮合结算录制 → 活跃订单内存索引 + {@code t_order_record}（替代 Kafka state-changes 消费者）。
+ *
+ * <h3>数据流</h3>
+ * <pre>
+ *   Match Archive (port 8010, stream {@value MatchSettlementStream#SETTLEMENT_STREAM})
+ *     → replay (aeron:udp?endpoint=localhost:40310, stream 2002)
+ *       → OrderArchiveSubscriber.onFragment()
+ *         → OrderStateProjector.apply() ── ActiveOrderIndex（getActiveOrders 直接读内存）
+ *         → group commit：OrderPersistService.persistBatch()（订单行 + 位点一个事务）
+ * </pre>
+ *
+ * <p>与资产结算（{@code TradeSettlementForwarder}）消费的是同一条录制：撮合对每个下单 / 撤单 / 批量撤单
+ * 都可靠写入该流，订单服务不需要额外的状态变更主题。
+ *
+ * <h3>会话与一致性</h3>
+ * <p>每次会话：读位点 → 从 DB 加载活跃订单重建投影与索引 → 从位点回放。订单行与位点同事务提交，
+ * 所以加载到的状态恰好对应该位点（见 {@link OrderPersistService}）。首次追上录制尾部后索引才对外就绪，
+ * 重建期间查询回落到 DB。
+ *
+ * <h3>Group commit</h3>
+ * <p>回包先应用到投影，满 {@code order.persist.batch.max-events} 条或首条后超过
+ * {@code order.persist.batch.max-delay-ms} 毫秒时，把批内变化过的订单（每笔只取最后状态）
+ * 与批尾位点一个事务提交。追平后的空闲 poll 也会按时限刷出残留批次。
+ *
+ * <h3>错误处理</h3>
+ * <p>解码 / 落库失败时抛出，poll 循环退出，外层 retry 等待 5s 后重连；
+ * 未提交的批次随投影一起丢弃，新会话从 DB 状态与位点重建后重放。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "order.projection.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderArchiveSubscriber implements DisposableBean {
+
+    private static final String RECORDING_CHANNEL = MatchSettlementStream.SETTLEMENT_CHANNEL;
+    private static final int    RECORDING_STREAM  = MatchSettlementStream.SETTLEMENT_STREAM;
+    /** 回放使用独立 stream（与录制 stream、结算转发器的回放 stream 2001 均不同） */
+    private static final int    REPLAY_STREAM     = 2002;
+
+    /** 单次 poll 的 fragment 上限。 */
+    private static final int FRAGMENT_LIMIT = 256;
+
+    // ── 依赖注入 ──────────────────────────────────────────────────
+    private final OrderPersistService        persistService;
+    private final OrderArchivePositionMapper positionMapper;
+    private final ActiveOrderIndex           activeOrderIndex;
+
+    @Value("${match.archive.control-channel:aeron:udp?endpoint=localhost:8010}")
+    private String archiveControlChannel;
+
+    /** Archive 将录制数据回放到此 UDP 端点供本订阅者接收 */
+    @Value("${order.archive.replay-channel:aeron:udp?endpoint=localhost:40310}")
+    private String replayChannel;
+
+    /** 每批最多回包数 */
+    @Value("${order.persist.batch.max-events:256}")
+    private int batchMaxEvents;
+
+    /** 批内首条回包最多等待的毫秒数 */
+    @Value("${order.persist.batch.max-delay-ms:5}")
+    private long batchMaxDelayMs;
+
+    // ── 内部状态 ──────────────────────────────────────────────────
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private Thread           pollingThread;
+    private volatile boolean running = true;
+
+    // ── 会话状态（仅 polling 线程访问） ─────────────────────────────
+    private OrderStateProjector projector;
+    private int  batchEvents;
+    /** 批内最后一个 fragment 的 position；-1 = 无待推进位点 */
+    private long batchPosition = -1L;
+    private long batchStartNanos;
+
+    // =========================================================================
+    // Lifecycle
+    // =========================================================================
+
+    @PostConstruct
+    public void start() {
+        pollingThread = new Thread(this::run, "order-archive-subscriber");
+        pollingThread.setDaemon(true);
+        pollingThread.start();
+        log.info("[OrderArchiveSubscriber] Started — archive={} replayChannel={}",
+                archiveControlChannel, replayChannel);
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (pollingThread != null) pollingThread.interrupt();
+        log.info("[OrderArchiveSubscriber] Stopped");
+    }
+
+    // =========================================================================
+    // Subscribe loop（外层 retry）
+    // =========================================================================
+
+    private void run() {
+        while (running) {
+            try {
+                subscribe();
+            } catch (Exception e) {
+                if (running) {
+                    log.error("[OrderArchiveSubscriber] Subscriber error, retrying in 5s", e);
+                    sleep(5_000);
+                }
+            }
+        }
+    }
+
+    private void subscribe() throws Exception {
+        resetBatch();
+        MediaDriver driver = MediaDriver.launchEmbedded();
+        try (Aeron aeron = Aeron.connect(new Aeron.Context().aeronDirectoryName(driver.aeronDirectoryName()));
+             AeronArchive archive = AeronArchive.connect(new AeronArchive.Context()
+                     .controlRequestChannel(archiveControlChannel)
+                     .controlResponseChannel("aeron:udp?endpoint=localhost:0")
+                     .aeron(aeron))) {
+
+            // 1. 找到结算录制（撮合尚未启动时可能还没有录制，等待重试）
+            long recordingId = findRecording(archive);
+            while (recordingId < 0 && running) {
+                log.info("[OrderArchiveSubscriber] No settlement recording found yet for stream={}, retrying in 2s",
+                        RECORDING_STREAM);
+                sleep(2_000);
+                recordingId = findRecording(archive);
+            }
+            if (!running) return;
+
+            // 2. 位点 + 该位点对应的活跃订单（同事务写入，彼此一致）
+            final long rid = recordingId;
+            OrderArchivePosition savedPos = positionMapper.selectById(rid);
+            long startPosition = (savedPos != null) ? savedPos.getPosition() : 0L;
+            List<OrderRecord> active = persistService.loadActiveOrders();
+            projector = new OrderStateProjector(activeOrderIndex, active);
+
+            // 回放起点时录制已写到的位置：回放追到这里才算赶上（录制已停止时取 stopPosition）
+            long catchUpPosition = archive.getRecordingPosition(rid);
+            if (catchUpPosition == AeronArchive.NULL_POSITION) {
+                catchUpPosition = archive.getStopPosition(rid);
+            }
+
+            log.info("[OrderArchiveSubscriber] Starting replay — recordingId={} startPosition={} catchUpPosition={} activeOrders={}",
+                    rid, startPosition, catchUpPosition, active.size());
+
+            // 3. 发起回放（Long.MAX_VALUE：追上后继续接收实时新录制）
+            long replaySessionId = archive.startReplay(
+                    rid, startPosition, Long.MAX_VALUE, replayChannel, REPLAY_STREAM);
+
+            try (Subscription sub = aeron.addSubscription(replayChannel, REPLAY_STREAM)) {
+                Image image = awaitImage(sub, (int) replaySessionId, 15_000);
+                FragmentAssembler assembler = new FragmentAssembler(
+                        (buf, off, len, hdr) -> onFragment(buf, off, len, hdr, rid));
+
+                log.info("[OrderArchiveSubscriber] Replay image connected, polling...");
+
+                boolean caughtUp = false;
+                while (running && !image.isClosed()) {
+                    int fragments = sub.poll(assembler, FRAGMENT_LIMIT);
+                    if (batchPosition >= 0 && batchDue()) flushBatch(rid);
+                    // 空轮询不代表追平（回放可能只是暂时没送达），须以位置为准
+                    if (!caughtUp && image.position() >= catchUpPosition) {
+                        projector.caughtUp();
+                        caughtUp = true;
+                    }
+                    if (fragments == 0) {
+                        Thread.yield();
+                    }
+                }
+                if (batchPosition >= 0) flushBatch(rid);
+
+                log.warn("[OrderArchiveSubscriber] Replay image closed, will reconnect");
+            } finally {
+                try { archive.stopReplay(replaySessionId); } catch (Exception ignored) {}
+                log.info("[OrderArchiveSubscriber] Session ended — applied={} unknownOrders={}",
+                        projector.getApplied(), projector.getUnknownOrders());
+            }
+        } finally {
+            driver.close();
+        }
+    }
+
+    // =========================================================================
+    // Fragment handler
+    // =========================================================================
+
+    private void onFragment(DirectBuffer buffer, int offset, int length, Header header, long recordingId) {
+        try {
+            MatchResponse response = MatchResponseCodec.read(buffer, offset, length, objectMapper);
+
+            projector.apply(response);
+
+            if (batchPosition < 0) batchStartNanos = System.nanoTime();
+            batchPosition = header.position();
+            if (++batchEvents >= batchMaxEvents) flushBatch(recordingId);
+
+        } catch (Exception e) {
+            log.error("[OrderArchiveSubscriber] Failed to process fragment at position={}",
+                    header.position(), e);
+            // 抛出让 poll 循环退出 → 外层 retry 从 DB 状态与位点重建
+            throw new RuntimeException("Order archive processing failed", e);
+        }
+    }
+
+    // =========================================================================
+    // Group commit
+    // =========================================================================
+
+    private boolean batchDue() {
+        return batchEvents >= batchMaxEvents
+                || System.nanoTime() - batchStartNanos >= batchMaxDelayMs * 1_000_000L;
+    }
+
+    /** 一个事务提交批内变化过的订单并推进位点；失败时异常抛出，由外层重连重建。 */
+    private void flushBatch(long recordingId) {
+        persistService.persistBatch(projector.drainDirty(), recordingId,
+                RECORDING_CHANNEL, RECORDING_STREAM, batchPosition);
+        log.debug("[OrderArchiveSubscriber] Flushed batch events={} position={}", batchEvents, batchPosition);
+        resetBatch();
+    }
+
+    private void resetBatch() {
+        batchEvents   = 0;
+        batchPosition = -1L;
+    }
+
+    // =========================================================================
+    // Helpers
+    // =========================================================================
+
+    /** 撮合结算流的录制（与 {@code TradeSettlementForwarder} 相同的查找方式）。 */
+    private long findRecording(AeronArchive archive) {
+        long[] result = {-1L};
+        archive.listRecordings(0, 1_000,
+                (controlSessionId, correlationId, recordingId, startTimestamp, stopTimestamp,
+                 startPosition, stopPosition, initialTermId, segmentFileLength, termBufferLength,
+                 mtuLength, sessionId, streamId, strippedChannel, originalChannel, sourceIdentity) -> {
+                    if (streamId == RECORDING_STREAM && result[0] < 0) {
+                        result[0] = recordingId;
+                    }
+                });
+        return result[0];
+    }
+
+    private Image awaitImage(Subscription sub, int sessionId, long timeoutMs) throws TimeoutException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            Image img = sub.imageBySessionId(sessionId);
+            if (img != null) return img;
+            if (System.currentTimeMillis() > deadline) {
+                throw new TimeoutException(
+                        "[OrderArchiveSubscriber] Replay image not connected after " + timeoutMs + "ms");
+            }
+            Thread.yield();
+        }
+    }
+
+    private void sleep(long ms) {
+        try { Thread.sleep(ms); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    }
+}
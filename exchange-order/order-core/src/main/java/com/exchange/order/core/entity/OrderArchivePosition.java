@@ -0,0 +1,37 @@
+package com.exchange.order.core.entity;
+
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 撮合结算录制的消费位点记录（订单状态投影）。
+ *
+ * <p>记录 {@link com.exchange.order.core.consumer.OrderArchiveSubscriber} 在撮合 Archive
+ * 结算录制中已投影并落库到的位置（byte position），与同批订单状态在同一事务中写入。
+ * 服务重启后从此处续读，不丢失也不重复累加任何成交。
+ *
+ * <h3>表结构</h3>
+ * <pre>
+ * CREATE TABLE t_order_archive_position (
+ *     recording_id  BIGINT       NOT NULL PRIMARY KEY COMMENT '撮合 Archive recording ID',
+ *     channel       VARCHAR(255) NOT NULL             COMMENT '录制通道',
+ *     stream_id     INT          NOT NULL             COMMENT '录制 stream ID',
+ *     position      BIGINT       NOT NULL DEFAULT 0   COMMENT '已投影到的字节位置'
+ * );
+ * </pre>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("t_order_archive_position")
+public class OrderArchivePosition {
+
+    @TableId
+    private Long   recordingId;
+    private String channel;
+    private int    streamId;
+    private long   position;
+}
@@ -16,8 +16,15 @@ import java.time.LocalDateTime;
  * 订单持久化实体。
  *
  * <p>对应数据库表 {@code t_order_record}。
- * 撮合引擎不直接写库，由 {@link com.exchange.order.core.consumer.OrderStateConsumer}
- * 消费 Kafka {@code state-changes} 主题后写入。
+ * 撮合引擎不直接写库，由 {@link com.exchange.order.core.consumer.OrderArchiveSubscriber}
+ * 回放撮合结算录制、投影出订单状态后批量 UPSERT。
+ *
+ * <h3>索引</h3>
+ * <pre>
+ *   PRIMARY KEY (order_id)                                — 投影 UPSERT 幂等键
+ *   KEY idx_status (status)                               — 重建投影时加载活跃订单（NEW / PARTIALLY_FILLED）
+ *   KEY idx_user_time (user_id, create_time, order_id)    — 用户历史订单查询
+ * </pre>
  */
 @Data
 @TableName("t_order_record")
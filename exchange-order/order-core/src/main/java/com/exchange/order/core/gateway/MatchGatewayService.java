@@ -0,0 +1,269 @@
+package com.exchange.order.core.gateway;
+
+import com.exchange.match.model.BatchOrderAck;
+import com.exchange.match.request.EventBatchOrderReq;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.aeron.Aeron;
+import io.aeron.cluster.client.AeronCluster;
+import io.aeron.cluster.client.EgressListener;
+import io.aeron.driver.MediaDriver;
+import io.aeron.logbuffer.Header;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBufferDescriptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 撮合集群网关：订单服务经 Cluster Ingress 向撮合提交批量委托，同步等待整批回包。
+ *
+ * <h3>线程模型（与 {@code AssetGatewayService} 相同）</h3>
+ * <pre>
+ *   HTTP 线程：注册 batchId → future，编码 [u8 len][batchId][msgType][JSON] 写入提交环，future.get(5s)
+ *   match-egress-poller：环的唯一消费者，负责 client.offer() + client.pollEgress()，
+ *                        收到 MSG_BATCH_ACK 按 batchId 完成 future
+ * </pre>
+ * <p>Aeron 客户端只在 poller 线程上访问；环满时请求立即失败（反压到调用方）。
+ *
+ * <h3>消息大小</h3>
+ * <p>一批是一条 Raft 日志。撮合 log term-length=256k，单条消息上限 32KB；编码后超限直接拒绝，
+ * 由调用方拆批（正常 {@link EventBatchOrderReq#MAX_ITEMS} 项远低于此值）。
+ *
+ * <h3>Aeron 资源</h3>
+ * <p>默认进程内嵌一个 MediaDriver；配置 {@code order.match-gateway.aeron-dir} 时连接外部驱动。
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "order.match-gateway.enabled", havingValue = "true", matchIfMissing = true)
+public class MatchGatewayService {
+
+    private static final long TIMEOUT_MS = 5_000;
+
+    /** Ingress offer 反压重试上限（超限失败该请求，避免 poller 线程被单个请求占死）。 */
+    private static final int OFFER_MAX_RETRIES = 100_000;
+
+    /** 提交环的记录类型（ManyToOneRingBuffer 要求 &gt; 0）。 */
+    private static final int SUBMIT_MSG_TYPE_ID = 1;
+
+    /** poller 每轮最多从提交环读取的请求数（与 pollEgress 交替，避免单方向饿死）。 */
+    private static final int SUBMIT_READ_LIMIT = 64;
+
+    /** 单条 Raft 日志上限（撮合 log term-length=256k → maxMessageLength 32KB）。 */
+    private static final int MAX_MESSAGE_BYTES = 32 * 1024;
+
+    // ---- 消息类型字节常量（与 MatchClusteredService 保持一致） ----------------------
+    /** Ingress: 批量下单 / 撤单 / 改单 */
+    private static final byte MSG_BATCH_ORDERS = 0x07;
+    /** Egress: 批量委托回包 */
+    private static final byte MSG_BATCH_ACK    = 0x14;
+
+    /** 调用线程的编码缓冲区（按需扩容，线程复用）。 */
+    private static final ThreadLocal<ExpandableArrayBuffer> ENCODE_BUFFER =
+            ThreadLocal.withInitial(() -> new ExpandableArrayBuffer(4096));
+
+    private final String ingressChannel;
+    /** 外部 MediaDriver 目录；为空时进程内嵌一个驱动。 */
+    private final String aeronDir;
+    private final int    ringCapacityBytes;
+
+    /** 省略空字段，压缩单条日志大小。 */
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private MediaDriver         mediaDriver;
+    private Aeron               aeron;
+    private AeronCluster        client;
+    private ManyToOneRingBuffer submitRing;
+    private Thread              egressPoller;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /** batchId → pending future */
+    private final ConcurrentHashMap<String, CompletableFuture<BatchOrderAck>> pendingBatches =
+            new ConcurrentHashMap<>();
+
+    @Autowired
+    public MatchGatewayService(
+            @Value("${match.cluster.ingress-channel:aeron:udp?endpoint=localhost:20110}") String ingressChannel,
+            @Value("${order.match-gateway.aeron-dir:}") String aeronDir,
+            @Value("${order.match-gateway.ring-capacity-bytes:1048576}") int ringCapacityBytes) {
+        this.ingressChannel    = ingressChannel;
+        this.aeronDir          = aeronDir;
+        this.ringCapacityBytes = ringCapacityBytes;
+    }
+
+    @PostConstruct
+    public void connect() {
+        running.set(true);
+        String dir = aeronDir;
+        if (dir == null || dir.isBlank()) {
+            mediaDriver = MediaDriver.launchEmbedded();
+            dir = mediaDriver.aeronDirectoryName();
+            log.info("[MatchGateway] Embedded MediaDriver started dir={}", dir);
+        } else {
+            log.info("[MatchGateway] Using external MediaDriver dir={}", dir);
+        }
+        aeron = Aeron.connect(new Aeron.Context().aeronDirectoryName(dir));
+
+        log.info("[MatchGateway] Connecting ingress={}", ingressChannel);
+        client = AeronCluster.connect(
+                new AeronCluster.Context()
+                        .aeron(aeron)
+                        .ownsAeronClient(false)
+                        .ingressChannel(ingressChannel)
+                        .egressListener(new BatchAckListener()));
+
+        // 有界提交环（多生产者：HTTP 线程；单消费者：poller）
+        submitRing = new ManyToOneRingBuffer(new UnsafeBuffer(
+                ByteBuffer.allocateDirect(ringCapacityBytes + RingBufferDescriptor.TRAILER_LENGTH)));
+
+        // EgressPoller 线程：唯一负责 offer() + pollEgress()
+        egressPoller = new Thread(() -> {
+            IdleStrategy idle = new BackoffIdleStrategy();
+            MessageHandler submitHandler = (msgTypeId, buffer, index, length) -> offerIngress(idle, buffer, index, length);
+            while (running.get()) {
+                int work = 0;
+                try {
+                    work += submitRing.read(submitHandler, SUBMIT_READ_LIMIT);
+                    work += client.pollEgress();
+                } catch (Exception e) {
+                    if (running.get()) {
+                        log.error("[MatchGateway] EgressPoller error", e);
+                    }
+                }
+                idle.idle(work);
+            }
+        }, "match-egress-poller");
+        egressPoller.setDaemon(true);
+        egressPoller.start();
+
+        log.info("[MatchGateway] Connected");
+    }
+
+    @PreDestroy
+    public void disconnect() {
+        running.set(false);
+        if (client != null) client.close();
+        if (aeron != null) aeron.close();
+        if (mediaDriver != null) mediaDriver.close();
+        log.info("[MatchGateway] Disconnected");
+    }
+
+    // =========================================================================
+    // Public API
+    // =========================================================================
+
+    /**
+     * 提交一批委托并同步等待整批回包（撮合一条日志内按序执行）。
+     *
+     * @param req 批量请求，{@code batchId} 须唯一（作回包关联键）
+     * @return 撮合回包；{@code accepted=false} 表示整批未执行
+     */
+    public BatchOrderAck submitBatch(EventBatchOrderReq req) throws Exception {
+        String batchId = req.getBatchId();
+        byte[] json = objectMapper.writeValueAsBytes(req);
+        if (1 + json.length > MAX_MESSAGE_BYTES) {
+            throw new IllegalArgumentException("Batch too large: " + json.length
+                    + " bytes > " + MAX_MESSAGE_BYTES + ", split into smaller batches");
+        }
+
+        CompletableFuture<BatchOrderAck> future = new CompletableFuture<>();
+        pendingBatches.put(batchId, future);
+        try {
+            ExpandableArrayBuffer buf = ENCODE_BUFFER.get();
+            int idLength = buf.putStringWithoutLengthAscii(1, batchId);
+            buf.putByte(0, (byte) idLength);
+            int msgOffset = 1 + idLength;
+            buf.putByte(msgOffset, MSG_BATCH_ORDERS);
+            buf.putBytes(msgOffset + 1, json);
+            if (!submitRing.write(SUBMIT_MSG_TYPE_ID, buf, 0, msgOffset + 1 + json.length)) {
+                throw new IllegalStateException("Match gateway submit ring full");
+            }
+            return future.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            pendingBatches.remove(batchId);
+        }
+    }
+
+    // =========================================================================
+    // Poller 线程
+    // =========================================================================
+
+    /** 提交环记录 → Ingress。offer 直接引用环内内存，不再拷贝。 */
+    private void offerIngress(IdleStrategy idle, MutableDirectBuffer buffer, int index, int length) {
+        int idLength  = buffer.getByte(index) & 0xFF;
+        int msgOffset = index + 1 + idLength;
+        int msgLength = length - 1 - idLength;
+        long result;
+        int  retries = 0;
+        while ((result = client.offer(buffer, msgOffset, msgLength)) < 0) {
+            if (result == io.aeron.Publication.CLOSED
+                    || result == io.aeron.Publication.NOT_CONNECTED
+                    || result == io.aeron.Publication.MAX_POSITION_EXCEEDED) {
+                failPending(buffer.getStringWithoutLengthAscii(index + 1, idLength), "Match Cluster not connected");
+                break;
+            }
+            if (++retries > OFFER_MAX_RETRIES) {
+                failPending(buffer.getStringWithoutLengthAscii(index + 1, idLength),
+                        "Match Cluster ingress back-pressured");
+                break;
+            }
+            // 反压期间继续 poll egress，否则已发出批次的回包无人消费
+            try { client.pollEgress(); } catch (Exception ignored) {}
+            idle.idle();
+        }
+        idle.reset();
+    }
+
+    private void failPending(String batchId, String reason) {
+        CompletableFuture<BatchOrderAck> f = pendingBatches.remove(batchId);
+        if (f != null) {
+            f.completeExceptionally(new IllegalStateException(reason));
+        }
+    }
+
+    /** 只处理 MSG_BATCH_ACK；其他回包类型不由本客户端发起。 */
+    private class BatchAckListener implements EgressListener {
+
+        @Override
+        public void onMessage(long clusterSessionId, long timestamp,
+                              DirectBuffer buffer, int offset, int length, Header header) {
+            if (length < 1 || buffer.getByte(offset) != MSG_BATCH_ACK) return;
+            byte[] jsonBytes = new byte[length - 1];
+            buffer.getBytes(offset + 1, jsonBytes);
+            try {
+                BatchOrderAck ack = objectMapper.readValue(jsonBytes, BatchOrderAck.class);
+                CompletableFuture<BatchOrderAck> future = pendingBatches.remove(ack.getBatchId());
+                if (future != null) {
+                    future.complete(ack);
+                } else {
+                    log.warn("[MatchGateway] No pending batch for batchId={}", ack.getBatchId());
+                }
+            } catch (Exception e) {
+                log.error("[MatchGateway] Failed to parse batch ack", e);
+            }
+        }
+    }
+}
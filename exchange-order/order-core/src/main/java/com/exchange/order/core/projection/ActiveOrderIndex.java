@@ -0,0 +1,141 @@
+package com.exchange.order.core.projection;
+
+import com.exchange.order.api.dto.OrderDTO;
+import com.exchange.order.core.entity.OrderRecord;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 活跃挂单内存索引（userId → symbol → orderId），供 {@code getActiveOrders} 直接读内存。
+ *
+ * <h3>单写多读</h3>
+ * <p>只有 {@link OrderStateProjector}（订阅线程）写入；查询线程并发读取。索引里存放的是
+ * 每次状态变化后重新生成的 {@link OrderDTO} 快照，发布后不再修改，读方拿到的永远是一致的单笔订单视图。
+ * 空的 symbol / user 层由唯一的写线程移除，不会与插入竞争。
+ *
+ * <h3>就绪</h3>
+ * <p>每个订阅会话开始时从 DB 加载活跃订单重建索引，再从已落库位点回放；重建期间
+ * {@link #isReady()} 为 false，查询方应回落到 DB。
+ */
+@Component
+public class ActiveOrderIndex {
+
+    private final Map<Long, Map<String, Map<Long, OrderDTO>>> byUser = new ConcurrentHashMap<>();
+    private final Map<Long, OrderDTO> byId = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    private final AtomicLong reads = new AtomicLong();
+
+    /**
+     * 索引统计快照。
+     *
+     * @param activeOrders 当前活跃订单数
+     * @param users        有活跃订单的用户数
+     * @param reads        累计内存查询次数
+     * @param ready        索引是否已就绪
+     */
+    public record Stats(int activeOrders, int users, long reads, boolean ready) {}
+
+    // =========================================================================
+    // 读（查询线程）
+    // =========================================================================
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 用户在某交易对（{@code symbol} 为 null 时为全部交易对）的活跃挂单，按 orderId 升序。
+     */
+    public List<OrderDTO> getActiveOrders(Long userId, String symbol) {
+        reads.incrementAndGet();
+        Map<String, Map<Long, OrderDTO>> symbols = byUser.get(userId);
+        if (symbols == null) return List.of();
+        List<OrderDTO> result = new ArrayList<>();
+        if (symbol != null) {
+            Map<Long, OrderDTO> orders = symbols.get(symbol);
+            if (orders != null) result.addAll(orders.values());
+        } else {
+            for (Map<Long, OrderDTO> orders : symbols.values()) result.addAll(orders.values());
+        }
+        result.sort((a, b) -> Long.compare(a.getOrderId(), b.getOrderId()));
+        return result;
+    }
+
+    /** 活跃订单快照；不活跃（已终态或未知）返回 null。 */
+    public OrderDTO get(Long orderId) {
+        reads.incrementAndGet();
+        return byId.get(orderId);
+    }
+
+    public Stats stats() {
+        return new Stats(byId.size(), byUser.size(), reads.get(), ready);
+    }
+
+    // =========================================================================
+    // 写（仅订阅线程）
+    // =========================================================================
+
+    /** 清空并以给定活跃订单重建，之后进入未就绪状态，直到 {@link #markReady()}。 */
+    void reset(Collection<OrderRecord> active) {
+        ready = false;
+        byUser.clear();
+        byId.clear();
+        for (OrderRecord r : active) put(r);
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    void put(OrderRecord r) {
+        OrderDTO dto = toDTO(r);
+        byUser.computeIfAbsent(r.getUserId(), k -> new ConcurrentHashMap<>())
+              .computeIfAbsent(r.getSymbol(), k -> new ConcurrentHashMap<>())
+              .put(r.getOrderId(), dto);
+        byId.put(r.getOrderId(), dto);
+    }
+
+    void remove(OrderRecord r) {
+        if (byId.remove(r.getOrderId()) == null) return;
+        Map<String, Map<Long, OrderDTO>> symbols = byUser.get(r.getUserId());
+        if (symbols == null) return;
+        Map<Long, OrderDTO> orders = symbols.get(r.getSymbol());
+        if (orders == null) return;
+        orders.remove(r.getOrderId());
+        if (orders.isEmpty()) symbols.remove(r.getSymbol());
+        if (symbols.isEmpty()) byUser.remove(r.getUserId());
+    }
+
+    // =========================================================================
+    // Conversion
+    // =========================================================================
+
+    public static OrderDTO toDTO(OrderRecord r) {
+        OrderDTO dto = new OrderDTO();
+        dto.setOrderId(r.getOrderId());
+        dto.setClientOrderId(r.getClientOrderId());
+        dto.setUserId(r.getUserId());
+        dto.setSymbol(r.getSymbol());
+        dto.setSide(r.getSide());
+        dto.setOrderType(r.getOrderType());
+        dto.setTimeInForce(r.getTimeInForce());
+        dto.setStatus(r.getStatus());
+        dto.setQuantity(r.getQuantity());
+        dto.setPrice(r.getPrice());
+        dto.setStopPrice(r.getStopPrice());
+        dto.setExecutedQty(r.getExecutedQty());
+        dto.setAvgPrice(r.getAvgPrice());
+        dto.setCummulativeQuoteQty(r.getCummulativeQuoteQty());
+        dto.setCreateTime(r.getCreateTime());
+        dto.setUpdateTime(r.getUpdateTime());
+        return dto;
+    }
+}
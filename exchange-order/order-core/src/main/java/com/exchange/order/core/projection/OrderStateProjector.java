@@ -0,0 +1,309 @@
+package com.exchange.order.core.projection;
+
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.Trade;
+import com.exchange.order.api.enums.OrderSide;
+import com.exchange.order.api.enums.OrderStatus;
+import com.exchange.order.api.enums.OrderType;
+import com.exchange.order.api.enums.TimeInForce;
+import com.exchange.order.core.entity.OrderRecord;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单状态投影：把撮合结算录制中的 {@link MatchResponse} 按序折叠为订单状态（一次订阅会话一个实例）。
+ *
+ * <h3>输入语义</h3>
+ * <ul>
+ *   <li>下单回包（SUCCESS / PARTIALLY_FILLED / PENDING）：taker 订单的<b>绝对</b>成交进度，直接覆盖。</li>
+ *   <li>{@code trades}：另一侧（maker）订单的<b>增量</b>成交，累加到活跃订单上。</li>
+ *   <li>CANCELLED：带 orderId 为单撤；不带 orderId 为按用户 / 按交易对批量撤单，撤掉对应的全部活跃订单。</li>
+ *   <li>REJECTED：只有未知订单（新单被拒）才落一条 REJECTED；活跃订单上的 REJECTED 是撤单被拒，忽略。</li>
+ *   <li>改单回包（带 {@code amendInfo}）：价 / 量改为新值，成交量为<b>绝对</b>值，成交额只含本次改单重新撮合的<b>增量</b>；
+ *       被拒的改单原单不变，忽略。</li>
+ * </ul>
+ *
+ * <h3>一致性</h3>
+ * <p>maker 成交是增量，重复应用会多算。因此每个会话都从 DB 加载活跃订单、从与之同事务写入的位点回放：
+ * DB 状态恰好是该位点之前全部事件的结果，之后的增量每条只应用一次。
+ *
+ * <h3>折叠</h3>
+ * <p>同一批内一笔订单可能变化多次（活跃 maker 被连续吃单），{@link #drainDirty()} 每笔只输出最后状态。
+ *
+ * <p>仅订阅线程访问；读方通过 {@link ActiveOrderIndex} 的不可变快照读取。
+ */
+@Slf4j
+public final class OrderStateProjector {
+
+    private final ActiveOrderIndex index;
+
+    /** 活跃订单的可变状态（NEW / PARTIALLY_FILLED） */
+    private final Map<Long, OrderRecord> live = new HashMap<>();
+
+    /** 上次 drain 之后变化过的订单（按首次变化顺序，值为最后状态） */
+    private final Map<Long, OrderRecord> dirty = new LinkedHashMap<>();
+
+    private long applied;
+    /** 成交 / 撤单指向的订单既不在活跃集合、回包也不足以建档（启动前的订单缺失等） */
+    private long unknownOrders;
+
+    public OrderStateProjector(ActiveOrderIndex index, List<OrderRecord> activeOrders) {
+        this.index = index;
+        for (OrderRecord r : activeOrders) live.put(r.getOrderId(), r);
+        index.reset(activeOrders);
+    }
+
+    /** 已追上录制尾部：索引对外可读。 */
+    public void caughtUp() {
+        if (!index.isReady()) {
+            index.markReady();
+            log.info("[OrderProjector] Caught up — activeOrders={} applied={} unknownOrders={}",
+                    live.size(), applied, unknownOrders);
+        }
+    }
+
+    /** 取出并清空本批变化过的订单（每笔一行，最后状态）。 */
+    public List<OrderRecord> drainDirty() {
+        List<OrderRecord> rows = new ArrayList<>(dirty.values());
+        dirty.clear();
+        return rows;
+    }
+
+    public long getApplied() {
+        return applied;
+    }
+
+    public long getUnknownOrders() {
+        return unknownOrders;
+    }
+
+    // =========================================================================
+    // Apply
+    // =========================================================================
+
+    public void apply(MatchResponse r) {
+        applied++;
+        Long orderId = parseOrderId(r.getOrderId());
+        LocalDateTime ts = r.getProcessTime() != null ? r.getProcessTime() : LocalDateTime.now();
+
+        MatchStatus status = r.getStatus();
+        if (r.getAmendInfo() != null) {
+            if (status != MatchStatus.REJECTED && orderId != null) onAmended(r, orderId, ts);
+        } else if (status == MatchStatus.CANCELLED) {
+            if (orderId != null) {
+                onCancelled(r, orderId, ts);
+            } else {
+                onMassCancelled(r, ts);
+            }
+        } else if (status == MatchStatus.REJECTED) {
+            onRejected(r, orderId, ts);
+        } else if (status != null && orderId != null && r.getOrderQuantity() != null) {
+            onPlaced(r, orderId, ts);
+        }
+
+        // maker 侧成交（含被拒的下单在拒绝前已成交的部分——订单簿已变）
+        if (r.getTrades() != null) {
+            for (Trade t : r.getTrades()) {
+                if (t.getBuyOrderId() != null && !t.getBuyOrderId().equals(r.getOrderId())) {
+                    onMakerFill(parseOrderId(t.getBuyOrderId()), t, ts);
+                }
+                if (t.getSellOrderId() != null && !t.getSellOrderId().equals(r.getOrderId())) {
+                    onMakerFill(parseOrderId(t.getSellOrderId()), t, ts);
+                }
+            }
+        }
+    }
+
+    /** taker 下单结果：成交进度为绝对值，直接覆盖。 */
+    private void onPlaced(MatchResponse r, Long orderId, LocalDateTime ts) {
+        OrderRecord o = live.get(orderId);
+        if (o == null) o = newRecord(r, orderId, ts);
+        BigDecimal executed = nz(r.getMatchQuantity());
+        o.setQuantity(r.getOrderQuantity());
+        o.setExecutedQty(executed);
+        o.setCummulativeQuoteQty(nz(r.getMatchAmount()));
+        o.setAvgPrice(executed.signum() > 0 ? r.getMatchPrice() : null);
+        o.setStatus(placedStatus(r, o, executed));
+        o.setUpdateTime(ts);
+        touch(o);
+    }
+
+    /** 改单结果：改价 / 改量，累计成交额加上本次重新撮合的成交额。 */
+    private void onAmended(MatchResponse r, Long orderId, LocalDateTime ts) {
+        OrderRecord o = live.get(orderId);
+        if (o == null) {
+            unknownOrders++;
+            log.debug("[OrderProjector] Amend for unknown order={} amendId={}", orderId, r.getAmendInfo().getAmendId());
+            return;
+        }
+        BigDecimal executed = nz(r.getMatchQuantity());
+        BigDecimal quote    = nz(o.getCummulativeQuoteQty()).add(nz(r.getMatchAmount()));
+        if (r.getOrderPrice() != null) o.setPrice(r.getOrderPrice());
+        if (r.getOrderQuantity() != null) o.setQuantity(r.getOrderQuantity());
+        o.setExecutedQty(executed);
+        o.setCummulativeQuoteQty(quote);
+        if (executed.signum() > 0) {
+            int scale = o.getPrice() != null ? Math.max(o.getPrice().scale(), 2) : 8;
+            o.setAvgPrice(quote.divide(executed, scale, RoundingMode.HALF_UP));
+        }
+        o.setStatus(placedStatus(r, o, executed));
+        o.setUpdateTime(ts);
+        touch(o);
+    }
+
+    private void onCancelled(MatchResponse r, Long orderId, LocalDateTime ts) {
+        OrderRecord o = live.get(orderId);
+        if (o == null) {
+            if (r.getUserId() == null || r.getSymbol() == null || r.getOrderQuantity() == null) {
+                unknownOrders++;
+                return;
+            }
+            o = newRecord(r, orderId, ts);
+            o.setQuantity(r.getOrderQuantity());
+        }
+        if (r.getMatchQuantity() != null) o.setExecutedQty(r.getMatchQuantity());
+        cancel(o, r.getCancelInfo() != null ? r.getCancelInfo().getCancelReason() : null, ts);
+    }
+
+    /** 按用户（userId 非空）或按交易对（下架 / 清簿）撤掉全部活跃订单。 */
+    private void onMassCancelled(MatchResponse r, LocalDateTime ts) {
+        if (r.getUserId() == null && r.getSymbol() == null) return;
+        List<OrderRecord> targets = new ArrayList<>();
+        for (OrderRecord o : live.values()) {
+            if (r.getUserId() != null ? r.getUserId().equals(o.getUserId()) : r.getSymbol().equals(o.getSymbol())) {
+                targets.add(o);
+            }
+        }
+        targets.sort((a, b) -> Long.compare(a.getOrderId(), b.getOrderId()));
+        String reason = r.getUserId() != null ? "撤销用户全部挂单" : "交易对撤单 / 下架";
+        for (OrderRecord o : targets) cancel(o, reason, ts);
+    }
+
+    private void onRejected(MatchResponse r, Long orderId, LocalDateTime ts) {
+        // 活跃订单上的 REJECTED 是撤单被拒（订单仍在簿上）；撤单回包不带委托数量
+        if (orderId == null || live.containsKey(orderId) || r.getOrderQuantity() == null
+                || r.getUserId() == null || r.getSymbol() == null) {
+            return;
+        }
+        OrderRecord o = newRecord(r, orderId, ts);
+        o.setQuantity(r.getOrderQuantity());
+        o.setStatus(OrderStatus.REJECTED);
+        o.setRejectReason(r.getRejectInfo() != null && r.getRejectInfo().getRejectReason() != null
+                ? r.getRejectInfo().getRejectReason() : r.getErrorMessage());
+        touch(o);
+    }
+
+    /** maker 被吃：成交增量累加到活跃订单。 */
+    private void onMakerFill(Long orderId, Trade t, LocalDateTime ts) {
+        OrderRecord o = orderId != null ? live.get(orderId) : null;
+        if (o == null) {
+            unknownOrders++;
+            log.debug("[OrderProjector] Fill for unknown order={} tradeId={}", orderId, t.getTradeId());
+            return;
+        }
+        BigDecimal executed = nz(o.getExecutedQty()).add(nz(t.getQuantity()));
+        BigDecimal quote    = nz(o.getCummulativeQuoteQty()).add(nz(t.getAmount()));
+        o.setExecutedQty(executed);
+        o.setCummulativeQuoteQty(quote);
+        int scale = o.getPrice() != null ? Math.max(o.getPrice().scale(), 2) : 8;
+        o.setAvgPrice(quote.divide(executed, scale, RoundingMode.HALF_UP));
+        o.setStatus(o.getQuantity() != null && executed.compareTo(o.getQuantity()) >= 0
+                ? OrderStatus.FILLED : OrderStatus.PARTIALLY_FILLED);
+        o.setUpdateTime(ts);
+        touch(o);
+    }
+
+    private void cancel(OrderRecord o, String reason, LocalDateTime ts) {
+        o.setStatus(OrderStatus.CANCELLED);
+        o.setRejectReason(reason);
+        o.setUpdateTime(ts);
+        touch(o);
+    }
+
+    /** 记一次变化：进入待落库集合，并按新状态更新活跃集合与对外索引。 */
+    private void touch(OrderRecord o) {
+        dirty.put(o.getOrderId(), o);
+        if (isActive(o.getStatus())) {
+            live.put(o.getOrderId(), o);
+            index.put(o);
+        } else {
+            live.remove(o.getOrderId());
+            index.remove(o);
+        }
+    }
+
+    // =========================================================================
+    // Mapping
+    // =========================================================================
+
+    /**
+     * taker 下单后的状态。未全部成交的 MARKET / IOC / FOK 不会挂单，剩余部分视为已撤。
+     */
+    private static OrderStatus placedStatus(MatchResponse r, OrderRecord o, BigDecimal executed) {
+        if (r.getStatus() == MatchStatus.SUCCESS || r.isFullyFilled()) return OrderStatus.FILLED;
+        if (o.getTimeInForce() != TimeInForce.GTC) return OrderStatus.CANCELLED;
+        return executed.signum() > 0 ? OrderStatus.PARTIALLY_FILLED : OrderStatus.NEW;
+    }
+
+    private static OrderRecord newRecord(MatchResponse r, Long orderId, LocalDateTime ts) {
+        OrderRecord o = new OrderRecord();
+        o.setOrderId(orderId);
+        o.setUserId(r.getUserId());
+        o.setSymbol(r.getSymbol());
+        o.setSide(r.getSide() != null ? OrderSide.valueOf(r.getSide().name()) : null);
+        com.exchange.match.enums.OrderType type = r.getOrderType();
+        o.setOrderType(toOrderType(type));
+        o.setTimeInForce(toTimeInForce(type));
+        o.setPrice(type == com.exchange.match.enums.OrderType.MARKET ? null : r.getOrderPrice());
+        o.setExecutedQty(BigDecimal.ZERO);
+        o.setCummulativeQuoteQty(BigDecimal.ZERO);
+        o.setCreateTime(r.getCreateTime() != null ? r.getCreateTime() : ts);
+        o.setUpdateTime(ts);
+        return o;
+    }
+
+    private static OrderType toOrderType(com.exchange.match.enums.OrderType type) {
+        if (type == null) return OrderType.LIMIT;
+        return switch (type) {
+            case MARKET     -> OrderType.MARKET;
+            case STOP       -> OrderType.STOP_MARKET;
+            case STOP_LIMIT -> OrderType.STOP_LIMIT;
+            default         -> OrderType.LIMIT;
+        };
+    }
+
+    private static TimeInForce toTimeInForce(com.exchange.match.enums.OrderType type) {
+        if (type == null) return TimeInForce.GTC;
+        return switch (type) {
+            case MARKET, IOC -> TimeInForce.IOC;
+            case FOK         -> TimeInForce.FOK;
+            default          -> TimeInForce.GTC;
+        };
+    }
+
+    private static boolean isActive(OrderStatus status) {
+        return status == OrderStatus.NEW || status == OrderStatus.PARTIALLY_FILLED;
+    }
+
+    private static Long parseOrderId(String orderId) {
+        if (orderId == null || orderId.isEmpty()) return null;
+        try {
+            return Long.parseLong(orderId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal nz(BigDecimal v) {
+        return v != null ? v : BigDecimal.ZERO;
+    }
+}
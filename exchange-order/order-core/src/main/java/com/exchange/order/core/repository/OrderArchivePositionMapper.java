@@ -0,0 +1,29 @@
+package com.exchange.order.core.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.exchange.order.core.entity.OrderArchivePosition;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 撮合结算录制消费位点 Mapper。
+ *
+ * <p>提供 upsert 语义：首次插入，后续更新 position。
+ */
+@Mapper
+public interface OrderArchivePositionMapper extends BaseMapper<OrderArchivePosition> {
+
+    /**
+     * 插入或更新位点（MySQL ON DUPLICATE KEY UPDATE）。
+     */
+    @Update("""
+            INSERT INTO t_order_archive_position (recording_id, channel, stream_id, position)
+            VALUES (#{recordingId}, #{channel}, #{streamId}, #{position})
+            ON DUPLICATE KEY UPDATE position = #{position}
+            """)
+    void upsertPosition(@Param("recordingId") long   recordingId,
+                        @Param("channel")     String channel,
+                        @Param("streamId")    int    streamId,
+                        @Param("position")    long   position);
+}
@@ -2,7 +2,11 @@ package com.exchange.order.core.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.exchange.order.core.entity.OrderRecord;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 订单数据访问层。
@@ -12,5 +16,34 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface OrderRepository extends BaseMapper<OrderRecord> {
-    // TODO: 如需自定义 SQL，在此声明接口方法并在对应 XML 中实现
+
+    /**
+     * 多行 UPSERT 订单状态快照（主键 {@code order_id}）。
+     *
+     * <p>新订单整行插入；已存在的订单只覆盖成交进度、状态与更新时间。已处于终态
+     * （FILLED / CANCELLED / REJECTED）的行不再被覆盖——终态不可逆，重放或迟到的旧快照不会把它改回去。
+     * MySQL 按书写顺序求值 UPDATE 子句，{@code status} 必须放在最后（前面的条件读的是旧状态）。
+     * 同一批内同一订单只能出现一次（调用方先按 orderId 折叠为最后值）。
+     */
+    @Insert("""
+            <script>
+            INSERT INTO t_order_record (order_id, client_order_id, user_id, symbol, side, order_type, time_in_force,
+                                        status, quantity, price, stop_price, executed_qty, cummulative_quote_qty,
+                                        avg_price, reject_reason, create_time, update_time)
+            VALUES
+            <foreach collection="orders" item="o" separator=",">
+                (#{o.orderId}, #{o.clientOrderId}, #{o.userId}, #{o.symbol}, #{o.side}, #{o.orderType},
+                 #{o.timeInForce}, #{o.status}, #{o.quantity}, #{o.price}, #{o.stopPrice}, #{o.executedQty},
+                 #{o.cummulativeQuoteQty}, #{o.avgPrice}, #{o.rejectReason}, #{o.createTime}, #{o.updateTime})
+            </foreach>
+            ON DUPLICATE KEY UPDATE
+                executed_qty          = IF(status IN ('FILLED', 'CANCELLED', 'REJECTED'), executed_qty, VALUES(executed_qty)),
+                cummulative_quote_qty = IF(status IN ('FILLED', 'CANCELLED', 'REJECTED'), cummulative_quote_qty, VALUES(cummulative_quote_qty)),
+                avg_price             = IF(status IN ('FILLED', 'CANCELLED', 'REJECTED'), avg_price, VALUES(avg_price)),
+                reject_reason         = IF(status IN ('FILLED', 'CANCELLED', 'REJECTED'), reject_reason, VALUES(reject_reason)),
+                update_time           = IF(status IN ('FILLED', 'CANCELLED', 'REJECTED'), update_time, VALUES(update_time)),
+                status                = IF(status IN ('FILLED', 'CANCELLED', 'REJECTED'), status, VALUES(status))
+            </script>
+            """)
+    int upsertBatch(@Param("orders") List<OrderRecord> orders);
 }
@@ -0,0 +1,55 @@
+package com.exchange.order.core.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.exchange.order.api.enums.OrderStatus;
+import com.exchange.order.core.entity.OrderRecord;
+import com.exchange.order.core.repository.OrderArchivePositionMapper;
+import com.exchange.order.core.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 订单状态投影持久化服务（group commit：一批订单状态 + 消费位点一个事务）。
+ *
+ * <h3>为什么位点必须同事务</h3>
+ * <p>投影对 maker 订单按成交<b>增量</b>累加，重放同一条成交会多算。订单行与位点一起提交，
+ * DB 里的订单状态就恰好是位点之前全部事件的结果——重启后从 DB 加载活跃订单、从该位点回放，
+ * 每条增量只应用一次。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderPersistService {
+
+    private final OrderRepository            orderRepository;
+    private final OrderArchivePositionMapper positionMapper;
+
+    /**
+     * 原子持久化一批订单状态快照 + 推进消费位点到批尾。
+     *
+     * @param orders       本批变化过的订单（每笔一行，最后状态；可为空：仅推进位点）
+     * @param recordingId  撮合 Archive recording ID
+     * @param channel      录制 channel（写入位点表）
+     * @param streamId     录制 stream ID（写入位点表）
+     * @param lastPosition 批内最后一个 fragment 的 Archive byte position
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void persistBatch(List<OrderRecord> orders,
+                             long recordingId, String channel, int streamId, long lastPosition) {
+        if (!orders.isEmpty()) {
+            orderRepository.upsertBatch(orders);
+        }
+        positionMapper.upsertPosition(recordingId, channel, streamId, lastPosition);
+        log.debug("[OrderPersist] Batch orders={} position={}", orders.size(), lastPosition);
+    }
+
+    /** 加载全部活跃订单（NEW / PARTIALLY_FILLED），用于重建投影。 */
+    public List<OrderRecord> loadActiveOrders() {
+        return orderRepository.selectList(new LambdaQueryWrapper<OrderRecord>()
+                .in(OrderRecord::getStatus, OrderStatus.NEW, OrderStatus.PARTIALLY_FILLED));
+    }
+}
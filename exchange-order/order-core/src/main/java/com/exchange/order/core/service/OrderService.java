@@ -1,5 +1,7 @@
 package com.exchange.order.core.service;
 
+import com.exchange.order.api.dto.BatchOrderReq;
+import com.exchange.order.api.dto.BatchOrderResult;
 import com.exchange.order.api.dto.CancelOrderReq;
 import com.exchange.order.api.dto.CreateOrderReq;
 import com.exchange.order.api.dto.OrderDTO;
@@ -20,11 +22,9 @@ public interface OrderService {
      *
      * <p>流程：
      * <ol>
-     *   <li>参数校验 + 幂等检查（clientOrderId）</li>
-     *   <li>调用账户服务冻结委托资金</li>
-     *   <li>持久化订单（状态 PENDING_NEW）</li>
-     *   <li>推送订单至撮合引擎（Aeron MDC）</li>
-     *   <li>返回订单快照</li>
+     *   <li>按标的配置计算冻结额，调用账户服务冻结委托资金</li>
+     *   <li>经撮合集群 Ingress 提交（与单项批量委托同一路径），同步拿回撮合结果</li>
+     *   <li>撮合拒绝则解冻并抛出；否则返回订单快照（订单记录由结算录制投影落库）</li>
      * </ol>
      *
      * @param req 下单请求
@@ -35,12 +35,23 @@ public interface OrderService {
     /**
      * 撤单。
      *
-     * <p>向撮合引擎发送撤单指令；实际撤单结果异步回调（通过 state-changes Kafka 主题）。
+     * <p>向撮合引擎发送撤单指令并同步拿回结果（订单已不在簿上时抛出）；订单状态经撮合结算录制异步投影。
      *
      * @param req 撤单请求
      */
     void cancelOrder(CancelOrderReq req);
 
+    /**
+     * 批量下单 / 撤单 / 改单。
+     *
+     * <p>整批作为撮合集群的一条日志按序执行（做市商原子刷新报价），同步返回每项的撮合结果；
+     * 订单状态仍经撮合结算录制异步投影。新单冻结额由服务端按标的配置计算，提交前整批冻结，撮合拒绝的新单随即解冻。
+     *
+     * @param req 批量请求（同一用户，最多 64 项）
+     * @return 与请求 items 一一对应的结果
+     */
+    BatchOrderResult batchOrders(BatchOrderReq req);
+
     /**
      * 根据系统订单 ID 查询订单详情。
      */
@@ -53,6 +64,10 @@ public interface OrderService {
 
     /**
      * 查询用户当前活跃挂单（状态为 NEW 或 PARTIALLY_FILLED）。
+     *
+     * <p>由撮合结算录制投影出的内存索引直接返回；投影重建期间回落到 DB。
+     *
+     * @param symbol 交易对；为 null 时返回全部交易对
      */
     List<OrderDTO> getActiveOrders(Long userId, String symbol);
 }
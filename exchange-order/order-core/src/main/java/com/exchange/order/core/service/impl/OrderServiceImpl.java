@@ -0,0 +1,436 @@
+package com.exchange.order.core.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.exchange.account.api.client.AssetServiceClient;
+import com.exchange.account.api.dto.BatchFreezeReq;
+import com.exchange.account.api.dto.FreezeReq;
+import com.exchange.account.api.enums.AccountType;
+import com.exchange.common.response.ApiResponse;
+import com.exchange.common.id.SnowflakeId;
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.model.BatchOrderAck;
+import com.exchange.match.request.EventBatchOrderReq;
+import com.exchange.match.request.EventNewOrderReq;
+import com.exchange.order.api.dto.BatchOrderItem;
+import com.exchange.order.api.dto.BatchOrderReq;
+import com.exchange.order.api.dto.BatchOrderResult;
+import com.exchange.order.api.dto.CancelOrderReq;
+import com.exchange.order.api.dto.CreateOrderReq;
+import com.exchange.order.api.dto.OrderDTO;
+import com.exchange.order.api.dto.OrderQueryReq;
+import com.exchange.order.api.enums.BatchAction;
+import com.exchange.order.api.enums.OrderSide;
+import com.exchange.order.api.enums.OrderStatus;
+import com.exchange.order.api.enums.OrderType;
+import com.exchange.order.api.enums.TimeInForce;
+import com.exchange.order.core.config.OrderSymbolProperties;
+import com.exchange.order.core.entity.OrderRecord;
+import com.exchange.order.core.gateway.MatchGatewayService;
+import com.exchange.order.core.projection.ActiveOrderIndex;
+import com.exchange.order.core.repository.OrderRepository;
+import com.exchange.order.core.service.OrderService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 订单服务实现（查询 + 下单 / 撤单 / 批量委托）。
+ *
+ * <p>活跃订单优先读 {@link ActiveOrderIndex}（撮合结算录制的内存投影），索引未就绪或订单已终态时回落到
+ * {@code t_order_record}。历史订单分页只走 DB。
+ *
+ * <p>批量委托经 {@link MatchGatewayService} 作为一条 Ingress 消息进撮合集群，同步拿回整批结果；
+ * 单笔下单 / 撤单按一项的批量提交，共用同一条回包关联与冻结路径。
+ * 冻结额由服务端按 {@link OrderSymbolProperties} 计算，提交前经 {@link AssetServiceClient#batchFreeze} 原子冻结，
+ * 撮合拒绝（或整批未执行）的新单随即解冻；接受的新单冻结随单进撮合，撤单 / 成交完成时由撮合驱动解冻残余。
+ */
+@Slf4j
+@Service
+public class OrderServiceImpl implements OrderService {
+
+    /** 撮合集群按自身 Symbol 核对冻结额不符时的拒单原因标记（见 MatchClusteredService.lockMismatch） */
+    private static final String SPEC_MISMATCH = "symbol spec mismatch";
+
+    private final OrderRepository     orderRepository;
+    private final ActiveOrderIndex    activeOrderIndex;
+    /** 可为 null：{@code order.match-gateway.enabled=false} 时不连接撮合集群 */
+    private final MatchGatewayService matchGateway;
+    private final AssetServiceClient    assetClient;
+    private final OrderSymbolProperties symbolProperties;
+
+    @Autowired
+    public OrderServiceImpl(OrderRepository orderRepository,
+                            ActiveOrderIndex activeOrderIndex,
+                            @Autowired(required = false) MatchGatewayService matchGateway,
+                            AssetServiceClient assetClient,
+                            OrderSymbolProperties symbolProperties) {
+        this.orderRepository  = orderRepository;
+        this.activeOrderIndex = activeOrderIndex;
+        this.matchGateway     = matchGateway;
+        this.assetClient      = assetClient;
+        this.symbolProperties = symbolProperties;
+    }
+
+    /**
+     * 单笔下单：按一项 PLACE 的批量委托提交，冻结 / 拒单解冻与批量同一路径。止损单撮合暂不支持。
+     *
+     * <p>市价买单须带 {@code price} 作为保护价：按保护价冻结计价币，以 IOC 限价单提交，
+     * 成交价不超过保护价、未成交部分即撤并由撮合解冻残余。不带保护价的市价买单冻结额无上限，直接拒绝。
+     */
+    @Override
+    public OrderDTO createOrder(CreateOrderReq req) {
+        boolean marketBuy = req.getOrderType() == OrderType.MARKET && req.getSide() == OrderSide.BUY;
+        if (marketBuy && (req.getPrice() == null || req.getPrice().signum() <= 0)) {
+            throw new IllegalArgumentException("Market BUY requires a positive protection price to size the quote freeze");
+        }
+        BatchOrderItem item = new BatchOrderItem();
+        item.setAction(BatchAction.PLACE);
+        item.setSymbol(req.getSymbol());
+        item.setSide(req.getSide());
+        item.setOrderType(marketBuy ? OrderType.LIMIT : req.getOrderType());
+        item.setTimeInForce(marketBuy ? TimeInForce.IOC : req.getTimeInForce());
+        item.setQuantity(req.getQuantity());
+        item.setPrice(req.getPrice());
+        item.setClientOrderId(req.getClientOrderId());
+
+        BatchOrderResult.Item r = single(req.getUserId(), item);
+        if (r.getStatus() == OrderStatus.REJECTED) {
+            throw new IllegalArgumentException("Order rejected: " + r.getError());
+        }
+        OrderDTO dto = new OrderDTO();
+        dto.setOrderId(r.getOrderId());
+        dto.setClientOrderId(req.getClientOrderId());
+        dto.setUserId(req.getUserId());
+        dto.setSymbol(req.getSymbol());
+        dto.setSide(req.getSide());
+        dto.setOrderType(req.getOrderType());
+        dto.setTimeInForce(req.getTimeInForce());
+        dto.setStatus(r.getStatus());
+        dto.setQuantity(req.getQuantity());
+        dto.setPrice(req.getPrice());
+        dto.setExecutedQty(r.getExecutedQty());
+        return dto;
+    }
+
+    /**
+     * 单笔撤单：按一项 CANCEL 的批量委托提交，同步拿回撮合结果；残余冻结由撮合经结算流解冻。
+     * 只给 {@code clientOrderId} 时先解析为系统订单 ID（活跃索引优先，未就绪回落 DB）。
+     */
+    @Override
+    public void cancelOrder(CancelOrderReq req) {
+        BatchOrderItem item = new BatchOrderItem();
+        item.setAction(BatchAction.CANCEL);
+        item.setOrderId(req.getOrderId() != null ? req.getOrderId() : resolveOrderId(req));
+
+        BatchOrderResult.Item r = single(req.getUserId(), item);
+        if (r.getStatus() == OrderStatus.REJECTED) {
+            throw new IllegalArgumentException("Cancel rejected: " + r.getError());
+        }
+    }
+
+    @Override
+    public BatchOrderResult batchOrders(BatchOrderReq req) {
+        if (matchGateway == null) {
+            throw new IllegalStateException("Match gateway disabled (order.match-gateway.enabled=false)");
+        }
+        EventBatchOrderReq batch = new EventBatchOrderReq();
+        batch.setBatchId(SnowflakeId.nextIdStr());
+        batch.setUserId(req.getUserId());
+        List<EventBatchOrderReq.Item> items = new ArrayList<>(req.getItems().size());
+        // 与 items 下标对齐；CANCEL 项为 null
+        List<BatchFreezeReq.Item> locks = new ArrayList<>(req.getItems().size());
+        for (BatchOrderItem item : req.getItems()) {
+            EventBatchOrderReq.Item m = toMatchItem(req.getUserId(), item);
+            BatchFreezeReq.Item lock = null;
+            if (m.getOrder() != null) {
+                lock = lockOf(m.getOrder().getOrderId(), item);
+                m.getOrder().setLockedAsset(lock.getAsset());
+                m.getOrder().setLockedAmount(lock.getAmount());
+            }
+            items.add(m);
+            locks.add(lock);
+        }
+        batch.setItems(items);
+
+        freeze(req.getUserId(), locks);
+        BatchOrderAck ack;
+        try {
+            ack = submitBatch(batch);
+        } catch (BatchOutcomeUnknownException e) {
+            // 撮合可能已执行：冻结保留，以结算录制投影为准
+            throw e;
+        } catch (RuntimeException e) {
+            release(req.getUserId(), locks, batch.getBatchId());
+            throw e;
+        }
+        if (!ack.isAccepted()) {
+            release(req.getUserId(), locks, batch.getBatchId());
+            throw new IllegalArgumentException("Batch rejected by match cluster: " + ack.getError());
+        }
+        if (ack.getAcks() == null || ack.getAcks().size() != items.size()) {
+            throw new IllegalStateException("Batch ack size mismatch batchId=" + batch.getBatchId());
+        }
+        // 撮合拒绝的新单不产生解冻指令，由此处解冻
+        List<BatchFreezeReq.Item> rejected = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            BatchFreezeReq.Item lock = locks.get(i);
+            BatchOrderAck.Item itemAck = ack.getAcks().get(i);
+            rejected.add(lock != null && itemAck.getStatus() == MatchStatus.REJECTED ? lock : null);
+            if (lock != null && itemAck.getError() != null && itemAck.getError().contains(SPEC_MISMATCH)) {
+                log.error("[OrderService] order.symbols spec disagrees with match cluster symbol={} orderId={} error={}",
+                        req.getItems().get(i).getSymbol(), lock.getOrderId(), itemAck.getError());
+            }
+        }
+        release(req.getUserId(), rejected, batch.getBatchId());
+
+        List<BatchOrderResult.Item> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            results.add(toResult(req.getItems().get(i), ack.getAcks().get(i)));
+        }
+        BatchOrderResult result = new BatchOrderResult();
+        result.setBatchId(batch.getBatchId());
+        result.setResults(results);
+        log.debug("[OrderService] Batch done batchId={} userId={} items={}",
+                batch.getBatchId(), req.getUserId(), items.size());
+        return result;
+    }
+
+    @Override
+    public OrderDTO getOrderById(Long orderId) {
+        if (activeOrderIndex.isReady()) {
+            OrderDTO active = activeOrderIndex.get(orderId);
+            if (active != null) return active;
+        }
+        OrderRecord record = orderRepository.selectById(orderId);
+        return record != null ? ActiveOrderIndex.toDTO(record) : null;
+    }
+
+    /**
+     * 分页查询历史订单，按下单时间倒序（同时间按 orderId 倒序）。不做 count 查询。
+     */
+    @Override
+    public List<OrderDTO> queryOrders(OrderQueryReq req) {
+        LambdaQueryWrapper<OrderRecord> wrapper = new LambdaQueryWrapper<OrderRecord>()
+                .eq(OrderRecord::getUserId, req.getUserId())
+                .eq(req.getSymbol() != null, OrderRecord::getSymbol, req.getSymbol())
+                .eq(req.getStatus() != null, OrderRecord::getStatus, req.getStatus())
+                .eq(req.getSide() != null, OrderRecord::getSide, req.getSide())
+                .eq(req.getOrderType() != null, OrderRecord::getOrderType, req.getOrderType())
+                .ge(req.getStartTime() != null, OrderRecord::getCreateTime, req.getStartTime())
+                .le(req.getEndTime() != null, OrderRecord::getCreateTime, req.getEndTime())
+                .orderByDesc(OrderRecord::getCreateTime)
+                .orderByDesc(OrderRecord::getOrderId);
+        Page<OrderRecord> page = orderRepository.selectPage(
+                new Page<>(req.getPage(), req.getPageSize(), false), wrapper);
+        return page.getRecords().stream().map(ActiveOrderIndex::toDTO).toList();
+    }
+
+    @Override
+    public List<OrderDTO> getActiveOrders(Long userId, String symbol) {
+        if (activeOrderIndex.isReady()) {
+            return activeOrderIndex.getActiveOrders(userId, symbol);
+        }
+        log.debug("[OrderService] Active order index not ready, reading DB userId={} symbol={}", userId, symbol);
+        return orderRepository.selectList(new LambdaQueryWrapper<OrderRecord>()
+                        .eq(OrderRecord::getUserId, userId)
+                        .eq(symbol != null, OrderRecord::getSymbol, symbol)
+                        .in(OrderRecord::getStatus, OrderStatus.NEW, OrderStatus.PARTIALLY_FILLED)
+                        .orderByAsc(OrderRecord::getOrderId))
+                .stream().map(ActiveOrderIndex::toDTO).toList();
+    }
+
+    // =========================================================================
+    // 批量委托转换
+    // =========================================================================
+
+    private BatchOrderResult.Item single(Long userId, BatchOrderItem item) {
+        BatchOrderReq batch = new BatchOrderReq();
+        batch.setUserId(userId);
+        batch.setItems(List.of(item));
+        return batchOrders(batch).getResults().get(0);
+    }
+
+    private Long resolveOrderId(CancelOrderReq req) {
+        String clientOrderId = req.getClientOrderId();
+        if (clientOrderId == null) {
+            throw new IllegalArgumentException("Cancel requires orderId or clientOrderId");
+        }
+        if (activeOrderIndex.isReady()) {
+            return activeOrderIndex.getActiveOrders(req.getUserId(), req.getSymbol()).stream()
+                    .filter(o -> clientOrderId.equals(o.getClientOrderId()))
+                    .map(OrderDTO::getOrderId)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Active order not found: clientOrderId=" + clientOrderId));
+        }
+        OrderRecord record = orderRepository.selectOne(new LambdaQueryWrapper<OrderRecord>()
+                .eq(OrderRecord::getUserId, req.getUserId())
+                .eq(OrderRecord::getSymbol, req.getSymbol())
+                .eq(OrderRecord::getClientOrderId, clientOrderId)
+                .in(OrderRecord::getStatus, OrderStatus.NEW, OrderStatus.PARTIALLY_FILLED)
+                .last("LIMIT 1"));
+        if (record == null) {
+            throw new IllegalArgumentException("Active order not found: clientOrderId=" + clientOrderId);
+        }
+        return record.getOrderId();
+    }
+
+    private BatchOrderAck submitBatch(EventBatchOrderReq batch) {
+        try {
+            return matchGateway.submitBatch(batch);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (TimeoutException e) {
+            // 超时不代表未执行：结果以结算录制投影为准
+            throw new BatchOutcomeUnknownException("Match cluster batch timeout batchId=" + batch.getBatchId(), e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Match cluster batch failed batchId=" + batch.getBatchId(), e);
+        }
+    }
+
+    /** 已发出但未拿到回包：撮合是否执行未知，冻结不可回滚。 */
+    private static final class BatchOutcomeUnknownException extends IllegalStateException {
+        BatchOutcomeUnknownException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * 新单冻结额（与撮合 / 结算口径一致）：
+     * 限价买冻结计价币 {@code price × qty × (1 + feeRate)}（quoteScale 向上取整）；卖单冻结基础币 {@code qty}。
+     * 市价买无价格上限，冻结额不可预先确定，批量委托不支持。
+     */
+    private BatchFreezeReq.Item lockOf(String orderId, BatchOrderItem item) {
+        OrderSymbolProperties.SymbolSpec spec = symbolProperties.require(item.getSymbol());
+        BatchFreezeReq.Item lock = new BatchFreezeReq.Item();
+        lock.setOrderId(orderId);
+        if (item.getSide() == OrderSide.SELL) {
+            lock.setAsset(spec.getBaseCurrency());
+            lock.setAmount(item.getQuantity().setScale(spec.getBaseScale(), RoundingMode.UP));
+            return lock;
+        }
+        if (item.getPrice() == null || item.getPrice().signum() <= 0) {
+            throw new IllegalArgumentException("Batch BUY requires a positive price (use LIMIT + IOC instead of MARKET)");
+        }
+        lock.setAsset(spec.getQuoteCurrency());
+        lock.setAmount(item.getPrice().multiply(item.getQuantity())
+                .multiply(BigDecimal.ONE.add(spec.getFeeRate()))
+                .setScale(spec.getQuoteScale(), RoundingMode.UP));
+        return lock;
+    }
+
+    /** 整批原子冻结；余额不足则整批拒绝，不进撮合。 */
+    private void freeze(Long userId, List<BatchFreezeReq.Item> locks) {
+        List<BatchFreezeReq.Item> items = locks.stream().filter(Objects::nonNull).toList();
+        if (items.isEmpty()) return;
+        BatchFreezeReq req = new BatchFreezeReq();
+        req.setUserId(userId);
+        req.setAccountType(AccountType.SPOT);
+        req.setItems(items);
+        ApiResponse<Void> resp = assetClient.batchFreeze(req);
+        if (resp == null || !resp.isSuccess()) {
+            throw new IllegalArgumentException("Batch freeze failed: " + (resp != null ? resp.getMessage() : "no response"));
+        }
+    }
+
+    /**
+     * 逐项解冻（按 orderId 幂等）。失败只记日志：资金留在冻结中，需人工或对账补解冻，不影响已完成的撮合结果。
+     */
+    private void release(Long userId, List<BatchFreezeReq.Item> locks, String batchId) {
+        for (BatchFreezeReq.Item lock : locks) {
+            if (lock == null) continue;
+            FreezeReq req = new FreezeReq();
+            req.setUserId(userId);
+            req.setAccountType(AccountType.SPOT);
+            req.setAsset(lock.getAsset());
+            req.setAmount(lock.getAmount());
+            req.setOrderId(lock.getOrderId());
+            try {
+                assetClient.unfreezeAsset(req);
+            } catch (RuntimeException e) {
+                log.error("[OrderService] Release failed batchId={} orderId={} asset={} amount={}",
+                        batchId, lock.getOrderId(), lock.getAsset(), lock.getAmount(), e);
+            }
+        }
+    }
+
+    private static EventBatchOrderReq.Item toMatchItem(Long userId, BatchOrderItem item) {
+        EventBatchOrderReq.Item m = new EventBatchOrderReq.Item();
+        m.setAction(item.getAction().name());
+        if (item.getAction() != BatchAction.PLACE) {
+            if (item.getOrderId() == null) {
+                throw new IllegalArgumentException(item.getAction() + " requires orderId");
+            }
+            m.setCancelOrderId(String.valueOf(item.getOrderId()));
+        }
+        if (item.getAction() != BatchAction.CANCEL) {
+            m.setOrder(toNewOrder(userId, item));
+        }
+        return m;
+    }
+
+    private static EventNewOrderReq toNewOrder(Long userId, BatchOrderItem item) {
+        if (item.getSymbol() == null || item.getSide() == null || item.getOrderType() == null
+                || item.getQuantity() == null) {
+            throw new IllegalArgumentException(item.getAction() + " requires symbol, side, orderType and quantity");
+        }
+        EventNewOrderReq o = new EventNewOrderReq();
+        o.setOrderId(SnowflakeId.nextIdStr());
+        o.setUserId(userId);
+        o.setSymbol(item.getSymbol());
+        o.setSide(item.getSide().name());
+        o.setOrderType(toMatchOrderType(item.getOrderType(), item.getTimeInForce()));
+        o.setPrice(item.getPrice());
+        o.setQuantity(item.getQuantity());
+        o.setClientOrderId(item.getClientOrderId());
+        return o;
+    }
+
+    /** 订单类型 + 有效期 → 撮合订单类型（与 OrderStateProjector 的反向映射一致）。止损单不走批量。 */
+    private static String toMatchOrderType(OrderType type, TimeInForce tif) {
+        if (type == OrderType.MARKET) return "MARKET";
+        if (type != OrderType.LIMIT) {
+            throw new IllegalArgumentException("Batch orders support LIMIT / MARKET only: " + type);
+        }
+        return switch (tif != null ? tif : TimeInForce.GTC) {
+            case IOC -> "IOC";
+            case FOK -> "FOK";
+            default  -> "LIMIT";
+        };
+    }
+
+    private static BatchOrderResult.Item toResult(BatchOrderItem item, BatchOrderAck.Item ack) {
+        BatchOrderResult.Item r = new BatchOrderResult.Item();
+        r.setAction(item.getAction());
+        r.setOrderId(ack.getOrderId() != null ? Long.valueOf(ack.getOrderId()) : null);
+        r.setClientOrderId(item.getClientOrderId());
+        r.setStatus(toOrderStatus(item, ack.getStatus()));
+        r.setExecutedQty(ack.getFilled());
+        r.setRemainingQty(ack.getRemaining());
+        r.setError(ack.getError());
+        return r;
+    }
+
+    /** 撮合状态 → 订单状态。未全部成交的 MARKET / IOC / FOK 不会挂单，剩余部分视为已撤。 */
+    private static OrderStatus toOrderStatus(BatchOrderItem item, MatchStatus status) {
+        if (status == null) return null;
+        return switch (status) {
+            case SUCCESS   -> OrderStatus.FILLED;
+            case CANCELLED -> OrderStatus.CANCELLED;
+            case REJECTED  -> OrderStatus.REJECTED;
+            case PENDING, PARTIALLY_FILLED -> {
+                boolean resting = item.getOrderType() == OrderType.LIMIT
+                        && (item.getTimeInForce() == null || item.getTimeInForce() == TimeInForce.GTC);
+                if (!resting) yield OrderStatus.CANCELLED;
+                yield status == MatchStatus.PENDING ? OrderStatus.NEW : OrderStatus.PARTIALLY_FILLED;
+            }
+        };
+    }
+}
@@ -0,0 +1,219 @@
+package com.exchange.order.core.projection;
+
+import com.exchange.match.enums.MatchStatus;
+import com.exchange.match.model.MatchResponse;
+import com.exchange.match.model.Trade;
+import com.exchange.order.api.enums.OrderSide;
+import com.exchange.order.api.enums.OrderStatus;
+import com.exchange.order.api.enums.OrderType;
+import com.exchange.order.api.enums.TimeInForce;
+import com.exchange.order.core.entity.OrderRecord;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 订单状态投影测试：maker 增量成交累加、改单（价 / 量 / 绝对成交量 + 增量成交额）、
+ * 按用户 / 按交易对批量撤单，以及同批多次变化只输出最后状态。
+ */
+public class OrderStateProjectorTest {
+
+    private static final String BTC = "BTCUSDT";
+    private static final String ETH = "ETHUSDT";
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private final ActiveOrderIndex index = new ActiveOrderIndex();
+
+    @Test
+    public void makerFills_accumulateAndFoldToLastState() {
+        OrderStateProjector projector = new OrderStateProjector(index,
+                List.of(active(100L, 1L, BTC, "100.00", "2")));
+        assertFalse(index.isReady());
+        projector.caughtUp();
+        assertTrue(index.isReady());
+
+        projector.apply(takerSell("200", "0.5", "0.5", trade("T1", "100", "200", "0.5", "50.00")));
+        OrderRecord maker = rows(projector.drainDirty()).get(100L);
+        assertEquals(OrderStatus.PARTIALLY_FILLED, maker.getStatus());
+        assertEquals(0, new BigDecimal("0.5").compareTo(maker.getExecutedQty()));
+        assertEquals(0, new BigDecimal("50.00").compareTo(maker.getCummulativeQuoteQty()));
+        assertEquals(new BigDecimal("100.00"), maker.getAvgPrice());
+        assertNotNull(index.get(100L));
+
+        // 同一批内被连续吃两次：drain 只输出一行最后状态
+        projector.apply(takerSell("201", "1", "1", trade("T2", "100", "201", "1", "100.00")));
+        projector.apply(takerSell("202", "0.5", "0.5", trade("T3", "100", "202", "0.5", "51.00")));
+        List<OrderRecord> dirty = projector.drainDirty();
+        assertEquals(List.of(201L, 100L, 202L), dirty.stream().map(OrderRecord::getOrderId).toList());
+        maker = rows(dirty).get(100L);
+        assertEquals(OrderStatus.FILLED, maker.getStatus());
+        assertEquals(0, new BigDecimal("201.00").compareTo(maker.getCummulativeQuoteQty()));
+        assertEquals(new BigDecimal("100.50"), maker.getAvgPrice());
+        assertNull(index.get(100L));
+
+        // 已终态的 maker 再收到成交视为未知订单，不回到活跃集合
+        projector.apply(takerSell("203", "0.1", "0.1", trade("T4", "100", "203", "0.1", "10.00")));
+        assertEquals(1, projector.getUnknownOrders());
+        assertNull(index.get(100L));
+        assertEquals(4, projector.getApplied());
+    }
+
+    @Test
+    public void amend_replacesPriceAndQuantity_andAddsOnlyIncrementalQuote() {
+        OrderRecord order = active(100L, 1L, BTC, "100.00", "2");
+        order.setExecutedQty(new BigDecimal("0.5"));
+        order.setCummulativeQuoteQty(new BigDecimal("50.00"));
+        order.setStatus(OrderStatus.PARTIALLY_FILLED);
+        OrderStateProjector projector = new OrderStateProjector(index, List.of(order));
+
+        // 改价改量，未重新成交：成交额不变
+        projector.apply(amended("100", MatchStatus.PENDING, "99.00", "3", "0.5", "0", "2.5"));
+        OrderRecord o = rows(projector.drainDirty()).get(100L);
+        assertEquals(new BigDecimal("99.00"), o.getPrice());
+        assertEquals(0, new BigDecimal("3").compareTo(o.getQuantity()));
+        assertEquals(0, new BigDecimal("50.00").compareTo(o.getCummulativeQuoteQty()));
+        assertEquals(OrderStatus.PARTIALLY_FILLED, o.getStatus());
+        assertEquals(new BigDecimal("99.00"), index.get(100L).getPrice());
+
+        // 被拒的改单：原单不变、不产生变化
+        projector.apply(amended("100", MatchStatus.REJECTED, "1.00", "9", null, null, null));
+        assertTrue(projector.drainDirty().isEmpty());
+
+        // 改单重新撮合全部成交：成交量为绝对值，成交额只累加本次增量
+        projector.apply(amended("100", MatchStatus.SUCCESS, null, null, "3", "247.50", "0"));
+        o = rows(projector.drainDirty()).get(100L);
+        assertEquals(OrderStatus.FILLED, o.getStatus());
+        assertEquals(0, new BigDecimal("3").compareTo(o.getExecutedQty()));
+        assertEquals(0, new BigDecimal("297.50").compareTo(o.getCummulativeQuoteQty()));
+        assertEquals(new BigDecimal("99.17"), o.getAvgPrice());
+        assertNull(index.get(100L));
+
+        // 未知订单的改单只计数
+        projector.apply(amended("999", MatchStatus.PENDING, "1.00", null, "0", "0", "1"));
+        assertEquals(1, projector.getUnknownOrders());
+        assertTrue(projector.drainDirty().isEmpty());
+    }
+
+    @Test
+    public void massCancel_byUserThenBySymbol() {
+        OrderStateProjector projector = new OrderStateProjector(index, List.of(
+                active(100L, 1L, BTC, "100.00", "1"),
+                active(101L, 1L, ETH, "10.00", "1"),
+                active(102L, 2L, BTC, "101.00", "1"),
+                active(103L, 2L, ETH, "11.00", "1")));
+
+        // 活跃订单上的 REJECTED 是撤单被拒，忽略
+        MatchResponse cancelRejected = response("100", MatchStatus.REJECTED);
+        cancelRejected.setUserId(1L);
+        cancelRejected.setSymbol(BTC);
+        projector.apply(cancelRejected);
+        assertTrue(projector.drainDirty().isEmpty());
+
+        MatchResponse byUser = response(null, MatchStatus.CANCELLED);
+        byUser.setUserId(1L);
+        projector.apply(byUser);
+        List<OrderRecord> cancelled = projector.drainDirty();
+        assertEquals(List.of(100L, 101L), cancelled.stream().map(OrderRecord::getOrderId).toList());
+        cancelled.forEach(r -> {
+            assertEquals(OrderStatus.CANCELLED, r.getStatus());
+            assertEquals("撤销用户全部挂单", r.getRejectReason());
+        });
+        assertTrue(index.getActiveOrders(1L, null).isEmpty());
+        assertEquals(2, index.getActiveOrders(2L, null).size());
+
+        MatchResponse bySymbol = response(null, MatchStatus.CANCELLED);
+        bySymbol.setSymbol(BTC);
+        projector.apply(bySymbol);
+        cancelled = projector.drainDirty();
+        assertEquals(List.of(102L), cancelled.stream().map(OrderRecord::getOrderId).toList());
+        assertEquals("交易对撤单 / 下架", cancelled.get(0).getRejectReason());
+        assertEquals(List.of(103L), index.getActiveOrders(2L, null).stream().map(d -> d.getOrderId()).toList());
+
+        // 既无用户也无交易对的批量撤单不动任何订单
+        projector.apply(response(null, MatchStatus.CANCELLED));
+        assertTrue(projector.drainDirty().isEmpty());
+    }
+
+    // =========================================================================
+    // Helpers
+    // =========================================================================
+
+    private static OrderRecord active(Long orderId, Long userId, String symbol, String price, String quantity) {
+        OrderRecord r = new OrderRecord();
+        r.setOrderId(orderId);
+        r.setUserId(userId);
+        r.setSymbol(symbol);
+        r.setSide(OrderSide.BUY);
+        r.setOrderType(OrderType.LIMIT);
+        r.setTimeInForce(TimeInForce.GTC);
+        r.setStatus(OrderStatus.NEW);
+        r.setPrice(new BigDecimal(price));
+        r.setQuantity(new BigDecimal(quantity));
+        r.setExecutedQty(BigDecimal.ZERO);
+        r.setCummulativeQuoteQty(BigDecimal.ZERO);
+        r.setCreateTime(T0);
+        r.setUpdateTime(T0);
+        return r;
+    }
+
+    private static MatchResponse response(String orderId, MatchStatus status) {
+        MatchResponse r = new MatchResponse();
+        r.setOrderId(orderId);
+        r.setStatus(status);
+        r.setProcessTime(T0.plusSeconds(1));
+        return r;
+    }
+
+    /** 市价卖单作为 taker 全部成交。 */
+    private static MatchResponse takerSell(String orderId, String quantity, String matched, Trade trade) {
+        MatchResponse r = response(orderId, MatchStatus.SUCCESS);
+        r.setUserId(9L);
+        r.setSymbol(BTC);
+        r.setSide(com.exchange.match.enums.OrderSide.SELL);
+        r.setOrderType(com.exchange.match.enums.OrderType.MARKET);
+        r.setOrderQuantity(new BigDecimal(quantity));
+        r.setMatchQuantity(new BigDecimal(matched));
+        r.setMatchAmount(trade.getAmount());
+        r.setMatchPrice(trade.getPrice());
+        r.setRemainingQuantity(BigDecimal.ZERO);
+        r.setTrades(List.of(trade));
+        return r;
+    }
+
+    private static MatchResponse amended(String orderId, MatchStatus status, String price, String quantity,
+                                         String matched, String amount, String remaining) {
+        MatchResponse r = response(orderId, status);
+        MatchResponse.AmendInfo info = new MatchResponse.AmendInfo();
+        info.setAmendId("A-" + orderId);
+        r.setAmendInfo(info);
+        if (price != null) r.setOrderPrice(new BigDecimal(price));
+        if (quantity != null) r.setOrderQuantity(new BigDecimal(quantity));
+        if (matched != null) r.setMatchQuantity(new BigDecimal(matched));
+        if (amount != null) r.setMatchAmount(new BigDecimal(amount));
+        if (remaining != null) r.setRemainingQuantity(new BigDecimal(remaining));
+        return r;
+    }
+
+    private static Trade trade(String tradeId, String buyOrderId, String sellOrderId, String quantity, String amount) {
+        Trade t = new Trade();
+        t.setTradeId(tradeId);
+        t.setSymbol(BTC);
+        t.setBuyOrderId(buyOrderId);
+        t.setSellOrderId(sellOrderId);
+        t.setQuantity(new BigDecimal(quantity));
+        t.setAmount(new BigDecimal(amount));
+        t.setPrice(new BigDecimal(amount).divide(new BigDecimal(quantity)));
+        return t;
+    }
+
+    private static Map<Long, OrderRecord> rows(List<OrderRecord> dirty) {
+        return dirty.stream().collect(Collectors.toMap(OrderRecord::getOrderId, Function.identity()));
+    }
+}
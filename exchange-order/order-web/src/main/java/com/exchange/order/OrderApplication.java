@@ -10,8 +10,8 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
  *
  * <p>职责：
  * <ul>
- *   <li>订单生命周期管理（创建、撤单、查询）</li>
- *   <li>消费撮合引擎 {@code state-changes} Kafka 主题，持久化订单状态变更</li>
+ *   <li>订单生命周期管理（创建、撤单、批量委托、查询）</li>
+ *   <li>回放撮合结算录制，投影订单状态（活跃订单内存索引 + 批量落库）</li>
  *   <li>提供 REST API 供网关及其他服务调用</li>
  * </ul>
  */
@@ -1,5 +1,7 @@
 package com.exchange.order.controller;
 
+import com.exchange.order.api.dto.BatchOrderReq;
+import com.exchange.order.api.dto.BatchOrderResult;
 import com.exchange.order.api.dto.CancelOrderReq;
 import com.exchange.order.api.dto.CreateOrderReq;
 import com.exchange.order.api.dto.OrderDTO;
@@ -14,7 +16,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
- * 订单操作接口（写操作：下单、撤单）。
+ * 订单操作接口（写操作：下单、撤单、批量委托）。
  */
 @Tag(name = "Order", description = "订单操作接口")
 @RestController
@@ -27,14 +29,18 @@ public class OrderController {
     @Operation(summary = "下单")
     @PostMapping("/create")
     public OrderDTO createOrder(@Valid @RequestBody CreateOrderReq req) {
-        // TODO: implement
-        throw new UnsupportedOperationException("TODO: implement createOrder");
+        return orderService.createOrder(req);
     }
 
     @Operation(summary = "撤单")
     @PostMapping("/cancel")
     public void cancelOrder(@Valid @RequestBody CancelOrderReq req) {
-        // TODO: implement
-        throw new UnsupportedOperationException("TODO: implement cancelOrder");
+        orderService.cancelOrder(req);
+    }
+
+    @Operation(summary = "批量下单 / 撤单 / 改单（整批在撮合中按序原子执行，最多 64 项）")
+    @PostMapping("/batch")
+    public BatchOrderResult batchOrders(@Valid @RequestBody BatchOrderReq req) {
+        return orderService.batchOrders(req);
     }
 }
@@ -2,6 +2,7 @@ package com.exchange.order.controller;
 
 import com.exchange.order.api.dto.OrderDTO;
 import com.exchange.order.api.dto.OrderQueryReq;
+import com.exchange.order.core.projection.ActiveOrderIndex;
 import com.exchange.order.core.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -25,27 +26,38 @@ import java.util.List;
 @RequiredArgsConstructor
 public class OrderQueryController {
 
-    private final OrderService orderService;
+    private final OrderService     orderService;
+    private final ActiveOrderIndex activeOrderIndex;
 
     @Operation(summary = "查询单个订单")
     @GetMapping("/{orderId}")
     public OrderDTO getOrder(@PathVariable Long orderId) {
-        // TODO: implement
-        throw new UnsupportedOperationException("TODO: implement getOrder");
+        return orderService.getOrderById(orderId);
     }
 
     @Operation(summary = "查询用户当前活跃挂单")
     @GetMapping("/active/{userId}/{symbol}")
     public List<OrderDTO> getActiveOrders(@PathVariable Long userId,
                                           @PathVariable String symbol) {
-        // TODO: implement
-        throw new UnsupportedOperationException("TODO: implement getActiveOrders");
+        return orderService.getActiveOrders(userId, symbol);
+    }
+
+    @Operation(summary = "查询用户全部交易对的活跃挂单")
+    @GetMapping("/active/{userId}")
+    public List<OrderDTO> getAllActiveOrders(@PathVariable Long userId) {
+        return orderService.getActiveOrders(userId, null);
+    }
+
+    @Operation(summary = "活跃订单内存索引统计")
+    @GetMapping("/active/stats")
+    public ActiveOrderIndex.Stats activeIndexStats() {
+        return activeOrderIndex.stats();
     }
 
     @Operation(summary = "分页查询历史订单")
     @PostMapping("/query")
     public List<OrderDTO> queryOrders(@Valid @RequestBody OrderQueryReq req) {
-        // TODO: implement — 返回值应包装为 Page<OrderDTO>，此处暂用 List 占位
-        throw new UnsupportedOperationException("TODO: implement queryOrders");
+        // TODO: 返回值应包装为 Page<OrderDTO>，此处暂用 List 占位
+        return orderService.queryOrders(req);
     }
 }